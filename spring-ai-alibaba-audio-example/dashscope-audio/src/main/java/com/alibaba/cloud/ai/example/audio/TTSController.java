@@ -4,6 +4,7 @@ import com.alibaba.cloud.ai.dashscope.audio.tts.DashScopeAudioSpeechOptions;
 import com.alibaba.cloud.ai.dashscope.audio.tts.DashScopeTTSApiSpec;
 import com.alibaba.cloud.ai.dashscope.spec.DashScopeModel;
 import com.alibaba.cloud.ai.example.audio.util.AudioUtils;
+import com.alibaba.cloud.ai.example.audio.util.MediaTransfer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.audio.tts.Speech;
@@ -11,14 +12,22 @@ import org.springframework.ai.audio.tts.TextToSpeechModel;
 import org.springframework.ai.audio.tts.TextToSpeechPrompt;
 import org.springframework.ai.audio.tts.TextToSpeechResponse;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SynchronousSink;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
@@ -78,10 +87,11 @@ public class TTSController {
 
     /**
      * 实时语音合成Sambert：收集完整音频后返回
-     * 适用于需要完整音频文件的场景
+     * 适用于需要完整音频文件的场景，音频块到达即写入本次请求独占的临时文件，响应直接从文件输出，不在内存中拼接，
+     * 响应写完后临时文件随输入流关闭删除
      */
     @GetMapping("/sambert/complete")
-    public Mono<byte[]> sambertComplete() {
+    public Mono<ResponseEntity<Resource>> sambertComplete() {
         DashScopeAudioSpeechOptions options = DashScopeAudioSpeechOptions.builder()
                 .model(DashScopeModel.AudioModel.SAMBERT_ZHICHU_V1.getValue())
                 .textType("PlainText")
@@ -95,38 +105,41 @@ public class TTSController {
                 .build();
 
         TextToSpeechPrompt prompt = new TextToSpeechPrompt(TEST_TEXT, options);
-        List<byte[]> speechChunks = new ArrayList<>();
 
-        // 使用Flux.subscribe()方式处理流
-        return textToSpeechModel.stream(prompt)
-                .doOnNext(response -> {
-                    Speech speech = response.getResult();
-                    speechChunks.add(speech.getOutput());
-                    logger.debug("Collected audio chunk, total chunks: {}", speechChunks.size());
-                })
-                .doOnComplete(() -> logger.info("Collection completed, total chunks: {}", speechChunks.size()))
-                .doOnError(error -> logger.error("Error collecting audio: {}", error.getMessage()))
-                .then(Mono.fromCallable(() -> {
-                    // 合并所有音频片段
-                    if (!speechChunks.isEmpty()) {
-                        byte[] mergedAudio = AudioUtils.mergeAudioChunks(speechChunks);
-                        logger.info("Successfully merged audio, total size: {} bytes", mergedAudio.length);
-
-                        // 可选：保存到文件
-                        String outputPath = SAVE_PATH + "/websocket/sambert-complete.mp3";
-                        try {
-                            AudioUtils.saveAudioFromByteChunks(speechChunks, outputPath);
-                            logger.info("Audio saved to: {}", Paths.get(outputPath).toAbsolutePath());
-                        } catch (IOException e) {
-                            logger.error("Failed to save audio file: {}", e.getMessage());
-                        }
-
-                        return mergedAudio;
-                    } else {
-                        logger.warn("No audio chunks collected");
-                        return new byte[0];
+        return Mono.using(
+                () -> MediaTransfer.openTempChunkWriter("sambert-complete-", ".mp3"),
+                writer -> textToSpeechModel.stream(prompt)
+                        .map(response -> response.getResult().getOutput())
+                        .handle((byte[] chunk, SynchronousSink<Integer> sink) -> {
+                            try {
+                                writer.write(chunk);
+                                sink.next(chunk.length);
+                            } catch (IOException e) {
+                                sink.error(e);
+                            }
+                        })
+                        .count()
+                        .flatMap(chunks -> Mono.fromCallable(() -> {
+                            if (chunks == 0) {
+                                logger.warn("No audio chunks collected");
+                            }
+                            MediaTransfer.Transfer transfer = writer.commit();
+                            logger.info("Collection completed, total chunks: {}, size: {} bytes", chunks,
+                                    transfer.bytes());
+                            InputStream audio = Files.newInputStream(transfer.path(), StandardOpenOption.DELETE_ON_CLOSE);
+                            return ResponseEntity.ok()
+                                    .contentType(MediaType.parseMediaType("audio/mpeg"))
+                                    .contentLength(transfer.bytes())
+                                    .<Resource>body(new InputStreamResource(audio));
+                        })),
+                writer -> {
+                    try {
+                        writer.close();
+                    } catch (IOException e) {
+                        logger.warn("Failed to close audio file: {}", e.getMessage());
                     }
-                }));
+                })
+                .doOnError(error -> logger.error("Error collecting audio: {}", error.getMessage()));
     }
 
     // ==================== Qwen-TTS Model Methods ====================
@@ -19,15 +19,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.Duration;
 import java.util.Base64;
 import java.util.List;
 
@@ -49,41 +43,7 @@ public class AudioUtils {
      */
     public static void saveAudioFromUrl(String audioUrl, String outputPath) throws IOException {
         logger.info("Downloading audio from URL: {}", audioUrl);
-
-        // 确保输出目录存在
-        Path path = Paths.get(outputPath);
-        Path parentDir = path.getParent();
-        if (parentDir != null && !Files.exists(parentDir)) {
-            Files.createDirectories(parentDir);
-        }
-
-        // 使用 HttpClient 下载文件
-        HttpClient client = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(30))
-                .build();
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(audioUrl))
-                .timeout(Duration.ofSeconds(60))
-                .GET()
-                .build();
-
-        try {
-            HttpResponse<InputStream> response = client.send(request,
-                    HttpResponse.BodyHandlers.ofInputStream());
-
-            // 保存文件
-            try (InputStream in = response.body();
-                 var out = Files.newOutputStream(path)) {
-                in.transferTo(out);
-            }
-        }
-        catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IOException("Download interrupted", e);
-        }
-
-        logger.info("Audio saved to: {} (size: {} bytes)", path.toAbsolutePath(), Files.size(path));
+        MediaTransfer.download(audioUrl, Paths.get(outputPath));
     }
 
     /**
@@ -119,20 +79,14 @@ public class AudioUtils {
      * @throws IOException 保存失败时抛出
      */
     public static void saveAudioFromByteChunks(List<byte[]> audioChunks, String outputPath) throws IOException {
-        // 计算总大小
-        int totalSize = audioChunks.stream().mapToInt(chunk -> chunk.length).sum();
-        logger.info("Concatenating {} audio chunks (total: {} bytes)", audioChunks.size(), totalSize);
-
-        // 拼接所有音频块
-        byte[] combinedAudio = new byte[totalSize];
-        int offset = 0;
-        for (byte[] chunk : audioChunks) {
-            System.arraycopy(chunk, 0, combinedAudio, offset, chunk.length);
-            offset += chunk.length;
+        logger.info("Saving {} audio chunks", audioChunks.size());
+        // 逐块写入文件，不在内存中拼接
+        try (MediaTransfer.ChunkWriter writer = MediaTransfer.openChunkWriter(Paths.get(outputPath))) {
+            for (byte[] chunk : audioChunks) {
+                writer.write(chunk);
+            }
+            writer.commit();
         }
-
-        // 保存合并后的音频
-        saveAudioFromBytes(combinedAudio, outputPath);
     }
 
     /**
@@ -190,17 +144,17 @@ public class AudioUtils {
         int bitsPerSample = 16;   // 16-bit
         int byteRate = sampleRate * channels * bitsPerSample / 8;
 
-        // 创建 WAV 文件
+        // 创建 WAV 文件，文件头与 PCM 数据直接写入文件，不再拼接成新数组
         byte[] wavData = createWavHeader(pcmData.length, sampleRate, channels, bitsPerSample);
-        byte[] fileData = new byte[wavData.length + pcmData.length];
-        System.arraycopy(wavData, 0, fileData, 0, wavData.length);
-        System.arraycopy(pcmData, 0, fileData, wavData.length, pcmData.length);
-
-        // 保存文件
-        Files.write(path, fileData);
+        try (MediaTransfer.ChunkWriter writer = MediaTransfer.openChunkWriter(path)) {
+            writer.write(wavData);
+            writer.write(pcmData);
+            writer.commit();
+        }
 
         logger.info("WAV audio saved to: {} (PCM: {} bytes, total: {} bytes, {} Hz, {} ch, {} bit)",
-                path.toAbsolutePath(), pcmData.length, fileData.length, sampleRate, channels, bitsPerSample);
+                path.toAbsolutePath(), pcmData.length, wavData.length + pcmData.length, sampleRate, channels,
+                bitsPerSample);
     }
 
     /**
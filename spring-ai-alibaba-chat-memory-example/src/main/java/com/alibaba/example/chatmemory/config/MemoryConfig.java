@@ -19,11 +19,21 @@ package com.alibaba.example.chatmemory.config;
 import com.alibaba.cloud.ai.memory.jdbc.MysqlChatMemoryRepository;
 import com.alibaba.cloud.ai.memory.jdbc.SQLiteChatMemoryRepository;
 import com.alibaba.cloud.ai.memory.redis.RedissonRedisChatMemoryRepository;
+import com.alibaba.example.chatmemory.memory.CachingChatMemoryRepository;
+import com.alibaba.example.chatmemory.memory.ChatMemoryDataSources;
+import com.alibaba.example.chatmemory.memory.ChatMemorySummarizer;
+import com.alibaba.example.chatmemory.memory.TransactionalChatMemoryRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 
 
 /**
@@ -51,29 +61,64 @@ public class MemoryConfig {
 	private String mysqlPassword;
 	@Value("${spring.ai.chat.memory.repository.jdbc.mysql.driver-class-name}")
 	private String mysqlDriverClassName;
+	@Value("${spring.ai.chat.memory.repository.jdbc.mysql.max-pool-size:10}")
+	private int mysqlPoolSize;
+	@Value("${spring.ai.chat.memory.repository.jdbc.sqlite.max-pool-size:4}")
+	private int sqlitePoolSize;
+
+	@Value("${spring.ai.chat.memory.summary.max-words:300}")
+	private int summaryMaxWords;
+	@Value("${spring.ai.chat.memory.summary.threads:2}")
+	private int summaryThreads;
+
+	@Value("${spring.ai.chat.memory.cache.max-conversations:1000}")
+	private int cacheMaxConversations;
+	@Value("${spring.ai.chat.memory.cache.durability:ASYNC}")
+	private CachingChatMemoryRepository.Durability cacheDurability;
+	@Value("${spring.ai.chat.memory.cache.flush-interval:500ms}")
+	private Duration cacheFlushInterval;
+	@Value("${spring.ai.chat.memory.cache.max-batch-size:100}")
+	private int cacheMaxBatchSize;
+
+	// 摘要使用不带记忆 advisor 的独立 ChatClient
+	@Bean
+	public ChatMemorySummarizer chatMemorySummarizer(ChatClient.Builder chatClientBuilder) {
+		return new ChatMemorySummarizer(chatClientBuilder.build(), summaryMaxWords, summaryThreads);
+	}
+
+	@Bean(autowireCandidate = false)
+	public HikariDataSource sqliteDataSource() {
+		return ChatMemoryDataSources.sqlite(
+				"jdbc:sqlite:spring-ai-alibaba-chat-memory-example/src/main/resources/chat-memory.db",
+				sqlitePoolSize);
+	}
 
 	@Bean
 	public SQLiteChatMemoryRepository sqliteChatMemoryRepository() {
-		DriverManagerDataSource dataSource = new DriverManagerDataSource();
-		dataSource.setDriverClassName("org.sqlite.JDBC");
-		dataSource.setUrl("jdbc:sqlite:spring-ai-alibaba-chat-memory-example/src/main/resources/chat-memory.db");
-		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
-		return SQLiteChatMemoryRepository.sqliteBuilder()
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(sqliteDataSource());
+		SQLiteChatMemoryRepository repository = SQLiteChatMemoryRepository.sqliteBuilder()
 				.jdbcTemplate(jdbcTemplate)
 				.build();
+		// 表由 repository 构建时创建，索引需在其之后建立
+		ChatMemoryDataSources.ensureConversationIndex(jdbcTemplate.getDataSource());
+		return repository;
+	}
+
+	@Bean(autowireCandidate = false)
+	public HikariDataSource mysqlDataSource() {
+		return ChatMemoryDataSources.mysql(mysqlJdbcUrl, mysqlUsername, mysqlPassword, mysqlDriverClassName,
+				mysqlPoolSize);
 	}
 
 	@Bean
 	public MysqlChatMemoryRepository mysqlChatMemoryRepository() {
-		DriverManagerDataSource dataSource = new DriverManagerDataSource();
-		dataSource.setDriverClassName(mysqlDriverClassName);
-		dataSource.setUrl(mysqlJdbcUrl);
-		dataSource.setUsername(mysqlUsername);
-		dataSource.setPassword(mysqlPassword);
-		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
-		return MysqlChatMemoryRepository.mysqlBuilder()
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(mysqlDataSource());
+		MysqlChatMemoryRepository repository = MysqlChatMemoryRepository.mysqlBuilder()
 				.jdbcTemplate(jdbcTemplate)
 				.build();
+		// 表由 repository 构建时创建；远程库可能不可用，索引检查放到后台执行，不拖慢启动
+		CompletableFuture.runAsync(() -> ChatMemoryDataSources.ensureConversationIndex(jdbcTemplate.getDataSource()));
+		return repository;
 	}
 
 	@Bean
@@ -86,4 +131,45 @@ public class MemoryConfig {
 				.timeout(redisTimeout)
 				.build();
 	}
+
+	// SQLite 同一时刻只允许一个写事务，写操作排队到单个写线程
+	@Bean
+	public TransactionalChatMemoryRepository transactionalSqliteChatMemoryRepository() {
+		return TransactionalChatMemoryRepository.singleWriter(sqliteChatMemoryRepository(), sqliteDataSource(),
+				"sqlite");
+	}
+
+	@Bean
+	public TransactionalChatMemoryRepository transactionalMysqlChatMemoryRepository() {
+		return TransactionalChatMemoryRepository.of(mysqlChatMemoryRepository(), mysqlDataSource());
+	}
+
+	@Bean
+	public CachingChatMemoryRepository cachingSqliteChatMemoryRepository(MeterRegistry meterRegistry) {
+		return cachingRepository("sqlite", transactionalSqliteChatMemoryRepository(), meterRegistry);
+	}
+
+	@Bean
+	public CachingChatMemoryRepository cachingMysqlChatMemoryRepository(MeterRegistry meterRegistry) {
+		return cachingRepository("mysql", transactionalMysqlChatMemoryRepository(), meterRegistry);
+	}
+
+	@Bean
+	public CachingChatMemoryRepository cachingRedisChatMemoryRepository(
+			RedissonRedisChatMemoryRepository redisChatMemoryRepository, MeterRegistry meterRegistry) {
+		return cachingRepository("redis", redisChatMemoryRepository, meterRegistry);
+	}
+
+	// 本地缓存热点会话并合并写入，每轮对话不再整窗读写后端存储
+	private CachingChatMemoryRepository cachingRepository(String name, ChatMemoryRepository delegate,
+			MeterRegistry meterRegistry) {
+		return CachingChatMemoryRepository.builder(delegate)
+				.name(name)
+				.maxConversations(cacheMaxConversations)
+				.durability(cacheDurability)
+				.flushInterval(cacheFlushInterval)
+				.maxBatchSize(cacheMaxBatchSize)
+				.meterRegistry(meterRegistry)
+				.build();
+	}
 }
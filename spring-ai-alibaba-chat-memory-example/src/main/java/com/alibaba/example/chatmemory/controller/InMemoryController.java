@@ -16,10 +16,11 @@
 
 package com.alibaba.example.chatmemory.controller;
 
+import com.alibaba.example.chatmemory.memory.ChatMemorySummarizer;
+import com.alibaba.example.chatmemory.memory.TokenBudgetChatMemory;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
 import org.springframework.ai.chat.memory.InMemoryChatMemoryRepository;
-import org.springframework.ai.chat.memory.MessageWindowChatMemory;
 import org.springframework.ai.chat.messages.Message;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -40,16 +41,19 @@ public class InMemoryController {
 
     private final ChatClient chatClient;
     private final InMemoryChatMemoryRepository chatMemoryRepository = new InMemoryChatMemoryRepository();
-    private final int MAX_MESSAGES = 100;
-    private final MessageWindowChatMemory messageWindowChatMemory = MessageWindowChatMemory.builder()
-            .chatMemoryRepository(chatMemoryRepository)
-            .maxMessages(MAX_MESSAGES)
-            .build();
+    private final int MAX_TOKENS = 4000;
+    private final TokenBudgetChatMemory chatMemory;
+
+    public InMemoryController(ChatClient.Builder builder, ChatMemorySummarizer summarizer) {
+        this.chatMemory = TokenBudgetChatMemory.builder()
+                .chatMemoryRepository(chatMemoryRepository)
+                .maxTokens(MAX_TOKENS)
+                .summarizer(summarizer)
+                .build();
 
-    public InMemoryController(ChatClient.Builder builder) {
         this.chatClient = builder
                 .defaultAdvisors(
-                        MessageChatMemoryAdvisor.builder(messageWindowChatMemory)
+                        MessageChatMemoryAdvisor.builder(chatMemory)
                                 .build()
                 )
                 .build();
@@ -68,7 +72,7 @@ public class InMemoryController {
 
     @GetMapping("/messages")
     public List<Message> messages(@RequestParam(value = "conversation_id", defaultValue = "yingzi") String conversationId) {
-        return messageWindowChatMemory.get(conversationId);
+        return chatMemory.get(conversationId);
     }
 
 }
@@ -16,12 +16,14 @@
 
 package com.alibaba.example.chatmemory.controller;
 
-import com.alibaba.cloud.ai.memory.redis.RedissonRedisChatMemoryRepository;
+import com.alibaba.example.chatmemory.memory.ChatMemorySummarizer;
+import com.alibaba.example.chatmemory.memory.TokenBudgetChatMemory;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
 import org.springframework.ai.chat.memory.InMemoryChatMemoryRepository;
-import org.springframework.ai.chat.memory.MessageWindowChatMemory;
 import org.springframework.ai.chat.messages.Message;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -40,18 +42,20 @@ import static org.springframework.ai.chat.memory.ChatMemory.CONVERSATION_ID;
 public class RedisMemoryController {
 
     private final ChatClient chatClient;
-    private final int MAX_MESSAGES = 100;
-    private final MessageWindowChatMemory messageWindowChatMemory;
+    private final int MAX_TOKENS = 4000;
+    private final TokenBudgetChatMemory chatMemory;
 
-    public RedisMemoryController(ChatClient.Builder builder, RedissonRedisChatMemoryRepository redisChatMemoryRepository) {
-        this.messageWindowChatMemory = MessageWindowChatMemory.builder()
+    public RedisMemoryController(ChatClient.Builder builder, ChatMemorySummarizer summarizer,
+            @Qualifier("cachingRedisChatMemoryRepository") ChatMemoryRepository redisChatMemoryRepository) {
+        this.chatMemory = TokenBudgetChatMemory.builder()
                 .chatMemoryRepository(redisChatMemoryRepository)
-                .maxMessages(MAX_MESSAGES)
+                .maxTokens(MAX_TOKENS)
+                .summarizer(summarizer)
                 .build();
 
         this.chatClient = builder
                 .defaultAdvisors(
-                        MessageChatMemoryAdvisor.builder(messageWindowChatMemory)
+                        MessageChatMemoryAdvisor.builder(chatMemory)
                                 .build()
                 )
                 .build();
@@ -70,6 +74,6 @@ public class RedisMemoryController {
 
     @GetMapping("/messages")
     public List<Message> messages(@RequestParam(value = "conversation_id", defaultValue = "yingzi") String conversationId) {
-        return messageWindowChatMemory.get(conversationId);
+        return chatMemory.get(conversationId);
     }
 }
@@ -0,0 +1,388 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.example.chatmemory.memory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 为任意 {@link ChatMemoryRepository} 增加本地读缓存与批量异步写的装饰器。
+ * <ul>
+ * <li>读：热点会话保存在容量有限的 LRU 缓存中，命中时不访问后端存储。</li>
+ * <li>写：与当前内容相同的写入直接忽略；{@link Durability#ASYNC} 模式下同一会话在一个刷新周期内的多次写入
+ * （如一轮对话中的用户消息与模型回复）只合并为一次后端写入，由后台线程按批次刷新。</li>
+ * <li>指标：缓存命中、刷新结果、待刷新会话数与最旧未刷新写入的延迟，均带 {@code repository} 标签。</li>
+ * </ul>
+ * 后端接口只提供整体覆盖的 {@code saveAll}，因此增量只用于跳过与合并写入，落库时仍写入完整窗口。
+ */
+public class CachingChatMemoryRepository implements ChatMemoryRepository, DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(CachingChatMemoryRepository.class);
+
+	private static final int LOCK_STRIPES = 64;
+
+	public enum Durability {
+
+		/**
+		 * 在调用线程中同步写入后端，返回即已持久化
+		 */
+		SYNC,
+
+		/**
+		 * 写入本地后立即返回，由后台线程按 flushInterval 批量写入后端；进程异常退出会丢失最近一个周期的写入
+		 */
+		ASYNC
+
+	}
+
+	private final ChatMemoryRepository delegate;
+
+	private final Durability durability;
+
+	private final int maxBatchSize;
+
+	private final Map<String, List<Message>> cache;
+
+	private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+
+	private final Object[] locks = new Object[LOCK_STRIPES];
+
+	private final ScheduledExecutorService flusher;
+
+	private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+	private final Counter hits;
+
+	private final Counter misses;
+
+	private final Counter flushSuccess;
+
+	private final Counter flushFailure;
+
+	private final Timer flushTimer;
+
+	private CachingChatMemoryRepository(Builder builder) {
+		this.delegate = builder.delegate;
+		this.durability = builder.durability;
+		this.maxBatchSize = builder.maxBatchSize;
+		int maxConversations = builder.maxConversations;
+		this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, List<Message>> eldest) {
+				return size() > maxConversations;
+			}
+		};
+		for (int i = 0; i < LOCK_STRIPES; i++) {
+			locks[i] = new Object();
+		}
+
+		MeterRegistry registry = builder.meterRegistry;
+		String name = builder.name;
+		this.hits = Counter.builder("chat.memory.cache.requests").tag("repository", name).tag("result", "hit")
+				.register(registry);
+		this.misses = Counter.builder("chat.memory.cache.requests").tag("repository", name).tag("result", "miss")
+				.register(registry);
+		this.flushSuccess = Counter.builder("chat.memory.flush.writes").tag("repository", name).tag("result", "success")
+				.register(registry);
+		this.flushFailure = Counter.builder("chat.memory.flush.writes").tag("repository", name).tag("result", "failure")
+				.register(registry);
+		this.flushTimer = Timer.builder("chat.memory.flush.duration").tag("repository", name).register(registry);
+		Gauge.builder("chat.memory.flush.pending", pending, Map::size).tag("repository", name).register(registry);
+		Gauge.builder("chat.memory.flush.lag", this, CachingChatMemoryRepository::flushLagMillis)
+				.tag("repository", name).baseUnit("milliseconds").register(registry);
+
+		if (durability == Durability.ASYNC) {
+			this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "chat-memory-flusher-" + name);
+				thread.setDaemon(true);
+				return thread;
+			});
+			long interval = builder.flushInterval.toMillis();
+			this.flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+		}
+		else {
+			this.flusher = null;
+		}
+	}
+
+	public static Builder builder(ChatMemoryRepository delegate) {
+		return new Builder(delegate);
+	}
+
+	@Override
+	public List<String> findConversationIds() {
+		Set<String> ids = new LinkedHashSet<>(delegate.findConversationIds());
+		ids.addAll(pending.keySet());
+		return new ArrayList<>(ids);
+	}
+
+	@Override
+	public List<Message> findByConversationId(String conversationId) {
+		Pending write = pending.get(conversationId);
+		if (write != null) {
+			hits.increment();
+			return write.messages;
+		}
+		List<Message> cached;
+		synchronized (cache) {
+			cached = cache.get(conversationId);
+		}
+		if (cached != null) {
+			hits.increment();
+			return cached;
+		}
+
+		misses.increment();
+		synchronized (lock(conversationId)) {
+			// 加锁后再检查一次，避免与并发写入交错时用旧数据覆盖缓存
+			write = pending.get(conversationId);
+			if (write != null) {
+				return write.messages;
+			}
+			List<Message> loaded = List.copyOf(delegate.findByConversationId(conversationId));
+			synchronized (cache) {
+				cache.put(conversationId, loaded);
+			}
+			return loaded;
+		}
+	}
+
+	@Override
+	public void saveAll(String conversationId, List<Message> messages) {
+		List<Message> snapshot = List.copyOf(messages);
+		synchronized (lock(conversationId)) {
+			if (snapshot.equals(current(conversationId))) {
+				return;
+			}
+			synchronized (cache) {
+				cache.put(conversationId, snapshot);
+			}
+			if (durability == Durability.SYNC) {
+				delegate.saveAll(conversationId, snapshot);
+				return;
+			}
+			// 保留最早一次未刷新写入的时间，用于计算刷新延迟
+			pending.compute(conversationId, (id, previous) -> new Pending(snapshot,
+					previous != null ? previous.since : System.nanoTime()));
+		}
+		if (pending.size() >= maxBatchSize && !flusher.isShutdown() && flushScheduled.compareAndSet(false, true)) {
+			flusher.execute(() -> {
+				flushScheduled.set(false);
+				flushQuietly();
+			});
+		}
+	}
+
+	@Override
+	public void deleteByConversationId(String conversationId) {
+		synchronized (lock(conversationId)) {
+			pending.remove(conversationId);
+			synchronized (cache) {
+				cache.remove(conversationId);
+			}
+			delegate.deleteByConversationId(conversationId);
+		}
+	}
+
+	/**
+	 * 将所有未刷新的写入同步写入后端，每批最多 maxBatchSize 个会话
+	 * @return 成功写入的会话数
+	 */
+	public int flush() {
+		int flushed = 0;
+		List<String> ids = new ArrayList<>(pending.keySet());
+		for (int from = 0; from < ids.size(); from += maxBatchSize) {
+			List<String> batch = ids.subList(from, Math.min(from + maxBatchSize, ids.size()));
+			Timer.Sample sample = Timer.start();
+			flushed += flushBatch(batch);
+			sample.stop(flushTimer);
+		}
+		return flushed;
+	}
+
+	@Override
+	public void destroy() {
+		if (flusher != null) {
+			flusher.shutdown();
+			try {
+				flusher.awaitTermination(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		flush();
+		if (!pending.isEmpty()) {
+			logger.warn("{} conversations were not flushed before shutdown", pending.size());
+		}
+	}
+
+	private int flushBatch(List<String> conversationIds) {
+		int flushed = 0;
+		for (String conversationId : conversationIds) {
+			synchronized (lock(conversationId)) {
+				Pending write = pending.get(conversationId);
+				if (write == null) {
+					continue;
+				}
+				try {
+					delegate.saveAll(conversationId, write.messages);
+					// 持有锁期间不会有新写入，可以直接移除
+					pending.remove(conversationId);
+					flushSuccess.increment();
+					flushed++;
+				}
+				catch (RuntimeException e) {
+					// 保留在待刷新集合中，下个周期重试
+					flushFailure.increment();
+					logger.warn("Failed to flush chat memory of conversation {}", conversationId, e);
+				}
+			}
+		}
+		return flushed;
+	}
+
+	private void flushQuietly() {
+		try {
+			flush();
+		}
+		catch (RuntimeException e) {
+			logger.warn("Chat memory flush failed", e);
+		}
+	}
+
+	private List<Message> current(String conversationId) {
+		Pending write = pending.get(conversationId);
+		if (write != null) {
+			return write.messages;
+		}
+		synchronized (cache) {
+			return cache.get(conversationId);
+		}
+	}
+
+	private double flushLagMillis() {
+		long now = System.nanoTime();
+		long oldest = pending.values().stream().mapToLong(write -> write.since).min().orElse(now);
+		return TimeUnit.NANOSECONDS.toMillis(now - oldest);
+	}
+
+	private Object lock(String conversationId) {
+		return locks[Math.floorMod(conversationId.hashCode(), LOCK_STRIPES)];
+	}
+
+	private record Pending(List<Message> messages, long since) {
+	}
+
+	public static class Builder {
+
+		private final ChatMemoryRepository delegate;
+
+		private String name;
+
+		private int maxConversations = 1000;
+
+		private Durability durability = Durability.ASYNC;
+
+		private Duration flushInterval = Duration.ofMillis(500);
+
+		private int maxBatchSize = 100;
+
+		private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+		private Builder(ChatMemoryRepository delegate) {
+			this.delegate = delegate;
+			this.name = delegate.getClass().getSimpleName();
+		}
+
+		/**
+		 * 指标中 repository 标签的取值，默认为被装饰类的类名
+		 */
+		public Builder name(String name) {
+			this.name = name;
+			return this;
+		}
+
+		/**
+		 * 本地缓存的最大会话数，超出后按 LRU 淘汰；未刷新的写入不受淘汰影响
+		 */
+		public Builder maxConversations(int maxConversations) {
+			this.maxConversations = maxConversations;
+			return this;
+		}
+
+		public Builder durability(Durability durability) {
+			this.durability = durability;
+			return this;
+		}
+
+		/**
+		 * ASYNC 模式下的刷新周期
+		 */
+		public Builder flushInterval(Duration flushInterval) {
+			this.flushInterval = flushInterval;
+			return this;
+		}
+
+		/**
+		 * 每批刷新的最大会话数；待刷新会话数达到该值时立即触发一次刷新
+		 */
+		public Builder maxBatchSize(int maxBatchSize) {
+			this.maxBatchSize = maxBatchSize;
+			return this;
+		}
+
+		public Builder meterRegistry(MeterRegistry meterRegistry) {
+			this.meterRegistry = meterRegistry;
+			return this;
+		}
+
+		public CachingChatMemoryRepository build() {
+			Assert.notNull(delegate, "delegate must not be null");
+			Assert.hasText(name, "name must not be empty");
+			Assert.isTrue(maxConversations > 0, "maxConversations must be positive");
+			Assert.isTrue(maxBatchSize > 0, "maxBatchSize must be positive");
+			Assert.isTrue(flushInterval != null && !flushInterval.isNegative() && !flushInterval.isZero(),
+					"flushInterval must be positive");
+			return new CachingChatMemoryRepository(this);
+		}
+
+	}
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.example.chatmemory.memory;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * JDBC 会话记忆使用的连接池与表结构初始化。
+ */
+public final class ChatMemoryDataSources {
+
+	private static final Logger logger = LoggerFactory.getLogger(ChatMemoryDataSources.class);
+
+	public static final String TABLE_NAME = "ai_chat_memory";
+
+	private ChatMemoryDataSources() {
+	}
+
+	/**
+	 * SQLite 连接池：开启 WAL，读连接可以并发，写入需配合
+	 * {@link TransactionalChatMemoryRepository#singleWriter} 串行执行，避免 SQLITE_BUSY
+	 */
+	public static HikariDataSource sqlite(String jdbcUrl, int maxPoolSize) {
+		HikariConfig config = new HikariConfig();
+		config.setPoolName("chat-memory-sqlite");
+		config.setDriverClassName("org.sqlite.JDBC");
+		config.setJdbcUrl(jdbcUrl);
+		config.setMaximumPoolSize(maxPoolSize);
+		// sqlite-jdbc 将同名连接属性作为 PRAGMA 应用到每个新连接
+		config.addDataSourceProperty("journal_mode", "WAL");
+		config.addDataSourceProperty("synchronous", "NORMAL");
+		config.addDataSourceProperty("busy_timeout", "5000");
+		return new HikariDataSource(config);
+	}
+
+	/**
+	 * MySQL 连接池：缓存预编译语句，并将 JDBC 批量插入改写为多行 INSERT
+	 */
+	public static HikariDataSource mysql(String jdbcUrl, String username, String password, String driverClassName,
+			int maxPoolSize) {
+		HikariConfig config = new HikariConfig();
+		config.setPoolName("chat-memory-mysql");
+		config.setDriverClassName(driverClassName);
+		config.setJdbcUrl(jdbcUrl);
+		config.setUsername(username);
+		config.setPassword(password);
+		config.setMaximumPoolSize(maxPoolSize);
+		// 数据库未启动时不阻止应用启动，首次使用时再建立连接
+		config.setInitializationFailTimeout(-1);
+		config.addDataSourceProperty("cachePrepStmts", "true");
+		config.addDataSourceProperty("prepStmtCacheSize", "250");
+		config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+		config.addDataSourceProperty("useServerPrepStmts", "true");
+		config.addDataSourceProperty("rewriteBatchedStatements", "true");
+		return new HikariDataSource(config);
+	}
+
+	/**
+	 * 确保会话表上存在 (conversation_id, timestamp) 索引，按会话读取窗口和删除时不再全表扫描。
+	 * 表由 ChatMemoryRepository 构建时创建，需在 repository 构建之后调用；表尚未创建时跳过，失败只记录日志，不影响启动。
+	 */
+	public static void ensureConversationIndex(DataSource dataSource) {
+		try (Connection connection = dataSource.getConnection()) {
+			DatabaseMetaData metaData = connection.getMetaData();
+			String table = resolveTableName(metaData);
+			if (table == null) {
+				logger.info("Table {} does not exist yet, skip creating the conversation index", TABLE_NAME);
+				return;
+			}
+			if (hasConversationIndex(metaData, table)) {
+				return;
+			}
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("CREATE INDEX idx_" + TABLE_NAME + "_conversation_ts ON " + table
+						+ " (conversation_id, timestamp)");
+			}
+			logger.info("Created index on {} (conversation_id, timestamp)", table);
+		}
+		catch (SQLException e) {
+			logger.warn("Failed to create the conversation index on {}", TABLE_NAME, e);
+		}
+	}
+
+	private static String resolveTableName(DatabaseMetaData metaData) throws SQLException {
+		for (String candidate : new String[] { TABLE_NAME, TABLE_NAME.toUpperCase() }) {
+			try (ResultSet tables = metaData.getTables(null, null, candidate, null)) {
+				if (tables.next()) {
+					return tables.getString("TABLE_NAME");
+				}
+			}
+		}
+		return null;
+	}
+
+	private static boolean hasConversationIndex(DatabaseMetaData metaData, String table) throws SQLException {
+		try (ResultSet indexes = metaData.getIndexInfo(null, null, table, false, true)) {
+			while (indexes.next()) {
+				if (indexes.getShort("ORDINAL_POSITION") == 1
+						&& "conversation_id".equalsIgnoreCase(indexes.getString("COLUMN_NAME"))) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.example.chatmemory.memory;
+
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 将被移出窗口的消息合并进滚动摘要，由 {@link TokenBudgetChatMemory} 在后台调用。
+ */
+public class ChatMemorySummarizer implements DisposableBean {
+
+	private static final String PROMPT = """
+			请将已有摘要与新增的对话记录合并为一份新的摘要，供后续对话作为上下文使用。
+			保留用户身份、偏好、已确认的事实、未解决的问题和约定事项，省略寒暄与重复内容。
+			摘要不超过 %d 字，只输出摘要正文。
+
+			已有摘要：
+			%s
+
+			新增对话：
+			%s
+			""";
+
+	private final ChatClient chatClient;
+
+	private final int maxWords;
+
+	private final ExecutorService executor;
+
+	public ChatMemorySummarizer(ChatClient chatClient, int maxWords, int threads) {
+		this.chatClient = chatClient;
+		this.maxWords = maxWords;
+		AtomicInteger counter = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "chat-memory-summarizer-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	public String summarize(String previousSummary, List<Message> evicted) {
+		StringBuilder transcript = new StringBuilder();
+		for (Message message : evicted) {
+			transcript.append(message.getMessageType().getValue()).append(": ").append(message.getText()).append('\n');
+		}
+		// 对话内容可能包含模板分隔符，直接拼接而不经过模板渲染
+		String prompt = PROMPT.formatted(maxWords, previousSummary == null ? "（无）" : previousSummary, transcript);
+		return chatClient.prompt().user(prompt).call().content();
+	}
+
+	void execute(Runnable task) {
+		executor.execute(task);
+	}
+
+	@Override
+	public void destroy() {
+		executor.shutdown();
+	}
+
+}
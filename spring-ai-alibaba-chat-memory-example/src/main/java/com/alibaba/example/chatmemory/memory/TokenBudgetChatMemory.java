@@ -0,0 +1,412 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.example.chatmemory.memory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按 token 预算而不是消息条数限制的会话记忆，替代 {@code MessageWindowChatMemory}。
+ * <ul>
+ * <li>窗口内消息的 token 数超过 maxTokens 时，从最早的非系统消息开始移出窗口。</li>
+ * <li>移出的消息由 {@link ChatMemorySummarizer} 在后台合并进滚动摘要，不阻塞当前对话。</li>
+ * <li>摘要以带 {@link #SUMMARY_PREFIX} 前缀的系统消息保存在窗口首位，随窗口一起持久化，任意后端都可恢复。</li>
+ * <li>每条消息的 token 数只在加入时计算一次，并按会话缓存。</li>
+ * </ul>
+ * 因此每轮发送的记忆不超过 maxTokens 加上一段长度受限的摘要。
+ */
+public class TokenBudgetChatMemory implements ChatMemory {
+
+	private static final Logger logger = LoggerFactory.getLogger(TokenBudgetChatMemory.class);
+
+	public static final String SUMMARY_PREFIX = "以下是此前对话的摘要：\n";
+
+	private static final int LOCK_STRIPES = 64;
+
+	private static final int MAX_CACHED_WINDOWS = 1000;
+
+	private static final int MAX_SUMMARY_ATTEMPTS = 5;
+
+	private static final long RETRY_BACKOFF_MILLIS = 30_000L;
+
+	private static final long MAX_RETRY_BACKOFF_MILLIS = 10 * 60_000L;
+
+	private final ChatMemoryRepository chatMemoryRepository;
+
+	private final TokenCountEstimator tokenCountEstimator;
+
+	private final ChatMemorySummarizer summarizer;
+
+	private final int maxTokens;
+
+	private final Map<String, Window> windows = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Window> eldest) {
+			return size() > MAX_CACHED_WINDOWS;
+		}
+	});
+
+	private final Map<String, LinkedList<Message>> evicted = new ConcurrentHashMap<>();
+
+	/**
+	 * 摘要失败的消息，只在下一次移出消息且退避时间已过时重新提交
+	 */
+	private final Map<String, FailedBatch> failed = new ConcurrentHashMap<>();
+
+	private final Set<String> summarizing = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * 每次 clear 递增的会话代数；摘要任务在锁外调用模型，写回前比对代数，clear 之后完成的摘要直接丢弃
+	 */
+	private final Map<String, Long> generations = new ConcurrentHashMap<>();
+
+	private final Object[] locks = new Object[LOCK_STRIPES];
+
+	private TokenBudgetChatMemory(Builder builder) {
+		this.chatMemoryRepository = builder.chatMemoryRepository;
+		this.tokenCountEstimator = builder.tokenCountEstimator;
+		this.summarizer = builder.summarizer;
+		this.maxTokens = builder.maxTokens;
+		for (int i = 0; i < LOCK_STRIPES; i++) {
+			locks[i] = new Object();
+		}
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	@Override
+	public void add(String conversationId, List<Message> messages) {
+		Assert.hasText(conversationId, "conversationId cannot be null or empty");
+		Assert.notNull(messages, "messages cannot be null");
+		boolean hasEvicted = false;
+		synchronized (lock(conversationId)) {
+			Stored stored = load(conversationId);
+			Window window = stored.window().append(messages, tokenCountEstimator);
+			List<Message> removed = new ArrayList<>();
+			window = window.evictOver(maxTokens, removed);
+			windows.put(conversationId, window);
+			chatMemoryRepository.saveAll(conversationId, stored.withWindow(window.messages()));
+			if (!removed.isEmpty()) {
+				hasEvicted = queueEvicted(conversationId, removed);
+			}
+		}
+		if (hasEvicted) {
+			scheduleSummary(conversationId);
+		}
+	}
+
+	/**
+	 * 有失败批次时，新移出的消息追加到失败批次之后以保持顺序，退避时间过后整体重新排队
+	 * @return 是否有待摘要的消息
+	 */
+	private boolean queueEvicted(String conversationId, List<Message> removed) {
+		FailedBatch parked = failed.get(conversationId);
+		if (parked == null) {
+			evicted.computeIfAbsent(conversationId, id -> new LinkedList<>()).addAll(removed);
+			return true;
+		}
+		parked.messages().addAll(removed);
+		if (System.currentTimeMillis() < parked.retryAt()) {
+			return false;
+		}
+		failed.remove(conversationId);
+		LinkedList<Message> retry = parked.messages();
+		LinkedList<Message> pending = evicted.remove(conversationId);
+		if (pending != null) {
+			retry.addAll(pending);
+		}
+		evicted.put(conversationId, retry);
+		return true;
+	}
+
+	@Override
+	public List<Message> get(String conversationId) {
+		Assert.hasText(conversationId, "conversationId cannot be null or empty");
+		return chatMemoryRepository.findByConversationId(conversationId);
+	}
+
+	@Override
+	public void clear(String conversationId) {
+		Assert.hasText(conversationId, "conversationId cannot be null or empty");
+		synchronized (lock(conversationId)) {
+			chatMemoryRepository.deleteByConversationId(conversationId);
+			windows.remove(conversationId);
+			evicted.remove(conversationId);
+			failed.remove(conversationId);
+			generations.merge(conversationId, 1L, Long::sum);
+		}
+	}
+
+	/**
+	 * 同一会话同时只有一个摘要任务，任务执行期间新移出的消息在本任务内继续合并
+	 */
+	private void scheduleSummary(String conversationId) {
+		if (!summarizing.add(conversationId)) {
+			return;
+		}
+		summarizer.execute(() -> {
+			boolean succeeded;
+			try {
+				succeeded = summarizeAll(conversationId);
+			}
+			finally {
+				summarizing.remove(conversationId);
+			}
+			// 失败的批次已停放到 failed，不在这里重试
+			if (succeeded && evicted.containsKey(conversationId)) {
+				scheduleSummary(conversationId);
+			}
+		});
+	}
+
+	/**
+	 * @return 全部批次都摘要成功时返回 true
+	 */
+	private boolean summarizeAll(String conversationId) {
+		while (true) {
+			List<Message> batch;
+			String previousSummary;
+			int attempts;
+			long generation;
+			synchronized (lock(conversationId)) {
+				LinkedList<Message> pending = evicted.remove(conversationId);
+				if (pending == null) {
+					return true;
+				}
+				attempts = pending instanceof RetryList retry ? retry.attempts : 0;
+				batch = pending;
+				previousSummary = load(conversationId).summary();
+				generation = generation(conversationId);
+			}
+
+			String summary;
+			try {
+				summary = summarizer.summarize(previousSummary, batch);
+			}
+			catch (RuntimeException e) {
+				park(conversationId, generation, batch, attempts + 1, e);
+				return false;
+			}
+
+			synchronized (lock(conversationId)) {
+				if (generation(conversationId) != generation) {
+					// 摘要期间会话被清空，摘要内容属于已删除的历史，继续处理清空后新移出的消息
+					continue;
+				}
+				Stored stored = load(conversationId);
+				chatMemoryRepository.saveAll(conversationId,
+						new Stored(summary, stored.window()).withWindow(stored.window().messages()));
+			}
+		}
+	}
+
+	/**
+	 * 停放失败的批次（连同期间新移出的消息），按指数退避等待下一次移出消息时重试；超过最大次数后放弃这些消息
+	 */
+	private void park(String conversationId, long generation, List<Message> batch, int attempts,
+			RuntimeException e) {
+		synchronized (lock(conversationId)) {
+			if (generation(conversationId) != generation) {
+				return;
+			}
+			RetryList messages = new RetryList(attempts);
+			messages.addAll(batch);
+			LinkedList<Message> pending = evicted.remove(conversationId);
+			if (pending != null) {
+				messages.addAll(pending);
+			}
+			if (attempts >= MAX_SUMMARY_ATTEMPTS) {
+				logger.warn("Giving up summarizing {} messages of conversation {} after {} attempts", messages.size(),
+						conversationId, attempts, e);
+				return;
+			}
+			long backoff = Math.min(RETRY_BACKOFF_MILLIS << (attempts - 1), MAX_RETRY_BACKOFF_MILLIS);
+			failed.put(conversationId, new FailedBatch(messages, System.currentTimeMillis() + backoff));
+			logger.warn("Failed to summarize {} messages of conversation {} (attempt {}), retrying after {} ms",
+					messages.size(), conversationId, attempts, backoff, e);
+		}
+	}
+
+	private Stored load(String conversationId) {
+		List<Message> messages = chatMemoryRepository.findByConversationId(conversationId);
+		String summary = null;
+		List<Message> windowMessages = messages;
+		if (!messages.isEmpty() && messages.get(0) instanceof SystemMessage first && first.getText() != null
+				&& first.getText().startsWith(SUMMARY_PREFIX)) {
+			summary = first.getText().substring(SUMMARY_PREFIX.length());
+			windowMessages = messages.subList(1, messages.size());
+		}
+		Window cached = windows.get(conversationId);
+		Window window = cached != null && cached.messages().equals(windowMessages) ? cached
+				: Window.of(windowMessages, tokenCountEstimator);
+		return new Stored(summary, window);
+	}
+
+	private long generation(String conversationId) {
+		return generations.getOrDefault(conversationId, 0L);
+	}
+
+	private Object lock(String conversationId) {
+		return locks[Math.floorMod(conversationId.hashCode(), LOCK_STRIPES)];
+	}
+
+	private record FailedBatch(RetryList messages, long retryAt) {
+
+	}
+
+	/**
+	 * 记录已失败次数的待摘要列表
+	 */
+	private static final class RetryList extends LinkedList<Message> {
+
+		private final int attempts;
+
+		private RetryList(int attempts) {
+			this.attempts = attempts;
+		}
+
+	}
+
+	private record Stored(String summary, Window window) {
+
+		List<Message> withWindow(List<Message> messages) {
+			if (summary == null) {
+				return messages;
+			}
+			List<Message> result = new ArrayList<>(messages.size() + 1);
+			result.add(new SystemMessage(SUMMARY_PREFIX + summary));
+			result.addAll(messages);
+			return result;
+		}
+
+	}
+
+	/**
+	 * 窗口内的消息及其 token 数，不可变
+	 */
+	private record Window(List<Message> messages, int[] tokens, int total) {
+
+		static Window of(List<Message> messages, TokenCountEstimator estimator) {
+			return new Window(List.of(), new int[0], 0).append(messages, estimator);
+		}
+
+		Window append(List<Message> added, TokenCountEstimator estimator) {
+			List<Message> merged = new ArrayList<>(messages.size() + added.size());
+			merged.addAll(messages);
+			merged.addAll(added);
+			int[] mergedTokens = Arrays.copyOf(tokens, merged.size());
+			int mergedTotal = total;
+			for (int i = messages.size(); i < merged.size(); i++) {
+				String text = merged.get(i).getText();
+				mergedTokens[i] = text == null ? 0 : estimator.estimate(text);
+				mergedTotal += mergedTokens[i];
+			}
+			return new Window(List.copyOf(merged), mergedTokens, mergedTotal);
+		}
+
+		/**
+		 * 从最早的非系统消息开始移出，直到不超过预算；最新一条消息始终保留
+		 */
+		Window evictOver(int maxTokens, List<Message> removed) {
+			if (total <= maxTokens) {
+				return this;
+			}
+			List<Message> kept = new ArrayList<>(messages.size());
+			int[] keptTokens = new int[messages.size()];
+			int keptTotal = total;
+			int last = messages.size() - 1;
+			for (int i = 0; i < messages.size(); i++) {
+				Message message = messages.get(i);
+				if (keptTotal > maxTokens && i < last && !(message instanceof SystemMessage)) {
+					removed.add(message);
+					keptTotal -= tokens[i];
+					continue;
+				}
+				keptTokens[kept.size()] = tokens[i];
+				kept.add(message);
+			}
+			return new Window(List.copyOf(kept), Arrays.copyOf(keptTokens, kept.size()), keptTotal);
+		}
+
+	}
+
+	public static class Builder {
+
+		private ChatMemoryRepository chatMemoryRepository;
+
+		private TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+
+		private ChatMemorySummarizer summarizer;
+
+		private int maxTokens = 4000;
+
+		private Builder() {
+		}
+
+		public Builder chatMemoryRepository(ChatMemoryRepository chatMemoryRepository) {
+			this.chatMemoryRepository = chatMemoryRepository;
+			return this;
+		}
+
+		public Builder tokenCountEstimator(TokenCountEstimator tokenCountEstimator) {
+			this.tokenCountEstimator = tokenCountEstimator;
+			return this;
+		}
+
+		public Builder summarizer(ChatMemorySummarizer summarizer) {
+			this.summarizer = summarizer;
+			return this;
+		}
+
+		/**
+		 * 窗口内消息的 token 预算，不含摘要
+		 */
+		public Builder maxTokens(int maxTokens) {
+			this.maxTokens = maxTokens;
+			return this;
+		}
+
+		public TokenBudgetChatMemory build() {
+			Assert.notNull(chatMemoryRepository, "chatMemoryRepository cannot be null");
+			Assert.notNull(tokenCountEstimator, "tokenCountEstimator cannot be null");
+			Assert.notNull(summarizer, "summarizer cannot be null");
+			Assert.isTrue(maxTokens > 0, "maxTokens must be greater than 0");
+			return new TokenBudgetChatMemory(this);
+		}
+
+	}
+
+}
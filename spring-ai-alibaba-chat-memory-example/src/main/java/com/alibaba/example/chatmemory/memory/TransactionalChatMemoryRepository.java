@@ -0,0 +1,116 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.example.chatmemory.memory;
+
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 在一个事务内执行 JDBC 会话记忆的写操作：{@code saveAll} 的删除与批量插入只提交一次，而不是逐行自动提交。
+ * 被装饰的仓库必须使用同一个 {@link DataSource} 构建的 JdbcTemplate，才能加入该事务。
+ * <p>
+ * {@link #singleWriter} 额外将所有写操作排队到单个写线程，适用于同一时刻只允许一个写事务的 SQLite。
+ */
+public class TransactionalChatMemoryRepository implements ChatMemoryRepository, DisposableBean {
+
+	private final ChatMemoryRepository delegate;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final ExecutorService writer;
+
+	private TransactionalChatMemoryRepository(ChatMemoryRepository delegate, DataSource dataSource,
+			ExecutorService writer) {
+		this.delegate = delegate;
+		this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		this.writer = writer;
+	}
+
+	public static TransactionalChatMemoryRepository of(ChatMemoryRepository delegate, DataSource dataSource) {
+		return new TransactionalChatMemoryRepository(delegate, dataSource, null);
+	}
+
+	public static TransactionalChatMemoryRepository singleWriter(ChatMemoryRepository delegate, DataSource dataSource,
+			String name) {
+		ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "chat-memory-writer-" + name);
+			thread.setDaemon(true);
+			return thread;
+		});
+		return new TransactionalChatMemoryRepository(delegate, dataSource, writer);
+	}
+
+	@Override
+	public List<String> findConversationIds() {
+		return delegate.findConversationIds();
+	}
+
+	@Override
+	public List<Message> findByConversationId(String conversationId) {
+		return delegate.findByConversationId(conversationId);
+	}
+
+	@Override
+	public void saveAll(String conversationId, List<Message> messages) {
+		write(() -> delegate.saveAll(conversationId, messages));
+	}
+
+	@Override
+	public void deleteByConversationId(String conversationId) {
+		write(() -> delegate.deleteByConversationId(conversationId));
+	}
+
+	@Override
+	public void destroy() {
+		if (writer != null) {
+			writer.shutdown();
+		}
+	}
+
+	private void write(Runnable operation) {
+		Runnable transactional = () -> transactionTemplate.executeWithoutResult(status -> operation.run());
+		if (writer == null) {
+			transactional.run();
+			return;
+		}
+		Future<?> result = writer.submit(transactional);
+		try {
+			result.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the chat memory writer", e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.example.chatmemory.memory;
+
+import com.alibaba.cloud.ai.memory.jdbc.MysqlChatMemoryRepository;
+import com.alibaba.cloud.ai.memory.jdbc.SQLiteChatMemoryRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JDBC 会话记忆每秒可完成的对话轮数：每轮读取一次窗口，再写回追加了用户消息与模型回复的窗口。
+ * {@code pool=driver-manager} 为原先每次操作新建物理连接、逐条自动提交的方式，
+ * {@code pool=hikari} 为连接池 + 单事务批量写入。
+ * <p>
+ * 默认只运行 SQLite（临时文件）；MySQL 需先启动数据库，通过 {@code -p backend=mysql} 以及
+ * {@code -Dbenchmark.mysql.url / username / password} 指定连接。运行：在 IDE 中执行 {@link #main(String[])}。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(4)
+@Fork(1)
+public class JdbcChatMemoryBenchmark {
+
+	private static final int CONVERSATIONS = 64;
+
+	private static final int WINDOW = 20;
+
+	@Param({ "sqlite" })
+	private String backend;
+
+	@Param({ "driver-manager", "hikari" })
+	private String pool;
+
+	private DataSource dataSource;
+
+	private ChatMemoryRepository repository;
+
+	private Path databaseFile;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		if ("sqlite".equals(backend)) {
+			databaseFile = Files.createTempFile("chat-memory-bench", ".db");
+			String url = "jdbc:sqlite:" + databaseFile;
+			dataSource = "hikari".equals(pool) ? ChatMemoryDataSources.sqlite(url, 4)
+					: driverManager("org.sqlite.JDBC", url, null, null);
+			new JdbcTemplate(dataSource).execute("CREATE TABLE IF NOT EXISTS ai_chat_memory ("
+					+ "conversation_id TEXT NOT NULL, content TEXT NOT NULL, type TEXT NOT NULL, "
+					+ "timestamp REAL NOT NULL, CHECK (type IN ('USER', 'ASSISTANT', 'SYSTEM', 'TOOL')))");
+			SQLiteChatMemoryRepository sqlite = SQLiteChatMemoryRepository.sqliteBuilder()
+				.jdbcTemplate(new JdbcTemplate(dataSource))
+				.build();
+			repository = "hikari".equals(pool)
+					? TransactionalChatMemoryRepository.singleWriter(sqlite, dataSource, "bench") : sqlite;
+		}
+		else if ("mysql".equals(backend)) {
+			String url = System.getProperty("benchmark.mysql.url",
+					"jdbc:mysql://localhost:3306/spring_ai_alibaba_mysql");
+			String username = System.getProperty("benchmark.mysql.username", "root");
+			String password = System.getProperty("benchmark.mysql.password", "root");
+			String driver = "com.mysql.cj.jdbc.Driver";
+			dataSource = "hikari".equals(pool) ? ChatMemoryDataSources.mysql(url, username, password, driver, 8)
+					: driverManager(driver, url, username, password);
+			MysqlChatMemoryRepository mysql = MysqlChatMemoryRepository.mysqlBuilder()
+				.jdbcTemplate(new JdbcTemplate(dataSource))
+				.build();
+			repository = "hikari".equals(pool) ? TransactionalChatMemoryRepository.of(mysql, dataSource) : mysql;
+		}
+		else {
+			throw new IllegalArgumentException("Unknown backend " + backend);
+		}
+		ChatMemoryDataSources.ensureConversationIndex(dataSource);
+		for (int i = 0; i < CONVERSATIONS; i++) {
+			repository.deleteByConversationId(conversationId(i));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		if (repository instanceof TransactionalChatMemoryRepository transactional) {
+			transactional.destroy();
+		}
+		if (dataSource instanceof HikariDataSource hikari) {
+			hikari.close();
+		}
+		if (databaseFile != null) {
+			Files.deleteIfExists(databaseFile);
+		}
+	}
+
+	@Benchmark
+	public int turn() {
+		String conversationId = conversationId(ThreadLocalRandom.current().nextInt(CONVERSATIONS));
+		List<Message> window = new ArrayList<>(repository.findByConversationId(conversationId));
+		window.add(new UserMessage("用户消息 " + window.size()));
+		window.add(new AssistantMessage("模型回复 " + window.size()));
+		if (window.size() > WINDOW) {
+			window = new ArrayList<>(window.subList(window.size() - WINDOW, window.size()));
+		}
+		repository.saveAll(conversationId, window);
+		return window.size();
+	}
+
+	private static String conversationId(int index) {
+		return "bench-" + index;
+	}
+
+	private static DataSource driverManager(String driver, String url, String username, String password) {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource();
+		dataSource.setDriverClassName(driver);
+		dataSource.setUrl(url);
+		dataSource.setUsername(username);
+		dataSource.setPassword(password);
+		return dataSource;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(JdbcChatMemoryBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
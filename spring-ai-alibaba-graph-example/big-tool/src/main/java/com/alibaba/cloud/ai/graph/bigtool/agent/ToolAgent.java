@@ -20,6 +20,7 @@ import com.alibaba.cloud.ai.graph.bigtool.service.VectorStoreService;
 import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.cloud.ai.graph.action.NodeAction;
 import com.alibaba.cloud.ai.graph.bigtool.constants.Constant;
+import com.alibaba.cloud.ai.graph.bigtool.index.ToolIndex;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.document.Document;
@@ -79,7 +80,10 @@ public class ToolAgent implements NodeAction {
 			.call()
 			.chatResponse();
 
-		List<Document> hitTool = vectorStoreService.search(response.getResult().getOutput().getText(), 3);
+		// 按参数签名过滤在向量打分之前完成
+		String parameterTypes = (String) state.value(Constant.PARAMETER_TYPES_FILTER).orElse(null);
+		List<Document> hitTool = vectorStoreService.search(response.getResult().getOutput().getText(), 3,
+				ToolIndex.signatureFilter(parameterTypes));
 
 		Map<String, Object> updatedState = new HashMap<>();
 		updatedState.put(Constant.HIT_TOOL, hitTool);
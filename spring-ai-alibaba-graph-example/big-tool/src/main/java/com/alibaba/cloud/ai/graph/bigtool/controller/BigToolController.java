@@ -73,7 +73,8 @@ public class BigToolController {
 				.addPatternStrategy(Constant.INPUT_KEY, new ReplaceStrategy())
 				.addPatternStrategy(Constant.HIT_TOOL, new ReplaceStrategy())
 				.addPatternStrategy(Constant.SOLUTION, new ReplaceStrategy())
-				.addPatternStrategy(Constant.TOOL_LIST, new ReplaceStrategy()).build();
+				.addPatternStrategy(Constant.TOOL_LIST, new ReplaceStrategy())
+				.addPatternStrategy(Constant.PARAMETER_TYPES_FILTER, new ReplaceStrategy()).build();
 
 		ToolAgent tools = new ToolAgent(chatClient, Constant.INPUT_KEY, vectorStoreService);
 
@@ -115,9 +116,18 @@ public class BigToolController {
 
 	}
 
+	/**
+	 * @param parameterTypes optional parameter signature such as {@code double,double},
+	 * only tools with exactly these parameter types are searched
+	 */
 	@GetMapping("/search")
-	public String search(@RequestParam String query) {
-		Optional<OverAllState> invoke = compiledGraph.invoke(Map.of(Constant.INPUT_KEY, query, Constant.TOOL_LIST, documents));
+	public String search(@RequestParam String query,
+			@RequestParam(value = "parameter_types", required = false) String parameterTypes) {
+		Map<String, Object> inputs = new HashMap<>(Map.of(Constant.INPUT_KEY, query, Constant.TOOL_LIST, documents));
+		if (parameterTypes != null) {
+			inputs.put(Constant.PARAMETER_TYPES_FILTER, parameterTypes);
+		}
+		Optional<OverAllState> invoke = compiledGraph.invoke(inputs);
 		return invoke.get().value("solution").get().toString();
 	}
 
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.bigtool.index;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+/**
+ * Minimal in-memory HNSW (Hierarchical Navigable Small World) graph over normalized
+ * vectors, scored by inner product (i.e. cosine similarity).
+ * <p>
+ * Not thread-safe; {@link ToolIndex} guards it with a read/write lock.
+ */
+class HnswIndex {
+
+	private final int m;
+
+	private final int maxM0;
+
+	private final int efConstruction;
+
+	private final double levelMultiplier;
+
+	private final SplittableRandom random = new SplittableRandom(42);
+
+	private final List<Node> nodes = new ArrayList<>();
+
+	private int entryPoint = -1;
+
+	private int maxLevel = -1;
+
+	HnswIndex(int m, int efConstruction) {
+		this.m = Math.max(2, m);
+		this.maxM0 = this.m * 2;
+		this.efConstruction = Math.max(this.m, efConstruction);
+		this.levelMultiplier = 1 / Math.log(this.m);
+	}
+
+	int size() {
+		return nodes.size();
+	}
+
+	/**
+	 * Insert a vector and return its node id. The vector must already be normalized.
+	 */
+	int add(float[] vector) {
+		int level = randomLevel();
+		int id = nodes.size();
+		nodes.add(new Node(vector, level, m, maxM0));
+		if (entryPoint < 0) {
+			entryPoint = id;
+			maxLevel = level;
+			return id;
+		}
+
+		int ep = entryPoint;
+		for (int l = maxLevel; l > level; l--) {
+			ep = greedyClosest(vector, ep, l);
+		}
+		for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+			List<Candidate> candidates = searchLayer(vector, ep, efConstruction, l);
+			int limit = Math.min(l == 0 ? maxM0 : m, candidates.size());
+			for (int i = 0; i < limit; i++) {
+				int neighbor = candidates.get(i).id();
+				connect(id, neighbor, l);
+				connect(neighbor, id, l);
+			}
+			ep = candidates.get(0).id();
+		}
+		if (level > maxLevel) {
+			entryPoint = id;
+			maxLevel = level;
+		}
+		return id;
+	}
+
+	/**
+	 * @return up to {@code k} node ids with their similarity, best first
+	 */
+	List<Candidate> search(float[] query, int k, int ef) {
+		if (entryPoint < 0 || k <= 0) {
+			return List.of();
+		}
+		int ep = entryPoint;
+		for (int l = maxLevel; l > 0; l--) {
+			ep = greedyClosest(query, ep, l);
+		}
+		List<Candidate> result = searchLayer(query, ep, Math.max(ef, k), 0);
+		return result.size() > k ? result.subList(0, k) : result;
+	}
+
+	private int greedyClosest(float[] query, int ep, int level) {
+		int current = ep;
+		double best = dot(query, nodes.get(current).vector);
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			Node node = nodes.get(current);
+			for (int i = 0; i < node.sizes[level]; i++) {
+				int neighbor = node.links[level][i];
+				double similarity = dot(query, nodes.get(neighbor).vector);
+				if (similarity > best) {
+					best = similarity;
+					current = neighbor;
+					changed = true;
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * Best-first beam search on one layer, result sorted by descending similarity.
+	 */
+	private List<Candidate> searchLayer(float[] query, int ep, int ef, int level) {
+		BitSet visited = new BitSet(nodes.size());
+		PriorityQueue<Candidate> candidates = new PriorityQueue<>(Comparator.comparingDouble(Candidate::similarity).reversed());
+		PriorityQueue<Candidate> results = new PriorityQueue<>(Comparator.comparingDouble(Candidate::similarity));
+
+		Candidate start = new Candidate(ep, dot(query, nodes.get(ep).vector));
+		visited.set(ep);
+		candidates.add(start);
+		results.add(start);
+
+		while (!candidates.isEmpty()) {
+			Candidate current = candidates.poll();
+			if (results.size() >= ef && current.similarity() < results.peek().similarity()) {
+				break;
+			}
+			Node node = nodes.get(current.id());
+			if (node.level() < level) {
+				continue;
+			}
+			for (int i = 0; i < node.sizes[level]; i++) {
+				int neighbor = node.links[level][i];
+				if (visited.get(neighbor)) {
+					continue;
+				}
+				visited.set(neighbor);
+				double similarity = dot(query, nodes.get(neighbor).vector);
+				if (results.size() < ef || similarity > results.peek().similarity()) {
+					Candidate candidate = new Candidate(neighbor, similarity);
+					candidates.add(candidate);
+					results.add(candidate);
+					if (results.size() > ef) {
+						results.poll();
+					}
+				}
+			}
+		}
+
+		List<Candidate> sorted = new ArrayList<>(results);
+		sorted.sort(Comparator.comparingDouble(Candidate::similarity).reversed());
+		return sorted;
+	}
+
+	/**
+	 * Add {@code to} to the neighbor list of {@code from}, replacing the weakest link
+	 * when the list is full.
+	 */
+	private void connect(int from, int to, int level) {
+		Node node = nodes.get(from);
+		int[] links = node.links[level];
+		int size = node.sizes[level];
+		for (int i = 0; i < size; i++) {
+			if (links[i] == to) {
+				return;
+			}
+		}
+		if (size < links.length) {
+			links[size] = to;
+			node.sizes[level]++;
+			return;
+		}
+		int weakest = -1;
+		double weakestSimilarity = dot(node.vector, nodes.get(to).vector);
+		for (int i = 0; i < size; i++) {
+			double similarity = dot(node.vector, nodes.get(links[i]).vector);
+			if (similarity < weakestSimilarity) {
+				weakestSimilarity = similarity;
+				weakest = i;
+			}
+		}
+		if (weakest >= 0) {
+			links[weakest] = to;
+		}
+	}
+
+	private int randomLevel() {
+		return (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+	}
+
+	static double dot(float[] a, float[] b) {
+		double sum = 0;
+		for (int i = 0; i < a.length; i++) {
+			sum += a[i] * b[i];
+		}
+		return sum;
+	}
+
+	static float[] normalize(float[] vector) {
+		double norm = Math.sqrt(dot(vector, vector));
+		float[] normalized = new float[vector.length];
+		if (norm == 0) {
+			return normalized;
+		}
+		for (int i = 0; i < vector.length; i++) {
+			normalized[i] = (float) (vector[i] / norm);
+		}
+		return normalized;
+	}
+
+	record Candidate(int id, double similarity) {
+	}
+
+	private static final class Node {
+
+		private final float[] vector;
+
+		private final int[][] links;
+
+		private final int[] sizes;
+
+		private Node(float[] vector, int level, int m, int maxM0) {
+			this.vector = vector;
+			this.links = new int[level + 1][];
+			for (int l = 0; l <= level; l++) {
+				this.links[l] = new int[l == 0 ? maxM0 : m];
+			}
+			this.sizes = new int[level + 1];
+		}
+
+		private int level() {
+			return links.length - 1;
+		}
+
+	}
+
+}
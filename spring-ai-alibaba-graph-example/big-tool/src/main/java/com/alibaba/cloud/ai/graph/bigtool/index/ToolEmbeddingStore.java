@@ -0,0 +1,154 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.bigtool.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * File-backed embedding cache keyed by the SHA-256 hash of the embedded text, so a
+ * tool description is embedded once and reused across restarts.
+ * <p>
+ * File layout: {@code int magic, UTF model, int dimension, int count}, then
+ * {@code count} entries of {@code UTF hash, float[dimension]}. The whole file is
+ * rewritten through a temporary file on {@link #flush()}; a file written for another
+ * model or dimension is ignored.
+ */
+public class ToolEmbeddingStore {
+
+	private static final Logger logger = LoggerFactory.getLogger(ToolEmbeddingStore.class);
+
+	private static final int MAGIC = 0x42544531;
+
+	private final Path file;
+
+	private final String model;
+
+	private final Map<String, float[]> embeddings = new LinkedHashMap<>();
+
+	private int dimension = -1;
+
+	private boolean dirty;
+
+	public ToolEmbeddingStore(Path file, String model) {
+		this.file = file;
+		this.model = model;
+		load();
+	}
+
+	public synchronized float[] get(String hash) {
+		return embeddings.get(hash);
+	}
+
+	public synchronized void put(String hash, float[] embedding) {
+		if (dimension < 0) {
+			dimension = embedding.length;
+		}
+		else if (dimension != embedding.length) {
+			throw new IllegalArgumentException(
+					"Embedding dimension changed from " + dimension + " to " + embedding.length);
+		}
+		embeddings.put(hash, embedding);
+		dirty = true;
+	}
+
+	public synchronized int size() {
+		return embeddings.size();
+	}
+
+	public synchronized void flush() {
+		if (!dirty) {
+			return;
+		}
+		try {
+			Files.createDirectories(file.getParent());
+			Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+				out.writeInt(MAGIC);
+				out.writeUTF(model);
+				out.writeInt(dimension);
+				out.writeInt(embeddings.size());
+				for (Map.Entry<String, float[]> entry : embeddings.entrySet()) {
+					out.writeUTF(entry.getKey());
+					for (float value : entry.getValue()) {
+						out.writeFloat(value);
+					}
+				}
+			}
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			dirty = false;
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Failed to write tool embeddings to " + file, e);
+		}
+	}
+
+	private void load() {
+		if (!Files.isRegularFile(file)) {
+			return;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readInt() != MAGIC || !model.equals(in.readUTF())) {
+				logger.info("Ignoring tool embeddings in {} written for another model", file);
+				return;
+			}
+			int storedDimension = in.readInt();
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String hash = in.readUTF();
+				float[] embedding = new float[storedDimension];
+				for (int d = 0; d < storedDimension; d++) {
+					embedding[d] = in.readFloat();
+				}
+				embeddings.put(hash, embedding);
+			}
+			this.dimension = storedDimension;
+			logger.info("Loaded {} tool embeddings from {}", count, file);
+		}
+		catch (IOException e) {
+			logger.warn("Failed to read tool embeddings from {}, they will be recomputed: {}", file, e.getMessage());
+			embeddings.clear();
+		}
+	}
+
+	public static String contentHash(String text) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 not available", e);
+		}
+	}
+
+}
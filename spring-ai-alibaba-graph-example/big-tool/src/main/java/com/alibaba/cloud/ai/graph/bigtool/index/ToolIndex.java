@@ -0,0 +1,144 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.bigtool.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.springframework.ai.document.Document;
+
+/**
+ * Tool index partitioned by parameter signature (e.g. {@code "double,double"}). Each
+ * partition owns its own {@link HnswIndex}, so a parameter-type filter selects
+ * partitions before any vector is scored and a lookup only walks the HNSW graphs of the
+ * matching signatures.
+ */
+public class ToolIndex {
+
+	private final int m;
+
+	private final int efConstruction;
+
+	private final int efSearch;
+
+	private final Map<String, Partition> partitions = new HashMap<>();
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	public ToolIndex(int m, int efConstruction, int efSearch) {
+		this.m = m;
+		this.efConstruction = efConstruction;
+		this.efSearch = efSearch;
+	}
+
+	public void add(Document document, String signature, float[] embedding) {
+		lock.writeLock().lock();
+		try {
+			Partition partition = partitions.computeIfAbsent(signature, s -> new Partition(new HnswIndex(m, efConstruction)));
+			partition.index.add(HnswIndex.normalize(embedding));
+			partition.documents.add(document);
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @param embedding query embedding
+	 * @param topK maximum number of tools to return
+	 * @param signatureFilter selects the parameter signatures to search, evaluated
+	 * before scoring
+	 * @return matching tools, best first, with their similarity as score
+	 */
+	public List<Document> search(float[] embedding, int topK, Predicate<String> signatureFilter) {
+		float[] query = HnswIndex.normalize(embedding);
+		PriorityQueue<Hit> best = new PriorityQueue<>(Comparator.comparingDouble(Hit::similarity));
+		lock.readLock().lock();
+		try {
+			for (Map.Entry<String, Partition> entry : partitions.entrySet()) {
+				if (!signatureFilter.test(entry.getKey())) {
+					continue;
+				}
+				Partition partition = entry.getValue();
+				for (HnswIndex.Candidate candidate : partition.index.search(query, topK, efSearch)) {
+					if (best.size() < topK) {
+						best.add(new Hit(partition.documents.get(candidate.id()), candidate.similarity()));
+					}
+					else if (candidate.similarity() > best.peek().similarity()) {
+						best.poll();
+						best.add(new Hit(partition.documents.get(candidate.id()), candidate.similarity()));
+					}
+				}
+			}
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+		List<Hit> hits = new ArrayList<>(best);
+		hits.sort(Comparator.comparingDouble(Hit::similarity).reversed());
+		return hits.stream()
+			.map(hit -> hit.document().mutate().score(hit.similarity()).build())
+			.collect(Collectors.toList());
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return partitions.values().stream().mapToInt(partition -> partition.documents.size()).sum();
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public static String signature(Class<?>[] parameterTypes) {
+		return Arrays.stream(parameterTypes).map(Class::getName).collect(Collectors.joining(","));
+	}
+
+	/**
+	 * @param parameterTypes comma separated parameter type names such as
+	 * {@code "double, double"}, blank matches every signature
+	 * @return filter accepting only that exact parameter signature
+	 */
+	public static Predicate<String> signatureFilter(String parameterTypes) {
+		if (parameterTypes == null || parameterTypes.isBlank()) {
+			return signature -> true;
+		}
+		String expected = parameterTypes.replaceAll("\\s+", "");
+		return expected::equals;
+	}
+
+	private record Partition(HnswIndex index, List<Document> documents) {
+
+		private Partition(HnswIndex index) {
+			this(index, new ArrayList<>());
+		}
+
+	}
+
+	private record Hit(Document document, double similarity) {
+	}
+
+}
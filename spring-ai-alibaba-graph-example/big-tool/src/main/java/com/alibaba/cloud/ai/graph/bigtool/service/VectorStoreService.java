@@ -16,34 +16,108 @@
 
 package com.alibaba.cloud.ai.graph.bigtool.service;
 
+import com.alibaba.cloud.ai.graph.bigtool.constants.Constant;
+import com.alibaba.cloud.ai.graph.bigtool.index.ToolEmbeddingStore;
+import com.alibaba.cloud.ai.graph.bigtool.index.ToolIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.embedding.EmbeddingModel;
-
-import org.springframework.ai.vectorstore.SearchRequest;
-import org.springframework.ai.vectorstore.SimpleVectorStore;
-import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
 
 @Service
 public class VectorStoreService {
 
+	private static final Logger logger = LoggerFactory.getLogger(VectorStoreService.class);
+
+	private static final int EMBEDDING_BATCH_SIZE = 25;
+
+	private static final int QUERY_CACHE_SIZE = 256;
+
 	private final EmbeddingModel embeddingModel;
 
-	private final VectorStore vectorStore;
+	private final ToolEmbeddingStore embeddingStore;
+
+	private final ToolIndex toolIndex;
+
+	/**
+	 * Recently embedded queries, so repeated keywords skip the embedding call
+	 */
+	private final Map<String, float[]> queryEmbeddings = Collections
+		.synchronizedMap(new LinkedHashMap<>(QUERY_CACHE_SIZE, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+				return size() > QUERY_CACHE_SIZE;
+			}
+		});
 
-	public VectorStoreService(EmbeddingModel embeddingModel) {
+	public VectorStoreService(EmbeddingModel embeddingModel,
+			@Value("${big-tool.index.path:${user.dir}/tool-index}") Path indexPath,
+			@Value("${spring.ai.dashscope.embedding.options.model:text-embedding-v1}") String embeddingModelName,
+			@Value("${big-tool.index.hnsw.m:16}") int m,
+			@Value("${big-tool.index.hnsw.ef-construction:100}") int efConstruction,
+			@Value("${big-tool.index.hnsw.ef-search:50}") int efSearch) {
 		this.embeddingModel = embeddingModel;
-		this.vectorStore = SimpleVectorStore.builder(embeddingModel).build();
+		this.embeddingStore = new ToolEmbeddingStore(indexPath.resolve("embeddings.bin"), embeddingModelName);
+		this.toolIndex = new ToolIndex(m, efConstruction, efSearch);
 	}
 
+	/**
+	 * Index tool documents. Only descriptions whose content hash is not yet in the
+	 * embedding store are sent to the embedding model.
+	 */
 	public void addDocuments(List<Document> documents) {
-		vectorStore.add(documents);
+		List<Document> missing = new ArrayList<>();
+		for (Document document : documents) {
+			if (embeddingStore.get(ToolEmbeddingStore.contentHash(document.getText())) == null) {
+				missing.add(document);
+			}
+		}
+		for (int from = 0; from < missing.size(); from += EMBEDDING_BATCH_SIZE) {
+			List<Document> batch = missing.subList(from, Math.min(from + EMBEDDING_BATCH_SIZE, missing.size()));
+			List<float[]> embeddings = embeddingModel.embed(batch.stream().map(Document::getText).toList());
+			for (int i = 0; i < batch.size(); i++) {
+				embeddingStore.put(ToolEmbeddingStore.contentHash(batch.get(i).getText()), embeddings.get(i));
+			}
+		}
+		embeddingStore.flush();
+
+		for (Document document : documents) {
+			toolIndex.add(document, signatureOf(document),
+					embeddingStore.get(ToolEmbeddingStore.contentHash(document.getText())));
+		}
+		logger.info("Indexed {} tools, embedded {} new descriptions", documents.size(), missing.size());
 	}
 
 	public List<Document> search(String query, int topK) {
-		return vectorStore.similaritySearch(SearchRequest.builder().query(query).topK(topK).build());
+		return search(query, topK, signature -> true);
+	}
+
+	/**
+	 * @param signatureFilter parameter signature filter, see
+	 * {@link ToolIndex#signature(Class[])}
+	 */
+	public List<Document> search(String query, int topK, Predicate<String> signatureFilter) {
+		float[] embedding = queryEmbeddings.get(query);
+		if (embedding == null) {
+			embedding = embeddingModel.embed(query);
+			queryEmbeddings.put(query, embedding);
+		}
+		return toolIndex.search(embedding, topK, signatureFilter);
+	}
+
+	private static String signatureOf(Document document) {
+		Object parameterTypes = document.getMetadata().get(Constant.METHOD_PARAMETER_TYPES);
+		return parameterTypes instanceof Class<?>[] types ? ToolIndex.signature(types) : "";
 	}
 
 }
@@ -18,12 +18,21 @@ package com.alibaba.cloud.ai.graph.bigtool.utils;
 
 import com.alibaba.cloud.ai.graph.bigtool.agent.Tool;
 import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Writer;
 import java.lang.reflect.Method;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
@@ -35,17 +44,28 @@ import org.jsoup.select.Elements;
  */
 public class MethodUtils {
 
-	// Cache for retrieved Javadoc to avoid repeated requests
-	private static final Map<String, String> JAVADOC_CACHE = new ConcurrentHashMap<>();
-	static ConcurrentHashMap<String, String> methodMap;
+	private static final String MATH_JAVADOC_URL = "https://docs.oracle.com/javase/8/docs/api/java/lang/Math.html";
 
-	static {
-		try {
-			methodMap = fetchMathMethodJavadoc();
-		}
-		catch (Exception e) {
-			throw new RuntimeException(e);
+	/**
+	 * Javadoc extracted offline and shipped on the classpath, keyed by method signature
+	 * such as {@code abs(double a)}. Regenerate it with {@link #main(String[])}.
+	 */
+	private static final String JAVADOC_RESOURCE = "javadoc/java.lang.Math.properties";
+
+	/**
+	 * Extract Math Javadoc into the bundled resource so application startup never has to
+	 * reach the network
+	 * @param args optional target file, defaults to the resource under
+	 * {@code src/main/resources}
+	 */
+	public static void main(String[] args) throws IOException {
+		Path target = args.length > 0 ? Path.of(args[0]) : Path.of("src", "main", "resources", JAVADOC_RESOURCE);
+		Map<String, String> javadoc = fetchMathMethodJavadoc();
+		if (javadoc.isEmpty()) {
+			throw new IllegalStateException("No Javadoc retrieved from " + MATH_JAVADOC_URL);
 		}
+		writeJavadocCache(javadoc, target);
+		System.out.println("Wrote " + javadoc.size() + " method descriptions to " + target);
 	}
 
 	/**
@@ -132,37 +152,99 @@ public class MethodUtils {
 	}
 
 	/**
-	 * Get Javadoc description for a method - try different sources in layers
+	 * Get Javadoc description for a method - prefer the overload with matching parameter
+	 * types, then any overload with the same name
 	 * @param method The method to get documentation for
 	 * @return The method's Javadoc description, or null if unavailable
 	 */
 	private static String getMethodJavadoc(Method method) {
-		for (String s : methodMap.keySet()) {
-			if (s.contains(method.getName())) {
-				return methodMap.get(s);
+		String parameters = Arrays.stream(method.getParameterTypes())
+			.map(Class::getSimpleName)
+			.collect(Collectors.joining(","));
+		String fallback = null;
+		for (Map.Entry<String, String> entry : JavadocHolder.METHOD_DOCS.entrySet()) {
+			String signature = entry.getKey();
+			int open = signature.indexOf('(');
+			if (open < 0 || !signature.substring(0, open).equals(method.getName())) {
+				continue;
+			}
+			if (parameters.equals(parameterTypesOf(signature.substring(open)))) {
+				return entry.getValue();
+			}
+			if (fallback == null) {
+				fallback = entry.getValue();
+			}
+		}
+		return fallback;
+	}
+
+	/**
+	 * {@code (double a, double b)} to {@code double,double}
+	 */
+	private static String parameterTypesOf(String parameterList) {
+		String inner = parameterList.replace("(", "").replace(")", "").trim();
+		if (inner.isEmpty()) {
+			return "";
+		}
+		return Arrays.stream(inner.split(","))
+			.map(parameter -> parameter.trim().split("\\s+")[0])
+			.collect(Collectors.joining(","));
+	}
+
+	/**
+	 * Lazily loads the bundled Javadoc on first use instead of at class initialization.
+	 * Startup never contacts the network; without the resource, tools fall back to basic
+	 * descriptions.
+	 */
+	private static final class JavadocHolder {
+
+		private static final Map<String, String> METHOD_DOCS = load();
+
+		private static Map<String, String> load() {
+			Map<String, String> docs = new ConcurrentHashMap<>();
+			try (InputStream in = MethodUtils.class.getClassLoader().getResourceAsStream(JAVADOC_RESOURCE)) {
+				if (in == null) {
+					System.out.println("Javadoc resource " + JAVADOC_RESOURCE + " not found, using basic descriptions");
+					return docs;
+				}
+				Properties properties = new Properties();
+				properties.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+				properties.forEach((key, value) -> docs.put(key.toString(), value.toString()));
 			}
+			catch (IOException e) {
+				System.out.println("Failed to read Javadoc resource " + JAVADOC_RESOURCE + ": " + e.getMessage());
+			}
+			return docs;
+		}
+
+	}
+
+	private static void writeJavadocCache(Map<String, String> javadoc, Path target) throws IOException {
+		Properties properties = new Properties();
+		properties.putAll(javadoc);
+		if (target.getParent() != null) {
+			Files.createDirectories(target.getParent());
+		}
+		try (Writer writer = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+			properties.store(writer, "Javadoc of " + MATH_JAVADOC_URL);
 		}
-		return null;
 	}
 
 	/**
 	 * Fetch Javadoc for Math class methods from Oracle's online documentation
-	 * @return Method Javadoc descriptions
+	 * @return Method Javadoc descriptions, empty if the documentation is unavailable
 	 */
-	private static ConcurrentHashMap<String, String> fetchMathMethodJavadoc() throws Exception {
+	private static ConcurrentHashMap<String, String> fetchMathMethodJavadoc() {
 
+		ConcurrentHashMap<String, String> stringObjectHashMap = new ConcurrentHashMap<>();
 		// Network request implementation to get documentation (simplified version)
 		try {
-			// Build URL
-			String urlStr = "https://docs.oracle.com/javase/8/docs/api/java/lang/Math.html";
-
-			URL url = new URL(urlStr);
+			URL url = new URL(MATH_JAVADOC_URL);
 			HttpURLConnection connection = (HttpURLConnection) url.openConnection();
 			connection.setRequestMethod("GET");
 			connection.setConnectTimeout(5000);
 			connection.setReadTimeout(5000);
 
-			ConcurrentHashMap<String, String> stringObjectHashMap = new ConcurrentHashMap<>();
 			int status = connection.getResponseCode();
 			if (status == 200) {
 				BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
@@ -176,24 +258,22 @@ public class MethodUtils {
 				Document parse = Jsoup.parse(content.toString());
 				Elements tbody = parse.select("table.memberSummary").get(1).select("tbody");
 				for (Element element : tbody.select("tr")) {
-					String text = element.select("td.colFirst").text();
 					String text1 = element.select("th.colSecond").text();
 					String text2 = element.select("td.colLast").text();
-					System.out.println(text + "\t" + text1 + "\t" + text2);
 					stringObjectHashMap.put(text1, text2);
 				}
 			}
 
-			System.out.println("Retrieved method descriptions:" + stringObjectHashMap);
-			return stringObjectHashMap;
+			System.out.println("Retrieved " + stringObjectHashMap.size() + " method descriptions");
 		}
 		catch (Exception e) {
 			System.out.println("Failed to retrieve online documentation: " + e.getMessage());
 		}
 
-		return null;
+		return stringObjectHashMap;
 	}
 
+
 	/**
 	 * Get English description of a type
 	 */
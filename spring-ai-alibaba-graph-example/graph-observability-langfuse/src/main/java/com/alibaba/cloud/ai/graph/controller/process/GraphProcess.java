@@ -21,12 +21,19 @@ import com.alibaba.cloud.ai.graph.async.AsyncGenerator;
 import com.alibaba.cloud.ai.graph.streaming.StreamingOutput;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
+import org.reactivestreams.Subscription;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.BaseSubscriber;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.util.context.Context;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Graph Processor
@@ -44,11 +51,23 @@ public class GraphProcess {
 
 	private static final Logger logger = LoggerFactory.getLogger(GraphProcess.class);
 
+	private static final int DEFAULT_BUFFER_SIZE = 256;
+
+	private final int bufferSize;
+
 	/**
 	 * Constructor for GraphProcess
 	 *
 	 */
 	public GraphProcess() {
+		this(DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * @param bufferSize max number of SSE events buffered for a slow client
+	 */
+	public GraphProcess(int bufferSize) {
+		this.bufferSize = bufferSize;
 	}
 
 	/**
@@ -62,58 +81,59 @@ public class GraphProcess {
 		return Flux.create(sink -> processNext(generator, sink));
 	}
 
+	/**
+	 * 直接在节点输出流上做转换，不在内部 subscribe：客户端断开时取消信号会传递到图引擎，
+	 * 正在进行的 LLM 调用随之中止。最多缓冲 {@code bufferSize} 个事件，同一节点连续的状态快照只保留最新一个。
+	 * @param generator the node output flux
+	 * @return Flux of SSE events
+	 */
 	public Flux<ServerSentEvent<String>> processStream(Flux<NodeOutput> generator) {
-		return Flux.create(sink -> processNext(generator, sink));
+		return coalesceSnapshots(generator).map(GraphProcess::toEvent)
+			.concatWith(Flux.just(ServerSentEvent.builder("{\"type\":\"completed\",\"message\":\"Graph processing completed\"}")
+				.event("completed")
+				.build()))
+			.onErrorResume(error -> {
+				logger.error("processStream: Error occurred in data stream", error);
+				return Flux.just(ServerSentEvent.builder("{\"type\":\"error\",\"message\":\"" + error.getMessage() + "\"}")
+					.event("error")
+					.build(),
+						ServerSentEvent.builder("{\"type\":\"completed\",\"message\":\"Graph processing completed with error\"}")
+							.event("completed")
+							.build());
+			});
 	}
 
-	public void processNext(Flux<NodeOutput> generator,
-							reactor.core.publisher.FluxSink<ServerSentEvent<String>> sink) {
-		generator.subscribe(
-				output -> {
-					logger.debug("processNext: output node={}, output class={}, output={}",
-							output != null ? output.node() : null,
-							output != null ? output.getClass().getName() : null, output);
-
-					String content;
-					if (output instanceof StreamingOutput streamingOutput) {
-						content = JSON.toJSONString(Map.of("type", "streaming", "node", output.node(), "chunk",
-								streamingOutput.chunk(), "timestamp", System.currentTimeMillis()));
-					}
-					else {
-						JSONObject nodeOutput = new JSONObject();
-						nodeOutput.put("type", "node_output");
-						nodeOutput.put("node", output.node());
-						nodeOutput.put("data", output.state().data());
-						nodeOutput.put("timestamp", System.currentTimeMillis());
-						content = JSON.toJSONString(nodeOutput);
-					}
-
-					logger.debug("processNext: emitting SSE event for node {}",
-							output != null ? output.node() : null);
+	private Flux<NodeOutput> coalesceSnapshots(Flux<NodeOutput> generator) {
+		return Flux.create(sink -> {
+			CoalescingSubscriber subscriber = new CoalescingSubscriber(sink, bufferSize);
+			sink.onRequest(n -> subscriber.drain());
+			sink.onDispose(subscriber::dispose);
+			generator.subscribe(subscriber);
+		});
+	}
 
-					sink.next(ServerSentEvent.builder(content)
-							.event("node_output")
-							.id(output.node() + "_" + System.currentTimeMillis())
-							.build());
-				},
-				error -> {
-					logger.error("processNext: Error occurred in data stream", error);
-					sink.next(ServerSentEvent.builder("{\"type\":\"error\",\"message\":\"" + error.getMessage() + "\"}")
-							.event("error")
-							.build());
-					sink.next(ServerSentEvent.builder("{\"type\":\"completed\",\"message\":\"Graph processing completed with error\"}")
-							.event("completed")
-							.build());
-					sink.complete();
-				},
-				() -> {
-					logger.debug("processNext: Graph processing completed");
-					sink.next(ServerSentEvent.builder("{\"type\":\"completed\",\"message\":\"Graph processing completed\"}")
-							.event("completed")
-							.build());
-					sink.complete();
-				}
-		);
+	private static ServerSentEvent<String> toEvent(NodeOutput output) {
+		if (logger.isDebugEnabled()) {
+			logger.debug("processNext: output node={}, output class={}, output={}", output.node(),
+					output.getClass().getName(), output);
+		}
+		String content;
+		if (output instanceof StreamingOutput streamingOutput) {
+			content = JSON.toJSONString(Map.of("type", "streaming", "node", output.node(), "chunk",
+					streamingOutput.chunk(), "timestamp", System.currentTimeMillis()));
+		}
+		else {
+			JSONObject nodeOutput = new JSONObject();
+			nodeOutput.put("type", "node_output");
+			nodeOutput.put("node", output.node());
+			nodeOutput.put("data", output.state().data());
+			nodeOutput.put("timestamp", System.currentTimeMillis());
+			content = JSON.toJSONString(nodeOutput);
+		}
+		return ServerSentEvent.builder(content)
+			.event("node_output")
+			.id(output.node() + "_" + System.currentTimeMillis())
+			.build();
 	}
 
 	private void processNext(AsyncGenerator<NodeOutput> generator,
@@ -154,31 +174,139 @@ public class GraphProcess {
 				sink.complete();
 			}
 			else {
-				logger.debug("processNext: output node={}, output class={}, output={}",
-						output != null ? output.node() : null, output != null ? output.getClass().getName() : null,
-						output);
-				String content;
-				if (output instanceof StreamingOutput streamingOutput) {
-					content = JSON.toJSONString(Map.of("type", "streaming", "node", output.node(), "chunk",
-							streamingOutput.chunk(), "timestamp", System.currentTimeMillis()));
-				}
-				else {
-					JSONObject nodeOutput = new JSONObject();
-					nodeOutput.put("type", "node_output");
-					nodeOutput.put("node", output.node());
-					nodeOutput.put("data", output.state().data());
-					nodeOutput.put("timestamp", System.currentTimeMillis());
-					content = JSON.toJSONString(nodeOutput);
-				}
-				logger.debug("processNext: emitting SSE event for node {}", output != null ? output.node() : null);
-				sink.next(ServerSentEvent.builder(content)
-					.event("node_output")
-					.id(output.node() + "_" + System.currentTimeMillis())
-					.build());
+				sink.next(toEvent(output));
 				// 递归推进
 				processNext(generator, sink);
 			}
 		});
 	}
 
+	/**
+	 * 按下游请求量向上游拉取。状态快照携带的是截至该节点的完整状态，后一个快照总是包含前一个的全部数据，
+	 * 所以队列中连续的快照（中间没有流式 chunk）只保留最新的一个，不区分节点：客户端消费跟不上时，
+	 * 它会少看到几个中间节点的快照，但不会丢数据；流式 chunk 之间是增量，始终逐个保留并保持顺序。
+	 * 客户端跟得上时队列为空，每个快照都会原样送达。
+	 * 队列只在短临界区内修改，向下游发送和向上游补充请求都在 WIP 计数的 drain 循环中进行，
+	 * 重入的 drain 调用只增加计数，由当前持有循环的线程再跑一轮。
+	 */
+	private static final class CoalescingSubscriber extends BaseSubscriber<NodeOutput> {
+
+		private final FluxSink<NodeOutput> sink;
+
+		private final int bufferSize;
+
+		private final Deque<NodeOutput> pending = new ArrayDeque<>();
+
+		private final AtomicInteger wip = new AtomicInteger();
+
+		/** 被替换掉的快照数，由 drain 循环统一向上游补充，受 pending 锁保护 */
+		private long coalesced;
+
+		private volatile Throwable error;
+
+		private volatile boolean done;
+
+		private boolean terminated;
+
+		private CoalescingSubscriber(FluxSink<NodeOutput> sink, int bufferSize) {
+			this.sink = sink;
+			this.bufferSize = bufferSize;
+		}
+
+		@Override
+		public Context currentContext() {
+			// 把下游的 Reactor Context（如链路追踪信息）传给图引擎
+			return Context.of(sink.contextView());
+		}
+
+		@Override
+		protected void hookOnSubscribe(Subscription subscription) {
+			request(bufferSize);
+		}
+
+		@Override
+		protected void hookOnNext(NodeOutput output) {
+			synchronized (pending) {
+				NodeOutput last = pending.peekLast();
+				// 队尾快照还没发出去，新快照已包含它的全部状态，直接替换
+				if (last != null && isSnapshot(last) && isSnapshot(output)) {
+					pending.pollLast();
+					coalesced++;
+				}
+				pending.offer(output);
+			}
+			drain();
+		}
+
+		@Override
+		protected void hookOnComplete() {
+			done = true;
+			drain();
+		}
+
+		@Override
+		protected void hookOnError(Throwable throwable) {
+			error = throwable;
+			done = true;
+			drain();
+		}
+
+		@Override
+		protected void hookOnCancel() {
+			synchronized (pending) {
+				pending.clear();
+			}
+		}
+
+		private void drain() {
+			if (wip.getAndIncrement() != 0) {
+				return;
+			}
+			int missed = 1;
+			for (;;) {
+				long replenish;
+				synchronized (pending) {
+					replenish = coalesced;
+					coalesced = 0;
+				}
+				while (!terminated) {
+					boolean finished = done;
+					NodeOutput next;
+					boolean empty;
+					synchronized (pending) {
+						next = sink.requestedFromDownstream() > 0 ? pending.poll() : null;
+						empty = next == null && pending.isEmpty();
+					}
+					if (finished && empty) {
+						terminated = true;
+						if (error != null) {
+							sink.error(error);
+						}
+						else {
+							sink.complete();
+						}
+						break;
+					}
+					if (next == null) {
+						break;
+					}
+					sink.next(next);
+					replenish++;
+				}
+				if (replenish > 0 && !terminated && !done && !isDisposed()) {
+					request(replenish);
+				}
+				missed = wip.addAndGet(-missed);
+				if (missed == 0) {
+					return;
+				}
+			}
+		}
+
+		private static boolean isSnapshot(NodeOutput output) {
+			return !(output instanceof StreamingOutput);
+		}
+
+	}
+
 }
@@ -27,13 +27,17 @@ import com.alibaba.cloud.ai.graph.exception.GraphStateException;
 import com.alibaba.cloud.ai.graph.node.ExpanderNode;
 import com.alibaba.cloud.ai.graph.node.HumanFeedbackNode;
 import com.alibaba.cloud.ai.graph.node.TranslateNode;
+import com.alibaba.cloud.ai.graph.saver.FileCheckpointSaver;
 import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -81,4 +85,17 @@ public class GraphHumanConfiguration {
 
         return stateGraph;
     }
+
+    /**
+     * 等待人工反馈的线程持久化到本地磁盘，重启后可按 thread_id 继续；容器关闭时释放文件句柄
+     */
+    @Bean(destroyMethod = "close")
+    public FileCheckpointSaver humanCheckpointSaver(@Qualifier("humanGraph") StateGraph humanGraph,
+            @Value("${graph.checkpoint.directory:${user.dir}/checkpoints/human-node}") Path checkpointDirectory) {
+        return FileCheckpointSaver.builder()
+                .directory(checkpointDirectory)
+                .stateSerializer(humanGraph.getStateSerializer())
+                .build();
+    }
+
 }
@@ -24,10 +24,10 @@ import com.alibaba.cloud.ai.graph.RunnableConfig;
 import com.alibaba.cloud.ai.graph.StateGraph;
 import com.alibaba.cloud.ai.graph.checkpoint.config.SaverConfig;
 import com.alibaba.cloud.ai.graph.checkpoint.constant.SaverEnum;
-import com.alibaba.cloud.ai.graph.checkpoint.savers.MemorySaver;
 import com.alibaba.cloud.ai.graph.controller.GraphProcess.GraphProcess;
 import com.alibaba.cloud.ai.graph.exception.GraphRunnerException;
 import com.alibaba.cloud.ai.graph.exception.GraphStateException;
+import com.alibaba.cloud.ai.graph.saver.FileCheckpointSaver;
 import com.alibaba.cloud.ai.graph.state.StateSnapshot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,7 +40,6 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Sinks;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -59,8 +58,9 @@ public class GraphHumanController {
     private final CompiledGraph compiledGraph;
 
     @Autowired
-    public GraphHumanController(@Qualifier("humanGraph") StateGraph stateGraph) throws GraphStateException {
-        SaverConfig saverConfig = SaverConfig.builder().register(new MemorySaver()).build();
+    public GraphHumanController(@Qualifier("humanGraph") StateGraph stateGraph,
+                                FileCheckpointSaver saver) throws GraphStateException {
+        SaverConfig saverConfig = SaverConfig.builder().register(saver).build();
         this.compiledGraph = stateGraph
                 .compile(CompileConfig.builder().saverConfig(saverConfig).interruptBefore("human_feedback").build());    }
 
@@ -74,11 +74,9 @@ public class GraphHumanController {
         objectMap.put("expander_number", expanderNumber);
 
         GraphProcess graphProcess = new GraphProcess(this.compiledGraph);
-        Sinks.Many<ServerSentEvent<GraphProcess.ChatMessage>> sink = Sinks.many().unicast().onBackpressureBuffer();
         Flux<NodeOutput> nodeOutputFlux = compiledGraph.stream(objectMap, runnableConfig);
-        graphProcess.processStream(nodeOutputFlux, sink);
 
-        return sink.asFlux()
+        return graphProcess.processStream(nodeOutputFlux)
                 .doOnCancel(() -> logger.info("Client disconnected from stream"))
                 .doOnError(e -> logger.error("Error occurred during streaming", e));
     }
@@ -96,11 +94,9 @@ public class GraphHumanController {
                 ), null);
                 // 从中断点继续执行工作流
                 GraphProcess graphProcess = new GraphProcess(this.compiledGraph);
-                Sinks.Many<ServerSentEvent<GraphProcess.ChatMessage>> sink = Sinks.many().unicast().onBackpressureBuffer();
                 Flux<NodeOutput> nodeOutputFlux = compiledGraph.stream(null, runnableConfig);
-                graphProcess.processStream(nodeOutputFlux, sink);
 
-                return sink.asFlux()
+                return graphProcess.processStream(nodeOutputFlux)
                         .doOnCancel(() -> logger.info("Client disconnected from stream"))
                         .doOnError(e -> logger.error("Error occurred during streaming", e));
             } catch (Exception e) {
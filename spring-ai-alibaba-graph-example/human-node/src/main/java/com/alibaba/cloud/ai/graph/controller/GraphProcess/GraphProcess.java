@@ -20,13 +20,27 @@ import com.alibaba.cloud.ai.graph.CompiledGraph;
 import com.alibaba.cloud.ai.graph.NodeOutput;
 import com.alibaba.cloud.ai.graph.streaming.StreamingOutput;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import org.reactivestreams.Subscription;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.BaseSubscriber;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Sinks;
+import reactor.core.publisher.FluxSink;
+import reactor.util.context.Context;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * 把图的 NodeOutput 流直接转换为 SSE 流：
+ * <ul>
+ *     <li>不在内部 subscribe，客户端断开时取消信号沿 Flux 传递到图引擎，正在进行的 LLM 调用随之中止；</li>
+ *     <li>最多缓冲 {@code bufferSize} 个事件，流式分片逐个保留，同一节点连续的状态快照只保留最新一个；</li>
+ *     <li>完整的 output 仅在 DEBUG 级别打印。</li>
+ * </ul>
+ *
  * @author yingzi
  * @since 2025/6/13
  */
@@ -35,37 +49,174 @@ public class GraphProcess {
 
     private static final Logger logger = LoggerFactory.getLogger(GraphProcess.class);
 
-    private CompiledGraph compiledGraph;
+    private static final int DEFAULT_BUFFER_SIZE = 256;
+
+    private final CompiledGraph compiledGraph;
+
+    private final int bufferSize;
 
     public GraphProcess(CompiledGraph compiledGraph) {
+        this(compiledGraph, DEFAULT_BUFFER_SIZE);
+    }
+
+    public GraphProcess(CompiledGraph compiledGraph, int bufferSize) {
         this.compiledGraph = compiledGraph;
+        this.bufferSize = bufferSize;
     }
 
-    public void processStream(Flux<NodeOutput> nodeOutputFlux, Sinks.Many<ServerSentEvent<ChatMessage>> sink) {
-        nodeOutputFlux
-                .doOnNext(output -> {
-                    logger.info("output = {}", output);
+    public Flux<ServerSentEvent<ChatMessage>> processStream(Flux<NodeOutput> nodeOutputFlux) {
+        return coalesceSnapshots(nodeOutputFlux)
+                .<ChatMessage>handle((output, sink) -> {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("output = {}", output);
+                    }
                     String nodeName = output.node();
-                    ChatMessage chatMessage = null;
                     if (output instanceof StreamingOutput<?> streamingOutput) {
                         String chunk = streamingOutput.chunk();
                         if (chunk != null && !chunk.isEmpty()) {
-                            chatMessage = new ChatMessage(nodeName, chunk);
+                            sink.next(new ChatMessage(nodeName, chunk));
                         }
                     } else {
-                        chatMessage = new ChatMessage(nodeName, output.state().data());
+                        sink.next(new ChatMessage(nodeName, output.state().data()));
                     }
-                    sink.tryEmitNext(ServerSentEvent.builder(chatMessage).build());
-                })
-                .doOnComplete(() -> {
-                    // 正常完成
-                    sink.tryEmitComplete();
-                })
-                .doOnError(e -> {
-                    logger.error("Error occurred during streaming", e);
-                    sink.tryEmitError(e);
                 })
-                .subscribe();
+                .map(chatMessage -> ServerSentEvent.builder(chatMessage).build());
+    }
+
+    private Flux<NodeOutput> coalesceSnapshots(Flux<NodeOutput> nodeOutputFlux) {
+        return Flux.create(sink -> {
+            CoalescingSubscriber subscriber = new CoalescingSubscriber(sink, bufferSize);
+            sink.onRequest(n -> subscriber.drain());
+            sink.onDispose(subscriber::dispose);
+            nodeOutputFlux.subscribe(subscriber);
+        });
+    }
+
+    private static boolean isSnapshot(NodeOutput output) {
+        return !(output instanceof StreamingOutput<?>);
+    }
+
+    /**
+     * 按下游请求量向上游拉取。状态快照携带的是截至该节点的完整状态，后一个快照总是包含前一个的全部数据，
+     * 所以队列中连续的快照（中间没有流式 chunk）只保留最新的一个，不区分节点：客户端消费跟不上时，
+     * 它会少看到几个中间节点的快照，但不会丢数据；流式 chunk 之间是增量，始终逐个保留并保持顺序。
+     * 客户端跟得上时队列为空，每个快照都会原样送达。
+     * 队列只在短临界区内修改，向下游发送和向上游补充请求都在 WIP 计数的 drain 循环中进行，
+     * 重入的 drain 调用只增加计数，由当前持有循环的线程再跑一轮。
+     */
+    private static final class CoalescingSubscriber extends BaseSubscriber<NodeOutput> {
+
+        private final FluxSink<NodeOutput> sink;
+
+        private final int bufferSize;
+
+        private final Deque<NodeOutput> pending = new ArrayDeque<>();
+
+        private final AtomicInteger wip = new AtomicInteger();
+
+        /** 被替换掉的快照数，由 drain 循环统一向上游补充，受 pending 锁保护 */
+        private long coalesced;
+
+        private volatile Throwable error;
+
+        private volatile boolean done;
+
+        private boolean terminated;
+
+        private CoalescingSubscriber(FluxSink<NodeOutput> sink, int bufferSize) {
+            this.sink = sink;
+            this.bufferSize = bufferSize;
+        }
+
+        @Override
+        public Context currentContext() {
+            // 把下游的 Reactor Context（如链路追踪信息）传给图引擎
+            return Context.of(sink.contextView());
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            request(bufferSize);
+        }
+
+        @Override
+        protected void hookOnNext(NodeOutput output) {
+            synchronized (pending) {
+                NodeOutput last = pending.peekLast();
+                // 队尾快照还没发出去，新快照已包含它的全部状态，直接替换
+                if (last != null && isSnapshot(last) && isSnapshot(output)) {
+                    pending.pollLast();
+                    coalesced++;
+                }
+                pending.offer(output);
+            }
+            drain();
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            done = true;
+            drain();
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            error = throwable;
+            done = true;
+            drain();
+        }
+
+        @Override
+        protected void hookOnCancel() {
+            synchronized (pending) {
+                pending.clear();
+            }
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            for (;;) {
+                long replenish;
+                synchronized (pending) {
+                    replenish = coalesced;
+                    coalesced = 0;
+                }
+                while (!terminated) {
+                    boolean finished = done;
+                    NodeOutput next;
+                    boolean empty;
+                    synchronized (pending) {
+                        next = sink.requestedFromDownstream() > 0 ? pending.poll() : null;
+                        empty = next == null && pending.isEmpty();
+                    }
+                    if (finished && empty) {
+                        terminated = true;
+                        if (error != null) {
+                            sink.error(error);
+                        } else {
+                            sink.complete();
+                        }
+                        break;
+                    }
+                    if (next == null) {
+                        break;
+                    }
+                    sink.next(next);
+                    replenish++;
+                }
+                if (replenish > 0 && !terminated && !done && !isDisposed()) {
+                    request(replenish);
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
     }
 
     public record ChatMessage(@JsonProperty("node_name") String nodeName, @JsonProperty("type") Object data) {
@@ -24,11 +24,16 @@ import com.alibaba.cloud.ai.graph.exception.GraphStateException;
 import com.alibaba.cloud.ai.graph.interruptable.node.FinalProcessNode;
 import com.alibaba.cloud.ai.graph.interruptable.node.OrderApprovalNode;
 import com.alibaba.cloud.ai.graph.interruptable.node.SensitiveOperationNode;
+import com.alibaba.cloud.ai.graph.interruptable.saver.FileCheckpointSaver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.file.Path;
+
 /**
  * @author Libres-coder
  * @since 2025/10/31
@@ -102,6 +107,19 @@ public class InterruptableGraphConfiguration {
         return graph;
     }
 
+    /**
+     * 待审批的线程持久化到本地磁盘，两个图使用默认的状态序列化器，共享同一个 saver；容器关闭时释放文件句柄
+     */
+    @Bean(destroyMethod = "close")
+    public FileCheckpointSaver interruptableCheckpointSaver(
+            @Qualifier("orderApprovalGraph") StateGraph orderApprovalGraph,
+            @Value("${graph.checkpoint.directory:${user.dir}/checkpoints/interruptable-action}") Path checkpointDirectory) {
+        return FileCheckpointSaver.builder()
+            .directory(checkpointDirectory)
+            .stateSerializer(orderApprovalGraph.getStateSerializer())
+            .build();
+    }
+
     private void printGraphRepresentation(StateGraph graph, String graphName) {
         try {
             GraphRepresentation representation = graph.getGraph(
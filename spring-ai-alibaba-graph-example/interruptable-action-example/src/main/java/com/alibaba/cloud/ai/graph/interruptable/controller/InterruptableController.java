@@ -23,9 +23,9 @@ import com.alibaba.cloud.ai.graph.RunnableConfig;
 import com.alibaba.cloud.ai.graph.StateGraph;
 import com.alibaba.cloud.ai.graph.action.InterruptionMetadata;
 import com.alibaba.cloud.ai.graph.checkpoint.config.SaverConfig;
-import com.alibaba.cloud.ai.graph.checkpoint.savers.MemorySaver;
 import com.alibaba.cloud.ai.graph.exception.GraphRunnerException;
 import com.alibaba.cloud.ai.graph.exception.GraphStateException;
+import com.alibaba.cloud.ai.graph.interruptable.saver.FileCheckpointSaver;
 import com.alibaba.cloud.ai.graph.state.StateSnapshot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -55,11 +55,12 @@ public class InterruptableController {
 
     public InterruptableController(
             @Qualifier("orderApprovalGraph") StateGraph orderApprovalGraph,
-            @Qualifier("sensitiveOperationGraph") StateGraph sensitiveOperationGraph) 
+            @Qualifier("sensitiveOperationGraph") StateGraph sensitiveOperationGraph,
+            FileCheckpointSaver saver)
             throws GraphStateException {
         
         SaverConfig saverConfig = SaverConfig.builder()
-            .register(new MemorySaver())
+            .register(saver)
             .build();
 
         this.orderApprovalCompiledGraph = orderApprovalGraph.compile(
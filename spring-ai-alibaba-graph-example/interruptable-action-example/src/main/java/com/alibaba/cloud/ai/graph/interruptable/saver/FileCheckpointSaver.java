@@ -0,0 +1,626 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.interruptable.saver;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import com.alibaba.cloud.ai.graph.checkpoint.BaseCheckpointSaver;
+import com.alibaba.cloud.ai.graph.checkpoint.Checkpoint;
+import com.alibaba.cloud.ai.graph.serializer.StateSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * 基于本地文件的持久化 checkpoint saver，用于替代 {@code MemorySaver}：
+ * <ul>
+ * <li>所有 checkpoint 追加写入同一个日志文件，每条记录带长度与 CRC 校验，进程崩溃时截断不完整的尾部记录</li>
+ * <li>内存中只保留 threadId -> 记录偏移量的索引，以及有界的热点线程缓存，按 threadId 恢复时按偏移量直接读取</li>
+ * <li>后台定期清理超过 TTL 未访问的线程，并在产生垃圾记录时压缩日志</li>
+ * </ul>
+ * 语义与 {@code MemorySaver} 一致：列表按时间倒序，带 checkpointId 的 put 为替换。
+ *
+ * @since 2026/10/17
+ */
+public class FileCheckpointSaver implements BaseCheckpointSaver, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileCheckpointSaver.class);
+
+    private static final String LOG_FILE = "checkpoints.log";
+
+    private static final byte RECORD_PUT = 1;
+
+    private static final byte RECORD_CLEAR = 2;
+
+    /**
+     * 记录头：int 长度 + int CRC
+     */
+    private static final int HEADER_SIZE = 8;
+
+    private final Path logFile;
+
+    private final StateSerializer<OverAllState> stateSerializer;
+
+    private final long ttlMillis;
+
+    private final int maxCachedThreads;
+
+    private final boolean fsync;
+
+    /**
+     * key: threadId, value: checkpoint 记录的位置，按时间倒序
+     */
+    private final Map<String, ThreadIndex> index = new HashMap<>();
+
+    /**
+     * 热点线程的已解码 checkpoint，按访问顺序淘汰
+     */
+    private final Map<String, LinkedList<Checkpoint>> cache;
+
+    private final ScheduledExecutorService maintenance;
+
+    private FileChannel channel;
+
+    private long garbageBytes;
+
+    private boolean compacting;
+
+    private boolean closed;
+
+    private FileCheckpointSaver(Builder builder) {
+        this.logFile = builder.directory.resolve(LOG_FILE);
+        this.stateSerializer = builder.stateSerializer;
+        this.ttlMillis = builder.ttl.toMillis();
+        this.maxCachedThreads = builder.maxCachedThreads;
+        this.fsync = builder.fsync;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LinkedList<Checkpoint>> eldest) {
+                return size() > FileCheckpointSaver.this.maxCachedThreads;
+            }
+        };
+        try {
+            Files.createDirectories(builder.directory);
+            this.channel = openChannel();
+            recover();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Failed to open checkpoint log " + logFile, e);
+        }
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "checkpoint-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = builder.compactionInterval.toMillis();
+        this.maintenance.scheduleWithFixedDelay(this::maintain, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public synchronized Collection<Checkpoint> list(RunnableConfig config) {
+        return Collections.unmodifiableCollection(checkpoints(threadIdOf(config)));
+    }
+
+    @Override
+    public synchronized Optional<Checkpoint> get(RunnableConfig config) {
+        LinkedList<Checkpoint> checkpoints = checkpoints(threadIdOf(config));
+        if (config.checkPointId().isPresent()) {
+            String checkPointId = config.checkPointId().get();
+            return checkpoints.stream().filter(checkpoint -> checkpoint.getId().equals(checkPointId)).findFirst();
+        }
+        return Optional.ofNullable(checkpoints.peekFirst());
+    }
+
+    @Override
+    public synchronized RunnableConfig put(RunnableConfig config, Checkpoint checkpoint) throws Exception {
+        String threadId = threadIdOf(config);
+        LinkedList<Checkpoint> checkpoints = checkpoints(threadId);
+        String replaces = config.checkPointId().orElse(null);
+
+        int position = -1;
+        if (replaces != null) {
+            ThreadIndex existing = index.get(threadId);
+            position = existing != null ? existing.positionOf(replaces) : -1;
+            if (position < 0) {
+                throw new NoSuchElementException(String.format("Checkpoint with id %s not found!", replaces));
+            }
+        }
+
+        RecordRef ref = append(encodePut(threadId, replaces, checkpoint), checkpoint.getId());
+        ThreadIndex threadIndex = index.computeIfAbsent(threadId, id -> new ThreadIndex());
+        threadIndex.touch();
+        if (position >= 0) {
+            garbageBytes += threadIndex.refs.set(position, ref).length();
+            checkpoints.set(position, checkpoint);
+            return config;
+        }
+        threadIndex.refs.addFirst(ref);
+        checkpoints.addFirst(checkpoint);
+        cache.putIfAbsent(threadId, checkpoints);
+        return RunnableConfig.builder(config).checkPointId(checkpoint.getId()).build();
+    }
+
+    @Override
+    public synchronized boolean clear(RunnableConfig config) {
+        String threadId = threadIdOf(config);
+        ThreadIndex removed = index.remove(threadId);
+        cache.remove(threadId);
+        if (removed == null) {
+            return false;
+        }
+        try {
+            garbageBytes += removed.totalLength();
+            garbageBytes += append(encodeClear(threadId), null).length();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    /**
+     * 清理过期线程并在有垃圾记录时重写日志。
+     * 存量记录在锁外按快照复制，只有切换文件前追加快照之后写入的记录时才短暂持有锁
+     */
+    public void compact() throws IOException {
+        Snapshot snapshot = beginCompaction();
+        if (snapshot == null) {
+            return;
+        }
+        Path tmp = logFile.resolveSibling(LOG_FILE + ".compact");
+        try {
+            // key: 旧偏移量, value: 新偏移量
+            Map<Long, Long> relocated = new HashMap<>();
+            try (FileChannel in = FileChannel.open(logFile, StandardOpenOption.READ);
+                    FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                            StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (List<RecordRef> refs : snapshot.threads()) {
+                    // 从旧到新写入，重放时依次插入头部即可恢复倒序
+                    for (int i = refs.size() - 1; i >= 0; i--) {
+                        RecordRef ref = refs.get(i);
+                        relocated.put(ref.offset(), out.position());
+                        copy(in, ref.offset(), ref.length(), out);
+                    }
+                }
+            }
+            finishCompaction(snapshot, tmp, relocated);
+        }
+        finally {
+            Files.deleteIfExists(tmp);
+            synchronized (this) {
+                compacting = false;
+            }
+        }
+    }
+
+    /**
+     * 删除过期线程，并在需要压缩时记录当前索引与日志末尾位置
+     */
+    private synchronized Snapshot beginCompaction() throws IOException {
+        if (compacting || closed) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<String, ThreadIndex>> iterator = index.entrySet().iterator();
+        int expired = 0;
+        while (iterator.hasNext()) {
+            Map.Entry<String, ThreadIndex> entry = iterator.next();
+            if (now - entry.getValue().lastAccessMillis > ttlMillis) {
+                garbageBytes += entry.getValue().totalLength();
+                cache.remove(entry.getKey());
+                iterator.remove();
+                expired++;
+            }
+        }
+        if (garbageBytes == 0) {
+            return null;
+        }
+        compacting = true;
+        List<List<RecordRef>> threads = new ArrayList<>(index.size());
+        for (ThreadIndex threadIndex : index.values()) {
+            threads.add(new ArrayList<>(threadIndex.refs));
+        }
+        return new Snapshot(threads, channel.size(), garbageBytes, expired);
+    }
+
+    /**
+     * 追加快照之后写入的记录，切换到新文件并更新索引中的偏移量
+     */
+    private synchronized void finishCompaction(Snapshot snapshot, Path tmp, Map<Long, Long> relocated)
+            throws IOException {
+        if (closed) {
+            return;
+        }
+        long tailStart;
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            tailStart = out.size();
+            copy(channel, snapshot.end(), channel.size() - snapshot.end(), out);
+            out.force(true);
+        }
+
+        channel.close();
+        try {
+            Files.move(tmp, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally {
+            // 移动失败时重新打开原日志，索引保持不变
+            channel = openChannel();
+        }
+
+        long shift = tailStart - snapshot.end();
+        for (ThreadIndex threadIndex : index.values()) {
+            threadIndex.refs.replaceAll(ref -> new RecordRef(ref.checkpointId(),
+                    ref.offset() >= snapshot.end() ? ref.offset() + shift : relocated.get(ref.offset()),
+                    ref.length()));
+        }
+        long reclaimed = snapshot.garbageBytes();
+        garbageBytes -= reclaimed;
+        logger.info("Compacted checkpoint log {}: {} threads, {} expired, {} bytes reclaimed", logFile, index.size(),
+                snapshot.expired(), reclaimed);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        maintenance.shutdownNow();
+        channel.force(true);
+        channel.close();
+    }
+
+    private void maintain() {
+        try {
+            compact();
+        }
+        catch (Exception e) {
+            logger.warn("Checkpoint log maintenance failed", e);
+        }
+    }
+
+    /**
+     * 读取线程的 checkpoint，未命中缓存时按偏移量从日志加载；未知线程返回空列表且不进入缓存
+     */
+    private LinkedList<Checkpoint> checkpoints(String threadId) {
+        ThreadIndex threadIndex = index.get(threadId);
+        if (threadIndex == null) {
+            return new LinkedList<>();
+        }
+        threadIndex.touch();
+        LinkedList<Checkpoint> cached = cache.get(threadId);
+        if (cached != null) {
+            return cached;
+        }
+        LinkedList<Checkpoint> loaded = new LinkedList<>();
+        try {
+            for (RecordRef ref : threadIndex.refs) {
+                loaded.add(readCheckpoint(ref));
+            }
+        }
+        catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Failed to load checkpoints of thread " + threadId, e);
+        }
+        cache.put(threadId, loaded);
+        return loaded;
+    }
+
+    private RecordRef append(byte[] payload, String checkpointId) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        record.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        long offset = channel.size();
+        while (record.hasRemaining()) {
+            channel.write(record, offset + record.position());
+        }
+        if (fsync) {
+            channel.force(false);
+        }
+        return new RecordRef(checkpointId, offset, HEADER_SIZE + payload.length);
+    }
+
+    private byte[] encodePut(String threadId, String replaces, Checkpoint checkpoint) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(RECORD_PUT);
+            out.writeLong(System.currentTimeMillis());
+            out.writeUTF(threadId);
+            writeNullable(out, replaces);
+            out.writeUTF(checkpoint.getId());
+            writeNullable(out, checkpoint.getNodeId());
+            writeNullable(out, checkpoint.getNextNodeId());
+            ByteArrayOutputStream state = new ByteArrayOutputStream(256);
+            try (ObjectOutputStream stateOut = new ObjectOutputStream(state)) {
+                stateSerializer.writeData(checkpoint.getState(), stateOut);
+            }
+            out.writeInt(state.size());
+            state.writeTo(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    private byte[] encodeClear(String threadId) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(RECORD_CLEAR);
+            out.writeLong(System.currentTimeMillis());
+            out.writeUTF(threadId);
+        }
+        return bytes.toByteArray();
+    }
+
+    private Checkpoint readCheckpoint(RecordRef ref) throws IOException, ClassNotFoundException {
+        ByteBuffer record = ByteBuffer.allocate(ref.length());
+        readFully(channel, record, ref.offset());
+        DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(record.array(), HEADER_SIZE, ref.length() - HEADER_SIZE));
+        in.readByte();
+        in.readLong();
+        in.readUTF();
+        readNullable(in);
+        String id = in.readUTF();
+        String nodeId = readNullable(in);
+        String nextNodeId = readNullable(in);
+        byte[] state = new byte[in.readInt()];
+        in.readFully(state);
+        try (ObjectInputStream stateIn = new ObjectInputStream(new ByteArrayInputStream(state))) {
+            return Checkpoint.builder()
+                .id(id)
+                .state(stateSerializer.readData(stateIn))
+                .nodeId(nodeId)
+                .nextNodeId(nextNodeId)
+                .build();
+        }
+    }
+
+    /**
+     * 启动时顺序扫描日志重建索引，遇到不完整或校验失败的记录即截断
+     */
+    private void recover() throws IOException {
+        long size = channel.size();
+        long offset = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (offset + HEADER_SIZE <= size) {
+            header.clear();
+            readFully(channel, header, offset);
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (length <= 0 || offset + HEADER_SIZE + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(channel, payload, offset + HEADER_SIZE);
+            CRC32 crc = new CRC32();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            replay(payload.array(), new RecordRef(null, offset, HEADER_SIZE + length));
+            offset += HEADER_SIZE + length;
+        }
+        if (offset < size) {
+            logger.warn("Truncating {} bytes of incomplete records from {}", size - offset, logFile);
+            channel.truncate(offset);
+        }
+        logger.info("Recovered {} checkpoint threads from {}", index.size(), logFile);
+    }
+
+    private void replay(byte[] payload, RecordRef ref) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        long timestamp = in.readLong();
+        String threadId = in.readUTF();
+        if (type == RECORD_CLEAR) {
+            ThreadIndex removed = index.remove(threadId);
+            garbageBytes += ref.length() + (removed != null ? removed.totalLength() : 0);
+            return;
+        }
+        String replaces = readNullable(in);
+        RecordRef put = new RecordRef(in.readUTF(), ref.offset(), ref.length());
+        ThreadIndex threadIndex = index.computeIfAbsent(threadId, id -> new ThreadIndex());
+        threadIndex.lastAccessMillis = Math.max(threadIndex.lastAccessMillis, timestamp);
+        int position = replaces != null ? threadIndex.positionOf(replaces) : -1;
+        if (position >= 0) {
+            garbageBytes += threadIndex.refs.set(position, put).length();
+        }
+        else {
+            threadIndex.refs.addFirst(put);
+        }
+    }
+
+    private FileChannel openChannel() throws IOException {
+        return FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of checkpoint log");
+            }
+        }
+    }
+
+    private static void copy(FileChannel in, long offset, long length, FileChannel out) throws IOException {
+        long copied = 0;
+        while (copied < length) {
+            long transferred = in.transferTo(offset + copied, length - copied, out);
+            if (transferred <= 0) {
+                throw new IOException("Unexpected end of checkpoint log");
+            }
+            copied += transferred;
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static String threadIdOf(RunnableConfig config) {
+        return config.threadId().orElse(THREAD_ID_DEFAULT);
+    }
+
+    private record RecordRef(String checkpointId, long offset, int length) {
+    }
+
+    /**
+     * 压缩开始时的索引快照
+     *
+     * @param threads 各线程的记录位置
+     * @param end 快照时的日志长度，之后的记录在切换文件前原样追加
+     * @param garbageBytes 快照时的垃圾字节数，压缩完成后扣除
+     * @param expired 本次删除的过期线程数
+     */
+    private record Snapshot(List<List<RecordRef>> threads, long end, long garbageBytes, int expired) {
+    }
+
+    private static final class ThreadIndex {
+
+        private final LinkedList<RecordRef> refs = new LinkedList<>();
+
+        private long lastAccessMillis;
+
+        private void touch() {
+            lastAccessMillis = System.currentTimeMillis();
+        }
+
+        private int positionOf(String checkpointId) {
+            int position = 0;
+            for (RecordRef ref : refs) {
+                if (ref.checkpointId().equals(checkpointId)) {
+                    return position;
+                }
+                position++;
+            }
+            return -1;
+        }
+
+        private long totalLength() {
+            return refs.stream().mapToLong(RecordRef::length).sum();
+        }
+
+    }
+
+    public static class Builder {
+
+        private Path directory = Path.of(System.getProperty("user.dir"), "checkpoints");
+
+        private StateSerializer<OverAllState> stateSerializer;
+
+        private Duration ttl = Duration.ofDays(7);
+
+        private int maxCachedThreads = 256;
+
+        private Duration compactionInterval = Duration.ofMinutes(10);
+
+        private boolean fsync;
+
+        public Builder directory(Path directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * 用于编码 checkpoint 状态，通常为图的 {@code StateGraph#getStateSerializer()}
+         */
+        public Builder stateSerializer(StateSerializer<OverAllState> stateSerializer) {
+            this.stateSerializer = stateSerializer;
+            return this;
+        }
+
+        /**
+         * 线程超过该时间未被读写即视为废弃，在下次维护时删除
+         */
+        public Builder ttl(Duration ttl) {
+            this.ttl = ttl;
+            return this;
+        }
+
+        /**
+         * 内存中缓存已解码 checkpoint 的线程数上限
+         */
+        public Builder maxCachedThreads(int maxCachedThreads) {
+            this.maxCachedThreads = maxCachedThreads;
+            return this;
+        }
+
+        public Builder compactionInterval(Duration compactionInterval) {
+            this.compactionInterval = compactionInterval;
+            return this;
+        }
+
+        /**
+         * 每次写入后是否 fsync，关闭时只依赖操作系统刷盘，进程崩溃不丢数据，掉电可能丢失最后几条
+         */
+        public Builder fsync(boolean fsync) {
+            this.fsync = fsync;
+            return this;
+        }
+
+        public FileCheckpointSaver build() {
+            if (stateSerializer == null) {
+                throw new IllegalArgumentException("stateSerializer must not be null");
+            }
+            return new FileCheckpointSaver(this);
+        }
+
+    }
+
+}
@@ -23,6 +23,7 @@ import com.alibaba.cloud.ai.graph.KeyStrategyFactoryBuilder;
 import com.alibaba.cloud.ai.graph.StateGraph;
 import com.alibaba.cloud.ai.graph.exception.GraphStateException;
 import com.alibaba.cloud.ai.graph.node.McpNode;
+import com.alibaba.cloud.ai.graph.node.StreamingMcpNode;
 import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
 import com.alibaba.cloud.ai.graph.tool.McpClientToolCallbackProvider;
 import org.slf4j.Logger;
@@ -58,7 +59,7 @@ public class McpGraphConfiguration {
                 .build();
 
         StateGraph stateGraph = new StateGraph(keyStrategyFactory)
-                .addNode("mcp", node_async(new McpNode(chatClientBuilder, mcpClientToolCallbackProvider)))
+                .addNode("mcp", new McpNode(chatClientBuilder, mcpClientToolCallbackProvider))
 
                 .addEdge(StateGraph.START, "mcp")
                 .addEdge("mcp", StateGraph.END);
@@ -72,4 +73,18 @@ public class McpGraphConfiguration {
 
         return stateGraph;
     }
+
+    @Bean
+    public StateGraph mcpStreamGraph(ChatClient.Builder chatClientBuilder) throws GraphStateException {
+        KeyStrategyFactory keyStrategyFactory = new KeyStrategyFactoryBuilder()
+                .addPatternStrategy("query", new ReplaceStrategy())
+                .addPatternStrategy("mcp_content", new ReplaceStrategy())
+                .build();
+
+        return new StateGraph(keyStrategyFactory)
+                .addNode("mcp", node_async(new StreamingMcpNode(chatClientBuilder, mcpClientToolCallbackProvider)))
+
+                .addEdge(StateGraph.START, "mcp")
+                .addEdge("mcp", StateGraph.END);
+    }
 }
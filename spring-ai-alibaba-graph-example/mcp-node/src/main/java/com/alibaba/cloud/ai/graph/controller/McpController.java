@@ -17,18 +17,23 @@
 package com.alibaba.cloud.ai.graph.controller;
 
 import com.alibaba.cloud.ai.graph.CompiledGraph;
+import com.alibaba.cloud.ai.graph.NodeOutput;
 import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.cloud.ai.graph.RunnableConfig;
 import com.alibaba.cloud.ai.graph.StateGraph;
 import com.alibaba.cloud.ai.graph.exception.GraphRunnerException;
 import com.alibaba.cloud.ai.graph.exception.GraphStateException;
+import com.alibaba.cloud.ai.graph.streaming.StreamingOutput;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -46,8 +51,12 @@ public class McpController {
 
     private final CompiledGraph compiledGraph;
 
-    public McpController(@Qualifier("mcpGraph") StateGraph stateGraph) throws GraphStateException {
+    private final CompiledGraph streamCompiledGraph;
+
+    public McpController(@Qualifier("mcpGraph") StateGraph stateGraph,
+                         @Qualifier("mcpStreamGraph") StateGraph streamStateGraph) throws GraphStateException {
         this.compiledGraph = stateGraph.compile();
+        this.streamCompiledGraph = streamStateGraph.compile();
     }
 
     @GetMapping("/call")
@@ -60,4 +69,30 @@ public class McpController {
         return invoke.map(OverAllState::data).orElse(new HashMap<>());
     }
 
+    /**
+     * 逐 token 推送 MCP 节点的输出，最后一个事件为节点完成后的完整状态
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> stream(@RequestParam(value = "query", defaultValue = "北京时间现在几点钟", required = false) String query,
+                                                @RequestParam(value = "thread_id", defaultValue = "yingzi", required = false) String threadId) throws GraphRunnerException {
+        RunnableConfig runnableConfig = RunnableConfig.builder().threadId(threadId).build();
+        Map<String, Object> objectMap = new HashMap<>();
+        objectMap.put("query", query);
+        Flux<NodeOutput> nodeOutputFlux = this.streamCompiledGraph.stream(objectMap, runnableConfig);
+        return nodeOutputFlux
+                .<Object>handle((output, sink) -> {
+                    if (output instanceof StreamingOutput<?> streamingOutput) {
+                        String chunk = streamingOutput.chunk();
+                        if (chunk != null && !chunk.isEmpty()) {
+                            sink.next(chunk);
+                        }
+                    } else if (output.isEND()) {
+                        sink.next(output.state().data());
+                    }
+                })
+                .map(data -> ServerSentEvent.builder(data).build())
+                .doOnCancel(() -> logger.info("Client disconnected from stream"))
+                .doOnError(e -> logger.error("Error occurred during streaming", e));
+    }
+
 }
@@ -17,52 +17,56 @@
 package com.alibaba.cloud.ai.graph.node;
 
 import com.alibaba.cloud.ai.graph.OverAllState;
-import com.alibaba.cloud.ai.graph.action.NodeAction;
+import com.alibaba.cloud.ai.graph.action.AsyncNodeAction;
 import com.alibaba.cloud.ai.graph.tool.McpClientToolCallbackProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.tool.ToolCallback;
-import reactor.core.publisher.Flux;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
+ * 非流式的 MCP 节点：流式结果在 Reactor 线程上追加到同一个 StringBuilder，
+ * 完成后通过 CompletableFuture 返回，不占用图执行线程等待 LLM 与工具调用。
+ * 需要逐 token 输出时使用 {@link StreamingMcpNode}。
+ *
  * @author yingzi
  * @since 2025/6/13
  */
 
-public class McpNode implements NodeAction {
+public class McpNode implements AsyncNodeAction {
 
     private static final Logger logger = LoggerFactory.getLogger(McpNode.class);
 
-    private static final String NODE_NAME = "mcp-node";
+    static final String NODE_NAME = "mcp-node";
 
     private final ChatClient chatClient;
 
     public McpNode(ChatClient.Builder chatClientBuilder, McpClientToolCallbackProvider mcpClientToolCallbackProvider) {
+        this.chatClient = buildChatClient(chatClientBuilder, mcpClientToolCallbackProvider);
+    }
+
+    static ChatClient buildChatClient(ChatClient.Builder chatClientBuilder,
+                                      McpClientToolCallbackProvider mcpClientToolCallbackProvider) {
         Set<ToolCallback> toolCallbacks = mcpClientToolCallbackProvider.findToolCallbacks(NODE_NAME);
         for (ToolCallback toolCallback : toolCallbacks) {
             logger.info("Mcp Node load ToolCallback: " + toolCallback.getToolDefinition().name());
         }
 
-        this.chatClient = chatClientBuilder
+        return chatClientBuilder
                 .defaultToolCallbacks(toolCallbacks.toArray(ToolCallback[]::new))
                 .build();
     }
 
-
     @Override
-    public Map<String, Object> apply(OverAllState state) {
+    public CompletableFuture<Map<String, Object>> apply(OverAllState state) {
         String query = state.value("query", "");
-        Flux<String> streamResult = chatClient.prompt(query).stream().content();
-        String result = streamResult.reduce("", (acc, item) -> acc + item).block();
-
-        HashMap<String, Object> resultMap = new HashMap<>();
-        resultMap.put("mcp_content", result);
-
-        return resultMap;
+        return chatClient.prompt(query).stream().content()
+                .collect(StringBuilder::new, StringBuilder::append)
+                .<Map<String, Object>>map(result -> Map.of("mcp_content", result.toString()))
+                .toFuture();
     }
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.node;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.action.NodeAction;
+import com.alibaba.cloud.ai.graph.tool.McpClientToolCallbackProvider;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.model.ChatResponse;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+
+/**
+ * 流式的 MCP 节点：直接把 Flux 作为节点输出交给图引擎，
+ * 引擎逐块产出 StreamingOutput 供 SSE 下游消费，流结束后再把完整结果写入 mcp_content。
+ *
+ * @since 2026/10/17
+ */
+
+public class StreamingMcpNode implements NodeAction {
+
+    private final ChatClient chatClient;
+
+    public StreamingMcpNode(ChatClient.Builder chatClientBuilder, McpClientToolCallbackProvider mcpClientToolCallbackProvider) {
+        this.chatClient = McpNode.buildChatClient(chatClientBuilder, mcpClientToolCallbackProvider);
+    }
+
+    @Override
+    public Map<String, Object> apply(OverAllState state) {
+        String query = state.value("query", "");
+        Flux<ChatResponse> chatResponseFlux = chatClient.prompt(query).stream().chatResponse();
+        return Map.of("mcp_content", chatResponseFlux);
+    }
+}
@@ -17,10 +17,12 @@
 package com.alibaba.cloud.ai.example.graph.openmanus;
 
 import com.alibaba.cloud.ai.example.graph.openmanus.tool.GoogleSearch;
+import com.alibaba.cloud.ai.example.graph.openmanus.tool.PlanStore;
 import com.alibaba.cloud.ai.example.graph.openmanus.tool.PlanningTool;
 import com.alibaba.cloud.ai.example.graph.openmanus.tool.PythonExecute;
 
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Description;
@@ -30,6 +32,7 @@ import org.springframework.context.annotation.Description;
  * manual registration we do in the previous OpenManus implementation.
  */
 @Configuration
+@EnableConfigurationProperties(PlanStoreProperties.class)
 public class OpenmanusAutoConfiguration {
 
 	// @Bean(name = "browserUseFunction")
@@ -46,11 +49,22 @@ public class OpenmanusAutoConfiguration {
 		return new GoogleSearch();
 	}
 
+	@Bean
+	@ConditionalOnMissingBean
+	public PlanStore planStore(PlanStoreProperties properties) {
+		return new PlanStore(properties.getMaxFinishedPlans(), properties.getSnapshotDirectory(),
+				properties.getSessionIdleTimeout());
+	}
+
+	/**
+	 * The only planning tool instance, shared by the planning agent and the supervisor so
+	 * both work on the same {@link PlanStore}.
+	 */
 	@Bean(name = "planningToolFunction")
 	@ConditionalOnMissingBean
 	@Description(PlanningTool.description)
-	public PlanningTool planningToolFunction() {
-		return new PlanningTool();
+	public PlanningTool planningToolFunction(PlanStore planStore) {
+		return new PlanningTool(planStore);
 	}
 
 	@Bean(name = "pythonExecuteFunction")
@@ -19,6 +19,7 @@ package com.alibaba.cloud.ai.example.graph.openmanus;
 import java.util.Map;
 
 import com.alibaba.cloud.ai.example.graph.openmanus.tool.Builder;
+import com.alibaba.cloud.ai.example.graph.openmanus.tool.PlanStore;
 import com.alibaba.cloud.ai.example.graph.openmanus.tool.PlanningTool;
 import com.alibaba.cloud.ai.graph.*;
 import com.alibaba.cloud.ai.graph.agent.ReactAgent;
@@ -32,6 +33,7 @@ import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.openai.OpenAiChatOptions;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import static com.alibaba.cloud.ai.example.graph.openmanus.OpenManusPrompt.PLANNING_SYSTEM_PROMPT;
@@ -49,16 +51,19 @@ public class OpenmanusController {
 
 	private final ChatClient stepClient;
 
+	private final PlanningTool planningTool;
+
 	private CompiledGraph compiledGraph;
 
 	// 也可以使用如下的方式注入 ChatClient
-	public OpenmanusController(ChatModel chatModel) throws GraphStateException {
+	public OpenmanusController(ChatModel chatModel, PlanningTool planningTool) throws GraphStateException {
+		this.planningTool = planningTool;
 
 		this.planningClient = ChatClient.builder(chatModel)
 			.defaultSystem(PLANNING_SYSTEM_PROMPT)
 			// .defaultAdvisors(new MessageChatMemoryAdvisor(new InMemoryChatMemory()))
 			.defaultAdvisors(new SimpleLoggerAdvisor())
-			.defaultToolCallbacks(Builder.getToolCallList())// tools registered will only
+			.defaultToolCallbacks(Builder.getToolCallList(planningTool))// tools registered will only
 															// be used
 			// as tool description
 			.defaultOptions(OpenAiChatOptions.builder().internalToolExecutionEnabled(false).build())
@@ -81,6 +86,7 @@ public class OpenmanusController {
 
 		OverAllStateFactory stateFactory = () -> {
 			OverAllState state = new OverAllState();
+			state.registerKeyAndStrategy(PlanningTool.SESSION_ID_KEY, new ReplaceStrategy());
 			state.registerKeyAndStrategy("plan", new ReplaceStrategy());
 			state.registerKeyAndStrategy("step_prompt", new ReplaceStrategy());
 			state.registerKeyAndStrategy("step_output", new ReplaceStrategy());
@@ -89,8 +95,8 @@ public class OpenmanusController {
 			return state;
 		};
 
-		SupervisorAgent supervisorAgent = new SupervisorAgent(PlanningTool.INSTANCE);
-		ReactAgent planningAgent = new ReactAgent("planningAgent", planningClient, Builder.getFunctionCallbackList(),
+		SupervisorAgent supervisorAgent = new SupervisorAgent(planningTool);
+		ReactAgent planningAgent = new ReactAgent("planningAgent", planningClient, Builder.getFunctionCallbackList(planningTool),
 				10);
 		planningAgent.getAndCompileGraph();
 		ReactAgent stepAgent = new ReactAgent("stepAgent", stepClient, Builder.getManusAgentFunctionCallbacks(), 10);
@@ -119,9 +125,14 @@ public class OpenmanusController {
 	 * ChatClient 简单调用
 	 */
 	@GetMapping("/chat")
-	public String simpleChat(String query) throws GraphRunnerException {
-
-		return compiledGraph.invoke(Map.of("input", query)).get().data().toString();
+	public String simpleChat(String query,
+			@RequestParam(value = "thread_id", defaultValue = PlanStore.DEFAULT_SESSION, required = false) String threadId)
+			throws GraphRunnerException {
+		RunnableConfig runnableConfig = RunnableConfig.builder().threadId(threadId).build();
+		return compiledGraph.invoke(Map.of("input", query, PlanningTool.SESSION_ID_KEY, threadId), runnableConfig)
+			.get()
+			.data()
+			.toString();
 	}
 
 }
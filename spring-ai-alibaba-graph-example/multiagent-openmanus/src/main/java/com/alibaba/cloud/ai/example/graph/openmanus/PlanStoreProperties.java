@@ -0,0 +1,74 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.example.graph.openmanus;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import com.alibaba.cloud.ai.example.graph.openmanus.tool.PlanStore;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the {@link PlanStore} shared by the planning tool and the supervisor.
+ */
+@ConfigurationProperties(prefix = PlanStoreProperties.PREFIX)
+public class PlanStoreProperties {
+
+	public static final String PREFIX = "spring.ai.openmanus.plan-store";
+
+	/**
+	 * Directory for per-session JSON snapshots, snapshots are disabled when unset.
+	 */
+	private Path snapshotDirectory;
+
+	/**
+	 * Finished plans retained across all sessions before the oldest are evicted.
+	 */
+	private int maxFinishedPlans = PlanStore.DEFAULT_MAX_FINISHED_PLANS;
+
+	/**
+	 * Sessions untouched for longer than this are dropped together with their snapshot,
+	 * zero or negative keeps them forever.
+	 */
+	private Duration sessionIdleTimeout = PlanStore.DEFAULT_SESSION_IDLE_TIMEOUT;
+
+	public Path getSnapshotDirectory() {
+		return snapshotDirectory;
+	}
+
+	public void setSnapshotDirectory(Path snapshotDirectory) {
+		this.snapshotDirectory = snapshotDirectory;
+	}
+
+	public int getMaxFinishedPlans() {
+		return maxFinishedPlans;
+	}
+
+	public void setMaxFinishedPlans(int maxFinishedPlans) {
+		this.maxFinishedPlans = maxFinishedPlans;
+	}
+
+	public Duration getSessionIdleTimeout() {
+		return sessionIdleTimeout;
+	}
+
+	public void setSessionIdleTimeout(Duration sessionIdleTimeout) {
+		this.sessionIdleTimeout = sessionIdleTimeout;
+	}
+
+}
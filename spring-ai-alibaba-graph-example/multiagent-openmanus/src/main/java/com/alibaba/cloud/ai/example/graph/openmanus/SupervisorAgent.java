@@ -37,21 +37,29 @@ public class SupervisorAgent implements NodeAction {
 
 		String planStr = (String) t.value("plan").orElseThrow();
 		Plan tempPlan = parsePlan(planStr);
-		Plan plan = planningTool.getGraphPlan(tempPlan.getPlan_id());
+		String sessionId = PlanningTool.sessionId(t);
+		String planId = tempPlan.getPlan_id();
+		Plan plan = planningTool.getGraphPlan(sessionId, planId);
 
 		Optional<Object> optionalOutput = t.value("step_output");
 
 		if (optionalOutput.isPresent()) {
 			String finalStepOutput = String.format("This is the final output of step %s:\n %s", plan.getCurrentStep(),
 					optionalOutput.get());
-			plan.updateStepStatus(plan.getCurrentStep(), finalStepOutput);
+			// 只记录一次，重复执行的 supervisor 不会覆盖已有结果
+			planningTool.recordStepOutput(sessionId, planId, finalStepOutput);
+			int finishedStep = Integer.parseInt(plan.getCurrentStep()) - 1;
+			planningTool.compareAndSetStepStatus(sessionId, planId, finishedStep, "in_progress", "completed");
 		}
 
 		String promptForNextStep;
 		if (!plan.isFinished()) {
-			promptForNextStep = plan.nextStepPrompt();
+			planningTool.compareAndSetStepStatus(sessionId, planId, Integer.parseInt(plan.getCurrentStep()),
+					"not_started", "in_progress");
+			promptForNextStep = planningTool.nextStepPrompt(sessionId, planId);
 		}
 		else {
+			planningTool.finishPlan(sessionId, planId);
 			promptForNextStep = "Plan completed.";
 		}
 
@@ -20,6 +20,7 @@ import java.util.Map;
 import java.util.Optional;
 
 import com.alibaba.cloud.ai.example.graph.openmanus.SupervisorAgent;
+import com.alibaba.cloud.ai.example.graph.openmanus.tool.PlanStore;
 import com.alibaba.cloud.ai.example.graph.openmanus.tool.PlanningTool;
 import com.alibaba.cloud.ai.graph.*;
 import com.alibaba.cloud.ai.graph.agent.ReactAgent;
@@ -36,6 +37,7 @@ import org.springframework.ai.tool.resolution.ToolCallbackResolver;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import static com.alibaba.cloud.ai.graph.StateGraph.END;
@@ -60,10 +62,11 @@ public class OpenmanusHumanController {
 
 	private CompiledGraph compiledGraph;
 
-	private PlanningTool planningTool = new PlanningTool();
+	private final PlanningTool planningTool;
 
 	// 也可以使用如下的方式注入 ChatClient
-	public OpenmanusHumanController(ChatModel chatModel) {
+	public OpenmanusHumanController(ChatModel chatModel, PlanningTool planningTool) {
+		this.planningTool = planningTool;
 		this.planningClient = ChatClient.builder(chatModel)
 			.defaultSystem(planningPrompt)
 			.defaultAdvisors(new SimpleLoggerAdvisor())
@@ -81,6 +84,7 @@ public class OpenmanusHumanController {
 	public void initGraph() throws GraphStateException {
 		OverAllStateFactory stateFactory = () -> {
 			OverAllState state = new OverAllState();
+			state.registerKeyAndStrategy(PlanningTool.SESSION_ID_KEY, (o1, o2) -> o2);
 			state.registerKeyAndStrategy("plan", (o1, o2) -> o2);
 			state.registerKeyAndStrategy("step_prompt", (o1, o2) -> o2);
 			state.registerKeyAndStrategy("step_output", (o1, o2) -> o2);
@@ -119,19 +123,24 @@ public class OpenmanusHumanController {
 	}
 
 	@GetMapping("/chat")
-	public String simpleChat(String query) throws GraphRunnerException {
-		RunnableConfig runnableConfig = RunnableConfig.builder().threadId("1").build();
-		Optional<OverAllState> result = compiledGraph.invoke(Map.of("input", query), runnableConfig);
+	public String simpleChat(String query,
+			@RequestParam(value = "thread_id", defaultValue = PlanStore.DEFAULT_SESSION, required = false) String threadId)
+			throws GraphRunnerException {
+		RunnableConfig runnableConfig = RunnableConfig.builder().threadId(threadId).build();
+		Optional<OverAllState> result = compiledGraph
+			.invoke(Map.of("input", query, PlanningTool.SESSION_ID_KEY, threadId), runnableConfig);
 		// send back to user and wait for plan approval
 		return result.get().data().toString();
 	}
 
 	@GetMapping("/resume")
-	public String resume() throws GraphRunnerException {
+	public String resume(
+			@RequestParam(value = "thread_id", defaultValue = PlanStore.DEFAULT_SESSION, required = false) String threadId)
+			throws GraphRunnerException {
 		Map<String, Object> data = Map.of("input", "请帮我查询最近的新闻");
 		String nextNode = "planning_agent";
 
-		RunnableConfig runnableConfig = RunnableConfig.builder().threadId("1").build();
+		RunnableConfig runnableConfig = RunnableConfig.builder().threadId(threadId).build();
 
 		StateSnapshot stateSnapshot = compiledGraph.getState(runnableConfig);
 		OverAllState state = stateSnapshot.state();
@@ -145,10 +154,12 @@ public class OpenmanusHumanController {
 	}
 
 	@GetMapping("/resume-to-next-step")
-	public String resumeToNextStep() throws GraphRunnerException {
+	public String resumeToNextStep(
+			@RequestParam(value = "thread_id", defaultValue = PlanStore.DEFAULT_SESSION, required = false) String threadId)
+			throws GraphRunnerException {
 		String nextNode = "supervisor_agent";
 
-		RunnableConfig runnableConfig = RunnableConfig.builder().threadId("1").build();
+		RunnableConfig runnableConfig = RunnableConfig.builder().threadId(threadId).build();
 
 		StateSnapshot stateSnapshot = compiledGraph.getState(runnableConfig);
 		OverAllState state = stateSnapshot.state();
@@ -22,8 +22,8 @@ import org.springframework.ai.tool.ToolCallback;
 
 public class Builder {
 
-	public static List<ToolCallback> getToolCallList() {
-		return List.of(PlanningTool.getFunctionToolCallback());
+	public static List<ToolCallback> getToolCallList(PlanningTool planningTool) {
+		return List.of(PlanningTool.getFunctionToolCallback(planningTool));
 	}
 
 	public static List<ToolCallback> getManusAgentToolCalls() {
@@ -31,8 +31,8 @@ public class Builder {
 				FileSaver.getFunctionToolCallback(), PythonExecute.getFunctionToolCallback());
 	}
 
-	public static List<ToolCallback> getFunctionCallbackList() {
-		return List.of(PlanningTool.getFunctionToolCallback());
+	public static List<ToolCallback> getFunctionCallbackList(PlanningTool planningTool) {
+		return List.of(PlanningTool.getFunctionToolCallback(planningTool));
 	}
 
 	public static List<ToolCallback> getManusAgentFunctionCallbacks() {
@@ -18,6 +18,8 @@ package com.alibaba.cloud.ai.example.graph.openmanus.tool;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.springframework.ai.chat.prompt.PromptTemplate;
 
@@ -25,7 +27,7 @@ public class Plan {
 
 	private Map<String, String> stepStatus;
 
-	private int currentStep = 0;
+	private final AtomicInteger currentStep = new AtomicInteger();
 
 	private String task;
 
@@ -37,11 +39,15 @@ public class Plan {
 		this.task = task;
 		this.plan_id = planId;
 		this.steps = steps;
-		this.stepStatus = new HashMap<>();
+		this.stepStatus = new ConcurrentHashMap<>();
 	}
 
 	public String getCurrentStep() {
-		return String.valueOf(currentStep);
+		return String.valueOf(currentStep.get());
+	}
+
+	public String getTask() {
+		return task;
 	}
 
 	public String getPlan_id() {
@@ -52,17 +58,27 @@ public class Plan {
 		stepStatus.put(stepIndex, status);
 	}
 
+	/**
+	 * Records the status of a step only if it still equals {@code expected}, {@code null}
+	 * meaning no status has been recorded yet.
+	 */
+	public boolean updateStepStatus(String stepIndex, String expected, String status) {
+		if (expected == null) {
+			return stepStatus.putIfAbsent(stepIndex, status) == null;
+		}
+		return stepStatus.replace(stepIndex, expected, status);
+	}
+
 	public String nextStepPrompt() {
-		String nextStepDescription = steps.get(currentStep);
+		int stepIndex = currentStep.getAndIncrement();
+		String nextStepDescription = steps.get(stepIndex);
 		Map<String, Object> context = new HashMap<>();
 		context.put("task", task);
 		context.put("planWithSteps", steps);
-		context.put("stepIndex", currentStep);
+		context.put("stepIndex", stepIndex);
 		context.put("nextStepDescription", nextStepDescription);
 		context.put("stepStatus", stepStatus);
 
-		currentStep++;
-
 		String template = """
 				The task is: {task}
 
@@ -80,11 +96,11 @@ public class Plan {
 	}
 
 	public String nextStep() {
-		return steps.get(currentStep++);
+		return steps.get(currentStep.getAndIncrement());
 	}
 
 	public boolean isFinished() {
-		return currentStep == steps.size();
+		return currentStep.get() >= steps.size();
 	}
 
 	void setPlan_id(String planId) {
@@ -95,4 +111,18 @@ public class Plan {
 		this.steps = steps;
 	}
 
+	Map<String, String> getStepResults() {
+		return Map.copyOf(stepStatus);
+	}
+
+	/**
+	 * Restores the step cursor and recorded step outputs of a persisted plan.
+	 */
+	void restore(int currentStep, Map<String, String> stepResults) {
+		this.currentStep.set(currentStep);
+		if (stepResults != null) {
+			this.stepStatus.putAll(stepResults);
+		}
+	}
+
 }
@@ -0,0 +1,614 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.graph.openmanus.tool;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.TypeReference;
+import com.alibaba.fastjson.annotation.JSONField;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Plans of the planning tool, isolated per session (graph thread id).
+ *
+ * Step statuses and notes are held in atomic arrays so that concurrent agents can move a
+ * step forward with compare-and-set. Finished plans are kept for inspection until more
+ * than {@code maxFinishedPlans} have accumulated, after which the oldest are evicted.
+ * When a snapshot directory is configured, each session is written to
+ * {@code <sessionId>.json} on every change of a plan, its step statuses and notes, or the
+ * step cursor of its graph plan, and reloaded on startup.
+ *
+ * Sessions nobody has touched for longer than {@code sessionIdleTimeout} are dropped with
+ * all their plans and their snapshot file, so abandoned sessions whose plans never finish
+ * do not stay forever. Expiry is checked on access, at most once per sweep interval.
+ */
+public class PlanStore {
+
+	private static final Logger log = LoggerFactory.getLogger(PlanStore.class);
+
+	public static final String DEFAULT_SESSION = "default";
+
+	public static final int DEFAULT_MAX_FINISHED_PLANS = 1000;
+
+	public static final Duration DEFAULT_SESSION_IDLE_TIMEOUT = Duration.ofHours(2);
+
+	private static final long MAX_SWEEP_INTERVAL_MILLIS = Duration.ofMinutes(1).toMillis();
+
+	public static final List<String> STEP_STATUSES = List.of("not_started", "in_progress", "completed", "blocked");
+
+	private final ConcurrentMap<String, Session> sessions = new ConcurrentHashMap<>();
+
+	private final ConcurrentLinkedQueue<PlanKey> finishedPlans = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger finishedCount = new AtomicInteger();
+
+	private final int maxFinishedPlans;
+
+	private final Path snapshotDirectory;
+
+	private final long sessionIdleTimeoutMillis;
+
+	private final long sweepIntervalMillis;
+
+	private final AtomicLong nextSweep = new AtomicLong();
+
+	public PlanStore() {
+		this(DEFAULT_MAX_FINISHED_PLANS, null, DEFAULT_SESSION_IDLE_TIMEOUT);
+	}
+
+	/**
+	 * @param maxFinishedPlans finished plans retained across all sessions
+	 * @param snapshotDirectory directory for JSON snapshots, {@code null} to disable
+	 * @param sessionIdleTimeout idle time after which a session is dropped, {@code null}
+	 * or non-positive to keep sessions forever
+	 */
+	public PlanStore(int maxFinishedPlans, Path snapshotDirectory, Duration sessionIdleTimeout) {
+		this.maxFinishedPlans = maxFinishedPlans;
+		this.snapshotDirectory = snapshotDirectory;
+		this.sessionIdleTimeoutMillis = sessionIdleTimeout == null ? 0 : sessionIdleTimeout.toMillis();
+		this.sweepIntervalMillis = Math.max(1, Math.min(sessionIdleTimeoutMillis, MAX_SWEEP_INTERVAL_MILLIS));
+		if (snapshotDirectory != null) {
+			restore();
+		}
+	}
+
+	public static String sessionId(String sessionId) {
+		return sessionId == null || sessionId.isEmpty() ? DEFAULT_SESSION : sessionId;
+	}
+
+	/**
+	 * @throws RuntimeException if the session already has a plan with this id
+	 */
+	public PlanEntry create(String sessionId, String planId, String title, List<String> steps, Plan graphPlan) {
+		Session session = openSession(sessionId);
+		PlanEntry entry = new PlanEntry(planId, title, steps, graphPlan);
+		if (session.plans.putIfAbsent(planId, entry) != null) {
+			throw new RuntimeException(
+					"A plan with ID '" + planId + "' already exists. Use 'update' to modify existing plans.");
+		}
+		session.currentPlanId = planId;
+		snapshot(sessionId(sessionId));
+		return entry;
+	}
+
+	public PlanEntry get(String sessionId, String planId) {
+		Session session = session(sessionId);
+		if (session == null) {
+			return null;
+		}
+		String id = planId == null || planId.isEmpty() ? session.currentPlanId : planId;
+		return id == null ? null : session.plans.get(id);
+	}
+
+	public Collection<PlanEntry> list(String sessionId) {
+		Session session = session(sessionId);
+		return session == null ? List.of() : Collections.unmodifiableCollection(session.plans.values());
+	}
+
+	public String getCurrentPlanId(String sessionId) {
+		Session session = session(sessionId);
+		return session == null ? null : session.currentPlanId;
+	}
+
+	public void setCurrentPlanId(String sessionId, String planId) {
+		openSession(sessionId).currentPlanId = planId;
+	}
+
+	/**
+	 * Replace the steps of a plan, keeping status and notes of unchanged steps.
+	 */
+	public PlanEntry replaceSteps(String sessionId, String planId, String title, List<String> steps) {
+		Session session = session(sessionId);
+		PlanEntry updated = session == null ? null
+				: session.plans.computeIfPresent(planId, (id, entry) -> entry.withSteps(title, steps));
+		if (updated != null) {
+			snapshot(sessionId(sessionId));
+		}
+		return updated;
+	}
+
+	public boolean compareAndSetStepStatus(String sessionId, String planId, int stepIndex, String expected,
+			String status) {
+		PlanEntry entry = get(sessionId, planId);
+		if (entry == null || !entry.compareAndSetStatus(stepIndex, expected, status)) {
+			return false;
+		}
+		snapshot(sessionId(sessionId));
+		return true;
+	}
+
+	/**
+	 * Set the status and/or notes of a step, {@code null} leaves the value unchanged.
+	 */
+	public void updateStep(String sessionId, PlanEntry entry, int stepIndex, String status, String stepNotes) {
+		entry.checkIndex(stepIndex);
+		if (status != null) {
+			entry.statuses.set(stepIndex, status);
+		}
+		if (stepNotes != null) {
+			entry.notes.set(stepIndex, stepNotes);
+		}
+		snapshot(sessionId(sessionId));
+	}
+
+	/**
+	 * Record the output of the graph plan's current step, only the first output of a step is kept.
+	 */
+	public boolean recordStepOutput(String sessionId, String planId, String output) {
+		Plan graphPlan = requireGraphPlan(sessionId, planId);
+		if (!graphPlan.updateStepStatus(graphPlan.getCurrentStep(), null, output)) {
+			return false;
+		}
+		snapshot(sessionId(sessionId));
+		return true;
+	}
+
+	/**
+	 * Advance the graph plan to its next step, persisting the cursor so a restored plan
+	 * continues where it stopped instead of starting over.
+	 */
+	public String nextStepPrompt(String sessionId, String planId) {
+		String prompt = requireGraphPlan(sessionId, planId).nextStepPrompt();
+		snapshot(sessionId(sessionId));
+		return prompt;
+	}
+
+	private Plan requireGraphPlan(String sessionId, String planId) {
+		PlanEntry entry = get(sessionId, planId);
+		if (entry == null || entry.graphPlan == null) {
+			throw new RuntimeException("No graph plan found with ID: " + planId);
+		}
+		return entry.graphPlan;
+	}
+
+	/**
+	 * Mark a plan as finished, making it eligible for eviction.
+	 */
+	public void finish(String sessionId, String planId) {
+		PlanEntry entry = get(sessionId, planId);
+		if (entry == null || entry.finished) {
+			return;
+		}
+		entry.finished = true;
+		finishedPlans.offer(new PlanKey(sessionId(sessionId), entry.planId));
+		snapshot(sessionId(sessionId));
+		if (finishedCount.incrementAndGet() > maxFinishedPlans) {
+			evictFinished();
+		}
+	}
+
+	public PlanEntry remove(String sessionId, String planId) {
+		Session session = session(sessionId);
+		if (session == null) {
+			return null;
+		}
+		PlanEntry removed = session.plans.remove(planId);
+		if (removed != null) {
+			if (planId.equals(session.currentPlanId)) {
+				session.currentPlanId = null;
+			}
+			if (removed.finished) {
+				finishedCount.decrementAndGet();
+			}
+			removeSessionIfEmpty(sessionId(sessionId), session);
+			snapshot(sessionId(sessionId));
+		}
+		return removed;
+	}
+
+	private void evictFinished() {
+		PlanKey key;
+		while (finishedCount.get() > maxFinishedPlans && (key = finishedPlans.poll()) != null) {
+			Session session = sessions.get(key.sessionId());
+			if (session == null) {
+				continue;
+			}
+			PlanEntry entry = session.plans.get(key.planId());
+			if (entry != null && entry.finished && session.plans.remove(key.planId(), entry)) {
+				finishedCount.decrementAndGet();
+				if (key.planId().equals(session.currentPlanId)) {
+					session.currentPlanId = null;
+				}
+				removeSessionIfEmpty(key.sessionId(), session);
+				snapshot(key.sessionId());
+				log.debug("Evicted finished plan {} of session {}", key.planId(), key.sessionId());
+			}
+		}
+	}
+
+	private Session session(String sessionId) {
+		expireIdleSessions();
+		Session session = sessions.get(sessionId(sessionId));
+		if (session != null) {
+			session.touch();
+		}
+		return session;
+	}
+
+	private Session openSession(String sessionId) {
+		expireIdleSessions();
+		Session session = sessions.computeIfAbsent(sessionId(sessionId),
+				id -> new Session(System.currentTimeMillis()));
+		session.touch();
+		return session;
+	}
+
+	/**
+	 * Drop sessions idle for longer than the timeout. Only the caller that moves the sweep
+	 * deadline forward scans, everybody else returns immediately.
+	 */
+	private void expireIdleSessions() {
+		if (sessionIdleTimeoutMillis <= 0) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		long deadline = nextSweep.get();
+		if (now < deadline || !nextSweep.compareAndSet(deadline, now + sweepIntervalMillis)) {
+			return;
+		}
+		for (Map.Entry<String, Session> candidate : sessions.entrySet()) {
+			String sessionId = candidate.getKey();
+			Session session = candidate.getValue();
+			if (now - session.lastAccess > sessionIdleTimeoutMillis && sessions.remove(sessionId, session)) {
+				for (PlanEntry entry : session.plans.values()) {
+					if (entry.finished) {
+						finishedCount.decrementAndGet();
+					}
+				}
+				finishedPlans.removeIf(key -> key.sessionId().equals(sessionId));
+				// the session is no longer mapped, so this deletes its snapshot file
+				snapshot(sessionId);
+				log.debug("Expired idle session {} with {} plans", sessionId, session.plans.size());
+			}
+		}
+	}
+
+	private void removeSessionIfEmpty(String sessionId, Session session) {
+		if (session.plans.isEmpty()) {
+			sessions.remove(sessionId, session);
+		}
+	}
+
+	private void snapshot(String sessionId) {
+		if (snapshotDirectory == null) {
+			return;
+		}
+		Path file = snapshotDirectory.resolve(sessionFileName(sessionId));
+		try {
+			Session session = sessions.get(sessionId);
+			if (session == null) {
+				Files.deleteIfExists(file);
+				return;
+			}
+			// writers of the same session are serialized so an older view never replaces a newer file
+			synchronized (session) {
+				SessionSnapshot snapshot = new SessionSnapshot();
+				snapshot.sessionId = sessionId;
+				snapshot.currentPlanId = session.currentPlanId;
+				snapshot.plans = new ArrayList<>();
+				for (PlanEntry entry : session.plans.values()) {
+					snapshot.plans.add(entry.toSnapshot());
+				}
+
+				Files.createDirectories(snapshotDirectory);
+				Path tmp = Files.createTempFile(snapshotDirectory, sessionFileName(sessionId), ".tmp");
+				Files.writeString(tmp, JSON.toJSONString(snapshot), StandardCharsets.UTF_8);
+				Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+		}
+		catch (IOException e) {
+			log.warn("Failed to snapshot plans of session {}", sessionId, e);
+		}
+	}
+
+	private void restore() {
+		if (!Files.isDirectory(snapshotDirectory)) {
+			return;
+		}
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(snapshotDirectory, "*.json")) {
+			for (Path file : files) {
+				SessionSnapshot snapshot = JSON.parseObject(Files.readString(file, StandardCharsets.UTF_8),
+						new TypeReference<SessionSnapshot>() {
+						});
+				String sessionId = snapshot.sessionId;
+				// an idle session keeps its idle time across restarts
+				Session session = new Session(Files.getLastModifiedTime(file).toMillis());
+				session.currentPlanId = snapshot.currentPlanId;
+				for (PlanSnapshot plan : snapshot.plans) {
+					PlanEntry entry = PlanEntry.fromSnapshot(plan);
+					session.plans.put(entry.planId, entry);
+					if (entry.finished) {
+						finishedPlans.offer(new PlanKey(sessionId, entry.planId));
+						finishedCount.incrementAndGet();
+					}
+				}
+				sessions.put(sessionId, session);
+			}
+			log.info("Restored plans of {} sessions from {}", sessions.size(), snapshotDirectory);
+		}
+		catch (IOException | RuntimeException e) {
+			log.warn("Failed to restore plan snapshots from {}", snapshotDirectory, e);
+		}
+	}
+
+	private static String sessionFileName(String sessionId) {
+		return sessionId.replaceAll("[^A-Za-z0-9._-]", "_") + ".json";
+	}
+
+	private static final class Session {
+
+		private final ConcurrentMap<String, PlanEntry> plans = new ConcurrentHashMap<>();
+
+		private volatile String currentPlanId;
+
+		private volatile long lastAccess;
+
+		private Session(long lastAccess) {
+			this.lastAccess = lastAccess;
+		}
+
+		private void touch() {
+			lastAccess = System.currentTimeMillis();
+		}
+
+	}
+
+	private record PlanKey(String sessionId, String planId) {
+	}
+
+	/**
+	 * JSON form of a session snapshot file.
+	 */
+	public static class SessionSnapshot {
+
+		@JSONField(name = "session_id")
+		public String sessionId;
+
+		@JSONField(name = "current_plan_id")
+		public String currentPlanId;
+
+		public List<PlanSnapshot> plans = new ArrayList<>();
+
+	}
+
+	/**
+	 * JSON form of one plan in a session snapshot; {@code task} is {@code null} for plans
+	 * without a graph plan.
+	 */
+	public static class PlanSnapshot {
+
+		@JSONField(name = "plan_id")
+		public String planId;
+
+		public String title;
+
+		public List<String> steps = new ArrayList<>();
+
+		@JSONField(name = "step_statuses")
+		public List<String> stepStatuses = new ArrayList<>();
+
+		@JSONField(name = "step_notes")
+		public List<String> stepNotes = new ArrayList<>();
+
+		public String task;
+
+		@JSONField(name = "current_step")
+		public int currentStep;
+
+		@JSONField(name = "step_results")
+		public Map<String, String> stepResults = new LinkedHashMap<>();
+
+		public boolean finished;
+
+	}
+
+	/**
+	 * One plan of a session. Steps are immutable; a step update produces a new entry.
+	 */
+	public static final class PlanEntry {
+
+		private final String planId;
+
+		private final String title;
+
+		private final List<String> steps;
+
+		private final AtomicReferenceArray<String> statuses;
+
+		private final AtomicReferenceArray<String> notes;
+
+		private final Plan graphPlan;
+
+		private volatile boolean finished;
+
+		private PlanEntry(String planId, String title, List<String> steps, Plan graphPlan) {
+			this(planId, title, steps, new AtomicReferenceArray<>(filled(steps.size(), "not_started")),
+					new AtomicReferenceArray<>(filled(steps.size(), "")), graphPlan);
+		}
+
+		private PlanEntry(String planId, String title, List<String> steps, AtomicReferenceArray<String> statuses,
+				AtomicReferenceArray<String> notes, Plan graphPlan) {
+			this.planId = planId;
+			this.title = title;
+			this.steps = List.copyOf(steps);
+			this.statuses = statuses;
+			this.notes = notes;
+			this.graphPlan = graphPlan;
+		}
+
+		private PlanEntry withSteps(String newTitle, List<String> newSteps) {
+			if (newSteps == null) {
+				return newTitle == null || newTitle.isEmpty() ? this
+						: copyFinished(new PlanEntry(planId, newTitle, steps, statuses, notes, graphPlan));
+			}
+			String[] newStatuses = new String[newSteps.size()];
+			String[] newNotes = new String[newSteps.size()];
+			for (int i = 0; i < newSteps.size(); i++) {
+				boolean unchanged = i < steps.size() && newSteps.get(i).equals(steps.get(i));
+				newStatuses[i] = unchanged ? statuses.get(i) : "not_started";
+				newNotes[i] = unchanged ? notes.get(i) : "";
+			}
+			String title = newTitle == null || newTitle.isEmpty() ? this.title : newTitle;
+			return copyFinished(new PlanEntry(planId, title, newSteps, new AtomicReferenceArray<>(newStatuses),
+					new AtomicReferenceArray<>(newNotes), graphPlan));
+		}
+
+		private PlanEntry copyFinished(PlanEntry entry) {
+			entry.finished = finished;
+			return entry;
+		}
+
+		/**
+		 * Compares by value and then CASes on the stored instance, so callers do not need
+		 * to pass the identical string instance.
+		 */
+		public boolean compareAndSetStatus(int stepIndex, String expected, String status) {
+			checkIndex(stepIndex);
+			while (true) {
+				String current = statuses.get(stepIndex);
+				if (!Objects.equals(current, expected)) {
+					return false;
+				}
+				if (statuses.compareAndSet(stepIndex, current, status)) {
+					return true;
+				}
+			}
+		}
+
+		public String getPlanId() {
+			return planId;
+		}
+
+		public String getTitle() {
+			return title;
+		}
+
+		public List<String> getSteps() {
+			return steps;
+		}
+
+		public List<String> getStatuses() {
+			return toList(statuses);
+		}
+
+		public List<String> getNotes() {
+			return toList(notes);
+		}
+
+		public Plan getGraphPlan() {
+			return graphPlan;
+		}
+
+		public boolean isFinished() {
+			return finished;
+		}
+
+		private void checkIndex(int stepIndex) {
+			if (stepIndex < 0 || stepIndex >= steps.size()) {
+				throw new RuntimeException(
+						"Invalid step_index: " + stepIndex + ". Valid indices range from 0 to " + (steps.size() - 1) + ".");
+			}
+		}
+
+		private PlanSnapshot toSnapshot() {
+			PlanSnapshot snapshot = new PlanSnapshot();
+			snapshot.planId = planId;
+			snapshot.title = title;
+			snapshot.steps = steps;
+			snapshot.stepStatuses = getStatuses();
+			snapshot.stepNotes = getNotes();
+			if (graphPlan != null) {
+				snapshot.task = graphPlan.getTask();
+				snapshot.currentStep = Integer.parseInt(graphPlan.getCurrentStep());
+				snapshot.stepResults = graphPlan.getStepResults();
+			}
+			snapshot.finished = finished;
+			return snapshot;
+		}
+
+		private static PlanEntry fromSnapshot(PlanSnapshot snapshot) {
+			Plan graphPlan = null;
+			if (snapshot.task != null) {
+				graphPlan = new Plan(snapshot.task, snapshot.planId, snapshot.steps);
+				graphPlan.restore(snapshot.currentStep, snapshot.stepResults);
+			}
+			PlanEntry entry = new PlanEntry(snapshot.planId, snapshot.title, snapshot.steps,
+					new AtomicReferenceArray<>(snapshot.stepStatuses.toArray(String[]::new)),
+					new AtomicReferenceArray<>(snapshot.stepNotes.toArray(String[]::new)), graphPlan);
+			entry.finished = snapshot.finished;
+			return entry;
+		}
+
+		private static String[] filled(int size, String value) {
+			String[] array = new String[size];
+			Arrays.fill(array, value);
+			return array;
+		}
+
+		private static List<String> toList(AtomicReferenceArray<String> array) {
+			List<String> list = new ArrayList<>(array.length());
+			for (int i = 0; i < array.length(); i++) {
+				list.add(Objects.toString(array.get(i), ""));
+			}
+			return list;
+		}
+
+	}
+
+}
@@ -94,8 +94,8 @@ public class PlanningTool implements BiFunction<String, ToolContext, String> {
 		return functionTool;
 	}
 
-	public static FunctionToolCallback getFunctionToolCallback() {
-		return FunctionToolCallback.builder(name, PlanningTool.INSTANCE)
+	public static FunctionToolCallback getFunctionToolCallback(PlanningTool planningTool) {
+		return FunctionToolCallback.builder(name, planningTool)
 			.description(description)
 			.inputSchema(PARAMETERS)
 			.inputType(String.class)
@@ -103,13 +103,20 @@ public class PlanningTool implements BiFunction<String, ToolContext, String> {
 			.build();
 	}
 
-	public static final PlanningTool INSTANCE = new PlanningTool();
+	/**
+	 * State key holding the session (graph thread) id that plans are isolated by
+	 */
+	public static final String SESSION_ID_KEY = "session_id";
 
-	private Map<String, Map<String, Object>> plans = new HashMap<>();
+	private final PlanStore planStore;
 
-	private Map<String, Plan> graphPlans = new HashMap<>();
+	public PlanningTool() {
+		this(new PlanStore());
+	}
 
-	private String currentPlanId;
+	public PlanningTool(PlanStore planStore) {
+		this.planStore = planStore;
+	}
 
 	public String run(String toolInput, ToolContext context) {
 		try {
@@ -162,6 +169,10 @@ public class PlanningTool implements BiFunction<String, ToolContext, String> {
 		}
 	}
 
+	public static String sessionId(OverAllState state) {
+		return PlanStore.sessionId(state == null ? null : (String) state.value(SESSION_ID_KEY).orElse(null));
+	}
+
 	public String createPlan(String planId, String title, List<String> steps, ToolContext context) {
 		OverAllState state = (OverAllState) context.getContext().get("state");
 
@@ -169,11 +180,6 @@ public class PlanningTool implements BiFunction<String, ToolContext, String> {
 			throw new RuntimeException("Parameter `plan_id` is required for command: create");
 		}
 
-		if (plans.containsKey(planId)) {
-			throw new RuntimeException(
-					"A plan with ID '" + planId + "' already exists. Use 'update' to modify existing plans.");
-		}
-
 		if (title == null || title.isEmpty()) {
 			throw new RuntimeException("Parameter `title` is required for command: create");
 		}
@@ -182,89 +188,48 @@ public class PlanningTool implements BiFunction<String, ToolContext, String> {
 			throw new RuntimeException("Parameter `steps` must be a non-empty list of strings for command: create");
 		}
 
-		Map<String, Object> plan = new HashMap<>();
-		plan.put("plan_id", planId);
-		plan.put("title", title);
-		plan.put("steps", steps);
-		plan.put("step_statuses", new ArrayList<>(Collections.nCopies(steps.size(), "not_started")));
-		plan.put("step_notes", new ArrayList<>(Collections.nCopies(steps.size(), "")));
-
-		plans.put(planId, plan);
-		this.currentPlanId = planId; // Set as active plan
-
 		List<Message> messages = (List<Message>) state.value("messages").get();
 		Plan plan2 = new Plan(messages.get(0).getText(), planId, steps);
-		graphPlans.put(planId, plan2);
+		planStore.create(sessionId(state), planId, title, steps, plan2); // Set as active plan
 
 		return planId;
 	}
 
-	public PlanToolExecuteResult updatePlan(String planId, String title, List<String> steps) {
+	public PlanToolExecuteResult updatePlan(String sessionId, String planId, String title, List<String> steps) {
 		if (planId == null || planId.isEmpty()) {
 			throw new RuntimeException("Parameter `plan_id` is required for command: update");
 		}
 
-		if (!plans.containsKey(planId)) {
-			throw new RuntimeException("No plan found with ID: " + planId);
-		}
-
-		Map<String, Object> plan = plans.get(planId);
-
-		if (title != null && !title.isEmpty()) {
-			plan.put("title", title);
+		if (steps != null && !steps.stream().allMatch(step -> step instanceof String)) {
+			throw new RuntimeException("Parameter `steps` must be a list of strings for command: update");
 		}
 
-		if (steps != null) {
-			if (!steps.stream().allMatch(step -> step instanceof String)) {
-				throw new RuntimeException("Parameter `steps` must be a list of strings for command: update");
-			}
-
-			List<String> oldSteps = (List<String>) plan.get("steps");
-			List<String> oldStatuses = (List<String>) plan.get("step_statuses");
-			List<String> oldNotes = (List<String>) plan.get("step_notes");
-
-			List<String> newStatuses = new ArrayList<>();
-			List<String> newNotes = new ArrayList<>();
-
-			for (int i = 0; i < steps.size(); i++) {
-				String step = steps.get(i);
-				if (i < oldSteps.size() && step.equals(oldSteps.get(i))) {
-					newStatuses.add(oldStatuses.get(i));
-					newNotes.add(oldNotes.get(i));
-				}
-				else {
-					newStatuses.add("not_started");
-					newNotes.add("");
-				}
-			}
-
-			plan.put("steps", steps);
-			plan.put("step_statuses", newStatuses);
-			plan.put("step_notes", newNotes);
+		PlanStore.PlanEntry plan = planStore.replaceSteps(sessionId, planId, title, steps);
+		if (plan == null) {
+			throw new RuntimeException("No plan found with ID: " + planId);
 		}
 
 		return new PlanToolExecuteResult("Plan updated successfully: " + planId + "\n\n" + formatPlan(plan), planId);
 	}
 
-	public PlanToolExecuteResult listPlans() {
+	public PlanToolExecuteResult listPlans(String sessionId) {
+		Collection<PlanStore.PlanEntry> plans = planStore.list(sessionId);
 		if (plans.isEmpty()) {
 			return new PlanToolExecuteResult("No plans available. Create a plan with the 'create' command.", "");
 		}
 
+		String currentPlanId = planStore.getCurrentPlanId(sessionId);
 		StringBuilder output = new StringBuilder("Available plans:\n");
-		for (String planId : plans.keySet()) {
-			Map<String, Object> plan = plans.get(planId);
-			String currentMarker = planId.equals(currentPlanId) ? " (active)" : "";
-			long completed = ((List<String>) plan.get("step_statuses")).stream()
-				.filter(status -> "completed".equals(status))
-				.count();
-			int total = ((List<String>) plan.get("steps")).size();
+		for (PlanStore.PlanEntry plan : plans) {
+			String currentMarker = plan.getPlanId().equals(currentPlanId) ? " (active)" : "";
+			long completed = plan.getStatuses().stream().filter(status -> "completed".equals(status)).count();
+			int total = plan.getSteps().size();
 			String progress = completed + "/" + total + " steps completed";
 			output.append("• ")
-				.append(planId)
+				.append(plan.getPlanId())
 				.append(currentMarker)
 				.append(": ")
-				.append(plan.get("title"))
+				.append(plan.getTitle())
 				.append(" - ")
 				.append(progress)
 				.append("\n");
@@ -273,127 +238,113 @@ public class PlanningTool implements BiFunction<String, ToolContext, String> {
 		return new PlanToolExecuteResult(output.toString(), "");
 	}
 
-	public Plan getGraphPlan(String planId) {
-		if (planId == null || planId.isEmpty()) {
-			if (currentPlanId == null) {
-				throw new RuntimeException("No active plan. Please specify a plan_id or set an active plan.");
-			}
-			planId = currentPlanId;
-		}
-
-		if (!plans.containsKey(planId)) {
-			throw new RuntimeException("No plan found with ID: " + planId);
-		}
-
-		return graphPlans.get(planId);
+	public Plan getGraphPlan(String sessionId, String planId) {
+		return requirePlan(sessionId, planId).getGraphPlan();
 	}
 
-	public PlanToolExecuteResult getPlan(String planId) {
-		if (planId == null || planId.isEmpty()) {
-			if (currentPlanId == null) {
-				throw new RuntimeException("No active plan. Please specify a plan_id or set an active plan.");
-			}
-			planId = currentPlanId;
-		}
-
-		if (!plans.containsKey(planId)) {
-			throw new RuntimeException("No plan found with ID: " + planId);
-		}
-
-		Map<String, Object> plan = plans.get(planId);
-		return new PlanToolExecuteResult(formatPlan(plan), planId);
+	public PlanToolExecuteResult getPlan(String sessionId, String planId) {
+		PlanStore.PlanEntry plan = requirePlan(sessionId, planId);
+		return new PlanToolExecuteResult(formatPlan(plan), plan.getPlanId());
 	}
 
-	public PlanToolExecuteResult setActivePlan(String planId) {
+	public PlanToolExecuteResult setActivePlan(String sessionId, String planId) {
 		if (planId == null || planId.isEmpty()) {
 			throw new RuntimeException("Parameter `plan_id` is required for command: set_active");
 		}
 
-		if (!plans.containsKey(planId)) {
-			throw new RuntimeException("No plan found with ID: " + planId);
-		}
-
-		currentPlanId = planId;
-		return new PlanToolExecuteResult(
-				"Plan '" + planId + "' is now the active plan.\n\n" + formatPlan(plans.get(planId)), planId);
+		PlanStore.PlanEntry plan = requirePlan(sessionId, planId);
+		planStore.setCurrentPlanId(sessionId, planId);
+		return new PlanToolExecuteResult("Plan '" + planId + "' is now the active plan.\n\n" + formatPlan(plan),
+				planId);
 	}
 
-	public PlanToolExecuteResult markStep(String planId, Integer stepIndex, String stepStatus, String stepNotes) {
-		if (planId == null || planId.isEmpty()) {
-			if (currentPlanId == null) {
-				throw new RuntimeException("No active plan. Please specify a plan_id or set an active plan.");
-			}
-			planId = currentPlanId;
-		}
-
-		if (!plans.containsKey(planId)) {
-			throw new RuntimeException("No plan found with ID: " + planId);
-		}
+	public PlanToolExecuteResult markStep(String sessionId, String planId, Integer stepIndex, String stepStatus,
+			String stepNotes) {
+		PlanStore.PlanEntry plan = requirePlan(sessionId, planId);
 
 		if (stepIndex == null) {
 			throw new RuntimeException("Parameter `step_index` is required for command: mark_step");
 		}
 
-		Map<String, Object> plan = plans.get(planId);
-		List<String> steps = (List<String>) plan.get("steps");
-
-		if (stepIndex < 0 || stepIndex >= steps.size()) {
-			throw new RuntimeException(
-					"Invalid step_index: " + stepIndex + ". Valid indices range from 0 to " + (steps.size() - 1) + ".");
-		}
-
-		List<String> stepStatuses = (List<String>) plan.get("step_statuses");
-		List<String> stepNotesList = (List<String>) plan.get("step_notes");
-
-		if (stepStatus != null
-				&& !Arrays.asList("not_started", "in_progress", "completed", "blocked").contains(stepStatus)) {
+		if (stepStatus != null && !PlanStore.STEP_STATUSES.contains(stepStatus)) {
 			throw new RuntimeException("Invalid step_status: " + stepStatus
 					+ ". Valid statuses are: not_started, in_progress, completed, blocked");
 		}
 
-		if (stepStatus != null) {
-			stepStatuses.set(stepIndex, stepStatus);
-		}
-
-		if (stepNotes != null) {
-			stepNotesList.set(stepIndex, stepNotes);
-		}
+		planStore.updateStep(sessionId, plan, stepIndex, stepStatus, stepNotes);
 
-		String result = "Step " + stepIndex + " updated in plan '" + planId + "'.\n\n" + formatPlan(plan);
+		String result = "Step " + stepIndex + " updated in plan '" + plan.getPlanId() + "'.\n\n" + formatPlan(plan);
 		log.info(result);
-		return new PlanToolExecuteResult(result, planId);
+		return new PlanToolExecuteResult(result, plan.getPlanId());
 	}
 
-	public PlanToolExecuteResult deletePlan(String planId) {
+	/**
+	 * Moves a step from {@code expected} to {@code stepStatus} only if no other agent
+	 * changed it in between.
+	 * @return whether the status was updated
+	 */
+	public boolean compareAndSetStepStatus(String sessionId, String planId, int stepIndex, String expected,
+			String stepStatus) {
+		return planStore.compareAndSetStepStatus(sessionId, planId, stepIndex, expected, stepStatus);
+	}
+
+	/**
+	 * Records the output of the graph plan's current step once.
+	 */
+	public boolean recordStepOutput(String sessionId, String planId, String output) {
+		return planStore.recordStepOutput(sessionId, planId, output);
+	}
+
+	/**
+	 * Advances the graph plan and returns the prompt of its next step.
+	 */
+	public String nextStepPrompt(String sessionId, String planId) {
+		return planStore.nextStepPrompt(sessionId, planId);
+	}
+
+	/**
+	 * Marks the plan finished so that it becomes eligible for eviction.
+	 */
+	public void finishPlan(String sessionId, String planId) {
+		planStore.finish(sessionId, planId);
+	}
+
+	public PlanToolExecuteResult deletePlan(String sessionId, String planId) {
 		if (planId == null || planId.isEmpty()) {
 			throw new RuntimeException("Parameter `plan_id` is required for command: delete");
 		}
 
-		if (!plans.containsKey(planId)) {
+		if (planStore.remove(sessionId, planId) == null) {
 			throw new RuntimeException("No plan found with ID: " + planId);
 		}
 
-		plans.remove(planId);
+		return new PlanToolExecuteResult("Plan '" + planId + "' has been deleted.", planId);
+	}
 
-		if (planId.equals(currentPlanId)) {
-			currentPlanId = null;
+	private PlanStore.PlanEntry requirePlan(String sessionId, String planId) {
+		if ((planId == null || planId.isEmpty()) && planStore.getCurrentPlanId(sessionId) == null) {
+			throw new RuntimeException("No active plan. Please specify a plan_id or set an active plan.");
 		}
 
-		return new PlanToolExecuteResult("Plan '" + planId + "' has been deleted.", planId);
+		PlanStore.PlanEntry plan = planStore.get(sessionId, planId);
+		if (plan == null) {
+			throw new RuntimeException("No plan found with ID: " + planId);
+		}
+		return plan;
 	}
 
-	private String formatPlan(Map<String, Object> plan) {
+	private String formatPlan(PlanStore.PlanEntry plan) {
 		StringBuilder output = new StringBuilder();
-		String planTitle = (String) plan.get("title");
-		String planId = (String) plan.get("plan_id");
+		String planTitle = plan.getTitle();
+		String planId = plan.getPlanId();
 
 		output.append("Plan: ").append(planTitle).append(" (ID: ").append(planId).append(")\n");
 		output.append(repeatString("=", output.length())).append("\n\n");
 
 		// Calculate progress statistics
-		List<String> steps = (List<String>) plan.get("steps");
-		List<String> stepStatuses = (List<String>) plan.get("step_statuses");
-		List<String> stepNotes = (List<String>) plan.get("step_notes");
+		List<String> steps = plan.getSteps();
+		List<String> stepStatuses = plan.getStatuses();
+		List<String> stepNotes = plan.getNotes();
 
 		int totalSteps = steps.size();
 		long completed = stepStatuses.stream().filter(status -> "completed".equals(status)).count();
@@ -459,20 +410,16 @@ public class PlanningTool implements BiFunction<String, ToolContext, String> {
 		return repeated.toString();
 	}
 
-	public Map<String, Map<String, Object>> getPlans() {
-		return plans;
-	}
-
-	public void setPlans(Map<String, Map<String, Object>> plans) {
-		this.plans = plans;
+	public PlanStore getPlanStore() {
+		return planStore;
 	}
 
-	public String getCurrentPlanId() {
-		return currentPlanId;
+	public String getCurrentPlanId(String sessionId) {
+		return planStore.getCurrentPlanId(sessionId);
 	}
 
-	public void setCurrentPlanId(String currentPlanId) {
-		this.currentPlanId = currentPlanId;
+	public void setCurrentPlanId(String sessionId, String currentPlanId) {
+		planStore.setCurrentPlanId(sessionId, currentPlanId);
 	}
 
 	@Override
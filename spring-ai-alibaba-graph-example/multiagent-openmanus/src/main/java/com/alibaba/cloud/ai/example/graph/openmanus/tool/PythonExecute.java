@@ -15,14 +15,18 @@
  */
 package com.alibaba.cloud.ai.example.graph.openmanus.tool;
 
-import java.util.HashMap;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 
-import com.alibaba.cloud.ai.example.graph.openmanus.tool.support.CodeExecutionResult;
 import com.alibaba.cloud.ai.example.graph.openmanus.tool.support.CodeUtils;
 import com.alibaba.cloud.ai.example.graph.openmanus.tool.support.ToolExecuteResult;
+import com.alibaba.cloud.ai.example.graph.openmanus.tool.support.process.ProcessExecutor;
+import com.alibaba.cloud.ai.example.graph.openmanus.tool.support.process.ProcessResult;
+import com.alibaba.cloud.ai.example.graph.openmanus.tool.support.process.PythonInterpreterPool;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.TypeReference;
 import org.slf4j.Logger;
@@ -37,7 +41,11 @@ public class PythonExecute implements BiFunction<String, ToolContext, ToolExecut
 
 	private static final Logger log = LoggerFactory.getLogger(PythonExecute.class);
 
-	private UUID uuid = UUID.randomUUID();
+	private static final int INTERPRETER_WARM_SIZE = 1;
+
+	private static final int INTERPRETER_MAX_SIZE = 4;
+
+	private static final Map<String, PythonInterpreterPool> INTERPRETER_POOLS = new ConcurrentHashMap<>();
 
 	private Boolean arm64 = true;
 
@@ -82,12 +90,27 @@ public class PythonExecute implements BiFunction<String, ToolContext, ToolExecut
 		});
 		String code = (String) toolInputMap.get("code");
 		// String result = PythonUtils.invokePythonCodeWithArch(code, arm64);
-		CodeExecutionResult codeExecutionResult = CodeUtils.executeCode(code, "python",
-				"tmp_" + uuid.toString() + ".py", arm64, new HashMap<>());
-		String result = codeExecutionResult.getLogs();
+		ProcessResult processResult = interpreterPool(arm64).execute(code);
+		String result = processResult.isSuccess() ? processResult.stdout() : processResult.combinedOutput();
 		return new ToolExecuteResult(result);
 	}
 
+	/**
+	 * Warm interpreters shared by all PythonExecute instances, one pool per architecture
+	 */
+	private static PythonInterpreterPool interpreterPool(Boolean arm64) {
+		return INTERPRETER_POOLS.computeIfAbsent(String.valueOf(arm64), key -> {
+			List<String> commandPrefix = new ArrayList<>();
+			if (arm64 != null) {
+				commandPrefix.add("arch");
+				commandPrefix.add(arm64 ? "-arm64" : "-x86_64");
+			}
+			commandPrefix.add("python3");
+			return new PythonInterpreterPool(commandPrefix, INTERPRETER_WARM_SIZE, INTERPRETER_MAX_SIZE,
+					Duration.ofSeconds(CodeUtils.DEFAULT_TIMEOUT), ProcessExecutor.DEFAULT_MAX_OUTPUT_CHARS);
+		});
+	}
+
 	public Boolean getArm64() {
 		return arm64;
 	}
@@ -15,26 +15,24 @@
  */
 package com.alibaba.cloud.ai.example.graph.openmanus.tool.support;
 
-import java.io.BufferedReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
+import com.alibaba.cloud.ai.example.graph.openmanus.tool.support.process.ProcessExecutor;
+import com.alibaba.cloud.ai.example.graph.openmanus.tool.support.process.ProcessResult;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import static org.apache.commons.lang3.StringUtils.EMPTY;
-
 public class CodeUtils {
 
 	private static final Logger log = LoggerFactory.getLogger(CodeUtils.class);
@@ -43,7 +41,10 @@ public class CodeUtils {
 
 	private static final String UNKNOWN = "unknown";
 
-	private static final int DEFAULT_TIMEOUT = 600;
+	public static final int DEFAULT_TIMEOUT = 600;
+
+	private static final ProcessExecutor CODE_EXECUTOR = new ProcessExecutor(Duration.ofSeconds(DEFAULT_TIMEOUT),
+			ProcessExecutor.DEFAULT_MAX_OUTPUT_CHARS);
 
 	public static final String WORKING_DIR = Paths.get(System.getProperty("user.dir"), "extensions").toString();
 
@@ -166,53 +167,18 @@ public class CodeUtils {
 	}
 
 	public static ExecuteCommandResult executeCommand(String... command) {
-		try {
-			Process process = new ProcessBuilder(command).start();
-
-			BufferedReader errorReader = new BufferedReader(new InputStreamReader(process.getErrorStream()));
-			String errorResult = read(errorReader);
-			log.info("read python error={}", errorResult);
-
-			int exitCode = process.waitFor();
-
-			if (exitCode == 0) {
-				BufferedReader inputReader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-				String successResult = read(inputReader);
-				log.info("read python success={}", successResult);
-
-				exitCode = process.waitFor();
-
-				ExecuteCommandResult executeCommandResult = new ExecuteCommandResult();
-				executeCommandResult.setExitCode(exitCode);
-				executeCommandResult.setOutput(successResult);
-				return executeCommandResult;
-			}
-
-			ExecuteCommandResult executeCommandResult = new ExecuteCommandResult();
-			executeCommandResult.setExitCode(exitCode);
-			executeCommandResult.setOutput(errorResult);
-			return executeCommandResult;
-		}
-		catch (Exception e) {
-			log.error("executePythonCode error", e);
-			return null;
+		ProcessResult result = CODE_EXECUTOR.execute(List.of(command), null);
+		ExecuteCommandResult executeCommandResult = new ExecuteCommandResult();
+		executeCommandResult.setExitCode(result.exitCode());
+		if (result.isSuccess()) {
+			log.info("read python success={}", result.stdout());
+			executeCommandResult.setOutput(result.stdout());
 		}
-	}
-
-	private static String read(BufferedReader reader) {
-		List<String> resultList = new ArrayList<>();
-		String response = EMPTY;
-		while (true) {
-			try {
-				if (!((response = reader.readLine()) != null)) {
-					break;
-				}
-			}
-			catch (IOException e) {
-			}
-			resultList.add(response);
+		else {
+			log.info("read python error={}", result.stderr());
+			executeCommandResult.setOutput(result.combinedOutput());
 		}
-		return resultList.stream().collect(Collectors.joining("\n"));
+		return executeCommandResult;
 	}
 
 }
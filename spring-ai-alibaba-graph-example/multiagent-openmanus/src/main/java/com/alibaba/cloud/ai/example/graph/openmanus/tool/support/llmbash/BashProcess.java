@@ -15,63 +15,57 @@
  */
 package com.alibaba.cloud.ai.example.graph.openmanus.tool.support.llmbash;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.InputStreamReader;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import com.alibaba.cloud.ai.example.graph.openmanus.tool.support.process.ProcessExecutor;
+import com.alibaba.cloud.ai.example.graph.openmanus.tool.support.process.ProcessResult;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
 
 public class BashProcess {
 
 	private static final Logger log = LoggerFactory.getLogger(BashProcess.class);
 
 	/**
-	 * 执行命令
+	 * 执行命令，互不依赖的命令并行执行，结果按输入顺序返回。
+	 * 每条命令有执行时长和输出大小上限，超时的进程会被杀掉
 	 * @param commandList
 	 * @param workingDirectoryPath
 	 * @return
 	 */
 	public static List<String> executeCommand(List<String> commandList, String workingDirectoryPath) {
-		return commandList.stream().map(commandLine -> {
-			try {
-				ProcessBuilder pb = new ProcessBuilder("bash", "-c", commandLine);
-				if (!StringUtils.isEmpty(workingDirectoryPath)) {
-					pb.directory(new File(workingDirectoryPath));
-				}
-
-				// 启动进程
-				Process process = pb.start();
-
-				// 获取命令输出
-				BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-				StringBuilder builder = new StringBuilder();
-				String line;
-				while ((line = reader.readLine()) != null) {
-					log.warn(line);
-					builder.append(line);
-					builder.append("\n");
-				}
-
-				// 等待命令执行完成
-				int exitCode = process.waitFor();
-
-				if (exitCode == 0) {
-					log.warn("Bash command executed successfully.");
-				}
-				else {
-					log.error("Failed to execute Bash command.");
-				}
-				return builder.toString();
+		List<List<String>> commands = commandList.stream()
+			.map(commandLine -> List.of("bash", "-c", commandLine))
+			.collect(Collectors.toList());
+		List<ProcessResult> results = ProcessExecutor.DEFAULT.executeAll(commands, workingDirectory(workingDirectoryPath));
+		return results.stream().map(result -> {
+			if (result.isSuccess()) {
+				log.info("Bash command executed successfully.");
 			}
-			catch (Throwable e) {
-				e.printStackTrace();
+			else {
+				log.error("Failed to execute Bash command, exit code {}, timed out {}", result.exitCode(),
+						result.timedOut());
 			}
-			return null;
+			return result.combinedOutput();
 		}).collect(Collectors.toList());
 	}
 
+	/**
+	 * 流式执行命令，stdout/stderr 的输出块到达即推送；取消订阅时杀掉进程
+	 * @param commandLine
+	 * @param workingDirectoryPath
+	 * @return
+	 */
+	public static Flux<String> streamCommand(String commandLine, String workingDirectoryPath) {
+		return ProcessExecutor.DEFAULT.stream(List.of("bash", "-c", commandLine), workingDirectory(workingDirectoryPath));
+	}
+
+	private static File workingDirectory(String workingDirectoryPath) {
+		return StringUtils.isEmpty(workingDirectoryPath) ? null : new File(workingDirectoryPath);
+	}
+
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.graph.openmanus.tool.support.process;
+
+/**
+ * Keeps the last {@code capacity} characters written to it, so a chatty process can
+ * never grow the buffer beyond a fixed size.
+ */
+public class OutputRingBuffer {
+
+	private final char[] buffer;
+
+	private int start;
+
+	private int length;
+
+	private long dropped;
+
+	public OutputRingBuffer(int capacity) {
+		this.buffer = new char[capacity];
+	}
+
+	public synchronized void append(char[] chars, int offset, int count) {
+		if (buffer.length == 0) {
+			dropped += count;
+			return;
+		}
+		if (count > buffer.length) {
+			dropped += count - buffer.length;
+			offset += count - buffer.length;
+			count = buffer.length;
+		}
+		for (int i = 0; i < count; i++) {
+			if (length < buffer.length) {
+				buffer[(start + length++) % buffer.length] = chars[offset + i];
+			}
+			else {
+				buffer[start] = chars[offset + i];
+				start = (start + 1) % buffer.length;
+				dropped++;
+			}
+		}
+	}
+
+	/**
+	 * @return number of characters discarded because the buffer was full
+	 */
+	public synchronized long getDropped() {
+		return dropped;
+	}
+
+	@Override
+	public synchronized String toString() {
+		StringBuilder builder = new StringBuilder(length + 48);
+		if (dropped > 0) {
+			builder.append("[... ").append(dropped).append(" characters truncated ...]\n");
+		}
+		for (int i = 0; i < length; i++) {
+			builder.append(buffer[(start + i) % buffer.length]);
+		}
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.graph.openmanus.tool.support.process;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Runs external processes for the agent tools.
+ *
+ * stdout and stderr are drained on their own daemon threads into
+ * {@link OutputRingBuffer}s, so a process can never block on a full pipe and its output
+ * never grows past {@code maxOutputChars} per stream. Every run has a wall-clock limit after which the
+ * process tree is killed. Chunks are handed to an optional listener as they are read,
+ * which {@link #stream} exposes as a {@link Flux}.
+ */
+public class ProcessExecutor {
+
+	private static final Logger log = LoggerFactory.getLogger(ProcessExecutor.class);
+
+	public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(120);
+
+	public static final int DEFAULT_MAX_OUTPUT_CHARS = 64 * 1024;
+
+	private static final int READ_CHUNK = 4096;
+
+	private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+	static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "tool-process-" + THREAD_COUNTER.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// 被中断的读取线程不再等待订阅方，否则 parkNanos 立即返回会变成空转
+	private static final Sinks.EmitFailureHandler RETRY_WHEN_BUSY = (signalType, emitResult) -> {
+		if ((emitResult == Sinks.EmitResult.FAIL_OVERFLOW || emitResult == Sinks.EmitResult.FAIL_NON_SERIALIZED)
+				&& !Thread.currentThread().isInterrupted()) {
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+			return true;
+		}
+		return false;
+	};
+
+	public static final ProcessExecutor DEFAULT = new ProcessExecutor(DEFAULT_TIMEOUT, DEFAULT_MAX_OUTPUT_CHARS);
+
+	private final Duration timeout;
+
+	private final int maxOutputChars;
+
+	public ProcessExecutor(Duration timeout, int maxOutputChars) {
+		this.timeout = timeout;
+		this.maxOutputChars = maxOutputChars;
+	}
+
+	public ProcessResult execute(List<String> command, File workingDirectory) {
+		return execute(command, workingDirectory, null);
+	}
+
+	/**
+	 * @param chunkListener receives stdout and stderr chunks as they arrive, may be
+	 * {@code null}
+	 */
+	public ProcessResult execute(List<String> command, File workingDirectory, Consumer<String> chunkListener) {
+		return execute(command, workingDirectory, chunkListener, new Execution());
+	}
+
+	private ProcessResult execute(List<String> command, File workingDirectory, Consumer<String> chunkListener,
+			Execution execution) {
+		if (execution.cancelled) {
+			return new ProcessResult(-1, "", "Cancelled before start", false, false);
+		}
+		ProcessBuilder processBuilder = new ProcessBuilder(command);
+		if (workingDirectory != null) {
+			processBuilder.directory(workingDirectory);
+		}
+		Process process;
+		try {
+			process = processBuilder.start();
+			process.getOutputStream().close();
+		}
+		catch (IOException e) {
+			log.error("Failed to start process {}", command, e);
+			return new ProcessResult(-1, "", String.valueOf(e.getMessage()), false, false);
+		}
+		execution.started(process);
+
+		OutputRingBuffer stdout = new OutputRingBuffer(maxOutputChars);
+		OutputRingBuffer stderr = new OutputRingBuffer(maxOutputChars);
+		Thread stdoutDrain = execution.drain(drain(process.getInputStream(), stdout, chunkListener));
+		Thread stderrDrain = execution.drain(drain(process.getErrorStream(), stderr, chunkListener));
+
+		boolean timedOut = false;
+		int exitCode;
+		try {
+			if (process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+				exitCode = process.exitValue();
+			}
+			else {
+				timedOut = true;
+				exitCode = -1;
+				log.warn("Process {} exceeded {}s, killing it", command, timeout.toSeconds());
+				kill(process);
+			}
+			// 进程退出后管道很快关闭；后台子进程仍持有管道时不再等待
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+			TimeUnit.NANOSECONDS.timedJoin(stdoutDrain, deadline - System.nanoTime());
+			TimeUnit.NANOSECONDS.timedJoin(stderrDrain, deadline - System.nanoTime());
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			execution.cancel();
+			exitCode = -1;
+		}
+		return new ProcessResult(exitCode, stdout.toString(), stderr.toString(), timedOut,
+				stdout.getDropped() > 0 || stderr.getDropped() > 0);
+	}
+
+	/**
+	 * Runs independent commands in parallel, returning the results in command order.
+	 */
+	public List<ProcessResult> executeAll(List<List<String>> commands, File workingDirectory) {
+		List<CompletableFuture<ProcessResult>> futures = new ArrayList<>(commands.size());
+		for (List<String> command : commands) {
+			futures.add(CompletableFuture.supplyAsync(() -> execute(command, workingDirectory), EXECUTOR));
+		}
+		return futures.stream().map(CompletableFuture::join).toList();
+	}
+
+	/**
+	 * Streams output chunks while the process runs. When the subscriber cancels, the
+	 * process tree is killed and the drain threads are interrupted; a cancel that arrives
+	 * before the process has started prevents or immediately kills it.
+	 */
+	public Flux<String> stream(List<String> command, File workingDirectory) {
+		return Flux.defer(() -> {
+			// 有界队列：订阅方跟不上时读取线程阻塞，背压一直传到子进程的管道
+			Sinks.Many<String> sink = Sinks.many().unicast().onBackpressureBuffer(Queues.<String>get(256).get());
+			Execution execution = new Execution();
+			CompletableFuture
+				.supplyAsync(() -> execute(command, workingDirectory, chunk -> sink.emitNext(chunk, RETRY_WHEN_BUSY),
+						execution), EXECUTOR)
+				.whenComplete((result, e) -> {
+					if (e != null) {
+						sink.emitError(e, RETRY_WHEN_BUSY);
+					}
+					else {
+						if (result.timedOut()) {
+							sink.emitNext("\n" + ProcessResult.TIMEOUT_MESSAGE, RETRY_WHEN_BUSY);
+						}
+						sink.emitComplete(RETRY_WHEN_BUSY);
+					}
+				});
+			return sink.asFlux().doOnCancel(execution::cancel);
+		});
+	}
+
+	/**
+	 * Drains one stream on a dedicated daemon thread, so a grandchild that keeps the pipe
+	 * open can neither hold a pool thread nor keep the JVM alive.
+	 */
+	private Thread drain(InputStream inputStream, OutputRingBuffer buffer, Consumer<String> chunkListener) {
+		Thread thread = new Thread(() -> {
+			char[] chunk = new char[READ_CHUNK];
+			try (Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+				int read;
+				while (!Thread.currentThread().isInterrupted() && (read = reader.read(chunk)) != -1) {
+					buffer.append(chunk, 0, read);
+					if (chunkListener != null) {
+						chunkListener.accept(new String(chunk, 0, read));
+					}
+				}
+			}
+			catch (IOException e) {
+				log.debug("Process stream closed", e);
+			}
+		}, "tool-process-drain-" + THREAD_COUNTER.incrementAndGet());
+		thread.setDaemon(true);
+		thread.start();
+		return thread;
+	}
+
+	private static void kill(Process process) {
+		process.descendants().forEach(ProcessHandle::destroyForcibly);
+		process.destroyForcibly();
+	}
+
+	/**
+	 * Cancellation state of one run. Both sides write their own field before reading the
+	 * other's, so a cancel racing with the start or a drain registration is never lost.
+	 */
+	private static final class Execution {
+
+		private final List<Thread> drains = new CopyOnWriteArrayList<>();
+
+		private volatile boolean cancelled;
+
+		private volatile Process process;
+
+		private void started(Process process) {
+			this.process = process;
+			if (cancelled) {
+				kill(process);
+			}
+		}
+
+		private Thread drain(Thread thread) {
+			drains.add(thread);
+			if (cancelled) {
+				thread.interrupt();
+			}
+			return thread;
+		}
+
+		private void cancel() {
+			cancelled = true;
+			Process current = process;
+			if (current != null) {
+				kill(current);
+			}
+			drains.forEach(Thread::interrupt);
+		}
+
+	}
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.graph.openmanus.tool.support.process;
+
+/**
+ * Outcome of one process run. Output fields hold at most the configured number of
+ * trailing characters.
+ *
+ * @param exitCode process exit code, {@code -1} when the process was killed on timeout
+ * @param stdout captured standard output
+ * @param stderr captured standard error
+ * @param timedOut whether the wall-clock limit was hit
+ * @param truncated whether any output was discarded by the size limit
+ */
+public record ProcessResult(int exitCode, String stdout, String stderr, boolean timedOut, boolean truncated) {
+
+	/**
+	 * Appended to the output of a process that was killed on timeout.
+	 */
+	public static final String TIMEOUT_MESSAGE = "Command timed out. The process was killed";
+
+	public boolean isSuccess() {
+		return exitCode == 0 && !timedOut;
+	}
+
+	/**
+	 * stdout followed by stderr and a timeout marker, in the form returned to the model.
+	 */
+	public String combinedOutput() {
+		StringBuilder builder = new StringBuilder(stdout);
+		if (!stderr.isEmpty()) {
+			if (!builder.isEmpty() && builder.charAt(builder.length() - 1) != '\n') {
+				builder.append('\n');
+			}
+			builder.append(stderr);
+		}
+		if (timedOut) {
+			builder.append('\n').append(TIMEOUT_MESSAGE);
+		}
+		return builder.toString();
+	}
+
+}
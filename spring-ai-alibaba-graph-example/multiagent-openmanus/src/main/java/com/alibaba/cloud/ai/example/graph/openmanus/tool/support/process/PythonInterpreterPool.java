@@ -0,0 +1,276 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.graph.openmanus.tool.support.process;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONException;
+import com.alibaba.fastjson.JSONObject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A pool of long-lived python3 interpreters, so that executing a snippet does not pay
+ * for interpreter start-up and for re-importing heavy modules such as numpy.
+ *
+ * Each interpreter runs a small driver that reads length-prefixed code from stdin, runs
+ * it with a fresh global namespace and answers with one JSON line. The protocol uses
+ * private duplicates of the original pipes, while fd 1 and 2 are redirected to capture
+ * files at the OS level, so output from subprocesses or native code cannot corrupt it;
+ * only the last {@code maxOutputChars} characters of each stream are returned. Before
+ * every execution the driver restores the working directory, {@code sys.path}, the
+ * environment and drops modules imported from outside the python installation, so
+ * sessions sharing an interpreter do not see each other's state. An interpreter that
+ * exceeds the wall-clock limit, or answers with a malformed line, is killed and replaced.
+ */
+public class PythonInterpreterPool {
+
+	private static final Logger log = LoggerFactory.getLogger(PythonInterpreterPool.class);
+
+	private static final String DRIVER = """
+			import sys, os, io, json, tempfile, traceback, sysconfig
+			LIMIT = int(sys.argv[1])
+			# Protocol channels are private duplicates of the original pipes; fd 0 becomes /dev/null
+			# and fd 1/2 point at capture files, so os.system, subprocesses and C extensions cannot
+			# read from or write into the protocol.
+			proto_in = os.fdopen(os.dup(0), 'rb')
+			proto_out = os.fdopen(os.dup(1), 'w', encoding='utf-8')
+			devnull = os.open(os.devnull, os.O_RDONLY)
+			os.dup2(devnull, 0)
+			os.close(devnull)
+			for fd in (1, 2):
+			    capture = tempfile.TemporaryFile()
+			    os.dup2(capture.fileno(), fd)
+			    capture.close()
+			def text_stream(fd):
+			    return io.TextIOWrapper(open(fd, 'wb', buffering=0, closefd=False), encoding='utf-8',
+			                            errors='replace', write_through=True)
+			def tail(fd):
+			    size = os.fstat(fd).st_size
+			    data = os.pread(fd, min(size, 4 * LIMIT), max(0, size - 4 * LIMIT))
+			    text = data.decode('utf-8', errors='replace')
+			    dropped = size - len(data) + max(0, len(text) - LIMIT)
+			    text = text[-LIMIT:]
+			    return (('[... %d characters truncated ...]\\n' % dropped + text) if dropped else text), dropped > 0
+			# Interpreter state restored before every execution, so reused interpreters do not leak
+			# the working directory, sys.path, environment or user modules between sessions.
+			base_cwd, base_path, base_env = os.getcwd(), list(sys.path), dict(os.environ)
+			base_modules = set(sys.modules)
+			install_dirs = tuple({os.path.realpath(p) for p in sysconfig.get_paths().values()})
+			def is_installed(module):
+			    path = getattr(module, '__file__', None)
+			    return path is not None and os.path.realpath(path).startswith(install_dirs)
+			def reset():
+			    os.chdir(base_cwd)
+			    sys.path[:] = base_path
+			    os.environ.clear()
+			    os.environ.update(base_env)
+			    sys.argv = ['<python_execute>']
+			    for name in [n for n, m in list(sys.modules.items()) if n not in base_modules and not is_installed(m)]:
+			        del sys.modules[name]
+			    for fd in (1, 2):
+			        os.ftruncate(fd, 0)
+			        os.lseek(fd, 0, os.SEEK_SET)
+			    sys.stdin, sys.stdout, sys.stderr = io.StringIO(), text_stream(1), text_stream(2)
+			while True:
+			    header = proto_in.readline()
+			    if not header:
+			        break
+			    code = proto_in.read(int(header)).decode('utf-8')
+			    reset()
+			    exit_code = 0
+			    try:
+			        exec(compile(code, '<python_execute>', 'exec'), {'__name__': '__main__'})
+			    except SystemExit as e:
+			        exit_code = e.code if isinstance(e.code, int) else (0 if e.code is None else 1)
+			    except BaseException:
+			        sys.stderr.write(traceback.format_exc())
+			        exit_code = 1
+			    sys.stdout.flush()
+			    sys.stderr.flush()
+			    out, out_truncated = tail(1)
+			    err, err_truncated = tail(2)
+			    response = {'exit': exit_code, 'stdout': out, 'stderr': err, 'truncated': out_truncated or err_truncated}
+			    proto_out.write(json.dumps(response) + '\\n')
+			    proto_out.flush()
+			""";
+
+	private final List<String> command;
+
+	private final int maxSize;
+
+	private final Duration timeout;
+
+	private final BlockingQueue<Interpreter> idle = new LinkedBlockingQueue<>();
+
+	private final Semaphore permits;
+
+	/**
+	 * @param commandPrefix interpreter launcher, e.g. {@code [python3]} or
+	 * {@code [arch, -arm64, python3]}
+	 * @param warmSize interpreters started eagerly
+	 * @param maxSize maximum number of interpreters, and of concurrent executions
+	 */
+	public PythonInterpreterPool(List<String> commandPrefix, int warmSize, int maxSize, Duration timeout,
+			int maxOutputChars) {
+		List<String> command = new ArrayList<>(commandPrefix);
+		command.addAll(List.of("-u", "-c", DRIVER, String.valueOf(maxOutputChars)));
+		this.command = List.copyOf(command);
+		this.maxSize = maxSize;
+		this.timeout = timeout;
+		this.permits = new Semaphore(maxSize);
+		for (int i = 0; i < Math.min(warmSize, maxSize); i++) {
+			try {
+				idle.offer(new Interpreter(this.command));
+			}
+			catch (IOException e) {
+				log.warn("Failed to pre-start python interpreter {}", commandPrefix, e);
+				break;
+			}
+		}
+	}
+
+	public ProcessResult execute(String code) {
+		try {
+			permits.acquire();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return new ProcessResult(-1, "", "Interrupted while waiting for a python interpreter", false, false);
+		}
+		Interpreter interpreter = null;
+		try {
+			interpreter = idle.poll();
+			if (interpreter == null || !interpreter.process.isAlive()) {
+				if (interpreter != null) {
+					interpreter.kill();
+				}
+				interpreter = new Interpreter(command);
+			}
+			ProcessResult result = interpreter.run(code, timeout);
+			if (result.timedOut() || !interpreter.process.isAlive()) {
+				interpreter.kill();
+			}
+			else {
+				idle.offer(interpreter);
+			}
+			return result;
+		}
+		catch (IOException e) {
+			log.error("Python interpreter failed", e);
+			if (interpreter != null) {
+				interpreter.kill();
+			}
+			return new ProcessResult(-1, "", String.valueOf(e.getMessage()), false, false);
+		}
+		finally {
+			permits.release();
+		}
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public void shutdown() {
+		Interpreter interpreter;
+		while ((interpreter = idle.poll()) != null) {
+			interpreter.kill();
+		}
+	}
+
+	private final class Interpreter {
+
+		private final Process process;
+
+		private final OutputStream stdin;
+
+		private final BufferedReader stdout;
+
+		private Interpreter(List<String> command) throws IOException {
+			this.process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+			this.stdin = process.getOutputStream();
+			this.stdout = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+		}
+
+		private ProcessResult run(String code, Duration timeout) throws IOException {
+			byte[] payload = code.getBytes(StandardCharsets.UTF_8);
+			stdin.write((payload.length + "\n").getBytes(StandardCharsets.US_ASCII));
+			stdin.write(payload);
+			stdin.flush();
+
+			CompletableFuture<String> response = CompletableFuture.supplyAsync(() -> {
+				try {
+					return stdout.readLine();
+				}
+				catch (IOException e) {
+					return null;
+				}
+			}, ProcessExecutor.EXECUTOR);
+			try {
+				String line = response.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+				if (line == null) {
+					throw new IOException("python interpreter exited unexpectedly");
+				}
+				JSONObject json;
+				try {
+					json = JSON.parseObject(line);
+				}
+				catch (JSONException e) {
+					// 协议流已不同步，由调用方销毁该解释器
+					throw new IOException("Malformed response from python interpreter", e);
+				}
+				return new ProcessResult(json.getIntValue("exit"), json.getString("stdout"), json.getString("stderr"),
+						false, json.getBooleanValue("truncated"));
+			}
+			catch (TimeoutException e) {
+				log.warn("Python execution exceeded {}s, killing interpreter", timeout.toSeconds());
+				return new ProcessResult(-1, "", "", true, false);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				kill();
+				return new ProcessResult(-1, "", "Interrupted", false, false);
+			}
+			catch (ExecutionException e) {
+				throw new IOException(e.getCause());
+			}
+		}
+
+		private void kill() {
+			process.descendants().forEach(ProcessHandle::destroyForcibly);
+			process.destroyForcibly();
+		}
+
+	}
+
+}
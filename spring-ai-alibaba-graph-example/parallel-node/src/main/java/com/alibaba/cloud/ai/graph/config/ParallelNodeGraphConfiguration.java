@@ -23,9 +23,9 @@ import com.alibaba.cloud.ai.graph.KeyStrategyFactoryBuilder;
 import com.alibaba.cloud.ai.graph.StateGraph;
 import com.alibaba.cloud.ai.graph.dispatcher.CollectorDispatcher;
 import com.alibaba.cloud.ai.graph.exception.GraphStateException;
-import com.alibaba.cloud.ai.graph.node.CollectorNode;
 import com.alibaba.cloud.ai.graph.node.DispatcherNode;
 import com.alibaba.cloud.ai.graph.node.ExpanderNode;
+import com.alibaba.cloud.ai.graph.node.JoinNode;
 import com.alibaba.cloud.ai.graph.node.TranslateNode;
 import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
 import org.slf4j.Logger;
@@ -36,6 +36,7 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -55,22 +56,30 @@ public class ParallelNodeGraphConfiguration {
 
     @Bean
     public StateGraph parallelNodeGraph(ChatClient.Builder chatClientBuilder) throws GraphStateException {
-        KeyStrategyFactory keyStrategyFactory = new KeyStrategyFactoryBuilder()
+        // 两个分支的结果都写入后立即汇聚，缺失时回到 dispatcher 重新分派；分支流最多持续 30 秒
+        JoinNode collector = JoinNode.builder("collector")
+                .requiredKeys("translate_content", "expander_content")
+                .timeout(Duration.ofSeconds(30))
+                .nextNodeKey("collector_next_node")
+                .retryNode("dispatcher")
+                .build();
+
+        KeyStrategyFactoryBuilder keyStrategyFactoryBuilder = new KeyStrategyFactoryBuilder()
                 .addPatternStrategy("query", new ReplaceStrategy())
                 .addPatternStrategy("expander_number", new ReplaceStrategy())
                 .addPatternStrategy("expander_content", new ReplaceStrategy())
                 .addPatternStrategy("translate_language", new ReplaceStrategy())
                 .addPatternStrategy("translate_content", new ReplaceStrategy())
-                .addPatternStrategy("collector_next_node", new ReplaceStrategy())
                 .addPatternStrategy("expand_status", new ReplaceStrategy())
-                .addPatternStrategy("translate_status", new ReplaceStrategy())
-                .build();
+                .addPatternStrategy("translate_status", new ReplaceStrategy());
+        collector.outputKeys().forEach(key -> keyStrategyFactoryBuilder.addPatternStrategy(key, new ReplaceStrategy()));
+        KeyStrategyFactory keyStrategyFactory = keyStrategyFactoryBuilder.build();
 
         StateGraph stateGraph = new StateGraph(keyStrategyFactory)
                 .addNode("dispatcher", node_async(new DispatcherNode()))
-                .addNode("translator", node_async(new TranslateNode(chatClientBuilder)))
-                .addNode("expander", node_async(new ExpanderNode(chatClientBuilder)))
-                .addNode("collector", node_async(new CollectorNode()))
+                .addNode("translator", node_async(collector.branch("translate_content", new TranslateNode(chatClientBuilder))))
+                .addNode("expander", node_async(collector.branch("expander_content", new ExpanderNode(chatClientBuilder))))
+                .addNode("collector", node_async(collector))
                 
                 // 并行边
                 .addEdge("dispatcher", "translator")
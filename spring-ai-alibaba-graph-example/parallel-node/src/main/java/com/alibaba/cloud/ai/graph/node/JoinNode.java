@@ -0,0 +1,308 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.node;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.action.NodeAction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.alibaba.cloud.ai.graph.StateGraph.END;
+
+/**
+ * 并行分支的汇聚节点：当上游分支写入的 key 达到 quorum（M 个中任意 N 个）时立即完成，不再固定等待。
+ * <p>
+ * 图引擎会在所有并行分支返回后才执行汇聚节点，因此 quorum 和超时必须作用在分支上：用 {@link #branch} 包装分支节点后，
+ * 分支返回的流在超时或其他分支已达到 quorum 时被截断，汇聚节点只统计真正完成的分支。
+ * 每次执行的汇聚进度按 {@link OverAllState} 实例隔离（同一次执行的各分支共享同一个实例），并发请求互不影响，
+ * 汇聚完成后清理进度以及本轮的分支结果 key。
+ * <p>
+ * 仅当分支被跳过或失败导致结果缺失时，才会在超时前路由回 {@code retryNode}，超时后带着已有结果结束。
+ *
+ * @since 2026/10/17
+ */
+public class JoinNode implements NodeAction {
+
+    private static final Logger logger = LoggerFactory.getLogger(JoinNode.class);
+
+    public static final String STATUS_COMPLETED = "completed";
+
+    public static final String STATUS_WAITING = "waiting";
+
+    public static final String STATUS_TIMEOUT = "timeout";
+
+    private final String name;
+
+    private final List<String> requiredKeys;
+
+    private final int quorum;
+
+    private final Duration timeout;
+
+    private final String outputKey;
+
+    private final String statusKey;
+
+    private final String startedAtKey;
+
+    private final String nextNodeKey;
+
+    private final String retryNode;
+
+    private final Map<OverAllState, Barrier> barriers = new IdentityHashMap<>();
+
+    private JoinNode(Builder builder) {
+        this.name = builder.name;
+        this.requiredKeys = List.copyOf(builder.requiredKeys);
+        this.quorum = builder.quorum > 0 ? builder.quorum : this.requiredKeys.size();
+        this.timeout = builder.timeout;
+        this.outputKey = builder.outputKey;
+        this.statusKey = name + "_status";
+        this.startedAtKey = name + "_started_at";
+        this.nextNodeKey = builder.nextNodeKey;
+        this.retryNode = builder.retryNode;
+    }
+
+    public static Builder builder(String name) {
+        return new Builder(name);
+    }
+
+    /**
+     * 包装写入 {@code key} 的上游分支：分支返回的流在超时或其他分支已达到 quorum 时被截断，不会拖住汇聚节点；
+     * 同步返回的结果无法中断，只记录到达。
+     */
+    public NodeAction branch(String key, NodeAction action) {
+        Assert.isTrue(requiredKeys.contains(key), () -> "unknown branch key: " + key);
+        return state -> {
+            Barrier barrier = barrierOf(state);
+            Map<String, Object> result = action.apply(state);
+            Object value = result.get(key);
+            if (value instanceof Flux<?> flux) {
+                // 到达以上游正常结束为准，被超时或 quorum 截断的分支不计入
+                Map<String, Object> bounded = new HashMap<>(result);
+                bounded.put(key, flux.doOnComplete(() -> barrier.arrive(key))
+                        .take(barrier.remaining())
+                        .takeUntilOther(barrier.quorumReached.asMono()));
+                return bounded;
+            }
+            if (value != null && hasContent(value)) {
+                barrier.arrive(key);
+            }
+            return result;
+        };
+    }
+
+    @Override
+    public Map<String, Object> apply(OverAllState state) {
+        Barrier barrier;
+        synchronized (barriers) {
+            barrier = barriers.get(state);
+        }
+
+        Map<String, Object> arrived = new LinkedHashMap<>();
+        for (String key : requiredKeys) {
+            state.value(key)
+                    .filter(JoinNode::hasContent)
+                    .filter(value -> barrier == null || barrier.arrived.contains(key))
+                    .ifPresent(value -> arrived.put(key, value));
+        }
+
+        long now = System.currentTimeMillis();
+        long startedAt = state.value(startedAtKey)
+                .map(value -> ((Number) value).longValue())
+                .filter(value -> value > 0)
+                .orElse(now);
+        boolean expired = now - startedAt >= timeout.toMillis() || (barrier != null && barrier.expired(now));
+
+        String status;
+        String nextNode = END;
+        if (arrived.size() >= quorum) {
+            status = STATUS_COMPLETED;
+        }
+        else if (expired || retryNode == null) {
+            status = STATUS_TIMEOUT;
+        }
+        else {
+            status = STATUS_WAITING;
+            nextNode = retryNode;
+        }
+        logger.info("{} node: {}/{} branches arrived (quorum {}), status {}", name, arrived.size(), requiredKeys.size(),
+                quorum, status);
+
+        Map<String, Object> updated = new HashMap<>();
+        updated.put(statusKey, status);
+        if (STATUS_WAITING.equals(status)) {
+            updated.put(startedAtKey, startedAt);
+        }
+        else {
+            // 汇聚结束：结果已收进 outputKey，清理进度和分支结果，避免下一轮汇聚读到本轮的数据
+            synchronized (barriers) {
+                barriers.remove(state);
+            }
+            updated.put(outputKey, arrived);
+            updated.put(startedAtKey, 0L);
+            requiredKeys.forEach(key -> updated.put(key, ""));
+        }
+        if (nextNodeKey != null) {
+            updated.put(nextNodeKey, nextNode);
+        }
+        return updated;
+    }
+
+    /**
+     * @return 本节点写入的状态 key，便于注册 KeyStrategy
+     */
+    public List<String> outputKeys() {
+        List<String> keys = new ArrayList<>(List.of(outputKey, statusKey, startedAtKey));
+        Optional.ofNullable(nextNodeKey).ifPresent(keys::add);
+        return keys;
+    }
+
+    private Barrier barrierOf(OverAllState state) {
+        synchronized (barriers) {
+            long now = System.currentTimeMillis();
+            // 分支失败等原因导致汇聚节点没有执行时遗留的进度，超时一个周期后回收
+            barriers.values().removeIf(barrier -> now - barrier.deadline > timeout.toMillis());
+            return barriers.computeIfAbsent(state, key -> new Barrier());
+        }
+    }
+
+    private static boolean hasContent(Object value) {
+        return !(value instanceof CharSequence text) || !text.isEmpty();
+    }
+
+    /**
+     * 单次执行的汇聚进度：截止时间从第一个分支开始执行时计算
+     */
+    private final class Barrier {
+
+        private final long deadline = System.currentTimeMillis() + timeout.toMillis();
+
+        private final Set<String> arrived = ConcurrentHashMap.newKeySet();
+
+        private final Sinks.One<Boolean> quorumReached = Sinks.one();
+
+        void arrive(String key) {
+            arrived.add(key);
+            if (arrived.size() >= quorum) {
+                quorumReached.tryEmitValue(Boolean.TRUE);
+            }
+        }
+
+        Duration remaining() {
+            return Duration.ofMillis(Math.max(0, deadline - System.currentTimeMillis()));
+        }
+
+        boolean expired(long now) {
+            return now >= deadline;
+        }
+
+    }
+
+    public static class Builder {
+
+        private final String name;
+
+        private final List<String> requiredKeys = new ArrayList<>();
+
+        private int quorum;
+
+        private Duration timeout = Duration.ofSeconds(30);
+
+        private String outputKey;
+
+        private String nextNodeKey;
+
+        private String retryNode;
+
+        private Builder(String name) {
+            this.name = name;
+            this.outputKey = name + "_result";
+        }
+
+        /**
+         * 上游分支写入的 key
+         */
+        public Builder requiredKeys(String... keys) {
+            this.requiredKeys.addAll(List.of(keys));
+            return this;
+        }
+
+        /**
+         * 至少到达多少个分支即可完成，默认全部
+         */
+        public Builder quorum(int quorum) {
+            this.quorum = quorum;
+            return this;
+        }
+
+        /**
+         * 从第一个分支开始执行（未包装分支时为首次执行汇聚节点）计算的最长等待时间
+         */
+        public Builder timeout(Duration timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * 汇聚结果写入的 key，值为 key -> 分支结果
+         */
+        public Builder outputKey(String outputKey) {
+            this.outputKey = outputKey;
+            return this;
+        }
+
+        /**
+         * 写入下一节点名称的 key，配合条件边使用
+         */
+        public Builder nextNodeKey(String nextNodeKey) {
+            this.nextNodeKey = nextNodeKey;
+            return this;
+        }
+
+        /**
+         * 未达到 quorum 且未超时时路由回的节点，为空时直接结束
+         */
+        public Builder retryNode(String retryNode) {
+            this.retryNode = retryNode;
+            return this;
+        }
+
+        public JoinNode build() {
+            Assert.notEmpty(requiredKeys, "requiredKeys must not be empty");
+            Assert.isTrue(quorum <= requiredKeys.size(), "quorum must not exceed the number of required keys");
+            Assert.notNull(timeout, "timeout must not be null");
+            return new JoinNode(this);
+        }
+
+    }
+
+}
@@ -19,12 +19,10 @@ import com.alibaba.cloud.ai.graph.GraphRepresentation;
 import com.alibaba.cloud.ai.graph.KeyStrategy;
 import com.alibaba.cloud.ai.graph.KeyStrategyFactory;
 import com.alibaba.cloud.ai.graph.KeyStrategyFactoryBuilder;
-import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.cloud.ai.graph.StateGraph;
-import com.alibaba.cloud.ai.graph.action.NodeAction;
 import com.alibaba.cloud.ai.graph.exception.GraphStateException;
-import com.alibaba.cloud.ai.graph.model.NodeStatus;
 import com.alibaba.cloud.ai.graph.node.ExpanderNode;
+import com.alibaba.cloud.ai.graph.node.JoinNode;
 import com.alibaba.cloud.ai.graph.node.TranslateNode;
 import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
 import org.slf4j.Logger;
@@ -33,9 +31,6 @@ import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import static com.alibaba.cloud.ai.graph.action.AsyncNodeAction.node_async;
 
 /**
@@ -47,31 +42,37 @@ public class GraphConfiguration {
 
     private static final Logger logger = LoggerFactory.getLogger(GraphConfiguration.class);
 
+    private static final String MERGE_NODE_NAME = "merge";
+
     @Bean
     public StateGraph parallelStreamGraph(ChatClient.Builder chatClientBuilder) throws GraphStateException {
-        KeyStrategyFactory keyStrategyFactory = new KeyStrategyFactoryBuilder()
+        // 两个分支都写入结果后立即合并，汇聚状态只保存在本次执行的 OverAllState 中
+        JoinNode mergeNode = JoinNode.builder(MERGE_NODE_NAME)
+                .requiredKeys("expander_content", "translate_content")
+                .outputKey("merge_result")
+                .build();
+
+        KeyStrategyFactoryBuilder keyStrategyFactoryBuilder = new KeyStrategyFactoryBuilder()
                 .addPatternStrategy("query", new ReplaceStrategy())
                 .addPatternStrategy("expander_number", new ReplaceStrategy())
                 .addPatternStrategy("expander_content", new ReplaceStrategy())
                 .addPatternStrategy("translate_language", new ReplaceStrategy())
-                .addPatternStrategy("translate_content", new ReplaceStrategy())
-                .addPatternStrategy("merge_result", new ReplaceStrategy())
-                .build();
-
-        Map<String, NodeStatus> node2Status = new HashMap<>();
+                .addPatternStrategy("translate_content", new ReplaceStrategy());
+        mergeNode.outputKeys().forEach(key -> keyStrategyFactoryBuilder.addPatternStrategy(key, new ReplaceStrategy()));
+        KeyStrategyFactory keyStrategyFactory = keyStrategyFactoryBuilder.build();
 
         StateGraph stateGraph = new StateGraph(keyStrategyFactory)
-                .addNode(ExpanderNode.NODE_NAME, node_async(new ExpanderNode(chatClientBuilder, node2Status)))
-                .addNode(TranslateNode.NODE_NAME, node_async(new TranslateNode(chatClientBuilder, node2Status)))
-                .addNode(MergeResultsNode.NODE_NAME, node_async(new MergeResultsNode(node2Status)))
+                .addNode(ExpanderNode.NODE_NAME, node_async(mergeNode.branch("expander_content", new ExpanderNode(chatClientBuilder))))
+                .addNode(TranslateNode.NODE_NAME, node_async(mergeNode.branch("translate_content", new TranslateNode(chatClientBuilder))))
+                .addNode(MERGE_NODE_NAME, node_async(mergeNode))
 
                 .addEdge(StateGraph.START, TranslateNode.NODE_NAME)
                 .addEdge(StateGraph.START, ExpanderNode.NODE_NAME)
 
-                .addEdge(TranslateNode.NODE_NAME, MergeResultsNode.NODE_NAME)
-                .addEdge(ExpanderNode.NODE_NAME, MergeResultsNode.NODE_NAME)
+                .addEdge(TranslateNode.NODE_NAME, MERGE_NODE_NAME)
+                .addEdge(ExpanderNode.NODE_NAME, MERGE_NODE_NAME)
 
-                .addEdge(MergeResultsNode.NODE_NAME, StateGraph.END);
+                .addEdge(MERGE_NODE_NAME, StateGraph.END);
 
         // 添加 PlantUML 打印
         GraphRepresentation representation = stateGraph.getGraph(GraphRepresentation.Type.PLANTUML,
@@ -82,33 +83,4 @@ public class GraphConfiguration {
 
         return stateGraph;
     }
-
-    private class MergeResultsNode implements NodeAction {
-
-        public static final String NODE_NAME = "merge";
-
-        private final Map<String, NodeStatus> node2Status;
-
-        public MergeResultsNode(Map<String, NodeStatus> node2Status) {
-            this.node2Status = node2Status;
-        }
-
-        @Override
-        public Map<String, Object> apply(OverAllState state) {
-            if (!isDone(node2Status)) {
-                return Map.of();
-            }
-
-            Object expanderContent = state.value("expander_content").orElse("unknown");
-            String translateContent = (String) state.value("translate_content").orElse("");
-
-            return Map.of("merge_result", Map.of("expander_content", expanderContent,
-                    "translate_content", translateContent));
-        }
-
-        private boolean isDone(Map<String, NodeStatus> node2Status) {
-            return node2Status.get(ExpanderNode.NODE_NAME) == NodeStatus.COMPLETED
-                    && node2Status.get(TranslateNode.NODE_NAME) == NodeStatus.COMPLETED;
-        }
-    }
 }
@@ -17,7 +17,6 @@ package com.alibaba.cloud.ai.graph.node;
 
 import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.cloud.ai.graph.action.NodeAction;
-import com.alibaba.cloud.ai.graph.model.NodeStatus;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.prompt.PromptTemplate;
@@ -38,19 +37,14 @@ public class ExpanderNode implements NodeAction {
 
     private final Integer NUMBER = 3;
 
-    private final Map<String, NodeStatus> node2Status;
-
     public static final String NODE_NAME = "expander";
 
-    public ExpanderNode(ChatClient.Builder chatClientBuilder, Map<String, NodeStatus> node2Status) {
+    public ExpanderNode(ChatClient.Builder chatClientBuilder) {
         this.chatClient = chatClientBuilder.build();
-        this.node2Status = node2Status;
     }
 
     @Override
     public Map<String, Object> apply(OverAllState state) {
-        node2Status.put(NODE_NAME, NodeStatus.RUNNING);
-
         String query = state.value("query", "");
         Integer expanderNumber = state.value("expander_number", this.NUMBER);
 
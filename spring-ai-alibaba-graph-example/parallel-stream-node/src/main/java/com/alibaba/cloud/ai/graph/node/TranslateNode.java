@@ -17,7 +17,6 @@ package com.alibaba.cloud.ai.graph.node;
 
 import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.cloud.ai.graph.action.NodeAction;
-import com.alibaba.cloud.ai.graph.model.NodeStatus;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.prompt.PromptTemplate;
@@ -38,20 +37,15 @@ public class TranslateNode implements NodeAction {
 
     private final String  TARGET_LANGUAGE= "English";
 
-    private final Map<String, NodeStatus> node2Status;
-
     public static final String NODE_NAME = "translate";
 
 
-    public TranslateNode(ChatClient.Builder chatClientBuilder, Map<String, NodeStatus> node2Status) {
+    public TranslateNode(ChatClient.Builder chatClientBuilder) {
         this.chatClient = chatClientBuilder.build();
-        this.node2Status = node2Status;
     }
 
     @Override
     public Map<String, Object> apply(OverAllState state) {
-        node2Status.put(NODE_NAME, NodeStatus.RUNNING);
-
         String query = state.value("query", "");
         String targetLanguage = state.value("translate_language", TARGET_LANGUAGE);
 
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.example.graph.product.batch;
+
+import com.alibaba.example.graph.product.model.ProductBatchResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Append-only checkpoint of a batch: one NDJSON file per batch holding every successful item.
+ * Failed items are not recorded, so re-submitting the batch retries exactly those.
+ * Each line carries a hash of the item's description, so an item whose description changed
+ * under the same batch id and index runs again instead of replaying a stale result.
+ */
+public class BatchCheckpointStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchCheckpointStore.class);
+
+    private static final Pattern BATCH_ID = Pattern.compile("[A-Za-z0-9._-]{1,128}");
+
+    private final Path directory;
+
+    private final ObjectMapper mapper;
+
+    public BatchCheckpointStore(Path directory, ObjectMapper mapper) {
+        this.directory = directory;
+        this.mapper = mapper;
+    }
+
+    public static boolean isValidBatchId(String batchId) {
+        return batchId != null && BATCH_ID.matcher(batchId).matches();
+    }
+
+    public static String hash(String description) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(description.getBytes(StandardCharsets.UTF_8)));
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * @return completed items of the batch keyed by item index, empty for a new batch
+     */
+    public Map<Integer, Entry> load(String batchId) {
+        Path file = file(batchId);
+        Map<Integer, Entry> completed = new HashMap<>();
+        if (!Files.exists(file)) {
+            return completed;
+        }
+        try {
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            for (String line : lines) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    Entry entry = mapper.readValue(line, Entry.class);
+                    if (entry.result() != null) {
+                        completed.put(entry.result().index(), entry);
+                    }
+                }
+                catch (IOException e) {
+                    // a crash mid-append leaves a partial last line, that item simply runs again
+                    logger.warn("Skipping unreadable checkpoint line of batch {}", batchId);
+                }
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Failed to read checkpoint of batch " + batchId, e);
+        }
+        return completed;
+    }
+
+    public Writer open(String batchId) {
+        try {
+            Files.createDirectories(directory);
+            return new Writer(Files.newBufferedWriter(file(batchId), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Failed to open checkpoint of batch " + batchId, e);
+        }
+    }
+
+    private Path file(String batchId) {
+        return directory.resolve(batchId + ".ndjson");
+    }
+
+    /**
+     * One checkpoint line: a successful result and the hash of the description it was computed from.
+     */
+    public record Entry(String descriptionHash, ProductBatchResult result) {
+    }
+
+    /**
+     * Appends results of one batch run. Each line is flushed so a crash loses at most the item in flight.
+     */
+    public final class Writer implements AutoCloseable {
+
+        private final BufferedWriter out;
+
+        private Writer(BufferedWriter out) {
+            this.out = out;
+        }
+
+        public synchronized void append(String descriptionHash, ProductBatchResult result) {
+            try {
+                out.write(mapper.writeValueAsString(new Entry(descriptionHash, result)));
+                out.newLine();
+                out.flush();
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException("Failed to append checkpoint", e);
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            try {
+                out.close();
+            }
+            catch (IOException e) {
+                logger.warn("Failed to close batch checkpoint", e);
+            }
+        }
+    }
+}
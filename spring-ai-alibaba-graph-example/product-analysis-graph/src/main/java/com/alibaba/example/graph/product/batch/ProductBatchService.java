@@ -0,0 +1,154 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.example.graph.product.batch;
+
+import com.alibaba.cloud.ai.graph.CompiledGraph;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import com.alibaba.example.graph.product.model.Product;
+import com.alibaba.example.graph.product.model.ProductBatchRequest;
+import com.alibaba.example.graph.product.model.ProductBatchResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Runs one graph instance per product description on a shared compiled graph.
+ * At most {@code parallelism} graphs run at once, new graphs start at most {@code ratePerSecond} times per second,
+ * and results are emitted in completion order. Successful items are checkpointed so a failed or interrupted batch
+ * can be resumed by submitting it again with the same batch id. A batch id runs at most once at a time, a second
+ * submission while the first is still streaming is rejected so both runs don't execute and append the same items.
+ */
+public class ProductBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductBatchService.class);
+
+    private final CompiledGraph compiledGraph;
+
+    private final BatchCheckpointStore checkpointStore;
+
+    private final Scheduler scheduler;
+
+    private final int parallelism;
+
+    private final int ratePerSecond;
+
+    private final Set<String> runningBatches = ConcurrentHashMap.newKeySet();
+
+    public ProductBatchService(CompiledGraph compiledGraph, BatchCheckpointStore checkpointStore, Scheduler scheduler,
+                               int parallelism, int ratePerSecond) {
+        this.compiledGraph = compiledGraph;
+        this.checkpointStore = checkpointStore;
+        this.scheduler = scheduler;
+        this.parallelism = parallelism;
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    /**
+     * @throws BatchInProgressException if the same batch id is still running
+     */
+    public Flux<ProductBatchResult> run(ProductBatchRequest request) {
+        String batchId = request.batchId();
+        List<String> descriptions = request.descriptions();
+        if (!runningBatches.add(batchId)) {
+            throw new BatchInProgressException(batchId);
+        }
+
+        return Mono.fromCallable(() -> {
+                    List<String> hashes = descriptions.stream().map(BatchCheckpointStore::hash).toList();
+                    // a checkpointed item only counts as completed if its description is unchanged
+                    Map<Integer, ProductBatchResult> completed = checkpointStore.load(batchId)
+                            .entrySet()
+                            .stream()
+                            .filter(entry -> entry.getKey() < hashes.size()
+                                    && Objects.equals(entry.getValue().descriptionHash(), hashes.get(entry.getKey())))
+                            .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().result()));
+                    return new Checkpoint(hashes, completed);
+                })
+                .subscribeOn(scheduler)
+                .flatMapMany(checkpoint -> {
+                    Map<Integer, ProductBatchResult> completed = checkpoint.completed();
+                    logger.info("Batch {}: {} items, {} already completed", batchId, descriptions.size(),
+                            completed.size());
+                    Flux<ProductBatchResult> replayed = Flux.fromStream(completed.values()
+                            .stream()
+                            .sorted(Comparator.comparingInt(ProductBatchResult::index))
+                            .map(ProductBatchResult::asResumed));
+                    List<Integer> pending = IntStream.range(0, descriptions.size())
+                            .filter(index -> !completed.containsKey(index))
+                            .boxed()
+                            .toList();
+                    return Flux.using(() -> checkpointStore.open(batchId),
+                            writer -> replayed.concatWith(throttle(Flux.fromIterable(pending))
+                                    .flatMap(index -> enrich(batchId, index, descriptions.get(index)), parallelism)
+                                    .doOnNext(result -> {
+                                        if (result.isSuccess()) {
+                                            writer.append(checkpoint.hashes().get(result.index()), result);
+                                        }
+                                    })),
+                            BatchCheckpointStore.Writer::close);
+                })
+                .doFinally(signal -> runningBatches.remove(batchId));
+    }
+
+    private Flux<Integer> throttle(Flux<Integer> indexes) {
+        if (ratePerSecond <= 0) {
+            return indexes;
+        }
+        Duration interval = Duration.ofNanos(Duration.ofSeconds(1).toNanos() / ratePerSecond);
+        // the first item starts immediately, the rest are spaced out
+        return indexes.index()
+                .concatMap(indexed -> indexed.getT1() == 0 ? Mono.just(indexed.getT2())
+                        : Mono.delay(interval, scheduler).thenReturn(indexed.getT2()));
+    }
+
+    private Mono<ProductBatchResult> enrich(String batchId, int index, String description) {
+        return Mono.fromCallable(() -> {
+                    RunnableConfig config = RunnableConfig.builder().threadId(batchId + "-" + index).build();
+                    OverAllState state = compiledGraph.invoke(Map.of("productDesc", description), config)
+                            .orElseThrow();
+                    return ProductBatchResult.success(index, (Product) state.value("finalProduct").orElseThrow());
+                })
+                .subscribeOn(scheduler)
+                .onErrorResume(e -> {
+                    logger.warn("Batch {}: item {} failed", batchId, index, e);
+                    return Mono.just(ProductBatchResult.failure(index, String.valueOf(e.getMessage())));
+                });
+    }
+
+    private record Checkpoint(List<String> hashes, Map<Integer, ProductBatchResult> completed) {
+    }
+
+    public static class BatchInProgressException extends IllegalStateException {
+
+        public BatchInProgressException(String batchId) {
+            super("Batch " + batchId + " is already running");
+        }
+    }
+}
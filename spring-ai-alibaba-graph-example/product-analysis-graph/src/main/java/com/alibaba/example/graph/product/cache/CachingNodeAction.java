@@ -0,0 +1,87 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.example.graph.product.cache;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.action.AsyncNodeAction;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Memoizes a node. The cache key is a SHA-256 of the node name, its prompt template and the values of its
+ * input keys, so changing the template never serves stale results.
+ */
+public class CachingNodeAction implements AsyncNodeAction {
+
+    private final String nodeName;
+
+    private final String promptTemplate;
+
+    private final List<String> inputKeys;
+
+    private final AsyncNodeAction delegate;
+
+    private final NodeResultCache cache;
+
+    public CachingNodeAction(String nodeName, String promptTemplate, List<String> inputKeys,
+                             AsyncNodeAction delegate, NodeResultCache cache) {
+        this.nodeName = nodeName;
+        this.promptTemplate = promptTemplate;
+        this.inputKeys = List.copyOf(inputKeys);
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> apply(OverAllState state) {
+        return cache.get(nodeName, cacheKey(state), () -> delegate.apply(state));
+    }
+
+    private String cacheKey(OverAllState state) {
+        MessageDigest digest = sha256();
+        update(digest, nodeName);
+        update(digest, promptTemplate);
+        for (String inputKey : inputKeys) {
+            update(digest, inputKey);
+            update(digest, state.value(inputKey).map(String::valueOf).orElse(""));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        // length prefix keeps ("ab", "c") and ("a", "bc") apart
+        digest.update(new byte[] {(byte) (bytes.length >>> 24), (byte) (bytes.length >>> 16),
+                (byte) (bytes.length >>> 8), (byte) bytes.length});
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.example.graph.product.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Results of graph nodes shared across graph invocations, bounded by size (LRU) and TTL.
+ * In-flight computations are cached as well, so identical concurrent requests share one model call.
+ * Hits and misses are counted per node under {@value #METRIC_NAME}.
+ */
+public class NodeResultCache {
+
+    public static final String METRIC_NAME = "graph.node.cache.requests";
+
+    private final int maxSize;
+
+    private final long ttlMillis;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Entry> entries;
+
+    private final Map<String, NodeMetrics> metrics = new ConcurrentHashMap<>();
+
+    public NodeResultCache(int maxSize, Duration ttl, MeterRegistry meterRegistry) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+        this.meterRegistry = meterRegistry;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > NodeResultCache.this.maxSize;
+            }
+        };
+    }
+
+    public CompletableFuture<Map<String, Object>> get(String nodeName, String key,
+                                                      Supplier<CompletableFuture<Map<String, Object>>> loader) {
+        NodeMetrics nodeMetrics = metrics.computeIfAbsent(nodeName, NodeMetrics::new);
+        long now = System.currentTimeMillis();
+        Entry entry;
+        boolean hit;
+        synchronized (entries) {
+            entry = entries.get(key);
+            hit = entry != null && now - entry.createdAt < ttlMillis;
+            if (!hit) {
+                entry = new Entry(new CompletableFuture<>(), now);
+                entries.put(key, entry);
+            }
+        }
+        if (hit) {
+            nodeMetrics.hits.increment();
+            return entry.result;
+        }
+
+        nodeMetrics.misses.increment();
+        Entry loading = entry;
+        try {
+            loader.get().whenComplete((result, error) -> {
+                if (error != null) {
+                    // do not cache failures, the next request retries
+                    invalidate(key, loading);
+                    loading.result.completeExceptionally(error);
+                }
+                else {
+                    loading.result.complete(result);
+                }
+            });
+        }
+        catch (RuntimeException e) {
+            invalidate(key, loading);
+            loading.result.completeExceptionally(e);
+        }
+        return loading.result;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private void invalidate(String key, Entry entry) {
+        synchronized (entries) {
+            entries.remove(key, entry);
+        }
+    }
+
+    private record Entry(CompletableFuture<Map<String, Object>> result, long createdAt) {
+    }
+
+    private final class NodeMetrics {
+
+        private final Counter hits;
+
+        private final Counter misses;
+
+        private NodeMetrics(String nodeName) {
+            this.hits = Counter.builder(METRIC_NAME).tag("node", nodeName).tag("result", "hit").register(meterRegistry);
+            this.misses = Counter.builder(METRIC_NAME).tag("node", nodeName).tag("result", "miss").register(meterRegistry);
+        }
+    }
+}
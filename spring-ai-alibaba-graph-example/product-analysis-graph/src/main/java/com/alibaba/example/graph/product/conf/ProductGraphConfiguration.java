@@ -21,17 +21,32 @@ import com.alibaba.cloud.ai.graph.KeyStrategyFactory;
 import com.alibaba.cloud.ai.graph.KeyStrategyFactoryBuilder;
 import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.cloud.ai.graph.StateGraph;
+import com.alibaba.cloud.ai.graph.action.AsyncNodeAction;
 import com.alibaba.cloud.ai.graph.action.NodeAction;
 import com.alibaba.cloud.ai.graph.exception.GraphStateException;
 import com.alibaba.cloud.ai.graph.state.AgentStateFactory;
 import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
+import com.alibaba.example.graph.product.batch.BatchCheckpointStore;
+import com.alibaba.example.graph.product.cache.CachingNodeAction;
+import com.alibaba.example.graph.product.cache.NodeResultCache;
 import com.alibaba.example.graph.product.model.Product;
 import com.alibaba.example.graph.product.serializer.ProductStateSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import static com.alibaba.cloud.ai.graph.StateGraph.END;
 import static com.alibaba.cloud.ai.graph.StateGraph.START;
@@ -40,9 +55,44 @@ import static com.alibaba.cloud.ai.graph.action.AsyncNodeAction.node_async;
 @Configuration
 public class ProductGraphConfiguration {
 
+    static final String SLOGAN_TEMPLATE =
+            "Generate a catchy slogan for a product with the following description: {productDesc}";
+
+    static final String SPECIFICATION_TEMPLATE =
+            "Extract product specifications from the following description: {productDesc}";
+
+    @Bean
+    public NodeResultCache nodeResultCache(MeterRegistry meterRegistry,
+                                           @Value("${product.graph.cache.max-size:1000}") int maxSize,
+                                           @Value("${product.graph.cache.ttl:PT30M}") Duration ttl) {
+        return new NodeResultCache(maxSize, ttl, meterRegistry);
+    }
+
+    // Model calls block, so the parallel branches run on their own bounded pool instead of the caller thread.
+    // Exposed as a Scheduler rather than an Executor bean so Boot's applicationTaskExecutor still applies
+    @Bean(destroyMethod = "dispose")
+    public Scheduler productBranchScheduler(@Value("${product.graph.branch-threads:8}") int threads) {
+        return Schedulers.newBoundedElastic(threads, Integer.MAX_VALUE, "product-branch");
+    }
+
+    // Graph invocations of the batch endpoint block, so they get their own bounded pool
+    @Bean(destroyMethod = "dispose")
+    public Scheduler productBatchScheduler(@Value("${product.batch.parallelism:16}") int parallelism) {
+        return Schedulers.newBoundedElastic(parallelism, Integer.MAX_VALUE, "product-batch");
+    }
+
     @Bean
-    public StateGraph productAnalysisGraph(ChatClient.Builder chatClientBuilder) throws GraphStateException {
+    public BatchCheckpointStore batchCheckpointStore(ObjectMapper objectMapper,
+            @Value("${product.batch.checkpoint-directory:${user.dir}/checkpoints/product-batch}") Path directory) {
+        return new BatchCheckpointStore(directory, objectMapper);
+    }
+
+    @Bean
+    public StateGraph productAnalysisGraph(ChatClient.Builder chatClientBuilder, NodeResultCache nodeResultCache,
+                                           @Qualifier("productBranchScheduler") Scheduler productBranchScheduler)
+            throws GraphStateException {
         ChatClient client = chatClientBuilder.build();
+        Executor branchExecutor = productBranchScheduler::schedule;
 
         KeyStrategyFactory keyStrategyFactory = new KeyStrategyFactoryBuilder()
                 .addPatternStrategy("productDesc", new ReplaceStrategy())
@@ -55,23 +105,23 @@ public class ProductGraphConfiguration {
         AgentStateFactory<OverAllState> stateFactory = OverAllState::new;
         ProductStateSerializer serializer = new ProductStateSerializer(stateFactory);
 
-        NodeAction marketingCopyNode = state -> {
+        AsyncNodeAction marketingCopyNode = state -> CompletableFuture.supplyAsync(() -> {
             String productDesc = (String) state.value("productDesc").orElseThrow();
             String slogan = client.prompt()
-                    .user("Generate a catchy slogan for a product with the following description: " + productDesc)
+                    .user(u -> u.text(SLOGAN_TEMPLATE).param("productDesc", productDesc))
                     .call()
                     .content();
-            return Map.of("slogan", slogan);
-        };
+            return Map.<String, Object>of("slogan", slogan);
+        }, branchExecutor);
 
-        NodeAction specificationExtractionNode = state -> {
+        AsyncNodeAction specificationExtractionNode = state -> CompletableFuture.supplyAsync(() -> {
             String productDesc = (String) state.value("productDesc").orElseThrow();
             Product productSpec = client.prompt()
-                    .user("Extract product specifications from the following description: " + productDesc)
+                    .user(u -> u.text(SPECIFICATION_TEMPLATE).param("productDesc", productDesc))
                     .call()
                     .entity(Product.class);
-            return Map.of("productSpec", productSpec);
-        };
+            return Map.<String, Object>of("productSpec", productSpec);
+        }, branchExecutor);
 
         NodeAction mergeNode = state -> {
             String slogan = (String) state.value("slogan").orElseThrow();
@@ -81,8 +131,10 @@ public class ProductGraphConfiguration {
         };
 
         StateGraph graph = new StateGraph(keyStrategyFactory, serializer);
-        graph.addNode("marketingCopy", node_async(marketingCopyNode))
-                .addNode("specificationExtraction", node_async(specificationExtractionNode))
+        graph.addNode("marketingCopy", new CachingNodeAction("marketingCopy", SLOGAN_TEMPLATE,
+                        List.of("productDesc"), marketingCopyNode, nodeResultCache))
+                .addNode("specificationExtraction", new CachingNodeAction("specificationExtraction",
+                        SPECIFICATION_TEMPLATE, List.of("productDesc"), specificationExtractionNode, nodeResultCache))
                 .addNode("merge", node_async(mergeNode))
                 .addEdge(START, "marketingCopy")
                 .addEdge(START, "specificationExtraction")
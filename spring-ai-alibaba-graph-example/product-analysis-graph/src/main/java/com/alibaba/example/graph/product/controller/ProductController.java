@@ -22,11 +22,21 @@ import com.alibaba.cloud.ai.graph.checkpoint.constant.SaverEnum;
 import com.alibaba.cloud.ai.graph.checkpoint.savers.MemorySaver;
 import com.alibaba.cloud.ai.graph.exception.GraphRunnerException;
 import com.alibaba.cloud.ai.graph.exception.GraphStateException;
+import com.alibaba.example.graph.product.batch.BatchCheckpointStore;
+import com.alibaba.example.graph.product.batch.ProductBatchService;
 import com.alibaba.example.graph.product.model.Product;
+import com.alibaba.example.graph.product.model.ProductBatchRequest;
+import com.alibaba.example.graph.product.model.ProductBatchResult;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
 
 import java.util.Map;
 import java.util.Optional;
@@ -36,9 +46,25 @@ public class ProductController {
 
     private final CompiledGraph compiledGraph;
 
-    public ProductController(@Qualifier("productAnalysisGraph") StateGraph productAnalysisGraph) throws GraphStateException {
+    private final ProductBatchService batchService;
+
+    public ProductController(@Qualifier("productAnalysisGraph") StateGraph productAnalysisGraph,
+                             BatchCheckpointStore batchCheckpointStore,
+                             @Qualifier("productBatchScheduler") Scheduler productBatchScheduler,
+                             @Value("${product.batch.parallelism:16}") int parallelism,
+                             @Value("${product.batch.rate-per-second:0}") int ratePerSecond) throws GraphStateException {
         SaverConfig saverConfig = SaverConfig.builder().register(SaverEnum.MEMORY.getValue(), new MemorySaver()).build();
         this.compiledGraph = productAnalysisGraph.compile(CompileConfig.builder().saverConfig(saverConfig).build());
+        // batch items use one thread id each, release their in-memory checkpoints once the item finishes
+        SaverConfig batchSaverConfig = SaverConfig.builder()
+                .register(SaverEnum.MEMORY.getValue(), new MemorySaver())
+                .build();
+        CompiledGraph batchGraph = productAnalysisGraph.compile(CompileConfig.builder()
+                .saverConfig(batchSaverConfig)
+                .releaseThread(true)
+                .build());
+        this.batchService = new ProductBatchService(batchGraph, batchCheckpointStore, productBatchScheduler,
+                parallelism, ratePerSecond);
     }
 
     @PostMapping("/product/enrich")
@@ -48,4 +74,20 @@ public class ProductController {
         Optional<OverAllState> invoke = compiledGraph.invoke(initialState, runnableConfig);
         return (Product) invoke.get().value("finalProduct").orElseThrow();
     }
+
+    @PostMapping(value = "/product/enrich/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ProductBatchResult> enrichProducts(@RequestBody ProductBatchRequest request) {
+        if (!BatchCheckpointStore.isValidBatchId(request.batchId())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "batchId must match [A-Za-z0-9._-]{1,128}");
+        }
+        if (request.descriptions() == null || request.descriptions().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "descriptions must not be empty");
+        }
+        try {
+            return batchService.run(request);
+        }
+        catch (ProductBatchService.BatchInProgressException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
 }
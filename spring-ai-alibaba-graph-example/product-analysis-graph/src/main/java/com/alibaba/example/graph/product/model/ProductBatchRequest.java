@@ -1,5 +1,5 @@
 /*
- * Copyright 2025-2026 the original author or authors.
+ * Copyright 2025 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -13,28 +13,14 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package com.alibaba.cloud.ai.graph.model;
 
-/**
- * @author yingzi
- * @since 2025/8/26
- */
-
-public enum NodeStatus {
-
-    RUNNING("running", "运行中"),
-
-    COMPLETED("completed", "已完成"),
+package com.alibaba.example.graph.product.model;
 
-    FAILED("failed", "失败");
-
-    String code;
-
-    String desc;
-
-    NodeStatus(String running, String desc) {
-        this.code = running;
-        this.desc = desc;
-    }
+import java.util.List;
 
+/**
+ * Batch of product descriptions. Re-submitting the same {@code batchId} resumes the batch: items that already
+ * completed are replayed from the checkpoint instead of running the graph again.
+ */
+public record ProductBatchRequest(String batchId, List<String> descriptions) {
 }
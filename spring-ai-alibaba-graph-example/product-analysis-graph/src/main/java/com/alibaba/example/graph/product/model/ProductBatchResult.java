@@ -0,0 +1,44 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.example.graph.product.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One NDJSON line of a batch response, emitted as soon as the item finishes.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(value = "success", allowGetters = true)
+public record ProductBatchResult(int index, Product product, String error, boolean resumed) {
+
+    public static ProductBatchResult success(int index, Product product) {
+        return new ProductBatchResult(index, product, null, false);
+    }
+
+    public static ProductBatchResult failure(int index, String error) {
+        return new ProductBatchResult(index, null, error, false);
+    }
+
+    public ProductBatchResult asResumed() {
+        return new ProductBatchResult(index, product, error, true);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
@@ -0,0 +1,539 @@
+/*
+ * Copyright 2025-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.alibaba.cloud.ai.graph.conf;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.serializer.StateSerializer;
+import com.alibaba.cloud.ai.graph.state.AgentStateFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.content.Media;
+import org.springframework.util.MimeType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 紧凑的二进制状态序列化器，替代 JSON + {@code writeUTF} 的实现：
+ * <ul>
+ * <li>常用类型（字符串、数值、集合、Spring AI 消息）使用固定的类型 ID 编码，不写类名；
+ * 用户消息和助手消息携带的 {@link Media} 一并保存，数据须为 URL 字符串或字节数组</li>
+ * <li>业务类型可通过 {@link #register(int, Class, Codec)} 注册类型 ID 与编解码器，未注册的类型回退为带类名的 JSON</li>
+ * <li>顶层字段按 key 写入并带长度前缀，字符串使用 varint 长度，不再受 {@code writeUTF} 64 KB 的限制</li>
+ * <li>{@link #cloneObject(OverAllState)} 不做编解码：不可变值（字符串、数值、消息）直接共享，只复制可变的集合，
+ * 未知类型才走一次二进制往返</li>
+ * </ul>
+ * Spring AI 的消息在图中按不可变值使用，克隆时共享同一实例。
+ *
+ * @since 2026/10/17
+ */
+public class BinaryStateSerializer extends StateSerializer<OverAllState> {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final int T_NULL = 0;
+
+    private static final int T_STRING = 1;
+
+    private static final int T_TRUE = 2;
+
+    private static final int T_FALSE = 3;
+
+    private static final int T_INT = 4;
+
+    private static final int T_LONG = 5;
+
+    private static final int T_DOUBLE = 6;
+
+    private static final int T_FLOAT = 7;
+
+    private static final int T_LIST = 8;
+
+    private static final int T_MAP = 9;
+
+    private static final int T_USER_MESSAGE = 10;
+
+    private static final int T_SYSTEM_MESSAGE = 11;
+
+    private static final int T_ASSISTANT_MESSAGE = 12;
+
+    private static final int T_TOOL_RESPONSE_MESSAGE = 13;
+
+    private static final int T_REGISTERED = 14;
+
+    private static final int T_JSON = 15;
+
+    /**
+     * 带 Media 的用户消息、助手消息使用单独的类型 ID，不带 Media 的消息保持原有编码
+     */
+    private static final int T_USER_MESSAGE_WITH_MEDIA = 16;
+
+    private static final int T_ASSISTANT_MESSAGE_WITH_MEDIA = 17;
+
+    private static final int MEDIA_DATA_STRING = 0;
+
+    private static final int MEDIA_DATA_BYTES = 1;
+
+    /**
+     * 自定义类型 ID 的起始值，避免与内置类型混淆
+     */
+    public static final int MIN_CUSTOM_TYPE_ID = 64;
+
+    private final ObjectMapper fallbackMapper;
+
+    private final Map<Integer, Registration<?>> registrationsById = new ConcurrentHashMap<>();
+
+    private final Map<Class<?>, Registration<?>> registrationsByType = new ConcurrentHashMap<>();
+
+    public BinaryStateSerializer(AgentStateFactory<OverAllState> stateFactory, ObjectMapper fallbackMapper) {
+        super(stateFactory);
+        this.fallbackMapper = fallbackMapper;
+    }
+
+    public BinaryStateSerializer(AgentStateFactory<OverAllState> stateFactory) {
+        this(stateFactory, new ObjectMapper());
+    }
+
+    /**
+     * 注册业务类型，类型 ID 写入数据，一经使用不可变更
+     */
+    public <T> BinaryStateSerializer register(int typeId, Class<T> type, Codec<T> codec) {
+        if (typeId < MIN_CUSTOM_TYPE_ID) {
+            throw new IllegalArgumentException("Custom type id must be >= " + MIN_CUSTOM_TYPE_ID + ": " + typeId);
+        }
+        Registration<T> registration = new Registration<>(typeId, type, codec);
+        if (registrationsById.putIfAbsent(typeId, registration) != null) {
+            throw new IllegalArgumentException("Type id " + typeId + " is already registered");
+        }
+        registrationsByType.put(type, registration);
+        return this;
+    }
+
+    @Override
+    public void writeData(Map<String, Object> data, ObjectOutput out) throws IOException {
+        byte[] payload = encode(data);
+        out.writeByte(FORMAT_VERSION);
+        out.writeInt(payload.length);
+        out.write(payload);
+    }
+
+    @Override
+    public Map<String, Object> readData(ObjectInput in) throws IOException, ClassNotFoundException {
+        byte version = in.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new StreamCorruptedException("Unsupported state format version " + version);
+        }
+        byte[] payload = new byte[in.readInt()];
+        in.readFully(payload);
+        return decode(payload);
+    }
+
+    @Override
+    public OverAllState cloneObject(OverAllState state) throws IOException {
+        Map<String, Object> data = state.data();
+        Map<String, Object> copy = new HashMap<>(Math.max(16, data.size() * 2));
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            copy.put(entry.getKey(), copyValue(entry.getValue()));
+        }
+        return stateFactory().apply(copy);
+    }
+
+    /**
+     * 编码顶层数据：entry 数量，然后每个 entry 为 key + 长度前缀的值
+     */
+    public byte[] encode(Map<String, Object> data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        ByteArrayOutputStream valueBytes = new ByteArrayOutputStream(128);
+        DataOutputStream valueOut = new DataOutputStream(valueBytes);
+        writeVarInt(out, data.size());
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            valueBytes.reset();
+            writeValue(valueOut, entry.getValue());
+            valueOut.flush();
+            writeString(out, entry.getKey());
+            writeVarInt(out, valueBytes.size());
+            valueBytes.writeTo(out);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    public Map<String, Object> decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        int size = readVarInt(in);
+        Map<String, Object> data = new HashMap<>(Math.max(16, size * 2));
+        for (int i = 0; i < size; i++) {
+            String key = readString(in);
+            // 值的长度前缀，按 key 跳过或校验时使用
+            readVarInt(in);
+            data.put(key, readValue(in));
+        }
+        return data;
+    }
+
+    private Object copyValue(Object value) throws IOException {
+        if (value == null || isImmutable(value)) {
+            return value;
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            for (Object element : list) {
+                copy.add(copyValue(element));
+            }
+            return copy;
+        }
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new LinkedHashMap<>(Math.max(16, map.size() * 2));
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                copy.put(entry.getKey(), copyValue(entry.getValue()));
+            }
+            return copy;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeValue(out, value);
+        out.flush();
+        return readValue(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    private static boolean isImmutable(Object value) {
+        return value instanceof String || value instanceof Number || value instanceof Boolean
+                || value instanceof Character || value instanceof Enum<?> || value instanceof Message;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeValue(DataOutput out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(T_NULL);
+        }
+        else if (value instanceof String text) {
+            out.writeByte(T_STRING);
+            writeString(out, text);
+        }
+        else if (value instanceof Boolean bool) {
+            out.writeByte(bool ? T_TRUE : T_FALSE);
+        }
+        else if (value instanceof Integer number) {
+            out.writeByte(T_INT);
+            out.writeInt(number);
+        }
+        else if (value instanceof Long number) {
+            out.writeByte(T_LONG);
+            out.writeLong(number);
+        }
+        else if (value instanceof Double number) {
+            out.writeByte(T_DOUBLE);
+            out.writeDouble(number);
+        }
+        else if (value instanceof Float number) {
+            out.writeByte(T_FLOAT);
+            out.writeFloat(number);
+        }
+        else if (value instanceof UserMessage message) {
+            boolean hasMedia = !message.getMedia().isEmpty();
+            out.writeByte(hasMedia ? T_USER_MESSAGE_WITH_MEDIA : T_USER_MESSAGE);
+            writeString(out, message.getText());
+            writeMap(out, message.getMetadata());
+            if (hasMedia) {
+                writeMediaList(out, message.getMedia());
+            }
+        }
+        else if (value instanceof SystemMessage message) {
+            out.writeByte(T_SYSTEM_MESSAGE);
+            writeString(out, message.getText());
+            writeMap(out, message.getMetadata());
+        }
+        else if (value instanceof AssistantMessage message) {
+            boolean hasMedia = !message.getMedia().isEmpty();
+            out.writeByte(hasMedia ? T_ASSISTANT_MESSAGE_WITH_MEDIA : T_ASSISTANT_MESSAGE);
+            writeString(out, message.getText());
+            writeMap(out, message.getMetadata());
+            List<AssistantMessage.ToolCall> toolCalls = message.getToolCalls();
+            writeVarInt(out, toolCalls.size());
+            for (AssistantMessage.ToolCall toolCall : toolCalls) {
+                writeString(out, toolCall.id());
+                writeString(out, toolCall.type());
+                writeString(out, toolCall.name());
+                writeString(out, toolCall.arguments());
+            }
+            if (hasMedia) {
+                writeMediaList(out, message.getMedia());
+            }
+        }
+        else if (value instanceof ToolResponseMessage message) {
+            out.writeByte(T_TOOL_RESPONSE_MESSAGE);
+            List<ToolResponseMessage.ToolResponse> responses = message.getResponses();
+            writeVarInt(out, responses.size());
+            for (ToolResponseMessage.ToolResponse response : responses) {
+                writeString(out, response.id());
+                writeString(out, response.name());
+                writeString(out, response.responseData());
+            }
+            writeMap(out, message.getMetadata());
+        }
+        else if (registrationsByType.containsKey(value.getClass())) {
+            Registration<?> registration = registrationsByType.get(value.getClass());
+            out.writeByte(T_REGISTERED);
+            writeVarInt(out, registration.typeId());
+            ((Codec<Object>) registration.codec()).write(value, out);
+        }
+        else if (value instanceof Collection<?> collection) {
+            out.writeByte(T_LIST);
+            writeVarInt(out, collection.size());
+            for (Object element : collection) {
+                writeValue(out, element);
+            }
+        }
+        else if (value instanceof Map<?, ?> map) {
+            out.writeByte(T_MAP);
+            writeMap(out, map);
+        }
+        else {
+            out.writeByte(T_JSON);
+            writeString(out, value.getClass().getName());
+            byte[] json = fallbackMapper.writeValueAsBytes(value);
+            writeVarInt(out, json.length);
+            out.write(json);
+        }
+    }
+
+    private Object readValue(DataInput in) throws IOException {
+        int tag = in.readUnsignedByte();
+        return switch (tag) {
+            case T_NULL -> null;
+            case T_STRING -> readString(in);
+            case T_TRUE -> Boolean.TRUE;
+            case T_FALSE -> Boolean.FALSE;
+            case T_INT -> in.readInt();
+            case T_LONG -> in.readLong();
+            case T_DOUBLE -> in.readDouble();
+            case T_FLOAT -> in.readFloat();
+            case T_LIST -> {
+                int size = readVarInt(in);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                yield list;
+            }
+            case T_MAP -> readMap(in);
+            case T_USER_MESSAGE -> UserMessage.builder().text(readString(in)).metadata(readMap(in)).build();
+            case T_USER_MESSAGE_WITH_MEDIA -> UserMessage.builder()
+                .text(readString(in))
+                .metadata(readMap(in))
+                .media(readMediaList(in))
+                .build();
+            case T_SYSTEM_MESSAGE -> SystemMessage.builder().text(readString(in)).metadata(readMap(in)).build();
+            case T_ASSISTANT_MESSAGE, T_ASSISTANT_MESSAGE_WITH_MEDIA -> {
+                String text = readString(in);
+                Map<String, Object> metadata = readMap(in);
+                int size = readVarInt(in);
+                List<AssistantMessage.ToolCall> toolCalls = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    toolCalls.add(new AssistantMessage.ToolCall(readString(in), readString(in), readString(in),
+                            readString(in)));
+                }
+                List<Media> media = tag == T_ASSISTANT_MESSAGE_WITH_MEDIA ? readMediaList(in) : List.of();
+                yield AssistantMessage.builder()
+                    .content(text)
+                    .properties(metadata)
+                    .toolCalls(toolCalls)
+                    .media(media)
+                    .build();
+            }
+            case T_TOOL_RESPONSE_MESSAGE -> {
+                int size = readVarInt(in);
+                List<ToolResponseMessage.ToolResponse> responses = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    responses.add(new ToolResponseMessage.ToolResponse(readString(in), readString(in), readString(in)));
+                }
+                yield ToolResponseMessage.builder().responses(responses).metadata(readMap(in)).build();
+            }
+            case T_REGISTERED -> {
+                int typeId = readVarInt(in);
+                Registration<?> registration = registrationsById.get(typeId);
+                if (registration == null) {
+                    throw new StreamCorruptedException("Unknown state type id " + typeId);
+                }
+                yield registration.codec().read(in);
+            }
+            case T_JSON -> {
+                String className = readString(in);
+                byte[] json = new byte[readVarInt(in)];
+                in.readFully(json);
+                try {
+                    Class<?> type = Class.forName(className, true, Thread.currentThread().getContextClassLoader());
+                    yield fallbackMapper.readValue(json, type);
+                }
+                catch (ClassNotFoundException e) {
+                    throw new StreamCorruptedException("Unknown state value class " + className);
+                }
+            }
+            default -> throw new StreamCorruptedException("Unknown state value tag " + tag);
+        };
+    }
+
+    /**
+     * Media 的数据只支持 URL 字符串和字节数组（Resource 构建的 Media 已读取为字节数组），其他类型无法还原，直接拒绝
+     */
+    private static void writeMediaList(DataOutput out, List<Media> mediaList) throws IOException {
+        writeVarInt(out, mediaList.size());
+        for (Media media : mediaList) {
+            writeString(out, media.getMimeType().toString());
+            writeString(out, media.getId());
+            writeString(out, media.getName());
+            Object data = media.getData();
+            if (data instanceof String url) {
+                out.writeByte(MEDIA_DATA_STRING);
+                writeString(out, url);
+            }
+            else if (data instanceof byte[] bytes) {
+                out.writeByte(MEDIA_DATA_BYTES);
+                writeVarInt(out, bytes.length);
+                out.write(bytes);
+            }
+            else {
+                throw new NotSerializableException("Unsupported media data type "
+                        + (data == null ? "null" : data.getClass().getName()) + " of media " + media.getName());
+            }
+        }
+    }
+
+    private static List<Media> readMediaList(DataInput in) throws IOException {
+        int size = readVarInt(in);
+        List<Media> mediaList = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            MimeType mimeType = MimeType.valueOf(readString(in));
+            String id = readString(in);
+            String name = readString(in);
+            int dataType = in.readUnsignedByte();
+            Object data = switch (dataType) {
+                case MEDIA_DATA_STRING -> readString(in);
+                case MEDIA_DATA_BYTES -> {
+                    byte[] bytes = new byte[readVarInt(in)];
+                    in.readFully(bytes);
+                    yield bytes;
+                }
+                default -> throw new StreamCorruptedException("Unknown media data type " + dataType);
+            };
+            mediaList.add(Media.builder().mimeType(mimeType).data(data).id(id).name(name).build());
+        }
+        return mediaList;
+    }
+
+    private void writeMap(DataOutput out, Map<?, ?> map) throws IOException {
+        if (map == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        writeVarInt(out, map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            writeString(out, String.valueOf(entry.getKey()));
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    private Map<String, Object> readMap(DataInput in) throws IOException {
+        int size = readVarInt(in);
+        Map<String, Object> map = new LinkedHashMap<>(Math.max(16, size * 2));
+        for (int i = 0; i < size; i++) {
+            map.put(readString(in), readValue(in));
+        }
+        return map;
+    }
+
+    /**
+     * varint(字节数 + 1) + UTF-8 字节，0 表示 null
+     */
+    public static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        int length = readVarInt(in);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    public static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed varint");
+    }
+
+    /**
+     * 业务类型的编解码器
+     */
+    public interface Codec<T> {
+
+        void write(T value, DataOutput out) throws IOException;
+
+        T read(DataInput in) throws IOException;
+
+    }
+
+    private record Registration<T>(int typeId, Class<T> type, Codec<T> codec) {
+    }
+
+}
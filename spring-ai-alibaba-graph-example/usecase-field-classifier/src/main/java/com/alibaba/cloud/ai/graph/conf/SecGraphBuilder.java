@@ -34,6 +34,7 @@ import com.alibaba.cloud.ai.graph.dispatcher.SensitiveDispatcher;
 import com.alibaba.cloud.ai.graph.nodes.ClftNode;
 import com.alibaba.cloud.ai.graph.nodes.HumanFeedbackNode;
 import com.alibaba.cloud.ai.graph.nodes.SensitiveWordDecNode;
+import com.alibaba.cloud.ai.graph.saver.FileCheckpointSaver;
 import com.alibaba.cloud.ai.graph.tools.FieldSaveTool;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -45,9 +46,11 @@ import org.springframework.ai.chat.messages.ToolResponseMessage;
 import org.springframework.ai.tool.resolution.ToolCallbackResolver;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -89,13 +92,13 @@ public class SecGraphBuilder {
                 JsonTypeInfo.As.PROPERTY
         );
 
-        // 注册反序列化器
+        // 注册反序列化器，用于二进制序列化器中未注册类型的 JSON 回退
         SimpleModule module = new SimpleModule();
         module.addDeserializer(AssistantMessage.class, new AssistantMessageDeserializer());
         module.addDeserializer(ToolResponseMessage.class, new ToolResponseMessageDeserializer());
         mapper.registerModule(module);
 
-        JsonStateSerializerWithTypeInfo serializer = new JsonStateSerializerWithTypeInfo(factory, mapper);
+        BinaryStateSerializer serializer = new BinaryStateSerializer(factory, mapper);
 
         StateGraph stateGraph = new StateGraph(keyStrategyFactory, serializer);
         stateGraph.addEdge(START, "sensitive")
@@ -121,5 +124,16 @@ public class SecGraphBuilder {
         return stateGraph;
     }
 
+    /**
+     * 等待人工确认的分类结果持久化到本地磁盘，状态使用图上注册的二进制序列化器编码；容器关闭时释放文件句柄
+     */
+    @Bean(destroyMethod = "close")
+    public FileCheckpointSaver secCheckpointSaver(@Qualifier("secGraph") StateGraph secGraph,
+            @Value("${graph.checkpoint.directory:${user.dir}/checkpoints/field-classifier}") Path checkpointDirectory) {
+        return FileCheckpointSaver.builder()
+                .directory(checkpointDirectory)
+                .stateSerializer(secGraph.getStateSerializer())
+                .build();
+    }
 
 }
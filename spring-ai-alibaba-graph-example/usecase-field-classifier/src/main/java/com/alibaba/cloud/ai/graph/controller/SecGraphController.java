@@ -25,10 +25,9 @@ import com.alibaba.cloud.ai.graph.RunnableConfig;
 import com.alibaba.cloud.ai.graph.StateGraph;
 import com.alibaba.cloud.ai.graph.async.AsyncGenerator;
 import com.alibaba.cloud.ai.graph.checkpoint.config.SaverConfig;
-import com.alibaba.cloud.ai.graph.checkpoint.constant.SaverEnum;
-import com.alibaba.cloud.ai.graph.checkpoint.savers.MemorySaver;
 import com.alibaba.cloud.ai.graph.exception.GraphRunnerException;
 import com.alibaba.cloud.ai.graph.exception.GraphStateException;
+import com.alibaba.cloud.ai.graph.saver.FileCheckpointSaver;
 import com.alibaba.cloud.ai.graph.state.StateSnapshot;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -55,8 +54,9 @@ import java.util.Map;
 public class SecGraphController {
     private final CompiledGraph compiledGraph;
 
-    public SecGraphController(@Qualifier("secGraph") StateGraph stateGraph) throws GraphStateException {
-        SaverConfig saverConfig = SaverConfig.builder().register(SaverEnum.MEMORY.getValue(), new MemorySaver()).build();
+    public SecGraphController(@Qualifier("secGraph") StateGraph stateGraph,
+                              FileCheckpointSaver saver) throws GraphStateException {
+        SaverConfig saverConfig = SaverConfig.builder().register(saver).build();
 
         this.compiledGraph = stateGraph
                 .compile(CompileConfig.builder().saverConfig(saverConfig).interruptBefore("human").build());
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2025-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.alibaba.cloud.ai.graph.conf;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.state.AgentStateFactory;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 二进制与 JSON 状态序列化器的对比基准，状态为字段分类图中常见的消息列表 + 若干字符串字段。
+ * JSON 的编解码使用字符串接口，避免大状态触发 {@code writeUTF} 的 64 KB 限制。
+ * <p>
+ * 运行：在 IDE 中执行 {@link #main(String[])}。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StateSerializerBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    private int messages;
+
+    private BinaryStateSerializer binarySerializer;
+
+    private JsonStateSerializerWithTypeInfo jsonSerializer;
+
+    private OverAllState state;
+
+    private byte[] binaryPayload;
+
+    private String jsonPayload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        AgentStateFactory<OverAllState> factory = OverAllState::new;
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.activateDefaultTyping(mapper.getPolymorphicTypeValidator(), ObjectMapper.DefaultTyping.NON_FINAL,
+                JsonTypeInfo.As.PROPERTY);
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        SimpleModule module = new SimpleModule();
+        module.addDeserializer(AssistantMessage.class, new AssistantMessageDeserializer());
+        module.addDeserializer(ToolResponseMessage.class, new ToolResponseMessageDeserializer());
+        mapper.registerModule(module);
+
+        binarySerializer = new BinaryStateSerializer(factory, mapper);
+        jsonSerializer = new JsonStateSerializerWithTypeInfo(factory, mapper);
+
+        List<Object> history = new ArrayList<>(messages);
+        for (int i = 0; i < messages; i++) {
+            if (i % 2 == 0) {
+                history.add(AssistantMessage.builder()
+                    .content("字段 field_" + i + " 属于用户基本信息类别，敏感等级为 L2，建议脱敏后展示。")
+                    .properties(Map.of("id", "chatcmpl-" + i, "finishReason", "TOOL_CALLS"))
+                    .toolCalls(List.of(new AssistantMessage.ToolCall("call_" + i, "function", "fieldSaveTool",
+                            "{\"field\":\"field_" + i + "\",\"category\":\"user_profile\",\"level\":\"L2\"}")))
+                    .build());
+            }
+            else {
+                history.add(ToolResponseMessage.builder()
+                    .responses(List.of(new ToolResponseMessage.ToolResponse("call_" + (i - 1), "fieldSaveTool",
+                            "{\"saved\":true,\"rows\":1}")))
+                    .metadata(Map.of())
+                    .build());
+            }
+        }
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("field", "user_phone_number");
+        data.put("is_sensitive", "no");
+        data.put("thread_id", "bench-thread");
+        data.put("feed_back", "true");
+        data.put("clft_res", history.get(0));
+        data.put("messages", history);
+        state = factory.apply(data);
+
+        binaryPayload = binarySerializer.encode(state.data());
+        jsonPayload = jsonSerializer.serialize(state);
+    }
+
+    @Benchmark
+    public byte[] binaryWrite() throws IOException {
+        return binarySerializer.encode(state.data());
+    }
+
+    @Benchmark
+    public String jsonWrite() throws IOException {
+        return jsonSerializer.serialize(state);
+    }
+
+    @Benchmark
+    public Map<String, Object> binaryRead() throws IOException {
+        return binarySerializer.decode(binaryPayload);
+    }
+
+    @Benchmark
+    public OverAllState jsonRead() throws IOException {
+        return jsonSerializer.deserialize(jsonPayload);
+    }
+
+    @Benchmark
+    public OverAllState binaryClone() throws IOException {
+        return binarySerializer.cloneObject(state);
+    }
+
+    @Benchmark
+    public OverAllState jsonClone() throws IOException {
+        return jsonSerializer.cloneObject(state);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StateSerializerBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
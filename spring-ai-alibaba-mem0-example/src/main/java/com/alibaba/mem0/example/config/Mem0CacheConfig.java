@@ -0,0 +1,42 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.mem0.example.config;
+
+import com.alibaba.mem0.example.memory.Mem0MemoryCache;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class Mem0CacheConfig {
+
+    @Bean
+    public Mem0MemoryCache mem0MemoryCache(VectorStore vectorStore,
+                                           @Value("${mem0.cache.max-entries:1000}") int maxEntries,
+                                           @Value("${mem0.cache.ttl:5m}") Duration ttl,
+                                           @Value("${mem0.cache.flush-interval:1s}") Duration flushInterval,
+                                           @Value("${mem0.cache.max-batch-size:20}") int maxBatchSize,
+                                           @Value("${mem0.cache.max-buffered:1000}") int maxBuffered,
+                                           @Value("${mem0.cache.search-threads:8}") int searchThreads) {
+        return new Mem0MemoryCache(vectorStore, maxEntries, ttl, flushInterval, maxBatchSize, maxBuffered,
+                searchThreads);
+    }
+
+}
@@ -19,6 +19,7 @@ package com.alibaba.mem0.example.controller;
 import com.alibaba.cloud.ai.memory.mem0.advisor.Mem0ChatMemoryAdvisor;
 import com.alibaba.cloud.ai.memory.mem0.core.Mem0ServiceClient;
 import com.alibaba.cloud.ai.memory.mem0.model.Mem0ServerRequest;
+import com.alibaba.mem0.example.memory.Mem0MemoryCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
@@ -47,10 +48,16 @@ public class Mem0MemoryController {
 
     private final ChatClient chatClient;
     private final VectorStore store;
+    private final VectorStore mem0Store;
     private final Mem0ServiceClient mem0ServiceClient;
-
-    public Mem0MemoryController(ChatClient.Builder builder, VectorStore store, Mem0ServiceClient mem0ServiceClient) {
-        this.store = store;
+    private final Mem0MemoryCache memoryCache;
+
+    public Mem0MemoryController(ChatClient.Builder builder, Mem0MemoryCache memoryCache, VectorStore vectorStore,
+                                Mem0ServiceClient mem0ServiceClient) {
+        // 检索结果缓存、写入合并后批量提交，advisor 不再每轮串行访问两次 mem0
+        this.store = memoryCache.vectorStore();
+        this.mem0Store = vectorStore;
+        this.memoryCache = memoryCache;
         this.mem0ServiceClient = mem0ServiceClient;
         this.chatClient = builder
                 .defaultAdvisors(
@@ -63,6 +70,11 @@ public class Mem0MemoryController {
     public String call(@RequestParam(value = "message", defaultValue = "你好，我是万能的喵，我爱玩三角洲行动") String message,
                        @RequestParam(value = "user_id", defaultValue = "miao") String userId
     ) {
+        // 与提示词组装并行发起记忆检索，advisor 检索时直接复用进行中的请求
+        memoryCache.prefetch(Mem0ServerRequest.SearchRequest.mem0Builder()
+                .query(message)
+                .userId(userId)
+                .build());
         return chatClient.prompt(message)
                 .advisors(
                         a -> a.params(Map.of(USER_ID, userId))
@@ -138,8 +150,10 @@ public class Mem0MemoryController {
                         )
                         .build());
         logger.info("用户和agent的长期记忆保存成功");
+        // 直接写入绕过了缓存，清除该用户的检索缓存后从 mem0 读取
+        memoryCache.invalidate("test2");
         // 获取用户和agent的长期记忆
-        List<Document> documents = store.similaritySearch(Mem0ServerRequest.SearchRequest.mem0Builder()
+        List<Document> documents = mem0Store.similaritySearch(Mem0ServerRequest.SearchRequest.mem0Builder()
             .userId("test2")
             .agentId("agent2")
             .build());
@@ -0,0 +1,326 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.mem0.example.memory;
+
+import com.alibaba.cloud.ai.memory.mem0.model.Mem0ServerRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.alibaba.cloud.ai.memory.mem0.advisor.Mem0ChatMemoryAdvisor.USER_ID;
+
+/**
+ * Mem0 记忆的客户端缓存层，通过 {@link #vectorStore()} 交给 {@code Mem0ChatMemoryAdvisor} 使用。
+ * <ul>
+ * <li>检索：按 (用户、agent、run、查询语句、过滤条件) 缓存最近的检索结果，容量与有效期有限；
+ * 缓存的是进行中的请求，{@link #prefetch} 提前发起的检索会被随后 advisor 的同一检索直接复用。</li>
+ * <li>写入：写入先进入按作用域分组的缓冲区并立即返回，后台按 flushInterval 将同一作用域的多次写入合并为一次 {@code add}；
+ * 缓冲达到 maxBatchSize 时立即刷新。</li>
+ * <li>失效：写入进入缓冲区和刷新完成时，都会清除该用户的检索缓存，避免读到写入前的结果；
+ * 绕过本缓存直接写入 mem0 时需调用 {@link #invalidate(String)}。</li>
+ * </ul>
+ * 刷新失败的写入放回缓冲区头部，保持写入顺序。缓冲总量以 maxBuffered 为上限，避免 mem0 长时间不可用时无限增长：
+ * 缓冲区已满时新的写入被丢弃，刷新失败的写入只放回容得下的较新部分，丢弃的写入都会记录日志。未刷新的写入在进程异常退出时会丢失，正常关闭时会全部刷新。
+ */
+public class Mem0MemoryCache implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(Mem0MemoryCache.class);
+
+    private static final String AGENT_ID = "agent_id";
+
+    private static final String RUN_ID = "run_id";
+
+    private final VectorStore delegate;
+
+    private final int maxEntries;
+
+    private final long ttlMillis;
+
+    private final int maxBatchSize;
+
+    private final int maxBuffered;
+
+    private final Map<SearchKey, Entry> searches;
+
+    private final Map<Scope, List<Document>> buffer = new ConcurrentHashMap<>();
+
+    private final AtomicInteger buffered = new AtomicInteger();
+
+    private final ExecutorService searchExecutor;
+
+    private final ScheduledExecutorService flusher;
+
+    private final VectorStore vectorStore = new CachingVectorStore();
+
+    public Mem0MemoryCache(VectorStore delegate, int maxEntries, Duration ttl, Duration flushInterval,
+                           int maxBatchSize, int maxBuffered, int searchThreads) {
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.maxBatchSize = maxBatchSize;
+        this.maxBuffered = maxBuffered;
+        this.searches = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<SearchKey, Entry> eldest) {
+                return size() > Mem0MemoryCache.this.maxEntries;
+            }
+        };
+        AtomicInteger counter = new AtomicInteger();
+        this.searchExecutor = Executors.newFixedThreadPool(searchThreads, runnable -> {
+            Thread thread = new Thread(runnable, "mem0-search-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mem0-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = flushInterval.toMillis();
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 带缓存与批量写入的 {@link VectorStore} 视图
+     */
+    public VectorStore vectorStore() {
+        return vectorStore;
+    }
+
+    /**
+     * 在组装提示词之前异步发起检索，结果进入缓存供 advisor 复用
+     */
+    public CompletableFuture<List<Document>> prefetch(Mem0ServerRequest.SearchRequest request) {
+        return search(request);
+    }
+
+    /**
+     * 将缓冲区内的写入立即写入 mem0
+     */
+    public void flush() {
+        for (Scope scope : new ArrayList<>(buffer.keySet())) {
+            List<Document> documents = buffer.remove(scope);
+            if (documents == null) {
+                continue;
+            }
+            buffered.addAndGet(-documents.size());
+            try {
+                delegate.add(documents);
+                logger.debug("Flushed {} mem0 memories of {}", documents.size(), scope);
+            }
+            catch (RuntimeException e) {
+                logger.warn("Failed to flush {} mem0 memories of {}", documents.size(), scope, e);
+                // 放回缓冲区头部，下个周期重试；缓冲区已满时丢弃其中最旧的部分
+                int room = Math.max(0, maxBuffered - buffered.get());
+                List<Document> retry = documents.size() <= room ? documents
+                        : documents.subList(documents.size() - room, documents.size());
+                if (!retry.isEmpty()) {
+                    buffer.merge(scope, retry, (existing, failed) -> concat(failed, existing));
+                    buffered.addAndGet(retry.size());
+                }
+                if (retry.size() < documents.size()) {
+                    logger.error("Dropped {} mem0 memories of {}, write buffer is full ({} documents)",
+                            documents.size() - retry.size(), scope, maxBuffered);
+                }
+            }
+            finally {
+                invalidate(scope.userId());
+            }
+        }
+    }
+
+    /**
+     * 清除该用户的检索缓存，绕过本缓存直接写入 mem0 后调用
+     */
+    public void invalidate(String userId) {
+        synchronized (searches) {
+            searches.keySet().removeIf(key -> Objects.equals(key.userId(), userId));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        searchExecutor.shutdown();
+    }
+
+    private CompletableFuture<List<Document>> search(Mem0ServerRequest.SearchRequest request) {
+        SearchKey key = SearchKey.of(request);
+        long now = System.currentTimeMillis();
+        Entry entry;
+        synchronized (searches) {
+            entry = searches.get(key);
+            if (entry != null && now - entry.createdAt() < ttlMillis) {
+                return entry.result();
+            }
+            entry = new Entry(CompletableFuture.supplyAsync(() -> delegate.similaritySearch(request), searchExecutor),
+                    now);
+            searches.put(key, entry);
+        }
+        Entry loading = entry;
+        // 失败的检索不缓存
+        loading.result().whenComplete((documents, error) -> {
+            if (error != null) {
+                synchronized (searches) {
+                    searches.remove(key, loading);
+                }
+            }
+        });
+        return loading.result();
+    }
+
+    private void enqueue(List<Document> documents) {
+        int accepted = 0;
+        for (Document document : documents) {
+            Scope scope = Scope.of(document.getMetadata());
+            if (buffered.get() + accepted >= maxBuffered) {
+                logger.error("Dropped mem0 memory of {}, write buffer is full ({} documents)", scope, maxBuffered);
+                continue;
+            }
+            buffer.merge(scope, List.of(document), Mem0MemoryCache::concat);
+            accepted++;
+            invalidate(scope.userId());
+        }
+        if (buffered.addAndGet(accepted) >= maxBatchSize && !flusher.isShutdown()) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        }
+        catch (RuntimeException e) {
+            logger.warn("mem0 flush failed", e);
+        }
+    }
+
+    private static List<Document> concat(List<Document> first, List<Document> second) {
+        List<Document> merged = new ArrayList<>(first.size() + second.size());
+        merged.addAll(first);
+        merged.addAll(second);
+        return merged;
+    }
+
+    private record SearchKey(String userId, String agentId, String runId, String query, Object filters) {
+
+        static SearchKey of(Mem0ServerRequest.SearchRequest request) {
+            String query = request.getQuery() == null ? null : request.getQuery().strip();
+            return new SearchKey(request.getUserId(), request.getAgentId(), request.getRunId(), query,
+                    request.getFilters());
+        }
+
+    }
+
+    private record Scope(String userId, String agentId, String runId) {
+
+        static Scope of(Map<String, Object> metadata) {
+            return new Scope(text(metadata.get(USER_ID)), text(metadata.get(AGENT_ID)), text(metadata.get(RUN_ID)));
+        }
+
+        private static String text(Object value) {
+            return value == null ? null : value.toString();
+        }
+
+    }
+
+    private record Entry(CompletableFuture<List<Document>> result, long createdAt) {
+    }
+
+    private class CachingVectorStore implements VectorStore {
+
+        @Override
+        public String getName() {
+            return delegate.getName();
+        }
+
+        @Override
+        public void add(List<Document> documents) {
+            enqueue(documents);
+        }
+
+        @Override
+        public void delete(List<String> idList) {
+            flush();
+            delegate.delete(idList);
+            clear();
+        }
+
+        @Override
+        public void delete(Filter.Expression filterExpression) {
+            flush();
+            delegate.delete(filterExpression);
+            clear();
+        }
+
+        @Override
+        public List<Document> similaritySearch(SearchRequest request) {
+            if (!(request instanceof Mem0ServerRequest.SearchRequest mem0Request)) {
+                return delegate.similaritySearch(request);
+            }
+            try {
+                return search(mem0Request).join();
+            }
+            catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw e;
+            }
+        }
+
+        @Override
+        public <T> Optional<T> getNativeClient() {
+            return delegate.getNativeClient();
+        }
+
+        private void clear() {
+            synchronized (searches) {
+                searches.clear();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,517 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.config.rag;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.converter.SimpleVectorStoreFilterExpressionConverter;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+/**
+ * 基于内存映射文件的向量存储，可替代 {@link org.springframework.ai.vectorstore.SimpleVectorStore}。
+ * <p>
+ * 向量以小端 float 连续存放在 {@code vectors.f32} 中并通过 mmap 访问，不占用堆内存；
+ * 文档 ID、文本和元数据以追加日志的形式写入 {@code documents.jsonl}，启动时回放日志即可恢复，无需重新嵌入。
+ * {@link #snapshot()} 会压缩日志，只保留存活的文档。
+ * 相似度检索对每个槽位做 float 数组的点积，循环结构简单，便于 JIT 自动向量化。
+ *
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ */
+public class MappedFileVectorStore implements VectorStore, Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(MappedFileVectorStore.class);
+
+	private static final String VECTORS_FILE = "vectors.f32";
+
+	private static final String DOCUMENTS_FILE = "documents.jsonl";
+
+	private static final int MAGIC = 0x53414156;
+
+	/**
+	 * 文件头：magic、version、dimension、reserved
+	 */
+	private static final int HEADER_BYTES = 16;
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final EmbeddingModel embeddingModel;
+
+	private final Path directory;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final ExpressionParser expressionParser = new SpelExpressionParser();
+
+	private final SimpleVectorStoreFilterExpressionConverter filterExpressionConverter = new SimpleVectorStoreFilterExpressionConverter();
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * 槽位 -> 文档，null 表示空闲槽位
+	 */
+	private final List<StoredDocument> slots = new ArrayList<>();
+
+	/**
+	 * 文档 ID -> 槽位
+	 */
+	private final Map<String, Integer> slotById = new HashMap<>();
+
+	private final Deque<Integer> freeSlots = new ArrayDeque<>();
+
+	/**
+	 * 每个槽位向量的 L2 范数，检索时避免重复计算
+	 */
+	private float[] norms = new float[0];
+
+	private int dimension;
+
+	private int capacity;
+
+	private FileChannel channel;
+
+	private MappedByteBuffer mapped;
+
+	private BufferedWriter log;
+
+	public MappedFileVectorStore(EmbeddingModel embeddingModel, Path directory) {
+		this.embeddingModel = embeddingModel;
+		this.directory = directory;
+		load();
+	}
+
+	@Override
+	public void add(List<Document> documents) {
+		if (documents == null || documents.isEmpty()) {
+			return;
+		}
+		// 嵌入在锁外进行，避免阻塞检索
+		List<float[]> embeddings = embeddingModel.embed(documents.stream().map(Document::getText).toList());
+		lock.writeLock().lock();
+		List<StoredDocument> added = new ArrayList<>(documents.size());
+		boolean committed = false;
+		try {
+			ensureOpen(embeddings.get(0).length);
+			for (float[] embedding : embeddings) {
+				if (embedding.length != dimension) {
+					throw new IllegalArgumentException("Embedding dimension " + embedding.length + " does not match store dimension " + dimension);
+				}
+			}
+			// 先写入新分配的槽位，旧槽位和索引在日志落盘后才切换，失败时只需回收新槽位
+			for (int i = 0; i < documents.size(); i++) {
+				Document document = documents.get(i);
+				int slot = allocateSlot();
+				added.add(new StoredDocument(slot, document.getId(), document.getText(),
+						new LinkedHashMap<>(document.getMetadata())));
+				writeVector(slot, embeddings.get(i));
+			}
+			// 向量先落盘，日志中引用的槽位一定已写入
+			mapped.force();
+			for (StoredDocument stored : added) {
+				appendLog(LogEntry.add(stored));
+			}
+			log.flush();
+			for (StoredDocument stored : added) {
+				Integer existing = slotById.put(stored.id(), stored.slot());
+				if (existing != null) {
+					releaseSlot(existing);
+				}
+				slots.set(stored.slot(), stored);
+			}
+			committed = true;
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Failed to add documents to mapped vector store " + directory, e);
+		}
+		finally {
+			if (!committed) {
+				added.forEach(stored -> releaseSlot(stored.slot()));
+			}
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void delete(List<String> idList) {
+		lock.writeLock().lock();
+		try {
+			if (log == null) {
+				return;
+			}
+			for (String id : idList) {
+				Integer slot = slotById.remove(id);
+				if (slot != null) {
+					releaseSlot(slot);
+					appendLog(LogEntry.delete(id));
+				}
+			}
+			log.flush();
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Failed to delete documents from mapped vector store " + directory, e);
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void delete(Filter.Expression filterExpression) {
+		MetadataFilter filter = new MetadataFilter(filterExpression);
+		List<String> ids;
+		lock.readLock().lock();
+		try {
+			ids = slots.stream()
+					.filter(stored -> stored != null && filter.matches(stored.metadata()))
+					.map(StoredDocument::id)
+					.toList();
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+		delete(ids);
+	}
+
+	@Override
+	public List<Document> similaritySearch(SearchRequest request) {
+		float[] query = embeddingModel.embed(request.getQuery());
+		float queryNorm = norm(query);
+		MetadataFilter filter = request.hasFilterExpression() ? new MetadataFilter(request.getFilterExpression()) : null;
+		int topK = Math.max(1, request.getTopK());
+		double threshold = request.getSimilarityThreshold();
+
+		lock.readLock().lock();
+		try {
+			if (mapped == null || query.length != dimension || queryNorm == 0f) {
+				return List.of();
+			}
+			FloatBuffer vectors = vectorView();
+			float[] row = new float[dimension];
+			PriorityQueue<ScoredSlot> heap = new PriorityQueue<>(topK + 1);
+			for (int slot = 0; slot < slots.size(); slot++) {
+				StoredDocument stored = slots.get(slot);
+				if (stored == null || norms[slot] == 0f) {
+					continue;
+				}
+				if (filter != null && !filter.matches(stored.metadata())) {
+					continue;
+				}
+				vectors.get(slot * dimension, row);
+				double similarity = dot(query, row) / (queryNorm * norms[slot]);
+				if (similarity < threshold) {
+					continue;
+				}
+				if (heap.size() < topK) {
+					heap.offer(new ScoredSlot(slot, similarity));
+				}
+				else if (heap.peek().score() < similarity) {
+					heap.poll();
+					heap.offer(new ScoredSlot(slot, similarity));
+				}
+			}
+			List<ScoredSlot> ranked = new ArrayList<>(heap);
+			ranked.sort((a, b) -> Double.compare(b.score(), a.score()));
+			return ranked.stream().map(scored -> {
+				StoredDocument stored = slots.get(scored.slot());
+				Map<String, Object> metadata = new LinkedHashMap<>(stored.metadata());
+				metadata.put("distance", 1 - scored.score());
+				return Document.builder()
+						.id(stored.id())
+						.text(stored.text())
+						.metadata(metadata)
+						.score(scored.score())
+						.build();
+			}).toList();
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * 压缩文档日志，只保留存活文档，并将向量文件刷盘
+	 */
+	public void snapshot() {
+		lock.writeLock().lock();
+		try {
+			if (log == null) {
+				return;
+			}
+			mapped.force();
+			log.close();
+			Path documentsFile = directory.resolve(DOCUMENTS_FILE);
+			Path tmp = directory.resolve(DOCUMENTS_FILE + ".tmp");
+			try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+				for (StoredDocument stored : slots) {
+					if (stored != null) {
+						writer.write(objectMapper.writeValueAsString(LogEntry.add(stored)));
+						writer.newLine();
+					}
+				}
+			}
+			Files.move(tmp, documentsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			log = Files.newBufferedWriter(documentsFile, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+			logger.debug("Snapshot mapped vector store {} with {} documents.", directory, slotById.size());
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Failed to snapshot mapped vector store " + directory, e);
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		snapshot();
+		lock.writeLock().lock();
+		try {
+			if (log != null) {
+				log.close();
+				channel.close();
+				log = null;
+				channel = null;
+				mapped = null;
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void load() {
+		Path vectorsFile = directory.resolve(VECTORS_FILE);
+		Path documentsFile = directory.resolve(DOCUMENTS_FILE);
+		if (!Files.exists(vectorsFile) || !Files.exists(documentsFile)) {
+			return;
+		}
+		try {
+			openChannel(vectorsFile);
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+			header.order(ByteOrder.LITTLE_ENDIAN);
+			if (header.getInt(0) != MAGIC) {
+				throw new IllegalStateException("Not a mapped vector store file: " + vectorsFile);
+			}
+			dimension = header.getInt(8);
+			capacity = (int) ((channel.size() - HEADER_BYTES) / ((long) dimension * Float.BYTES));
+			map();
+
+			try (BufferedReader reader = Files.newBufferedReader(documentsFile, StandardCharsets.UTF_8)) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (line.isBlank()) {
+						continue;
+					}
+					LogEntry entry = objectMapper.readValue(line, LogEntry.class);
+					Integer previous = slotById.remove(entry.id());
+					if (previous != null) {
+						slots.set(previous, null);
+					}
+					if (entry.slot() != null) {
+						while (slots.size() <= entry.slot()) {
+							slots.add(null);
+						}
+						// 写日志失败后槽位可能被回收复用，以后写入的条目为准
+						StoredDocument occupant = slots.get(entry.slot());
+						if (occupant != null) {
+							slotById.remove(occupant.id());
+						}
+						slots.set(entry.slot(), new StoredDocument(entry.slot(), entry.id(), entry.text(),
+								entry.metadata() == null ? new LinkedHashMap<>() : entry.metadata()));
+						slotById.put(entry.id(), entry.slot());
+					}
+				}
+			}
+			norms = new float[Math.max(capacity, slots.size())];
+			FloatBuffer vectors = vectorView();
+			float[] row = new float[dimension];
+			for (int slot = 0; slot < slots.size(); slot++) {
+				if (slots.get(slot) == null) {
+					freeSlots.add(slot);
+				}
+				else {
+					vectors.get(slot * dimension, row);
+					norms[slot] = norm(row);
+				}
+			}
+			log = Files.newBufferedWriter(documentsFile, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+			logger.info("Loaded {} documents from mapped vector store {}", slotById.size(), directory);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Failed to load mapped vector store " + directory, e);
+		}
+	}
+
+	private void ensureOpen(int embeddingDimension) throws IOException {
+		if (channel != null) {
+			return;
+		}
+		Files.createDirectories(directory);
+		dimension = embeddingDimension;
+		capacity = INITIAL_CAPACITY;
+		openChannel(directory.resolve(VECTORS_FILE));
+		map();
+		mapped.putInt(0, MAGIC);
+		mapped.putInt(4, 1);
+		mapped.putInt(8, dimension);
+		norms = new float[capacity];
+		log = Files.newBufferedWriter(directory.resolve(DOCUMENTS_FILE), StandardCharsets.UTF_8,
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+	}
+
+	private void openChannel(Path vectorsFile) throws IOException {
+		channel = FileChannel.open(vectorsFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+	}
+
+	private void map() throws IOException {
+		mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) capacity * dimension * Float.BYTES);
+		mapped.order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private FloatBuffer vectorView() {
+		return mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN).position(HEADER_BYTES).slice()
+				.order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+	}
+
+	private int allocateSlot() throws IOException {
+		Integer free = freeSlots.poll();
+		if (free != null) {
+			return free;
+		}
+		int slot = slots.size();
+		if (slot >= capacity) {
+			mapped.force();
+			capacity = capacity * 2;
+			map();
+			norms = Arrays.copyOf(norms, capacity);
+		}
+		slots.add(null);
+		return slot;
+	}
+
+	private void releaseSlot(int slot) {
+		slots.set(slot, null);
+		norms[slot] = 0f;
+		freeSlots.add(slot);
+	}
+
+	private void writeVector(int slot, float[] embedding) {
+		vectorView().put(slot * dimension, embedding);
+		norms[slot] = norm(embedding);
+	}
+
+	private void appendLog(LogEntry entry) throws IOException {
+		log.write(objectMapper.writeValueAsString(entry));
+		log.newLine();
+	}
+
+	/**
+	 * 每次检索只转换、解析一次过滤表达式，逐个文档只替换求值上下文中的元数据
+	 */
+	private final class MetadataFilter {
+
+		private final Expression expression;
+
+		private final StandardEvaluationContext context = new StandardEvaluationContext();
+
+		MetadataFilter(Filter.Expression filterExpression) {
+			this.expression = expressionParser.parseExpression(filterExpressionConverter.convertExpression(filterExpression));
+		}
+
+		boolean matches(Map<String, Object> metadata) {
+			context.setVariable("metadata", metadata);
+			return Boolean.TRUE.equals(expression.getValue(context, Boolean.class));
+		}
+	}
+
+	private static double dot(float[] a, float[] b) {
+		float sum = 0f;
+		for (int i = 0; i < a.length; i++) {
+			sum += a[i] * b[i];
+		}
+		return sum;
+	}
+
+	private static float norm(float[] vector) {
+		float sum = 0f;
+		for (float v : vector) {
+			sum += v * v;
+		}
+		return (float) Math.sqrt(sum);
+	}
+
+	private record StoredDocument(int slot, String id, String text, Map<String, Object> metadata) {
+	}
+
+	private record ScoredSlot(int slot, double score) implements Comparable<ScoredSlot> {
+
+		@Override
+		public int compareTo(ScoredSlot other) {
+			return Double.compare(this.score, other.score);
+		}
+	}
+
+	/**
+	 * 文档日志条目，slot 为 null 表示删除
+	 */
+	private record LogEntry(String id, Integer slot, String text, Map<String, Object> metadata) {
+
+		static LogEntry add(StoredDocument stored) {
+			return new LogEntry(stored.id(), stored.slot(), stored.text(), stored.metadata());
+		}
+
+		static LogEntry delete(String id) {
+			return new LogEntry(id, null, null, null);
+		}
+	}
+
+}
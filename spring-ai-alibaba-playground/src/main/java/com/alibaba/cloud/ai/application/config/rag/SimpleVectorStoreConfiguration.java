@@ -16,6 +16,10 @@
 
 package com.alibaba.cloud.ai.application.config.rag;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Objects;
+
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.vectorstore.SimpleVectorStore;
 import org.springframework.ai.vectorstore.VectorStore;
@@ -23,6 +27,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -32,6 +37,12 @@ public class SimpleVectorStoreConfiguration {
 	@Value("${spring.ai.alibaba.playground.bailian.enable:false}")
 	private Boolean enable;
 
+	@Value("${spring.ai.alibaba.playground.vector-store.embedding-batch-size:" + VectorStoreInitializer.DEFAULT_EMBEDDING_BATCH_SIZE + "}")
+	private int embeddingBatchSize;
+
+	@Value("${spring.ai.alibaba.playground.vector-store.ingest-parallelism:4}")
+	private int ingestParallelism;
+
 	@Bean
 	CommandLineRunner ingestTermOfServiceToVectorStore(VectorStoreDelegate vectorStoreDelegate) {
 		return args -> {
@@ -39,8 +50,12 @@ public class SimpleVectorStoreConfiguration {
 			// 如果未启用百炼知识库，则默认用向量存储服务
 			if (!enable) {
 				String type = System.getenv("VECTOR_STORE_TYPE");
-				VectorStoreInitializer initializer = new VectorStoreInitializer();
-				initializer.init(vectorStoreDelegate.getVectorStore(type));
+				VectorStore vectorStore = vectorStoreDelegate.getVectorStore(type);
+				// 内存向量存储重启后为空，需要全量写入；持久化的向量存储通过清单跳过未变化的 chunk
+				Path manifestPath = vectorStore instanceof SimpleVectorStore ? null
+						: Paths.get(System.getProperty("user.dir"), "rag", "manifest", Objects.requireNonNullElse(type, "default") + ".properties");
+				VectorStoreInitializer initializer = new VectorStoreInitializer(embeddingBatchSize, ingestParallelism, manifestPath);
+				initializer.init(vectorStore);
 			}
 		};
 	}
@@ -60,13 +75,31 @@ public class SimpleVectorStoreConfiguration {
 		return SimpleVectorStore.builder(embeddingModel).build();
 	}
 
+	/**
+	 * 提供基于内存映射文件的向量存储（MappedFileVectorStore）
+	 * <p>
+	 * 向量不占用堆内存，重启后直接从文件恢复，仅在 VECTOR_STORE_TYPE=mapped 时创建，避免其他模式下占用数据目录
+	 * @param embeddingModel
+	 * @return
+	 */
+	@Bean
+	@ConditionalOnProperty(name = "VECTOR_STORE_TYPE", havingValue = "mapped")
+	public MappedFileVectorStore mappedFileVectorStore(
+			@Qualifier("dashscopeEmbeddingModel") EmbeddingModel embeddingModel,
+			@Value("${spring.ai.alibaba.playground.vector-store.mapped.path:${user.dir}/rag/vector-store}") String path
+	) {
+
+		return new MappedFileVectorStore(embeddingModel, Paths.get(path));
+	}
+
 	@Bean
 	public VectorStoreDelegate vectorStoreDelegate(
 			@Qualifier("simpleVectorStore") VectorStore simpleVectorStore,
-			@Qualifier("analyticdbVectorStore") @Autowired(required = false) VectorStore analyticdbVectorStore
+			@Qualifier("analyticdbVectorStore") @Autowired(required = false) VectorStore analyticdbVectorStore,
+			@Qualifier("mappedFileVectorStore") @Autowired(required = false) VectorStore mappedFileVectorStore
 	) {
 
-		return new VectorStoreDelegate(simpleVectorStore, analyticdbVectorStore);
+		return new VectorStoreDelegate(simpleVectorStore, analyticdbVectorStore, mappedFileVectorStore);
 	}
 
 }
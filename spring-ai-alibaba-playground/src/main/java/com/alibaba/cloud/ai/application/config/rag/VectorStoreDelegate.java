@@ -26,9 +26,16 @@ public class VectorStoreDelegate {
 
 	private VectorStore analyticdbVectorStore;
 
+	private VectorStore mappedFileVectorStore;
+
 	public VectorStoreDelegate(VectorStore simpleVectorStore, VectorStore analyticdbVectorStore) {
+		this(simpleVectorStore, analyticdbVectorStore, null);
+	}
+
+	public VectorStoreDelegate(VectorStore simpleVectorStore, VectorStore analyticdbVectorStore, VectorStore mappedFileVectorStore) {
 		this.simpleVectorStore = simpleVectorStore;
 		this.analyticdbVectorStore = analyticdbVectorStore;
+		this.mappedFileVectorStore = mappedFileVectorStore;
 	}
 
 	public VectorStore getVectorStore(String vectorStoreType) {
@@ -37,6 +44,10 @@ public class VectorStoreDelegate {
 			return analyticdbVectorStore;
 		}
 
+		if (Objects.equals(vectorStoreType, "mapped") && mappedFileVectorStore != null) {
+			return mappedFileVectorStore;
+		}
+
 		return simpleVectorStore;
 	}
 }
@@ -17,11 +17,27 @@
 package com.alibaba.cloud.ai.application.config.rag;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -34,39 +50,174 @@ import org.springframework.ai.transformer.splitter.TokenTextSplitter;
 import org.springframework.ai.vectorstore.VectorStore;
 
 /**
+ * 向量存储初始化，分三个阶段流水线执行：
+ * <ol>
+ *     <li>读取与切分：每个 markdown 文件在工作线程池中并行读取并切分；</li>
+ *     <li>攒批：切分后的 chunk 按嵌入模型单次请求上限组成批次；</li>
+ *     <li>写入：批次并行调用 {@link VectorStore#add(List)} 完成嵌入与写入。</li>
+ * </ol>
+ * 每个 chunk 的 ID 由来源与内容哈希生成，写入成功后记录到清单文件中。
+ * 对于持久化的向量存储，重启时内容未变化的 chunk 会被跳过，不再存在的 chunk 会被删除，
+ * 启动耗时只与变更的文档相关。
+ *
  * @author yuluo
  * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
  */
 public class VectorStoreInitializer {
 
+	/**
+	 * DashScope 文本嵌入模型单次请求的最大文本条数
+	 */
+	public static final int DEFAULT_EMBEDDING_BATCH_SIZE = 25;
+
 	private final Logger logger = LoggerFactory.getLogger(VectorStoreInitializer.class);
 
+	private final int embeddingBatchSize;
+
+	private final int parallelism;
+
+	/**
+	 * chunk 清单文件，为 null 时每次启动全量写入（用于非持久化的向量存储）
+	 */
+	private final Path manifestPath;
+
+	public VectorStoreInitializer() {
+		this(DEFAULT_EMBEDDING_BATCH_SIZE, Math.max(2, Runtime.getRuntime().availableProcessors()), null);
+	}
+
+	public VectorStoreInitializer(int embeddingBatchSize, int parallelism, Path manifestPath) {
+		this.embeddingBatchSize = Math.max(1, embeddingBatchSize);
+		this.parallelism = Math.max(1, parallelism);
+		this.manifestPath = manifestPath;
+	}
+
 	public void init(VectorStore vectorStore) throws Exception {
-		List<MarkdownDocumentReader> markdownDocumentReaderList = loadMarkdownDocuments();
+		List<MarkdownSource> markdownDocumentReaderList = loadMarkdownDocuments();
 
-		int size = 0;
 		if (markdownDocumentReaderList.isEmpty()) {
 			logger.warn("No markdown documents found in the directory.");
 			return;
 		}
 
+		// key: chunk id, value: 来源文件
+		Map<String, String> previous = loadManifest();
+		Map<String, String> current = new ConcurrentHashMap<>();
+		AtomicInteger total = new AtomicInteger();
+		AtomicInteger written = new AtomicInteger();
+
 		logger.debug("Start to load markdown documents into vector store......");
-		for (MarkdownDocumentReader markdownDocumentReader : markdownDocumentReaderList) {
-			List<Document> documents = new TokenTextSplitter(2000, 1024, 10, 10000, true).transform(markdownDocumentReader.get());
-			size += documents.size();
-
-			// 拆分 documents 列表为最大 25 个元素的子列表
-			for (int i = 0; i < documents.size(); i += 25) {
-				int end = Math.min(i + 25, documents.size());
-				List<Document> subList = documents.subList(i, end);
-				vectorStore.add(subList);
-			}
+		ExecutorService splitExecutor = Executors.newFixedThreadPool(parallelism);
+		ExecutorService writeExecutor = Executors.newFixedThreadPool(parallelism);
+		try {
+			List<CompletableFuture<Void>> writes = new ArrayList<>();
+			List<CompletableFuture<Void>> pipelines = markdownDocumentReaderList.stream()
+					.map(markdownSource -> CompletableFuture
+							.supplyAsync(() -> split(markdownSource), splitExecutor)
+							.thenAccept(chunks -> {
+								total.addAndGet(chunks.size());
+								List<Document> changed = new ArrayList<>();
+								for (Document chunk : chunks) {
+									current.put(chunk.getId(), markdownSource.location());
+									if (!previous.containsKey(chunk.getId())) {
+										changed.add(chunk);
+									}
+								}
+								for (int i = 0; i < changed.size(); i += embeddingBatchSize) {
+									List<Document> batch = changed.subList(i, Math.min(i + embeddingBatchSize, changed.size()));
+									CompletableFuture<Void> write = CompletableFuture.runAsync(() -> {
+										vectorStore.add(batch);
+										written.addAndGet(batch.size());
+									}, writeExecutor);
+									synchronized (writes) {
+										writes.add(write);
+									}
+								}
+							}))
+					.toList();
+			CompletableFuture.allOf(pipelines.toArray(new CompletableFuture[0])).join();
+			CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])).join();
+		}
+		finally {
+			splitExecutor.shutdown();
+			writeExecutor.shutdown();
+		}
+
+		List<String> removed = previous.keySet().stream()
+				.filter(id -> !current.containsKey(id))
+				.toList();
+		if (manifestPath != null && !removed.isEmpty()) {
+			vectorStore.delete(removed);
 		}
-		logger.debug("Load markdown documents into vector store successfully. Load {} documents.", size);
+		saveManifest(current);
+
+		logger.debug("Load markdown documents into vector store successfully. Load {} documents, {} changed, {} removed.",
+				total.get(), written.get(), removed.size());
+	}
+
+	/**
+	 * 读取并切分单个 markdown 文件，chunk ID 由来源和内容哈希生成，内容不变则 ID 不变
+	 */
+	private List<Document> split(MarkdownSource markdownSource) {
+		List<Document> documents = new TokenTextSplitter(2000, 1024, 10, 10000, true)
+				.transform(markdownSource.reader().get());
+		return documents.stream()
+				.map(document -> {
+					String id = UUID.nameUUIDFromBytes((markdownSource.location() + "#" + sha256(document.getText()))
+							.getBytes(StandardCharsets.UTF_8)).toString();
+					return Document.builder()
+							.id(id)
+							.text(document.getText())
+							.metadata(document.getMetadata())
+							.build();
+				})
+				.toList();
 	}
 
-	private List<MarkdownDocumentReader> loadMarkdownDocuments() throws IOException, URISyntaxException {
-		List<MarkdownDocumentReader> readers;
+	private Map<String, String> loadManifest() {
+		Map<String, String> manifest = new ConcurrentHashMap<>();
+		if (manifestPath == null || !Files.exists(manifestPath)) {
+			return manifest;
+		}
+		Properties properties = new Properties();
+		try (InputStream in = Files.newInputStream(manifestPath)) {
+			properties.load(in);
+			properties.stringPropertyNames().forEach(id -> manifest.put(id, properties.getProperty(id)));
+			logger.debug("Loaded {} chunks from vector store manifest {}", manifest.size(), manifestPath);
+		}
+		catch (IOException e) {
+			logger.warn("Failed to read vector store manifest {}, all documents will be re-embedded.", manifestPath, e);
+			manifest.clear();
+		}
+		return manifest;
+	}
+
+	private void saveManifest(Map<String, String> manifest) throws IOException {
+		if (manifestPath == null) {
+			return;
+		}
+		Properties properties = new Properties();
+		properties.putAll(manifest);
+		Path parent = manifestPath.toAbsolutePath().getParent();
+		Files.createDirectories(parent);
+		Path tmp = Files.createTempFile(parent, "manifest", ".tmp");
+		try (OutputStream out = Files.newOutputStream(tmp)) {
+			properties.store(out, "chunk id -> source");
+		}
+		Files.move(tmp, manifestPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static String sha256(String text) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private List<MarkdownSource> loadMarkdownDocuments() throws IOException, URISyntaxException {
+		List<MarkdownSource> readers;
 		
 		// 首先检查jar包当前运行目录是否存在markdown文件
 		Path currentDirPath = Paths.get(System.getProperty("user.dir"), "rag", "markdown");
@@ -84,7 +235,7 @@ public class VectorStoreInitializer {
 					readers = markdownFiles.stream()
 							.map(path -> {
 								String filePath = path.toAbsolutePath().toString();
-								return new MarkdownDocumentReader("file:" + filePath);
+								return new MarkdownSource("file:" + filePath, new MarkdownDocumentReader("file:" + filePath));
 							})
 							.collect(Collectors.toList());
 					return readers;
@@ -106,7 +257,7 @@ public class VectorStoreInitializer {
 					.map(path -> {
 						String fileName = path.getFileName().toString();
 						String classpathPath = "classpath:rag/markdown/" + fileName;
-						return new MarkdownDocumentReader(classpathPath);
+						return new MarkdownSource(classpathPath, new MarkdownDocumentReader(classpathPath));
 					})
 					.collect(Collectors.toList());
 		}
@@ -114,4 +265,7 @@ public class VectorStoreInitializer {
 		return readers;
 	}
 
+	private record MarkdownSource(String location, MarkdownDocumentReader reader) {
+	}
+
 }
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.modulerag;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单次请求内多个扩展查询共享的检索预算，收集到足够的文档后通知其余查询取消搜索。
+ * 通过 advisor 上下文传入 {@link org.springframework.ai.rag.Query#context()}，扩展查询会继承同一个实例。
+ *
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ */
+public class WebSearchBudget {
+
+	public static final String CONTEXT_KEY = "web_search_budget";
+
+	private final int enoughDocuments;
+
+	private final AtomicInteger collected = new AtomicInteger();
+
+	private final CompletableFuture<Void> enough = new CompletableFuture<>();
+
+	public WebSearchBudget(int enoughDocuments) {
+		this.enoughDocuments = Math.max(1, enoughDocuments);
+	}
+
+	public void collect(int documents) {
+		if (collected.addAndGet(documents) >= enoughDocuments) {
+			enough.complete(null);
+		}
+	}
+
+	public boolean isSatisfied() {
+		return enough.isDone();
+	}
+
+	/**
+	 * 收集到足够文档时完成
+	 */
+	public CompletableFuture<Void> enough() {
+		return enough;
+	}
+
+	@Override
+	public String toString() {
+		return "WebSearchBudget{collected=" + collected.get() + ", enough=" + enoughDocuments + "}";
+	}
+
+}
@@ -28,9 +28,19 @@ import org.springframework.ai.document.Document;
 import org.springframework.ai.rag.Query;
 import org.springframework.ai.rag.retrieval.search.DocumentRetriever;
 import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
 
 import java.net.URISyntaxException;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * spring-ai 从 0.8.0 版本开始不支持 DocumentRanker.
@@ -43,17 +53,25 @@ public class WebSearchRetriever implements DocumentRetriever {
 
 	private static final Logger logger = LoggerFactory.getLogger(WebSearchRetriever.class);
 
+	private static final Duration DEFAULT_SEARCH_TIMEOUT = Duration.ofSeconds(5);
+
 	private final int maxResults;
 
 	private final DataClean dataCleaner;
 
 	private final IQSSearchEngine searchEngine;
 
+	private final Duration searchTimeout;
+
+	private final ExecutorService searchExecutor;
+
 	private WebSearchRetriever(Builder builder) {
 
 		this.searchEngine = builder.searchEngine;
 		this.maxResults = builder.maxResults;
 		this.dataCleaner = builder.dataCleaner;
+		this.searchTimeout = builder.searchTimeout;
+		this.searchExecutor = builder.searchExecutor;
 	}
 
 	@NotNull
@@ -62,12 +80,17 @@ public class WebSearchRetriever implements DocumentRetriever {
 			@Nullable Query query
 	) {
 
+		// 同一请求的其他扩展查询已收集到足够的文档，跳过本次搜索
+		WebSearchBudget budget = query.context().get(WebSearchBudget.CONTEXT_KEY) instanceof WebSearchBudget b ? b : null;
+		if (budget != null && budget.isSatisfied()) {
+			logger.debug("WebSearchRetriever#retrieve() enough documents collected, skip query: {}", query.text());
+			return List.of();
+		}
+
 		// 搜索
-		IQSSearchResponse searchResp;
-		try {
-			searchResp = searchEngine.search(query.text());
-		} catch (JsonProcessingException e) {
-			throw new SAAAppException("json process error" + e.getMessage());
+		IQSSearchResponse searchResp = search(query.text(), budget);
+		if (searchResp == null) {
+			return List.of();
 		}
 
 		// 清洗数据
@@ -81,6 +104,9 @@ public class WebSearchRetriever implements DocumentRetriever {
 
 		// 返回结果
 		List<Document> documents = dataCleaner.limitResults(cleanerData, maxResults);
+		if (budget != null) {
+			budget.collect(documents.size());
+		}
 
 		logger.debug("WebSearchRetriever#retrieve() document size: {}, raw documents: {}",
 				documents.size(),
@@ -90,6 +116,66 @@ public class WebSearchRetriever implements DocumentRetriever {
 		return documents;
 	}
 
+	/**
+	 * 在独立线程池中执行搜索，超时或同一请求已收集到足够文档时取消搜索并返回 null
+	 */
+	@Nullable
+	private IQSSearchResponse search(String text, @Nullable WebSearchBudget budget) {
+
+		CompletableFuture<IQSSearchResponse> result = new CompletableFuture<>();
+		Future<?> task;
+		try {
+			task = searchExecutor.submit(() -> {
+				try {
+					result.complete(searchEngine.search(text));
+				}
+				catch (Throwable e) {
+					result.completeExceptionally(e);
+				}
+			});
+		}
+		catch (RejectedExecutionException e) {
+			// 线程池已满，跳过本次查询，其他扩展查询的结果仍然可用
+			logger.warn("WebSearchRetriever#search() rejected, search executor is saturated, query: {}", text);
+			return null;
+		}
+
+		try {
+			CompletableFuture<?> waiting = budget == null ? result : CompletableFuture.anyOf(result, budget.enough());
+			waiting.get(searchTimeout.toMillis(), TimeUnit.MILLISECONDS);
+		}
+		catch (TimeoutException e) {
+			logger.warn("WebSearchRetriever#search() timed out after {} ms, query: {}", searchTimeout.toMillis(), text);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			task.cancel(true);
+			throw new SAAAppException("web search interrupted");
+		}
+		catch (ExecutionException e) {
+			// 搜索异常在下方统一处理
+		}
+
+		if (!result.isDone()) {
+			task.cancel(true);
+			logger.debug("WebSearchRetriever#search() cancelled, query: {}", text);
+			return null;
+		}
+
+		try {
+			return result.join();
+		}
+		catch (CompletionException e) {
+			if (e.getCause() instanceof JsonProcessingException) {
+				throw new SAAAppException("json process error" + e.getCause().getMessage());
+			}
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw e;
+		}
+	}
+
 	public static WebSearchRetriever.Builder builder() {
 		return new WebSearchRetriever.Builder();
 	}
@@ -103,6 +189,10 @@ public class WebSearchRetriever implements DocumentRetriever {
 
 		private DataClean dataCleaner;
 
+		private Duration searchTimeout = DEFAULT_SEARCH_TIMEOUT;
+
+		private ExecutorService searchExecutor;
+
 		public WebSearchRetriever.Builder searchEngine(IQSSearchEngine searchEngine) {
 
 			this.searchEngine = searchEngine;
@@ -121,8 +211,28 @@ public class WebSearchRetriever implements DocumentRetriever {
 			return this;
 		}
 
+		/**
+		 * 单个查询的搜索超时时间
+		 */
+		public WebSearchRetriever.Builder searchTimeout(Duration searchTimeout) {
+
+			this.searchTimeout = searchTimeout;
+			return this;
+		}
+
+		/**
+		 * 执行搜索请求的线程池，必须指定且为有界线程池，由调用方负责关闭
+		 */
+		public WebSearchRetriever.Builder searchExecutor(ExecutorService searchExecutor) {
+
+			this.searchExecutor = searchExecutor;
+			return this;
+		}
+
 		public WebSearchRetriever build() {
 
+			Assert.notNull(searchTimeout, "searchTimeout must not be null");
+			Assert.notNull(searchExecutor, "searchExecutor must not be null");
 			return new WebSearchRetriever(this);
 		}
 	}
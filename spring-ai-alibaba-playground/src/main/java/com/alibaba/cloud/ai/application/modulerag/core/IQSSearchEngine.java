@@ -22,18 +22,37 @@ import com.alibaba.cloud.ai.application.entity.iqs.IQSSearchResponse;
 import com.alibaba.cloud.ai.application.exception.SAAAppException;
 import com.alibaba.cloud.ai.application.modulerag.IQSSearchProperties;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 import org.springframework.web.client.ResponseErrorHandler;
 import org.springframework.web.client.RestClient;
 
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.Locale;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
 /**
  * <a href="https://help.aliyun.com/document_detail/2883041.html">通晓搜索</a>
@@ -43,7 +62,7 @@ import java.util.function.Consumer;
  */
 
 @Component
-public class IQSSearchEngine {
+public class IQSSearchEngine implements DisposableBean {
 
 	private final RestClient restClient;
 	private final IQSSearchProperties iqsSearchProperties;
@@ -51,11 +70,17 @@ public class IQSSearchEngine {
 	private static final String API_PATH = "/search/unified";
 	private static final String DEFAULT_TIME_RANGE = "OneWeek";
 	private static final String DEFAULT_ENGINE_TYPE = "Generic";
+	private static final long CACHE_MAXIMUM_SIZE = 1024;
+	private static final Duration MAX_CACHE_TTL = Duration.ofHours(2);
+	private static final Duration LOAD_TIMEOUT = Duration.ofSeconds(30);
+	private static final Pattern TRAILING_PUNCTUATION = Pattern.compile("[\\p{Punct}\\p{IsPunctuation}\\s]+$");
+	private static final Logger logger = LoggerFactory.getLogger(IQSSearchEngine.class);
 
 	public IQSSearchEngine(
 			RestClient.Builder restClientBuilder,
 			WebSearchProperties webSearchProperties,
-			ResponseErrorHandler responseErrorHandler
+			ResponseErrorHandler responseErrorHandler,
+			ObjectProvider<MeterRegistry> meterRegistry
 	) {
 
 		this.iqsSearchProperties = webSearchProperties.iqs();
@@ -64,14 +89,116 @@ public class IQSSearchEngine {
 				.defaultHeaders(getHeaders())
 				.defaultStatusHandler(responseErrorHandler)
 				.build();
+
+		this.loadExecutor = new ThreadPoolTaskExecutor();
+		this.loadExecutor.setThreadNamePrefix("iqs-search-");
+		this.loadExecutor.setCorePoolSize(4);
+		this.loadExecutor.setMaxPoolSize(8);
+		this.loadExecutor.setQueueCapacity(64);
+		this.loadExecutor.initialize();
+
+		// 命中率、淘汰次数等指标通过 Micrometer 暴露，未配置 MeterRegistry 时跳过
+		meterRegistry.ifAvailable(registry -> GuavaCacheMetrics.monitor(registry, searchCache, "iqs.search"));
 	}
 
+	/**
+	 * 搜索结果缓存，缓存的是加载中的 future：相同（归一化后）查询在 TTL 内直接返回缓存结果，
+	 * 并发的相同查询共享同一个 future，只发起一次 HTTP 调用。
+	 * 加载在独立线程池中执行，不绑定任何调用方线程，某个调用方超时或被中断不会影响其他等待相同查询的调用方
+	 */
+	private final Cache<SearchKey, CompletableFuture<CachedSearch>> searchCache = CacheBuilder.newBuilder()
+			.maximumSize(CACHE_MAXIMUM_SIZE)
+			// 兜底的过期时间，实际按 timeRange 对应的 TTL 判断
+			.expireAfterWrite(MAX_CACHE_TTL)
+			.recordStats()
+			.build();
+
+	private final ThreadPoolTaskExecutor loadExecutor;
+
 	public IQSSearchResponse search(String query) throws JsonProcessingException {
 
+		SearchKey key = new SearchKey(normalize(query), DEFAULT_TIME_RANGE);
+		CompletableFuture<CachedSearch> loading = loadShared(key, query);
+		CachedSearch cached = await(key, loading);
+		if (cached.isExpired()) {
+			searchCache.asMap().remove(key, loading);
+			cached = await(key, loadShared(key, query));
+		}
+		return cached.response();
+	}
+
+	@Override
+	public void destroy() {
+
+		loadExecutor.shutdown();
+	}
+
+	private CompletableFuture<CachedSearch> loadShared(SearchKey key, String query) {
+
+		try {
+			return searchCache.get(key, () -> CompletableFuture.supplyAsync(() -> {
+				try {
+					return load(query, key.timeRange());
+				}
+				catch (JsonProcessingException e) {
+					throw new CompletionException(e);
+				}
+			}, loadExecutor));
+		}
+		catch (ExecutionException | UncheckedExecutionException e) {
+			// 线程池已满等提交失败
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw new SAAAppException("Failed to search: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * 每个调用方只在自己的等待上超时或响应中断，共享的加载继续执行，其结果仍会写入缓存
+	 */
+	private CachedSearch await(SearchKey key, CompletableFuture<CachedSearch> loading) throws JsonProcessingException {
+
+		try {
+			return loading.get(LOAD_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SAAAppException("IQS search interrupted");
+		}
+		catch (TimeoutException e) {
+			throw new SAAAppException("IQS search timed out after " + LOAD_TIMEOUT.toMillis() + " ms");
+		}
+		catch (ExecutionException e) {
+			// 失败的结果不缓存，下一次相同查询重新加载
+			searchCache.asMap().remove(key, loading);
+			if (e.getCause() instanceof JsonProcessingException jsonProcessingException) {
+				throw jsonProcessingException;
+			}
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw new SAAAppException("Failed to search: " + e.getMessage());
+		}
+	}
+
+	private CachedSearch load(String query, String timeRange) throws JsonProcessingException {
+
+		IQSSearchResponse response = doSearch(query, timeRange);
+		if (logger.isDebugEnabled()) {
+			CacheStats stats = searchCache.stats();
+			logger.debug("IQS search cache miss, hitRate: {}, evictionCount: {}, size: {}",
+					stats.hitRate(), stats.evictionCount(), searchCache.size());
+		}
+		return new CachedSearch(response, System.nanoTime() + ttlOf(timeRange).toNanos());
+	}
+
+	private IQSSearchResponse doSearch(String query, String timeRange) throws JsonProcessingException {
+
 		// String encodeQ = URLEncoder.encode(query, StandardCharsets.UTF_8);
 		final IQSSearchRequest request = IQSSearchRequest.builder()
 				.query(query)
-				.timeRange(DEFAULT_TIME_RANGE)
+				.timeRange(timeRange)
 				.engineType(DEFAULT_ENGINE_TYPE)
 				.contents(IQSSearchRequest.Contents.builder()
 						.mainText(true)
@@ -100,6 +227,44 @@ public class IQSSearchEngine {
 		throw new SAAAppException("Failed to search" + response.getStatusCode().value());
 	}
 
+	/**
+	 * 查询归一化：Unicode 兼容归一、忽略大小写、合并空白并去掉末尾的标点
+	 */
+	static String normalize(String query) {
+
+		if (query == null) {
+			return "";
+		}
+		String normalized = Normalizer.normalize(query, Normalizer.Form.NFKC)
+				.toLowerCase(Locale.ROOT)
+				.replaceAll("\\s+", " ")
+				.trim();
+		return TRAILING_PUNCTUATION.matcher(normalized).replaceAll("");
+	}
+
+	/**
+	 * 时间范围越短，结果越需要新鲜，缓存时间越短
+	 */
+	private static Duration ttlOf(String timeRange) {
+
+		return switch (timeRange) {
+			case "OneDay" -> Duration.ofMinutes(5);
+			case "OneWeek" -> Duration.ofMinutes(30);
+			case "OneMonth" -> Duration.ofHours(1);
+			default -> MAX_CACHE_TTL;
+		};
+	}
+
+	private record SearchKey(String query, String timeRange) {
+	}
+
+	private record CachedSearch(IQSSearchResponse response, long expiresAtNanos) {
+
+		boolean isExpired() {
+			return System.nanoTime() - expiresAtNanos > 0;
+		}
+	}
+
 	private Consumer<HttpHeaders> getHeaders() {
 
 		return httpHeaders -> {
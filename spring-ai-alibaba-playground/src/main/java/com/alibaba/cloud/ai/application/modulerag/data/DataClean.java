@@ -17,6 +17,7 @@
 package com.alibaba.cloud.ai.application.modulerag.data;
 
 import com.alibaba.cloud.ai.application.entity.iqs.IQSSearchResponse;
+import com.alibaba.cloud.ai.application.entity.iqs.WebSearchCitation;
 import org.springframework.ai.document.Document;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -28,56 +29,61 @@ import java.util.*;
  * @author yuluo
  * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
  *
- * Data Cleansing: Filters out useless data and converts it into Spring AI's Document objects
+ * Data Cleansing: Filters out useless data and converts it into Spring AI's Document objects.
+ * Stateless: every document carries its own immutable metadata (including the citation link),
+ * so concurrent requests never share mutable state.
  */
 
 @Component
 public class DataClean {
 
-	private static final Map<Integer, String> WebLink_MAP = new HashMap<>();
-
 	public List<Document> getData(IQSSearchResponse respData) throws URISyntaxException {
 
-		List<Document> documents = new ArrayList<>();
-		Map<String, Object> metadata = getQueryMetadata(respData);
-
-		for (int i = 0; i < respData.pageItems().size(); i++) {
-
-			IQSSearchResponse.PageItem pageItem = respData.pageItems().get(i);
-			Map<String, Object> pageItemMetadata = getPageItemMetadata(pageItem);
+		List<IQSSearchResponse.PageItem> pageItems = Objects.requireNonNullElse(respData.pageItems(), List.of());
+		List<Document> documents = new ArrayList<>(pageItems.size());
+		Map<String, Object> queryMetadata = getQueryMetadata(respData);
 
-			metadata.putAll(pageItemMetadata);
+		for (IQSSearchResponse.PageItem pageItem : pageItems) {
 
-			if (!StringUtils.hasText(pageItem.mainText()) || pageItem.mainText().length() < 10) {
+			if (Objects.isNull(pageItem) || !StringUtils.hasText(pageItem.mainText()) || pageItem.mainText().length() < 10) {
 				// Skip items with main text that is too short
 				continue;
 			}
 
 			Document document = Document.builder()
-					.metadata(metadata)
+					.metadata(getPageItemMetadata(queryMetadata, pageItem))
 					.text(pageItem.mainText())
 					.score(pageItem.rerankScore())
 					.build();
 
-			if (Objects.nonNull(pageItem.link())) {
-				int index = i;
-				WebLink_MAP.put(index + 1, pageItem.link());
-			}
-
 			documents.add(document);
 		}
 
 		return documents;
 	}
 
-	public Map<Integer, String> getWebLink() {
+	/**
+	 * Build citations from the documents in the order they were given to the model,
+	 * so that citation index x matches the [[x]] reference in the answer.
+	 */
+	public List<WebSearchCitation> getCitations(List<Document> documents) {
+
+		List<WebSearchCitation> citations = new ArrayList<>(documents.size());
+		for (int i = 0; i < documents.size(); i++) {
+			Map<String, Object> metadata = documents.get(i).getMetadata();
+			Object link = metadata.get("link");
+			if (Objects.nonNull(link)) {
+				citations.add(new WebSearchCitation(i + 1, Objects.toString(metadata.get("title"), null),
+						link.toString(), Objects.toString(metadata.get("hostname"), null)));
+			}
+		}
 
-		return WebLink_MAP;
+		return citations;
 	}
 
 	private Map<String, Object> getQueryMetadata(IQSSearchResponse respData) {
 
-		HashMap<String, Object> docsMetadata = new HashMap<>();
+		Map<String, Object> docsMetadata = new HashMap<>(4);
 
 		if (Objects.nonNull(respData.queryContext())) {
 			docsMetadata.put("query", respData.queryContext().originalQuery().query());
@@ -91,12 +97,13 @@ public class DataClean {
 			}
 		}
 
-		return docsMetadata;
+		return Collections.unmodifiableMap(docsMetadata);
 	}
 
-	private Map<String, Object> getPageItemMetadata(IQSSearchResponse.PageItem pageItem) {
+	private Map<String, Object> getPageItemMetadata(Map<String, Object> queryMetadata, IQSSearchResponse.PageItem pageItem) {
 
-		HashMap<String, Object> pageItemMetadata = new HashMap<>();
+		Map<String, Object> pageItemMetadata = new HashMap<>(queryMetadata.size() + 8);
+		pageItemMetadata.putAll(queryMetadata);
 
 		if (Objects.nonNull(pageItem)) {
 
@@ -116,10 +123,6 @@ public class DataClean {
 				pageItemMetadata.put("link", pageItem.link());
 			}
 
-			if (Objects.nonNull(pageItem.mainText())) {
-				pageItemMetadata.put("mainText", pageItem.mainText());
-			}
-
 			if (Objects.nonNull(pageItem.rerankScore())) {
 				pageItemMetadata.put("rerankScore", pageItem.rerankScore());
 			}
@@ -133,7 +136,7 @@ public class DataClean {
 			}
 		}
 
-		return pageItemMetadata;
+		return Collections.unmodifiableMap(pageItemMetadata);
 	}
 
 	public List<Document> limitResults(List<Document> documents, int minResults) {
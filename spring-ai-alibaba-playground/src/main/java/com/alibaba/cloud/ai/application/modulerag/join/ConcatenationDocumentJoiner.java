@@ -17,14 +17,12 @@
 package com.alibaba.cloud.ai.application.modulerag.join;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
@@ -37,6 +35,14 @@ import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 
 /**
+ * Joins the documents retrieved for several (expanded) queries in a single pass.
+ * <p>
+ * Documents are fused either by reciprocal rank (RRF) or by their retrieval score,
+ * deduplicated by 64-bit fingerprints of their id/source/file_name/link keys, and selected
+ * within a configurable budget. Every query first gets its best document (fair quota),
+ * the rest of the budget is filled by fused score. Queries are processed in text order,
+ * so the output is deterministic regardless of the map implementation passed in.
+ *
  * @author yuluo
  * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
  */
@@ -45,6 +51,49 @@ public class ConcatenationDocumentJoiner implements DocumentJoiner {
 
 	private static final Logger logger = LoggerFactory.getLogger(ConcatenationDocumentJoiner.class);
 
+	private static final int DEFAULT_TOTAL_DOCUMENTS = 10;
+
+	private static final int DEFAULT_RRF_K = 60;
+
+	private static final String[] KEY_METADATA = {"source", "file_name", "link"};
+
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	public enum FusionStrategy {
+
+		/**
+		 * score = sum(1 / (k + rank)) over every list the document appears in
+		 */
+		RECIPROCAL_RANK,
+
+		/**
+		 * score = max(document score) over every list the document appears in
+		 */
+		SCORE
+
+	}
+
+	private final int totalDocuments;
+
+	private final FusionStrategy fusionStrategy;
+
+	private final int rrfK;
+
+	public ConcatenationDocumentJoiner() {
+		this(DEFAULT_TOTAL_DOCUMENTS, FusionStrategy.RECIPROCAL_RANK, DEFAULT_RRF_K);
+	}
+
+	public ConcatenationDocumentJoiner(int totalDocuments, FusionStrategy fusionStrategy, int rrfK) {
+
+		Assert.isTrue(totalDocuments > 0, "totalDocuments must be greater than 0");
+		Assert.notNull(fusionStrategy, "fusionStrategy cannot be null");
+		this.totalDocuments = totalDocuments;
+		this.fusionStrategy = fusionStrategy;
+		this.rrfK = rrfK;
+	}
+
 	@NotNull
 	@Override
 	public List<Document> join(
@@ -54,109 +103,148 @@ public class ConcatenationDocumentJoiner implements DocumentJoiner {
 		Assert.notNull(documentsForQuery, "documentsForQuery cannot be null");
 		Assert.noNullElements(documentsForQuery.keySet(), "documentsForQuery cannot contain null keys");
 		Assert.noNullElements(documentsForQuery.values(), "documentsForQuery cannot contain null values");
-		logger.debug("Joining documents by concatenation");
-
-		Map<Query, List<List<Document>>> selectDocuments = selectDocuments(documentsForQuery, 10);
-
-		Set<String> seen = new HashSet<>();
-
-		return selectDocuments.values().stream()
-				// Flatten List<List<Documents>> to Stream<List<Documents>.
-				.flatMap(List::stream)
-				// Flatten Stream<List<Documents> to Stream<Documents>.
-				.flatMap(List::stream)
-				.filter(doc -> {
-					List<String> keys = extractKeys(doc);
-					for (String key : keys) {
-						if (!seen.add(key)) {
-							logger.info("Duplicate document metadata: {}",doc.getMetadata());
-							// Duplicate keys found.
-							return false;
+		logger.debug("Joining documents by {} fusion", fusionStrategy);
+
+		List<Query> sortedQueries = new ArrayList<>(documentsForQuery.keySet());
+		sortedQueries.sort(Comparator.comparing(Query::text));
+
+		// fingerprint of any key -> candidate, so a document matching an earlier one by any key is merged into it
+		Map<Long, Candidate> candidatesByKey = new HashMap<>();
+		List<Candidate> candidates = new ArrayList<>();
+		Candidate[] bestPerQuery = new Candidate[sortedQueries.size()];
+
+		for (int q = 0; q < sortedQueries.size(); q++) {
+			for (List<Document> documentList : documentsForQuery.get(sortedQueries.get(q))) {
+				for (int rank = 0; rank < documentList.size(); rank++) {
+					Document document = documentList.get(rank);
+					if (Objects.isNull(document)) {
+						continue;
+					}
+					long[] keys = fingerprints(document);
+					Candidate candidate = null;
+					for (long key : keys) {
+						candidate = candidatesByKey.get(key);
+						if (candidate != null) {
+							break;
 						}
 					}
-					// All keys are unique.
-					return true;
-				})
-				.collect(Collectors.toList());
-	}
+					if (candidate == null) {
+						candidate = new Candidate(document, candidates.size());
+						candidates.add(candidate);
+					}
+					else {
+						logger.debug("Duplicate document metadata: {}", document.getMetadata());
+					}
+					for (long key : keys) {
+						candidatesByKey.putIfAbsent(key, candidate);
+					}
+					double contribution = contribution(document, rank);
+					candidate.score = !candidate.scored ? contribution
+							: fusionStrategy == FusionStrategy.SCORE ? Math.max(candidate.score, contribution)
+							: candidate.score + contribution;
+					candidate.scored = true;
+					if (bestPerQuery[q] == null) {
+						bestPerQuery[q] = candidate;
+					}
+				}
+			}
+		}
 
-	private Map<Query, List<List<Document>>> selectDocuments(
-			Map<Query, List<List<Document>>> documentsForQuery,
-			int totalDocuments
-	) {
+		return select(candidates, bestPerQuery);
+	}
 
-		Map<Query, List<List<Document>>> selectDocumentsForQuery = new HashMap<>();
+	private List<Document> select(List<Candidate> candidates, Candidate[] bestPerQuery) {
 
-		int numberOfQueries = documentsForQuery.size();
+		Comparator<Candidate> byScore = Comparator.comparingDouble((Candidate c) -> c.score).reversed()
+				.thenComparingInt(c -> c.order);
+		List<Candidate> selected = new ArrayList<>(Math.min(totalDocuments, candidates.size()));
 
-		if (Objects.equals(0, numberOfQueries)) {
+		// fair quota: the best document of every query first
+		for (Candidate best : bestPerQuery) {
+			if (best != null && !best.selected && selected.size() < totalDocuments) {
+				best.selected = true;
+				selected.add(best);
+			}
+		}
 
-			return selectDocumentsForQuery;
+		// fill the remaining budget by fused score
+		if (selected.size() < totalDocuments) {
+			List<Candidate> remaining = new ArrayList<>(candidates.size());
+			for (Candidate candidate : candidates) {
+				if (!candidate.selected) {
+					remaining.add(candidate);
+				}
+			}
+			remaining.sort(byScore);
+			for (int i = 0; i < remaining.size() && selected.size() < totalDocuments; i++) {
+				selected.add(remaining.get(i));
+			}
 		}
 
-		int baseCount = totalDocuments / numberOfQueries;
-		int remainder = totalDocuments % numberOfQueries;
+		selected.sort(byScore);
+		List<Document> documents = new ArrayList<>(selected.size());
+		for (Candidate candidate : selected) {
+			documents.add(candidate.document);
+		}
+		return documents;
+	}
 
-		// To ensure consistent distribution. sort the keys (optional)
-		List<Query> sortedQueries = new ArrayList<>(documentsForQuery.keySet());
-		// Other sort
-		// sortedQueries.sort(Comparator.comparing(Query::getSomeProperty));
-		Iterator<Query> iterator = sortedQueries.iterator();
-
-		for (int i = 0; i < numberOfQueries; i ++) {
-			Query query = sortedQueries.get(i);
-			int documentToSelect = baseCount + (i < remainder ? 1 : 0);
-			List<List<Document>> originalDocuments = documentsForQuery.get(query);
-			List<List<Document>> selectedNestLists = new ArrayList<>();
-
-			int remainingDocuments = documentToSelect;
-			for (List<Document> documentList : originalDocuments) {
-				if (remainingDocuments <= 0) {
-					break;
-				}
+	private double contribution(Document document, int rank) {
 
-				List<Document> selectSubList = new ArrayList<>();
-				for (Document docs : documentList) {
-					if (remainingDocuments <= 0) {
-						break;
-					}
+		if (fusionStrategy == FusionStrategy.SCORE) {
+			return Objects.requireNonNullElse(document.getScore(), 0d);
+		}
+		return 1.0d / (rrfK + rank + 1);
+	}
 
-					selectSubList.add(docs);
-					remainingDocuments --;
-				}
+	private long[] fingerprints(Document document) {
 
-				if (!selectSubList.isEmpty()) {
-					selectedNestLists.add(selectSubList);
+		long[] keys = new long[1 + KEY_METADATA.length];
+		int size = 0;
+		if (Objects.nonNull(document.getId())) {
+			keys[size++] = fingerprint(0, document.getId());
+		}
+		Map<String, Object> metadata = document.getMetadata();
+		if (Objects.nonNull(metadata)) {
+			for (int i = 0; i < KEY_METADATA.length; i++) {
+				if (metadata.get(KEY_METADATA[i]) instanceof String value) {
+					keys[size++] = fingerprint(i + 1, value);
 				}
 			}
-
-			selectDocumentsForQuery.put(query, selectedNestLists);
 		}
+		return size == keys.length ? keys : Arrays.copyOf(keys, size);
+	}
+
+	/**
+	 * 64-bit FNV-1a over the key type and the chars of the value, without allocating
+	 */
+	private static long fingerprint(int type, String value) {
 
-		return selectDocumentsForQuery;
+		long hash = (FNV_OFFSET_BASIS ^ type) * FNV_PRIME;
+		for (int i = 0; i < value.length(); i++) {
+			hash ^= value.charAt(i);
+			hash *= FNV_PRIME;
+		}
+		return hash;
 	}
 
-	private List<String> extractKeys(Document document) {
+	private static final class Candidate {
 
-		List<String> keys = new ArrayList<>();
+		private final Document document;
 
-		if (Objects.nonNull(document)) {
-			keys.add(document.getId());
-		}
+		private final int order;
 
-		if (Objects.nonNull(document.getMetadata())) {
-			Object src = document.getMetadata().get("source");
-			if (src instanceof String) {
-				keys.add("SOURCE:" + src);
-			}
+		private double score;
 
-			Object fn = document.getMetadata().get("file_name");
-			if (fn instanceof String) {
-				keys.add("FILE_NAME:" + fn);
-			}
+		private boolean scored;
+
+		private boolean selected;
+
+		private Candidate(Document document, int order) {
+			this.document = document;
+			this.order = order;
 		}
 
-		return keys;
 	}
 
 }
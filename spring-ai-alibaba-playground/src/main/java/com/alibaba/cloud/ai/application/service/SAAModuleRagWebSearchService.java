@@ -18,7 +18,9 @@ package com.alibaba.cloud.ai.application.service;
 
 import com.alibaba.cloud.ai.application.advisor.ReasoningContentAdvisor;
 import com.alibaba.cloud.ai.application.entity.dashscope.ChatResponseDTO;
+import com.alibaba.cloud.ai.application.entity.iqs.WebSearchCitation;
 import com.alibaba.cloud.ai.application.enums.WebSearchEnum;
+import com.alibaba.cloud.ai.application.modulerag.WebSearchBudget;
 import com.alibaba.cloud.ai.application.modulerag.WebSearchRetriever;
 import com.alibaba.cloud.ai.application.modulerag.core.IQSSearchEngine;
 import com.alibaba.cloud.ai.application.modulerag.data.DataClean;
@@ -29,21 +31,29 @@ import com.alibaba.cloud.ai.dashscope.spec.DashScopeModel;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
 import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.ai.document.Document;
 import org.springframework.ai.rag.advisor.RetrievalAugmentationAdvisor;
 import org.springframework.ai.rag.preretrieval.query.expansion.QueryExpander;
 import org.springframework.ai.rag.preretrieval.query.transformation.QueryTransformer;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /**
  * @author yuluo
  * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
  */
 
 @Service
-public class SAAModuleRagWebSearchService implements ISAAWebSearchService {
+public class SAAModuleRagWebSearchService implements ISAAWebSearchService, DisposableBean {
 
     private final DataClean dataCleaner;
 
@@ -61,6 +71,20 @@ public class SAAModuleRagWebSearchService implements ISAAWebSearchService {
 
     private final ReasoningContentAdvisor reasoningContentAdvisor;
 
+    private final ThreadPoolTaskExecutor retrievalTaskExecutor;
+
+    private final ThreadPoolTaskExecutor searchTaskExecutor;
+
+    /**
+     * 每个扩展查询最多保留的搜索结果数
+     */
+    private static final int MAX_RESULTS_PER_QUERY = 2;
+
+    /**
+     * 所有扩展查询累计收集到该数量的文档后，取消仍在进行的搜索
+     */
+    private static final int ENOUGH_DOCUMENTS = 6;
+
     public SAAModuleRagWebSearchService(
             DataClean dataCleaner,
             QueryExpander queryExpander,
@@ -91,11 +115,38 @@ public class SAAModuleRagWebSearchService implements ISAAWebSearchService {
 
         this.simpleLoggerAdvisor = simpleLoggerAdvisor;
 
+        // 搜索请求在有界线程池中执行，队列满时跳过该查询；线程池随本服务一起关闭
+        this.searchTaskExecutor = new ThreadPoolTaskExecutor();
+        this.searchTaskExecutor.setThreadNamePrefix("web-search-");
+        this.searchTaskExecutor.setCorePoolSize(8);
+        this.searchTaskExecutor.setMaxPoolSize(8);
+        this.searchTaskExecutor.setQueueCapacity(32);
+        this.searchTaskExecutor.initialize();
+
         this.webSearchRetriever = WebSearchRetriever.builder()
                 .searchEngine(searchEngine)
                 .dataCleaner(dataCleaner)
-                .maxResults(2)
+                .maxResults(MAX_RESULTS_PER_QUERY)
+                .searchTimeout(Duration.ofSeconds(5))
+                .searchExecutor(searchTaskExecutor.getThreadPoolExecutor())
                 .build();
+
+        // 扩展查询并发检索，线程数与扩展查询数量相当即可
+        this.retrievalTaskExecutor = new ThreadPoolTaskExecutor();
+        this.retrievalTaskExecutor.setThreadNamePrefix("web-search-retrieval-");
+        this.retrievalTaskExecutor.setCorePoolSize(4);
+        this.retrievalTaskExecutor.setMaxPoolSize(16);
+        this.retrievalTaskExecutor.setQueueCapacity(64);
+        this.retrievalTaskExecutor.initialize();
+    }
+
+    /**
+     * 两个线程池不注册为 Spring Bean（否则会让 Boot 的 applicationTaskExecutor 失效），由本服务在关闭时释放
+     */
+    @Override
+    public void destroy() {
+        retrievalTaskExecutor.shutdown();
+        searchTaskExecutor.shutdown();
     }
 
 
@@ -107,15 +158,37 @@ public class SAAModuleRagWebSearchService implements ISAAWebSearchService {
     @Override
     public Flux<ChatResponseDTO> chat(String prompt) {
 
-        return chatClient.prompt()
-                .advisors(
-                        createRetrievalAugmentationAdvisor(),
-                        reasoningContentAdvisor,
-                        simpleLoggerAdvisor
-                ).user(prompt)
-                .stream().chatResponse().map(chatResponse
-                        -> new ChatResponseDTO(chatResponse.getResult().getOutput().getText())
-                );
+        return Flux.defer(() -> {
+            AtomicBoolean citationsSent = new AtomicBoolean();
+            return chatClient.prompt()
+                    .advisors(
+                            createRetrievalAugmentationAdvisor(),
+                            reasoningContentAdvisor,
+                            simpleLoggerAdvisor
+                    ).advisors(advisor -> advisor.param(WebSearchBudget.CONTEXT_KEY, new WebSearchBudget(ENOUGH_DOCUMENTS)))
+                    .user(prompt)
+                    .stream().chatResponse().map(chatResponse -> {
+                        String text = chatResponse.getResult().getOutput().getText();
+                        // 流式调用时 RetrievalAugmentationAdvisor 只把文档上下文写入带 finishReason 的响应块，
+                        // 引用随携带文档上下文的响应块返回一次，编号与回答中的 [[x]] 一致
+                        List<WebSearchCitation> citations = getCitations(chatResponse);
+                        if (!citations.isEmpty() && citationsSent.compareAndSet(false, true)) {
+                            return new ChatResponseDTO(text, citations);
+                        }
+                        return new ChatResponseDTO(text);
+                    });
+        });
+    }
+
+    private List<WebSearchCitation> getCitations(ChatResponse chatResponse) {
+
+        if (!(chatResponse.getMetadata().get(RetrievalAugmentationAdvisor.DOCUMENT_CONTEXT) instanceof List<?> documents)) {
+            return List.of();
+        }
+        return dataCleaner.getCitations(documents.stream()
+                .filter(Document.class::isInstance)
+                .map(Document.class::cast)
+                .toList());
     }
 
     private RetrievalAugmentationAdvisor createRetrievalAugmentationAdvisor() {
@@ -130,6 +203,7 @@ public class SAAModuleRagWebSearchService implements ISAAWebSearchService {
                                 true)
                 ).queryExpander(queryExpander)
                 .documentJoiner(new ConcatenationDocumentJoiner())
+                .taskExecutor(retrievalTaskExecutor)
                 .build();
     }
 
@@ -16,30 +16,45 @@
 
 package com.alibaba.cloud.ai.application.service;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.alibaba.cloud.ai.application.exception.SAAAppException;
 import com.alibaba.cloud.ai.dashscope.chat.DashScopeChatOptions;
+import org.apache.tika.Tika;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
 import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.prompt.PromptTemplate;
-import org.springframework.ai.document.Document;
-import org.springframework.ai.reader.tika.TikaDocumentReader;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 
 /**
+ * Documents that fit into one chunk are summarized with a single prompt. Larger documents are
+ * summarized map-reduce style: Tika output is streamed and split into token-bounded chunks,
+ * chunks are summarized in parallel with a concurrency limit, and partial summaries are reduced
+ * hierarchically. Progress is streamed before the final summary, and only the chunks currently
+ * being summarized plus the partial summaries are held in memory.
+ *
  * @author yuluo
  * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
  */
@@ -49,8 +64,41 @@ public class SAASummarizerService {
 
 	private static final Logger logger = LoggerFactory.getLogger(SAASummarizerService.class);
 
+	/**
+	 * Max tokens of a single chunk sent to the model.
+	 */
+	private static final int CHUNK_TOKENS = 6000;
+
+	/**
+	 * Max chunks / partial summaries summarized at the same time.
+	 */
+	private static final int CONCURRENCY = 4;
+
+	/**
+	 * Number of partial summaries combined by one reduce call.
+	 */
+	private static final int REDUCE_FAN_IN = 8;
+
+	private static final String MAP_PROMPT = """
+			The following text is part %d of a longer document. Summarize it concisely,
+			keeping key facts, figures, names and section titles. Answer in the same language as the text.
+			""";
+
+	private static final String REDUCE_PROMPT = """
+			The following are summaries of consecutive parts of a longer document.
+			Merge them into one concise summary that keeps the order and key points.
+			Answer in the same language as the summaries.
+			""";
+
 	private final ChatClient chatClient;
 
+	/**
+	 * Chat client for map/reduce steps, without chat memory so partial prompts do not pollute the conversation.
+	 */
+	private final ChatClient partialChatClient;
+
+	private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+
 	public SAASummarizerService(
 			SimpleLoggerAdvisor simpleLoggerAdvisor,
 			MessageChatMemoryAdvisor messageChatMemoryAdvisor,
@@ -67,6 +115,13 @@ public class SAASummarizerService {
 						messageChatMemoryAdvisor,
 						simpleLoggerAdvisor
 				).build();
+
+		this.partialChatClient = ChatClient.builder(chatModel)
+				.defaultOptions(
+						DashScopeChatOptions.builder().withModel("deepseek-r1").build()
+				).defaultAdvisors(
+						simpleLoggerAdvisor
+				).build();
 	}
 
 	/**
@@ -74,37 +129,180 @@ public class SAASummarizerService {
 	 */
 	public Flux<String> summary(MultipartFile file, String url) {
 
-		String text = getText(url, file);
-		if (!StringUtils.hasText(text)) {
+		Resource resource = getResource(url, file);
+		if (Objects.isNull(resource)) {
 			return Flux.error(new SAAAppException("Invalid file content"));
 		}
 
-		return chatClient.prompt()
-				.user("Summarize the document")
-				.user(text)
-				.stream().content();
+		return Flux.using(
+				() -> new ChunkReader(new Tika().parse(resource.getInputStream()), tokenCountEstimator, CHUNK_TOKENS),
+				this::summary,
+				ChunkReader::close
+		).subscribeOn(Schedulers.boundedElastic());
 	}
 
-	private String getText(String url, MultipartFile file) {
+	private Flux<String> summary(ChunkReader reader) {
+
+		String first = reader.next();
+		if (!StringUtils.hasText(first)) {
+			return Flux.error(new SAAAppException("Invalid file content"));
+		}
+		String second = reader.next();
+
+		// Small document: one prompt, same as before
+		if (Objects.isNull(second)) {
+			return chatClient.prompt()
+					.user("Summarize the document")
+					.user(first)
+					.stream().content();
+		}
+
+		logger.debug("Document exceeds {} tokens, summarizing with map-reduce", CHUNK_TOKENS);
+		AtomicInteger index = new AtomicInteger();
+		Flux<String> chunks = Flux.concat(
+				Flux.just(first, second),
+				Flux.<String>generate(sink -> {
+					String chunk = reader.next();
+					if (Objects.isNull(chunk)) {
+						sink.complete();
+					}
+					else {
+						sink.next(chunk);
+					}
+				})
+		);
+
+		// flatMapSequential only requests CONCURRENCY chunks ahead, so the document is read as summaries complete
+		Flux<String> partials = chunks
+				.flatMapSequential(chunk -> summarizeChunk(index.incrementAndGet(), chunk), CONCURRENCY)
+				.cache();
+
+		return Flux.concat(
+				partials.index().map(partial -> "> Summarized part " + (partial.getT1() + 1) + "\n\n"),
+				partials.collectList().flatMapMany(this::reduce)
+		);
+	}
+
+	/**
+	 * Reduce partial summaries level by level until they fit into one final, streamed summary.
+	 */
+	private Flux<String> reduce(List<String> summaries) {
+
+		if (summaries.size() <= REDUCE_FAN_IN) {
+			return Flux.concat(
+					Flux.just("\n"),
+					chatClient.prompt()
+							.user("Summarize the document from the following summaries of its consecutive parts")
+							.user(String.join("\n\n", summaries))
+							.stream().content()
+			);
+		}
+
+		return Flux.fromIterable(summaries)
+				.buffer(REDUCE_FAN_IN)
+				.flatMapSequential(group -> call(REDUCE_PROMPT, String.join("\n\n", group)), CONCURRENCY)
+				.collectList()
+				.flatMapMany(reduced -> Flux.concat(
+						Flux.just("> Merged into " + reduced.size() + " summaries\n\n"),
+						reduce(reduced)
+				));
+	}
+
+	private Mono<String> summarizeChunk(int index, String chunk) {
+
+		return call(MAP_PROMPT.formatted(index), chunk);
+	}
+
+	private Mono<String> call(String instruction, String text) {
+
+		return Mono.fromCallable(() -> Objects.requireNonNullElse(
+						partialChatClient.prompt()
+								.system(instruction)
+								.user(text)
+								.call()
+								.content(), ""))
+				.subscribeOn(Schedulers.boundedElastic());
+	}
+
+	private Resource getResource(String url, MultipartFile file) {
 
 		if (Objects.nonNull(file)) {
 
 			logger.debug("Reading file content form MultipartFile");
-			List<Document> documents = new TikaDocumentReader(file.getResource()).get();
-			return documents.stream()
-					.map(Document::getFormattedContent)
-					.collect(Collectors.joining("\n\n"));
+			return file.getResource();
 		}
 
 		if (StringUtils.hasText(url)) {
 			logger.debug("Reading file content form url");
-			List<Document> documents = new TikaDocumentReader(url).get();
-			return documents.stream()
-					.map(Document::getFormattedContent)
-					.collect(Collectors.joining("\n\n"));
+			return new DefaultResourceLoader().getResource(url);
+		}
+
+		return null;
+	}
+
+	/**
+	 * Reads Tika's streamed text output line by line into chunks of at most {@code maxTokens} tokens.
+	 */
+	private static final class ChunkReader {
+
+		private final BufferedReader reader;
+
+		private final TokenCountEstimator estimator;
+
+		private final int maxTokens;
+
+		private String pending;
+
+		private ChunkReader(Reader reader, TokenCountEstimator estimator, int maxTokens) {
+			this.reader = new BufferedReader(reader);
+			this.estimator = estimator;
+			this.maxTokens = maxTokens;
+		}
+
+		/**
+		 * @return the next chunk, or null when the document is exhausted
+		 */
+		private String next() {
+
+			StringBuilder chunk = new StringBuilder();
+			int tokens = 0;
+			try {
+				String line = pending != null ? pending : reader.readLine();
+				pending = null;
+				while (line != null) {
+					int lineTokens = estimator.estimate(line) + 1;
+					if (tokens + lineTokens > maxTokens && chunk.length() > 0) {
+						pending = line;
+						break;
+					}
+					if (lineTokens > maxTokens) {
+						// a single line larger than a chunk (e.g. text without line breaks), split it by characters
+						int end = Math.max(1, (int) ((long) line.length() * maxTokens / lineTokens));
+						chunk.append(line, 0, end);
+						pending = line.substring(end);
+						break;
+					}
+					chunk.append(line).append('\n');
+					tokens += lineTokens;
+					line = reader.readLine();
+				}
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			String text = chunk.toString().strip();
+			return text.isEmpty() && pending == null ? null : text;
+		}
+
+		private void close() {
+			try {
+				reader.close();
+			}
+			catch (IOException e) {
+				logger.warn("Failed to close document reader", e);
+			}
 		}
 
-		return "";
 	}
 
 }
@@ -5,9 +5,15 @@ import jakarta.validation.constraints.NotEmpty;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
+import static com.alibaba.cloud.ai.rag.parallel.config.KnowledgeBasePropertiesConfiguration.getKnowledgeBaseConfigPropertiesByIndexName;
 import static com.alibaba.cloud.ai.rag.parallel.config.KnowledgeBasePropertiesConfiguration.getKnowledgeBaseConfigPropertiesByScope;
 import static com.alibaba.cloud.ai.rag.parallel.config.KnowledgeBasePropertiesConfiguration.knowledgeBasePropertiesConfiguration;
 
@@ -29,14 +35,21 @@ public class KnowledgeBaseConfigFinder {
      */
     public static List<KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfig> findDirectIndexConfigByIndexNames(@NotEmpty List<String> indexNames) {
         List<KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfig> configs = new ArrayList<>();
+        Set<String> indexNameSet = new HashSet<>(indexNames);
+        // 只遍历包含目标知识库的配置项
+        Set<KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfigProperties> candidates = Collections.newSetFromMap(new IdentityHashMap<>());
+        indexNames.stream()
+                .map(KnowledgeBasePropertiesConfiguration::getKnowledgeBaseConfigPropertiesByIndexName)
+                .filter(Objects::nonNull)
+                .forEach(candidates::add);
         knowledgeBasePropertiesConfiguration.configs.stream()
-                .filter(config -> config.getIndexNames().stream().anyMatch(indexNames::contains))
+                .filter(candidates::contains)
                 .forEach(config -> {
                     KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfig newConfig = new KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfig();
                     newConfig.setBaseUrl(knowledgeBasePropertiesConfiguration.getBaseUrl());
                     newConfig.setWorkspaceId(config.getWorkspaceId());
                     newConfig.setApiKey(config.getApiKey());
-                    Optional<String> first = config.getIndexNames().stream().filter(indexNames::contains).findFirst();
+                    Optional<String> first = config.getIndexNames().stream().filter(indexNameSet::contains).findFirst();
                     first.ifPresentOrElse(indexName -> {
                         newConfig.setIndexName(indexName);
                         configs.add(newConfig);
@@ -54,10 +67,8 @@ public class KnowledgeBaseConfigFinder {
      * @return {@link  com.alibaba.cloud.ai.rag.parallel.config.KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfigProperties} 知识库配置
      */
     public static KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfig findDirectIndexConfigByIndexName(@NotBlank String indexName) {
-        Optional<KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfigProperties> any = knowledgeBasePropertiesConfiguration.configs
-                .stream().
-                filter(config -> config.getIndexNames().contains(indexName))
-                .findAny();
+        Optional<KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfigProperties> any = Optional
+                .ofNullable(getKnowledgeBaseConfigPropertiesByIndexName(indexName));
         if (any.isPresent()) {
             KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfigProperties config = any.get();
             KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfig newConfig = new KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfig();
@@ -99,9 +110,8 @@ public class KnowledgeBaseConfigFinder {
      * @return {@link  com.alibaba.cloud.ai.rag.parallel.config.KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfigProperties} 知识库配置
      */
     public static List<KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfig> findDirectIndexConfigsByScope(@NotBlank String scope) {
-        Optional<KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfigProperties> any = knowledgeBasePropertiesConfiguration.configs
-                .stream().filter(config -> config.getScope().equals(scope))
-                .findAny();
+        Optional<KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfigProperties> any = Optional
+                .ofNullable(getKnowledgeBaseConfigPropertiesByScope(scope));
         if (any.isPresent()) {
             KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfigProperties config = any.get();
             List<String> indexNames = config.getIndexNames();
@@ -11,6 +11,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -43,6 +45,11 @@ public class KnowledgeBasePropertiesConfiguration {
         knowledgeBasePropertiesConfiguration = this;
         configMap = knowledgeBasePropertiesConfiguration.configs.stream()
                 .collect(Collectors.toMap(KnowledgeBaseConfigProperties::getScope, Function.identity()));
+        // 同名知识库以先配置的为准，与原有的顺序查找保持一致
+        Map<String, KnowledgeBaseConfigProperties> indexNames = new HashMap<>();
+        configs.forEach(configProperties -> configProperties.getIndexNames()
+                .forEach(indexName -> indexNames.putIfAbsent(indexName, configProperties)));
+        indexNameMap = Map.copyOf(indexNames);
     }
 
     /**
@@ -52,6 +59,11 @@ public class KnowledgeBasePropertiesConfiguration {
 
     List<KnowledgeBaseConfigProperties> configs;
 
+    /**
+     * 多路召回的并发与超时配置
+     */
+    private RetrieveProperties retrieve = new RetrieveProperties();
+
     /**
      * 自身静态对象，维持静态调用可用
      */
@@ -63,6 +75,12 @@ public class KnowledgeBasePropertiesConfiguration {
      */
     private static Map<String, KnowledgeBaseConfigProperties> configMap = Map.of();
 
+    /**
+     * 配置项
+     * key: indexName, value: 配置项
+     */
+    private static Map<String, KnowledgeBaseConfigProperties> indexNameMap = Map.of();
+
     /**
      * 应用于实际检索操作的知识库配置对象
      */
@@ -82,6 +100,60 @@ public class KnowledgeBasePropertiesConfiguration {
         return MapUtils.getObject(configMap, scope);
     }
 
+    public static KnowledgeBaseConfigProperties getKnowledgeBaseConfigPropertiesByIndexName(@NotBlank String indexName) {
+        return MapUtils.getObject(indexNameMap, indexName);
+    }
+
+    /**
+     * 获取多路召回的并发与超时配置，配置未初始化时返回默认值
+     */
+    public static RetrieveProperties getRetrieveProperties() {
+        if (knowledgeBasePropertiesConfiguration == null || knowledgeBasePropertiesConfiguration.retrieve == null) {
+            return DEFAULT_RETRIEVE_PROPERTIES;
+        }
+        return knowledgeBasePropertiesConfiguration.retrieve;
+    }
+
+    private static final RetrieveProperties DEFAULT_RETRIEVE_PROPERTIES = new RetrieveProperties();
+
+    /**
+     * 多路召回执行配置
+     */
+    @Setter
+    @Getter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class RetrieveProperties {
+        /**
+         * 单个业务空间（workspace）同时进行的最大检索请求数
+         */
+        private int maxConcurrencyPerWorkspace = 4;
+        /**
+         * 单个知识库检索的超时时间，可在 DashScopeDocumentWrapper 中按知识库覆盖
+         */
+        private Duration indexTimeout = Duration.ofSeconds(5);
+        /**
+         * 整个多路召回请求的超时时间，超时未返回的知识库将被取消并在结果中上报
+         */
+        private Duration requestTimeout = Duration.ofSeconds(8);
+        /**
+         * 知识库检索客户端的空闲时间，超过后从客户端注册表中移除
+         */
+        private Duration clientIdleTimeout = Duration.ofMinutes(10);
+        /**
+         * 单个知识库检索客户端最多缓存的检索器数量（按检索参数区分），超出时淘汰最久未使用的
+         */
+        private int maxRetrieversPerClient = 16;
+        /**
+         * 多路召回合并后保留的文档数量
+         */
+        private int mergeTopK = 10;
+        /**
+         * 合并前是否在每个知识库内对分值做归一化，不同知识库的分值分布不同，直接比较会偏向高分值的知识库
+         */
+        private boolean normalizeScore = true;
+    }
+
     /**
      * 知识库配置 yaml 文件映射类
      */
@@ -1,6 +1,7 @@
 package com.alibaba.cloud.ai.rag.parallel.controller;
 
 import com.alibaba.cloud.ai.rag.parallel.model.KnowledgeBaseDocument;
+import com.alibaba.cloud.ai.rag.parallel.retrieve.KnowledgeBaseClientRegistry;
 import com.alibaba.cloud.ai.rag.parallel.retrieve.KnowledgeBaseRetrieveProcess;
 import com.alibaba.fastjson2.JSON;
 import org.springframework.ai.chat.client.ChatClient;
@@ -74,6 +75,14 @@ public class TestRagParallelController {
         System.out.print("\n".repeat(5));
     }
 
+    /**
+     * 知识库检索客户端注册表的命中与淘汰统计
+     */
+    @GetMapping(path = "/clientStats")
+    public KnowledgeBaseClientRegistry.Stats clientStats() {
+        return KnowledgeBaseClientRegistry.stats();
+    }
+
     @GetMapping(path = "/advisor")
     public void advisor(@RequestParam String question) {
         String separator = AnsiOutput.toString(AnsiColor.BRIGHT_GREEN, "==============================方式三",
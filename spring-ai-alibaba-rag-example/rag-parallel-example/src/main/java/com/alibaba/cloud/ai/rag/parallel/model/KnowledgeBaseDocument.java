@@ -22,6 +22,10 @@ public class KnowledgeBaseDocument extends Document {
     private String indexName;
     private Double score;
     private Double rerankScore;
+    /**
+     * 知识库内归一化后的分值，用于多路召回结果的跨知识库排序
+     */
+    private double normalizedScore;
     private Boolean structure = false;
 
     public KnowledgeBaseDocument(String content) {
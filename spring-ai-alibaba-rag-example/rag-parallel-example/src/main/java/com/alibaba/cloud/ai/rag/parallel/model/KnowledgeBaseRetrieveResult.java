@@ -0,0 +1,27 @@
+package com.alibaba.cloud.ai.rag.parallel.model;
+
+import java.util.List;
+
+/**
+ * @Description 多路召回结果：包含按时返回的知识库文档，以及超时和失败的知识库名称
+ * @CreateTime 2026/2/5 10:20
+ *
+ * @param documents      按时返回的知识库文档，已合并去重并按分值降序排列
+ * @param timeoutIndexes 超过截止时间而被取消的知识库
+ * @param failedIndexes  检索失败（重试后仍异常）的知识库
+ */
+public record KnowledgeBaseRetrieveResult(List<KnowledgeBaseDocument> documents,
+                                          List<String> timeoutIndexes,
+                                          List<String> failedIndexes) {
+
+    public static KnowledgeBaseRetrieveResult empty() {
+        return new KnowledgeBaseRetrieveResult(List.of(), List.of(), List.of());
+    }
+
+    /**
+     * 是否所有知识库都按时返回
+     */
+    public boolean isComplete() {
+        return timeoutIndexes.isEmpty() && failedIndexes.isEmpty();
+    }
+}
@@ -0,0 +1,159 @@
+package com.alibaba.cloud.ai.rag.parallel.retrieve;
+
+import com.alibaba.cloud.ai.dashscope.api.DashScopeApi;
+import com.alibaba.cloud.ai.dashscope.rag.DashScopeDocumentRetriever;
+import com.alibaba.cloud.ai.dashscope.rag.DashScopeDocumentRetrieverOptions;
+import com.alibaba.cloud.ai.rag.parallel.config.KnowledgeBasePropertiesConfiguration;
+import com.alibaba.fastjson2.JSON;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @Description 知识库检索客户端注册表：按 (apiKey, baseUrl, workspaceId, indexName) 复用 DashScopeApi 与 DashScopeDocumentRetriever，
+ * 所有客户端共享同一个 JDK HttpClient，连接保持长连接复用，避免每次检索都重新建立 TLS 连接；空闲超时的条目会被惰性清理
+ * @CreateTime 2026/2/6 14:05
+ */
+public final class KnowledgeBaseClientRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(KnowledgeBaseClientRegistry.class);
+
+    /**
+     * 共享的 HTTP 客户端，JDK HttpClient 内部维护连接池并默认开启 keep-alive
+     */
+    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+
+    private static final ConcurrentMap<ClientKey, ClientEntry> CLIENTS = new ConcurrentHashMap<>();
+
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+    private static final AtomicLong EVICTIONS = new AtomicLong();
+
+    private static volatile long lastSweepNanos = System.nanoTime();
+
+    private KnowledgeBaseClientRegistry() {
+    }
+
+    /**
+     * 获取知识库对应的检索器，不存在时创建，检索参数不同时在同一个 DashScopeApi 上创建新的检索器，
+     * 每个客户端最多缓存 maxRetrieversPerClient 个检索器，超出时淘汰最久未使用的
+     *
+     * @param config  知识库配置
+     * @param options 检索参数
+     *
+     * @return {@link DashScopeDocumentRetriever }
+     */
+    public static DashScopeDocumentRetriever getRetriever(KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfig config,
+                                                          DashScopeDocumentRetrieverOptions options) {
+        evictIdleIfNecessary();
+        ClientKey key = new ClientKey(config.getApiKey(), config.getBaseUrl(), config.getWorkspaceId(), config.getIndexName());
+        ClientEntry entry = CLIENTS.get(key);
+        if (entry == null) {
+            entry = CLIENTS.computeIfAbsent(key, k -> {
+                MISSES.incrementAndGet();
+                logger.info("创建知识库检索客户端，知识库：【{}，workspaceId: {}】", k.indexName(), k.workspaceId());
+                return new ClientEntry(buildDashScopeApi(k));
+            });
+        }
+        else {
+            HITS.incrementAndGet();
+        }
+        entry.touch();
+        return entry.getRetriever(options);
+    }
+
+    /**
+     * 客户端注册表的统计信息
+     */
+    public static Stats stats() {
+        return new Stats(CLIENTS.size(), HITS.get(), MISSES.get(), EVICTIONS.get());
+    }
+
+    private static DashScopeApi buildDashScopeApi(ClientKey key) {
+        RestClient.Builder restClientBuilder = RestClient.builder()
+                .requestFactory(new JdkClientHttpRequestFactory(HTTP_CLIENT));
+        return DashScopeApi.builder()
+                .apiKey(key.apiKey())
+                .baseUrl(key.baseUrl())
+                .workSpaceId(key.workspaceId())
+                .restClientBuilder(restClientBuilder)
+                .build();
+    }
+
+    private static void evictIdleIfNecessary() {
+        long idleTimeoutNanos = KnowledgeBasePropertiesConfiguration.getRetrieveProperties().getClientIdleTimeout().toNanos();
+        long now = System.nanoTime();
+        // 清理间隔取空闲超时的一半，避免每次获取都遍历
+        if (now - lastSweepNanos < idleTimeoutNanos / 2) {
+            return;
+        }
+        lastSweepNanos = now;
+        for (Map.Entry<ClientKey, ClientEntry> entry : CLIENTS.entrySet()) {
+            if (now - entry.getValue().lastAccessNanos > idleTimeoutNanos && CLIENTS.remove(entry.getKey(), entry.getValue())) {
+                EVICTIONS.incrementAndGet();
+                logger.info("移除空闲的知识库检索客户端，知识库：【{}，workspaceId: {}】", entry.getKey().indexName(),
+                        entry.getKey().workspaceId());
+            }
+        }
+    }
+
+    private record ClientKey(String apiKey, String baseUrl, String workspaceId, String indexName) {
+        @Override
+        public String toString() {
+            // 避免 apiKey 出现在日志中
+            return "ClientKey[baseUrl=" + baseUrl + ", workspaceId=" + workspaceId + ", indexName=" + indexName + "]";
+        }
+    }
+
+    private static final class ClientEntry {
+        private final DashScopeApi dashScopeApi;
+        /**
+         * key: 检索参数的 JSON, value: 检索器；按访问顺序排列，超出上限时淘汰最久未使用的，访问需持有自身的锁
+         */
+        private final Map<String, DashScopeDocumentRetriever> retrievers;
+        private volatile long lastAccessNanos = System.nanoTime();
+
+        private ClientEntry(DashScopeApi dashScopeApi) {
+            this.dashScopeApi = dashScopeApi;
+            int maxRetrievers = Math.max(1,
+                    KnowledgeBasePropertiesConfiguration.getRetrieveProperties().getMaxRetrieversPerClient());
+            this.retrievers = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, DashScopeDocumentRetriever> eldest) {
+                    return size() > maxRetrievers;
+                }
+            };
+        }
+
+        private DashScopeDocumentRetriever getRetriever(DashScopeDocumentRetrieverOptions options) {
+            String json = JSON.toJSONString(options);
+            synchronized (retrievers) {
+                return retrievers.computeIfAbsent(json, k -> new DashScopeDocumentRetriever(dashScopeApi, options));
+            }
+        }
+
+        private void touch() {
+            this.lastAccessNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * @param size             当前缓存的客户端数量
+     * @param hits             命中次数
+     * @param misses           未命中（新建客户端）次数
+     * @param evictions        因空闲被移除的次数
+     */
+    public record Stats(int size, long hits, long misses, long evictions) {
+    }
+}
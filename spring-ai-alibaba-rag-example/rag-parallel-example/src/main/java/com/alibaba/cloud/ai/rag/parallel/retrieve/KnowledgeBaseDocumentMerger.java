@@ -0,0 +1,142 @@
+package com.alibaba.cloud.ai.rag.parallel.retrieve;
+
+import com.alibaba.cloud.ai.rag.parallel.model.KnowledgeBaseDocument;
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+/**
+ * @Description 多路召回结果的流式合并：每个知识库返回后立即合并，分值先在知识库内归一化，
+ * 再通过容量为 topK 的小顶堆保留全局最高分的文档，并按文档ID/内容哈希去重。
+ * 内存占用只与 topK 有关，与知识库数量无关。非线程安全，仅在召回的汇总线程中使用
+ * @CreateTime 2026/2/6 16:30
+ */
+public class KnowledgeBaseDocumentMerger {
+
+    private static final Comparator<KnowledgeBaseDocument> BY_NORMALIZED_SCORE = Comparator
+            .comparingDouble(KnowledgeBaseDocument::getNormalizedScore);
+
+    private final int topK;
+
+    private final boolean normalize;
+
+    /**
+     * 小顶堆，堆顶为当前保留的最低分文档
+     */
+    private final PriorityQueue<KnowledgeBaseDocument> heap;
+
+    /**
+     * key: 去重键, value: 堆中对应的文档
+     */
+    private final Map<String, KnowledgeBaseDocument> retained = new HashMap<>();
+
+    public KnowledgeBaseDocumentMerger(int topK, boolean normalize) {
+        this.topK = Math.max(1, topK);
+        this.normalize = normalize;
+        this.heap = new PriorityQueue<>(this.topK + 1, BY_NORMALIZED_SCORE);
+    }
+
+    /**
+     * 合并一个知识库的召回结果
+     *
+     * @param documents 单个知识库返回的文档
+     */
+    public void merge(List<KnowledgeBaseDocument> documents) {
+        if (documents == null || documents.isEmpty()) {
+            return;
+        }
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        for (KnowledgeBaseDocument document : documents) {
+            double score = scoreOf(document);
+            min = Math.min(min, score);
+            max = Math.max(max, score);
+        }
+        double range = max - min;
+        for (KnowledgeBaseDocument document : documents) {
+            double score = scoreOf(document);
+            // 单个知识库只返回一条或分值相同时，视为该知识库内的最佳结果
+            document.setNormalizedScore(!normalize ? score : range > 0 ? (score - min) / range : 1.0d);
+            offer(document);
+        }
+    }
+
+    /**
+     * @return 按归一化分值降序排列的合并结果
+     */
+    public List<KnowledgeBaseDocument> result() {
+        List<KnowledgeBaseDocument> result = new ArrayList<>(heap);
+        result.sort(BY_NORMALIZED_SCORE.reversed());
+        return result;
+    }
+
+    private void offer(KnowledgeBaseDocument document) {
+        String key = dedupeKey(document);
+        KnowledgeBaseDocument existing = retained.get(key);
+        if (existing != null) {
+            if (existing.getNormalizedScore() >= document.getNormalizedScore()) {
+                return;
+            }
+            removeByIdentity(existing);
+            retained.remove(key);
+        }
+        else if (heap.size() >= topK) {
+            KnowledgeBaseDocument lowest = heap.peek();
+            if (lowest.getNormalizedScore() >= document.getNormalizedScore()) {
+                return;
+            }
+            heap.poll();
+            retained.remove(dedupeKey(lowest));
+        }
+        heap.offer(document);
+        retained.put(key, document);
+    }
+
+    /**
+     * KnowledgeBaseDocument 的 equals 不包含ID和文本，{@link PriorityQueue#remove(Object)} 可能移除同分的其他文档，
+     * 这里按引用移除，保证堆与去重表一致
+     */
+    private void removeByIdentity(KnowledgeBaseDocument document) {
+        Iterator<KnowledgeBaseDocument> iterator = heap.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() == document) {
+                iterator.remove();
+                return;
+            }
+        }
+    }
+
+    private static double scoreOf(KnowledgeBaseDocument document) {
+        return Objects.requireNonNullElse(document.getScore(), 0d);
+    }
+
+    /**
+     * 有文本时按内容哈希去重（同一片段可能被多个知识库收录），否则按文档ID去重
+     */
+    private static String dedupeKey(KnowledgeBaseDocument document) {
+        if (StringUtils.isNotBlank(document.getText())) {
+            return "content:" + sha256(document.getText());
+        }
+        return "id:" + document.getId();
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.alibaba.cloud.ai.rag.parallel.retrieve;
+
+import com.alibaba.cloud.ai.rag.parallel.config.KnowledgeBasePropertiesConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Description 知识库检索专用执行器：检索调用均为阻塞的 HTTP 请求（含重试等待），不能占用 ForkJoinPool.commonPool()，
+ * 运行时支持虚拟线程（JDK 21+）时使用虚拟线程，否则退化为守护线程的平台线程池；同时按 workspace 限制并发数
+ * @CreateTime 2026/2/5 10:12
+ */
+public final class KnowledgeBaseRetrieveExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(KnowledgeBaseRetrieveExecutor.class);
+
+    private static final ExecutorService EXECUTOR = createExecutor();
+
+    /**
+     * key: workspaceId, value: 该业务空间的并发许可
+     */
+    private static final Map<String, Semaphore> WORKSPACE_PERMITS = new ConcurrentHashMap<>();
+
+    private KnowledgeBaseRetrieveExecutor() {
+    }
+
+    /**
+     * 提交一个检索任务，任务在获取到所属 workspace 的并发许可后才会真正执行
+     *
+     * @param workspaceId 业务空间ID
+     * @param task        检索任务
+     *
+     * @return {@link Future } 可通过 cancel(true) 中断仍在等待或执行中的任务
+     */
+    public static <T> Future<T> submit(String workspaceId, Callable<T> task) {
+        return EXECUTOR.submit(withPermit(workspaceId, task));
+    }
+
+    /**
+     * 创建一个基于检索执行器的 CompletionService，任务完成后即可按完成顺序取出
+     */
+    public static <T> CompletionService<T> newCompletionService() {
+        return new ExecutorCompletionService<>(EXECUTOR);
+    }
+
+    /**
+     * 提交一个检索任务到指定的 CompletionService，同样受所属 workspace 的并发许可限制
+     *
+     * @param completionService 通过 {@link #newCompletionService()} 创建的 CompletionService
+     * @param workspaceId       业务空间ID
+     * @param task              检索任务
+     *
+     * @return {@link Future } 可通过 cancel(true) 中断仍在等待或执行中的任务
+     */
+    public static <T> Future<T> submit(CompletionService<T> completionService, String workspaceId, Callable<T> task) {
+        return completionService.submit(withPermit(workspaceId, task));
+    }
+
+    private static <T> Callable<T> withPermit(String workspaceId, Callable<T> task) {
+        Semaphore permits = WORKSPACE_PERMITS.computeIfAbsent(String.valueOf(workspaceId),
+                key -> new Semaphore(Math.max(1, KnowledgeBasePropertiesConfiguration.getRetrieveProperties()
+                        .getMaxConcurrencyPerWorkspace())));
+        return () -> {
+            permits.acquire();
+            try {
+                return task.call();
+            } finally {
+                permits.release();
+            }
+        };
+    }
+
+    private static ExecutorService createExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            logger.info("知识库检索执行器使用虚拟线程");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            logger.info("当前JDK不支持虚拟线程，知识库检索执行器使用平台线程");
+            AtomicInteger counter = new AtomicInteger();
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "kb-retrieve-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -1,11 +1,11 @@
 package com.alibaba.cloud.ai.rag.parallel.retrieve;
 
-import com.alibaba.cloud.ai.dashscope.api.DashScopeApi;
 import com.alibaba.cloud.ai.dashscope.rag.DashScopeDocumentRetriever;
 import com.alibaba.cloud.ai.dashscope.rag.DashScopeDocumentRetrieverOptions;
 import com.alibaba.cloud.ai.rag.parallel.config.KnowledgeBaseConfigFinder;
 import com.alibaba.cloud.ai.rag.parallel.config.KnowledgeBasePropertiesConfiguration;
 import com.alibaba.cloud.ai.rag.parallel.model.KnowledgeBaseDocument;
+import com.alibaba.cloud.ai.rag.parallel.model.KnowledgeBaseRetrieveResult;
 import com.alibaba.fastjson2.JSON;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
@@ -19,13 +19,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.postretrieval.document.DocumentPostProcessor;
 import org.springframework.ai.rag.retrieval.search.DocumentRetriever;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -44,6 +46,16 @@ public class KnowledgeBaseRetrieveProcess implements DocumentRetriever {
      */
     private List<DashScopeDocumentWrapper> documentRetrievers = new ArrayList<>();
 
+    /**
+     * 合并后保留的文档数量，为空时使用 knowledge-base.retrieve.merge-top-k
+     */
+    private Integer topK;
+
+    /**
+     * 对合并后的候选文档进行批量 rerank 的处理器，例如 DashScopeRerankPostProcessor，为空时不进行 rerank
+     */
+    private DocumentPostProcessor rerankProcessor;
+
     public void setDocumentRetriever(List<DashScopeDocumentWrapper> documentRetrievers) {
         // 创建不可变列表，防止并发修改
         this.documentRetrievers = Optional.ofNullable(documentRetrievers)
@@ -64,6 +76,8 @@ public class KnowledgeBaseRetrieveProcess implements DocumentRetriever {
      */
     public static class ConfigurableRetrieverBuilder {
         private final List<DashScopeDocumentWrapper> documentRetrievers = new ArrayList<>();
+        private Integer topK;
+        private DocumentPostProcessor rerankProcessor;
 
         public ConfigurableRetrieverBuilder retrievers(List<DashScopeDocumentWrapper> documentRetrievers) {
             this.documentRetrievers.addAll(Optional.ofNullable(documentRetrievers).orElseGet(ArrayList::new));
@@ -80,12 +94,24 @@ public class KnowledgeBaseRetrieveProcess implements DocumentRetriever {
             return this;
         }
 
+        public ConfigurableRetrieverBuilder topK(int topK) {
+            this.topK = topK;
+            return this;
+        }
+
+        public ConfigurableRetrieverBuilder rerank(DocumentPostProcessor rerankProcessor) {
+            this.rerankProcessor = rerankProcessor;
+            return this;
+        }
+
         /**
          * 构建配置好的 KnowledgeBaseProcess 实例
          */
         public KnowledgeBaseRetrieveProcess build() {
             KnowledgeBaseRetrieveProcess process = new KnowledgeBaseRetrieveProcess();
             process.setDocumentRetriever(this.documentRetrievers);
+            process.topK = this.topK;
+            process.rerankProcessor = this.rerankProcessor;
             return process;  // 直接返回 KnowledgeBaseProcess，不使用匿名类
         }
     }
@@ -123,31 +149,112 @@ public class KnowledgeBaseRetrieveProcess implements DocumentRetriever {
      * @return {@link List }<{@link KnowledgeBaseDocument }>
      */
     public List<KnowledgeBaseDocument> retrieveByParallelThread(Query query) {
+        KnowledgeBaseRetrieveResult result = retrieveWithReport(query);
+        if (!result.isComplete()) {
+            logger.warn("知识库多路召回部分返回，超时知识库：{}，失败知识库：{}", result.timeoutIndexes(), result.failedIndexes());
+        }
+        return result.documents();
+    }
+
+    /**
+     * 多线程获取知识库召回，每个知识库有独立的截止时间，整个请求另有总截止时间，
+     * 超时的知识库会被取消，返回按时完成的结果并上报超时/失败的知识库。
+     * 各知识库的结果按完成顺序流式合并为全局 topK，配置了 rerank 时再对合并结果做一次批量 rerank
+     *
+     * @param query 召回的参数
+     *
+     * @return {@link KnowledgeBaseRetrieveResult }
+     */
+    public KnowledgeBaseRetrieveResult retrieveWithReport(Query query) {
         // documentRetrievers 已是不可变列表，直接使用即可
         List<WrapperAndConfig> wrapperAndConfigs = buildQueryWrapperAndConfigs(this.documentRetrievers);
-        if (CollectionUtils.isNotEmpty(wrapperAndConfigs)) {
-            // 构建 LLM 接入鉴权参数以及地址
-            List<CompletableFuture<List<KnowledgeBaseDocument>>> list = wrapperAndConfigs.stream()
-                    .map(wrapper -> CompletableFuture.supplyAsync(() -> getKnowledgeBaseDocuments(query, wrapper), ForkJoinPool.commonPool())
-                            .exceptionallyAsync(throwable -> {
-                                logger.error("知识库召回异常：{},知识库：{},异常信息: ", wrapper.config.getIndexName(), throwable.getMessage(),
-                                        throwable);
-                                throw new RuntimeException("知识库召回异常");
-                            }, ForkJoinPool.commonPool()))
-                    .toList();
-            CompletableFuture.allOf(list.toArray(new CompletableFuture[0])).join();
-            return list.stream().map(cf -> {
+        if (CollectionUtils.isEmpty(wrapperAndConfigs)) {
+            return KnowledgeBaseRetrieveResult.empty();
+        }
+        KnowledgeBasePropertiesConfiguration.RetrieveProperties retrieveProperties = KnowledgeBasePropertiesConfiguration.getRetrieveProperties();
+        long start = System.nanoTime();
+        long requestDeadline = start + retrieveProperties.getRequestTimeout().toNanos();
+        CompletionService<List<KnowledgeBaseDocument>> completionService = KnowledgeBaseRetrieveExecutor.newCompletionService();
+        // key: 尚未完成的任务, value: 对应的知识库名称与截止时间
+        Map<Future<List<KnowledgeBaseDocument>>, PendingIndex> pending = new HashMap<>();
+        for (WrapperAndConfig wrapperAndConfig : wrapperAndConfigs) {
+            Duration indexTimeout = Optional.ofNullable(wrapperAndConfig.timeout()).orElse(retrieveProperties.getIndexTimeout());
+            long deadline = Math.min(start + indexTimeout.toNanos(), requestDeadline);
+            pending.put(KnowledgeBaseRetrieveExecutor.submit(completionService, wrapperAndConfig.config().getWorkspaceId(),
+                            () -> getKnowledgeBaseDocuments(query, wrapperAndConfig, deadline)),
+                    new PendingIndex(wrapperAndConfig.config().getIndexName(), deadline));
+        }
+
+        // 按完成顺序合并，先返回的知识库先进入 topK 堆，不保留每个知识库的完整结果
+        KnowledgeBaseDocumentMerger merger = new KnowledgeBaseDocumentMerger(
+                Optional.ofNullable(this.topK).orElse(retrieveProperties.getMergeTopK()), retrieveProperties.isNormalizeScore());
+        List<String> timeoutIndexes = new ArrayList<>();
+        List<String> failedIndexes = new ArrayList<>();
+        try {
+            while (!pending.isEmpty()) {
+                long earliestDeadline = pending.values().stream().mapToLong(PendingIndex::deadline).min().getAsLong();
+                Future<List<KnowledgeBaseDocument>> done = completionService.poll(
+                        Math.max(0L, earliestDeadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    cancelExpired(pending, timeoutIndexes);
+                    continue;
+                }
+                PendingIndex pendingIndex = pending.remove(done);
+                // 已因超时取消的任务也会进入完成队列，直接忽略
+                if (pendingIndex == null) {
+                    continue;
+                }
                 try {
-                    return cf.get();
-                } catch (InterruptedException | ExecutionException e) {
-                    throw new RuntimeException(e.getMessage());
+                    merger.merge(done.get());
+                } catch (ExecutionException e) {
+                    failedIndexes.add(pendingIndex.indexName());
+                    logger.error("知识库召回异常,知识库：{},异常信息: {}", pendingIndex.indexName(), e.getCause().getMessage(), e.getCause());
                 }
-            }).filter(Objects::nonNull).flatMap(List::stream).toList();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.keySet().forEach(f -> f.cancel(true));
+            throw new RuntimeException("知识库召回过程中线程被中断", e);
+        }
+        return new KnowledgeBaseRetrieveResult(rerank(query, merger.result()), timeoutIndexes, failedIndexes);
+    }
 
-            //在召回完成之后，可以再次全量rerank
+    private static void cancelExpired(Map<Future<List<KnowledgeBaseDocument>>, PendingIndex> pending, List<String> timeoutIndexes) {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Future<List<KnowledgeBaseDocument>>, PendingIndex>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Future<List<KnowledgeBaseDocument>>, PendingIndex> entry = iterator.next();
+            if (entry.getValue().deadline() - now <= 0) {
+                entry.getKey().cancel(true);
+                timeoutIndexes.add(entry.getValue().indexName());
+                logger.warn("知识库[{}]检索超时，已取消", entry.getValue().indexName());
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * 对合并后的候选文档进行一次批量 rerank，未配置 rerank 或 rerank 失败时保持合并后的顺序
+     */
+    private List<KnowledgeBaseDocument> rerank(Query query, List<KnowledgeBaseDocument> merged) {
+        if (this.rerankProcessor == null || merged.size() <= 1) {
+            return merged;
         }
-        else {
-            return new ArrayList<>();
+        try {
+            Map<String, KnowledgeBaseDocument> byId = new HashMap<>();
+            merged.forEach(document -> byId.putIfAbsent(document.getId(), document));
+            List<KnowledgeBaseDocument> reranked = new ArrayList<>(merged.size());
+            for (Document document : this.rerankProcessor.process(query, new ArrayList<>(merged))) {
+                KnowledgeBaseDocument knowledgeBaseDocument = byId.remove(document.getId());
+                if (knowledgeBaseDocument != null) {
+                    knowledgeBaseDocument.setRerankScore(document.getScore());
+                    reranked.add(knowledgeBaseDocument);
+                }
+            }
+            return reranked;
+        } catch (Exception e) {
+            logger.error("知识库多路召回结果rerank失败，使用合并后的排序，异常信息: {}", e.getMessage(), e);
+            return merged;
         }
     }
 
@@ -156,29 +263,27 @@ public class KnowledgeBaseRetrieveProcess implements DocumentRetriever {
      *
      * @param query            问题
      * @param wrapperAndConfig 知识库检索的参数和知识库的配置
+     * @param deadline         截止时间（System.nanoTime()），超过后不再重试
      *
      * @return {@link List }<{@link KnowledgeBaseDocument }>
      */// *
     @NotNull
     private static List<KnowledgeBaseDocument> getKnowledgeBaseDocuments(Query query,
-                                                                         WrapperAndConfig wrapperAndConfig) {
+                                                                         WrapperAndConfig wrapperAndConfig,
+                                                                         long deadline) {
         KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfig directIndexConfig = wrapperAndConfig.config;
-        DashScopeDocumentRetrieverOptions options = wrapperAndConfig.options;
+        // 同一个 wrapper 的参数会被多个知识库并发使用，且检索器会被缓存，这里复制一份再设置知识库名称
+        DashScopeDocumentRetrieverOptions options = JSON.parseObject(JSON.toJSONString(wrapperAndConfig.options),
+                DashScopeDocumentRetrieverOptions.class);
         String indexName = directIndexConfig.getIndexName();
-        String workspaceId = directIndexConfig.getWorkspaceId();
-        // 召回的知识库数据和参数构建
-        DashScopeApi dashScopeApi = DashScopeApi.builder()
-                .apiKey(directIndexConfig.getApiKey())
-                .baseUrl(directIndexConfig.getBaseUrl())
-                .workSpaceId(workspaceId)
-                .build();
         options.setIndexName(indexName);
         logger.info("开始知识库检索召回,检索的目标知识库：【{}，workspaceId: {}】，Query：{}，检索参数：{}, rerankModelName:{}", directIndexConfig.getIndexName(),
                 directIndexConfig.getWorkspaceId(), JSON.toJSONString(JSON.toJSONString(query)),
                 JSON.toJSONString(options),
                 JSON.toJSONString(options.getRerankModelName()));
-        DashScopeDocumentRetriever dashScopeDocumentRetriever = new DashScopeDocumentRetriever(dashScopeApi, options);
-        List<Document> retrieve = getDocumentList(query, dashScopeDocumentRetriever, options);
+        // 从注册表复用客户端，避免每次检索都新建 HTTP 连接
+        DashScopeDocumentRetriever dashScopeDocumentRetriever = KnowledgeBaseClientRegistry.getRetriever(directIndexConfig, options);
+        List<Document> retrieve = getDocumentList(query, dashScopeDocumentRetriever, options, deadline);
         // 构造自定义的返回
         return retrieve.stream().map(document -> {
             Double score = Double.valueOf(document.getMetadata().get("_score").toString());
@@ -190,7 +295,8 @@ public class KnowledgeBaseRetrieveProcess implements DocumentRetriever {
         }).toList();
     }
 
-    private static List<Document> getDocumentList(Query query, DashScopeDocumentRetriever dashScopeDocumentRetriever, DashScopeDocumentRetrieverOptions options) {
+    private static List<Document> getDocumentList(Query query, DashScopeDocumentRetriever dashScopeDocumentRetriever,
+                                                  DashScopeDocumentRetrieverOptions options, long deadline) {
         int maxRetries = 3;
         int retryDelay = 1000;
         for (int attempt = 1; attempt <= maxRetries; attempt++) {
@@ -203,13 +309,18 @@ public class KnowledgeBaseRetrieveProcess implements DocumentRetriever {
                 return dashScopeDocumentRetriever.retrieve(query);
             } catch (Exception e) {
                 logger.warn("知识库[{}]检索失败，第[{}]次尝试，错误信息：{}", options.getIndexName(), attempt, e.getMessage());
+                long delayNanos = TimeUnit.MILLISECONDS.toNanos((long) retryDelay * attempt);
+                if (attempt < maxRetries && System.nanoTime() + delayNanos >= deadline) {
+                    logger.error("知识库[{}]检索第[{}]次失败，剩余时间不足以重试", options.getIndexName(), attempt, e);
+                    throw new RuntimeException("知识库[" + options.getIndexName() + "]检索失败：" + e.getMessage(), e);
+                }
                 if (attempt == maxRetries) {
                     logger.error("知识库[{}]检索经过[{}]次重试后仍然失败", options.getIndexName(), maxRetries, e);
                     throw new RuntimeException("知识库[" + options.getIndexName() + "]检索失败：" + e.getMessage(), e);
                 }
 
                 try {
-                    TimeUnit.MILLISECONDS.sleep((long) retryDelay * attempt);
+                    TimeUnit.NANOSECONDS.sleep(delayNanos);
                 } catch (InterruptedException ie) {
                     Thread.currentThread().interrupt();
                     throw new RuntimeException("重试过程中线程被中断", ie);
@@ -239,7 +350,7 @@ public class KnowledgeBaseRetrieveProcess implements DocumentRetriever {
                         .findDirectIndexConfigByIndexNameInDirectScope(wrapper.getScope(), wrapper.getIndexName());
                 Optional.ofNullable(config).ifPresent(directConfig -> {
                     config.setStructure(wrapper.getStructure());
-                    configs.add(new WrapperAndConfig(config, wrapper.getDashScopeDocumentRetrieverOptions()));
+                    configs.add(new WrapperAndConfig(config, wrapper.getDashScopeDocumentRetrieverOptions(), wrapper.getTimeout()));
                 });
             }
             // indexName不空，scope空
@@ -248,7 +359,7 @@ public class KnowledgeBaseRetrieveProcess implements DocumentRetriever {
                         .findDirectIndexConfigByIndexName(wrapper.getIndexName());
                 Optional.ofNullable(config).ifPresent(directConfig -> {
                     config.setStructure(wrapper.getStructure());
-                    configs.add(new WrapperAndConfig(config, wrapper.getDashScopeDocumentRetrieverOptions()));
+                    configs.add(new WrapperAndConfig(config, wrapper.getDashScopeDocumentRetrieverOptions(), wrapper.getTimeout()));
                 });
             }
             // indexName空，scope不空
@@ -259,7 +370,7 @@ public class KnowledgeBaseRetrieveProcess implements DocumentRetriever {
                         .ifPresent(directConfig -> directIndexConfigsByScope.stream()
                                 .map(config -> {
                                     config.setStructure(wrapper.getStructure());
-                                    return new WrapperAndConfig(config, wrapper.getDashScopeDocumentRetrieverOptions());
+                                    return new WrapperAndConfig(config, wrapper.getDashScopeDocumentRetrieverOptions(), wrapper.getTimeout());
                                 })
                                 .forEach(configs::add));
             }
@@ -268,8 +379,12 @@ public class KnowledgeBaseRetrieveProcess implements DocumentRetriever {
     }
 
 
+    private record PendingIndex(String indexName, long deadline) {
+    }
+
     private record WrapperAndConfig(KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfig config,
-                                    DashScopeDocumentRetrieverOptions options) {
+                                    DashScopeDocumentRetrieverOptions options,
+                                    Duration timeout) {
     }
 
     /**
@@ -288,6 +403,10 @@ public class KnowledgeBaseRetrieveProcess implements DocumentRetriever {
         private Boolean structure = false;
         ;
         private DashScopeDocumentRetrieverOptions dashScopeDocumentRetrieverOptions = new DashScopeDocumentRetrieverOptions();
+        /**
+         * 单个知识库的检索超时时间，为空时使用 knowledge-base.retrieve.index-timeout
+         */
+        private Duration timeout;
 
         public void setScope(String scope, String indexName) {
             this.scope = scope;
@@ -332,6 +451,11 @@ public class KnowledgeBaseRetrieveProcess implements DocumentRetriever {
                 return this;
             }
 
+            public DashScopeDocumentWrapper.Builder timeout(Duration timeout) {
+                this.dashScopeDocumentWrapper.setTimeout(timeout);
+                return this;
+            }
+
             public DashScopeDocumentWrapper build() {
                 return this.dashScopeDocumentWrapper;
             }
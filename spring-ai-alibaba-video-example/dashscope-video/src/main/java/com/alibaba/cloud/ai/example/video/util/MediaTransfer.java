@@ -0,0 +1,403 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.video.util;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * 生成的音视频文件的下载与落盘
+ * <ul>
+ *     <li>所有下载共用一个 {@link HttpClient}，复用连接池</li>
+ *     <li>响应体由 HttpClient 直接写入 {@link FileChannel}，不经过应用层缓冲区，内存占用与文件大小无关</li>
+ *     <li>先写入 {@code .part} 临时文件，旁边的 {@code .part.meta} 记录来源 URL 与 ETag/Last-Modified；
+ *     中断后仅当来源相同时才按已下载的长度发送带 If-Range 的 Range 请求续传，完成后原子重命名</li>
+ *     <li>仅对网络错误与 5xx/429 响应按指数退避重试，4xx（如签名过期）直接失败</li>
+ *     <li>流式返回的数据块通过 {@link ChunkWriter} 到达即写盘，不在内存中拼接</li>
+ *     <li>每次传输记录日志，并上报 {@code media.transfer.bytes} 与 {@code media.transfer.duration} 指标，
+ *     两者速率之比即吞吐量</li>
+ * </ul>
+ *
+ * @since 2026/10/17
+ */
+public final class MediaTransfer {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaTransfer.class);
+
+    private static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    private static final Duration RETRY_BACKOFF = Duration.ofSeconds(1);
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(10);
+
+    private static final String META_URL = "url";
+
+    private static final String META_VALIDATOR = "validator";
+
+    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(30))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+
+    private MediaTransfer() {
+    }
+
+    /**
+     * 下载文件，失败时最多重试 3 次，每次从已下载的位置续传
+     *
+     * @param url 文件 URL
+     * @param target 本地保存路径
+     * @return 传输结果
+     * @throws IOException 重试后仍失败或响应为不可重试的状态码时抛出，已下载的部分保留在 {@code .part} 文件中，
+     * 以相同 URL 再次调用会继续续传
+     */
+    public static Transfer download(String url, Path target) throws IOException {
+        return download(url, target, DEFAULT_MAX_ATTEMPTS);
+    }
+
+    public static Transfer download(String url, Path target, int maxAttempts) throws IOException {
+        createParentDirectories(target);
+        Path part = partFile(target);
+        Path meta = metaFile(target);
+        discardStalePart(url, part, meta);
+        long startedAt = System.nanoTime();
+        long resumedFrom = Files.exists(part) ? Files.size(part) : 0;
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                if (attempt > 1) {
+                    // 上一次整包下载中断且服务端没有返回可用的校验值时，meta 已被删除，残留的 .part 不能续传
+                    discardStalePart(url, part, meta);
+                }
+                if (!downloadOnce(url, part, meta)) {
+                    resumedFrom = 0;
+                }
+                break;
+            }
+            catch (IOException e) {
+                if (attempt >= maxAttempts || !isRetryable(e)) {
+                    throw e;
+                }
+                Duration backoff = RETRY_BACKOFF.multipliedBy(1L << (attempt - 1));
+                logger.warn("Download attempt {}/{} failed, {} bytes kept for resuming, retrying in {} ms: {}", attempt,
+                        maxAttempts, Files.exists(part) ? Files.size(part) : 0, backoff.toMillis(), e.getMessage());
+                sleep(backoff);
+            }
+        }
+
+        long size = Files.size(part);
+        moveAtomically(part, target);
+        Files.deleteIfExists(meta);
+        return record("download", new Transfer(target, size - resumedFrom, resumedFrom, System.nanoTime() - startedAt));
+    }
+
+    /**
+     * 打开一个到达即写盘的数据块写入器，{@link ChunkWriter#commit()} 后文件才出现在目标路径
+     */
+    public static ChunkWriter openChunkWriter(Path target) throws IOException {
+        createParentDirectories(target);
+        Path part = partFile(target);
+        return new ChunkWriter(target, part, FileChannel.open(part, CREATE, WRITE, TRUNCATE_EXISTING));
+    }
+
+    /**
+     * 打开一个写入独占临时文件的数据块写入器，适用于并发请求各自生成、用完即删的文件
+     */
+    public static ChunkWriter openTempChunkWriter(String prefix, String suffix) throws IOException {
+        Path temp = Files.createTempFile(prefix, suffix);
+        try {
+            return new ChunkWriter(temp, temp, FileChannel.open(temp, WRITE, TRUNCATE_EXISTING));
+        }
+        catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * @return 是否从已下载的位置续传，服务端返回完整内容时为 false
+     */
+    private static boolean downloadOnce(String url, Path part, Path meta) throws IOException {
+        String validator = Files.exists(part) ? readMeta(meta).getProperty(META_VALIDATOR) : null;
+        // 没有校验值时不续传，服务端返回 200 后覆盖 .part
+        long offset = validator != null ? Files.size(part) : 0;
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(REQUEST_TIMEOUT)
+                .GET();
+        if (offset > 0) {
+            // 续传前已校验来源，If-Range 保证服务端文件变化时返回完整的 200 响应，而不是拼接不同版本的内容
+            request.header("Range", "bytes=" + offset + "-")
+                    .header("If-Range", validator);
+        }
+
+        HttpResponse<Path> response;
+        try {
+            response = HTTP_CLIENT.send(request.build(), info -> {
+                int status = info.statusCode();
+                String contentRange = info.headers().firstValue("Content-Range").orElse("");
+                if (status == 206 && contentRange.startsWith("bytes " + offset + "-")) {
+                    return HttpResponse.BodySubscribers.ofFile(part, CREATE, WRITE, APPEND);
+                }
+                if (status == 200) {
+                    // 服务端不支持 Range 或文件已变化时从头下载，写入前先记录新的来源信息
+                    writeMeta(meta, url, info.headers());
+                    return HttpResponse.BodySubscribers.ofFile(part, CREATE, WRITE, TRUNCATE_EXISTING);
+                }
+                return HttpResponse.BodySubscribers.replacing(null);
+            });
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException interrupted = new InterruptedIOException("Download interrupted");
+            interrupted.initCause(e);
+            throw interrupted;
+        }
+
+        if (response.body() == null) {
+            int status = response.statusCode();
+            if (status == 416 || status == 206) {
+                // 已下载部分与服务端不一致，丢弃后从头下载
+                discardPart(part, meta);
+                throw new HttpStatusException(status, url, true);
+            }
+            throw new HttpStatusException(status, url, status >= 500 || status == 429);
+        }
+        return response.statusCode() == 206;
+    }
+
+    /**
+     * 仅当 {@code .part} 来自同一个 URL 且有可用于 If-Range 的校验值时才续传，否则丢弃
+     */
+    private static void discardStalePart(String url, Path part, Path meta) throws IOException {
+        if (!Files.exists(part)) {
+            Files.deleteIfExists(meta);
+            return;
+        }
+        Properties properties = readMeta(meta);
+        if (!url.equals(properties.getProperty(META_URL)) || properties.getProperty(META_VALIDATOR) == null) {
+            logger.info("Discarding partial download {} from a different or unverifiable source", part);
+            discardPart(part, meta);
+        }
+    }
+
+    private static Properties readMeta(Path meta) {
+        Properties properties = new Properties();
+        if (Files.exists(meta)) {
+            try (Reader reader = Files.newBufferedReader(meta, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+            catch (IOException e) {
+                logger.warn("Failed to read {}: {}", meta, e.getMessage());
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * 记录来源 URL 与强校验值（强 ETag，否则 Last-Modified），没有校验值时不记录，下次不续传
+     */
+    private static void writeMeta(Path meta, String url, HttpHeaders headers) {
+        Optional<String> validator = headers.firstValue("ETag")
+                .filter(etag -> !etag.startsWith("W/"))
+                .or(() -> headers.firstValue("Last-Modified"));
+        try {
+            if (validator.isEmpty()) {
+                Files.deleteIfExists(meta);
+                return;
+            }
+            Properties properties = new Properties();
+            properties.setProperty(META_URL, url);
+            properties.setProperty(META_VALIDATOR, validator.get());
+            try (Writer writer = Files.newBufferedWriter(meta, StandardCharsets.UTF_8)) {
+                properties.store(writer, null);
+            }
+        }
+        catch (IOException e) {
+            logger.warn("Failed to write {}, the download will not be resumable: {}", meta, e.getMessage());
+        }
+    }
+
+    private static void discardPart(Path part, Path meta) throws IOException {
+        Files.deleteIfExists(part);
+        Files.deleteIfExists(meta);
+    }
+
+    private static boolean isRetryable(IOException e) {
+        if (e instanceof InterruptedIOException && Thread.currentThread().isInterrupted()) {
+            return false;
+        }
+        return !(e instanceof HttpStatusException statusException) || statusException.retryable;
+    }
+
+    private static void sleep(Duration duration) throws InterruptedIOException {
+        try {
+            Thread.sleep(duration.toMillis());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException interrupted = new InterruptedIOException("Download interrupted");
+            interrupted.initCause(e);
+            throw interrupted;
+        }
+    }
+
+    private static Transfer record(String type, Transfer transfer) {
+        Metrics.counter("media.transfer.bytes", "type", type).increment(transfer.bytes());
+        Timer.builder("media.transfer.duration")
+                .tag("type", type)
+                .register(Metrics.globalRegistry)
+                .record(transfer.elapsedNanos(), TimeUnit.NANOSECONDS);
+        logger.info("Saved {} ({} bytes in {} ms, {} MB/s{})", transfer.path().toAbsolutePath(), transfer.bytes(),
+                Duration.ofNanos(transfer.elapsedNanos()).toMillis(), String.format("%.2f", transfer.megabytesPerSecond()),
+                transfer.resumedFrom() > 0 ? ", resumed from " + transfer.resumedFrom() : "");
+        return transfer;
+    }
+
+    private static void createParentDirectories(Path target) throws IOException {
+        Path parent = target.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+    }
+
+    private static Path partFile(Path target) {
+        return target.resolveSibling(target.getFileName() + ".part");
+    }
+
+    private static Path metaFile(Path target) {
+        return target.resolveSibling(target.getFileName() + ".part.meta");
+    }
+
+    private static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 单次传输结果
+     *
+     * @param path 保存路径
+     * @param bytes 本次实际传输的字节数，不含续传前已有的部分
+     * @param resumedFrom 续传起始位置，0 表示从头下载
+     * @param elapsedNanos 耗时
+     */
+    public record Transfer(Path path, long bytes, long resumedFrom, long elapsedNanos) {
+
+        public double megabytesPerSecond() {
+            return elapsedNanos == 0 ? 0 : bytes / 1_048_576.0 / (elapsedNanos / 1_000_000_000.0);
+        }
+    }
+
+    /**
+     * 非 2xx 响应
+     */
+    private static final class HttpStatusException extends IOException {
+
+        private final boolean retryable;
+
+        private HttpStatusException(int status, String url, boolean retryable) {
+            super("Unexpected HTTP status " + status + " for " + url);
+            this.retryable = retryable;
+        }
+    }
+
+    /**
+     * 将流式返回的数据块直接写入文件。未提交就关闭时删除临时文件。
+     */
+    public static final class ChunkWriter implements AutoCloseable {
+
+        private final Path target;
+
+        private final Path part;
+
+        private final FileChannel channel;
+
+        private final long startedAt = System.nanoTime();
+
+        private long bytes;
+
+        private boolean committed;
+
+        private ChunkWriter(Path target, Path part, FileChannel channel) {
+            this.target = target;
+            this.part = part;
+            this.channel = channel;
+        }
+
+        public synchronized void write(byte[] chunk) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(chunk);
+            while (buffer.hasRemaining()) {
+                bytes += channel.write(buffer);
+            }
+        }
+
+        public synchronized Transfer commit() throws IOException {
+            channel.close();
+            if (!Objects.equals(part, target)) {
+                moveAtomically(part, target);
+            }
+            committed = true;
+            return record("stream", new Transfer(target, bytes, 0, System.nanoTime() - startedAt));
+        }
+
+        public synchronized long bytesWritten() {
+            return bytes;
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (committed) {
+                return;
+            }
+            channel.close();
+            Files.deleteIfExists(part);
+        }
+    }
+
+}